@@ -95,4 +95,45 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    /**
+     * Пул потоков для пересчёта статистики по магазинам.
+     * <p>
+     * Каждый магазин пересчитывается отдельной задачей в собственной транзакции,
+     * поэтому размер пула ограничивает число одновременно занятых соединений с БД.
+     * </p>
+     *
+     * @return executor для задач пересчёта статистики
+     */
+    @Bean(name = "statsRebuildExecutor")
+    public TaskExecutor statsRebuildExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(10_000); // задачи по всем магазинам ставятся в очередь сразу
+        executor.setThreadNamePrefix("StatsRebuild-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Пул потоков для отправки напоминаний покупателям в Telegram.
+     * <p>
+     * Планировщик ставит в очередь порцию напоминаний и ждёт её завершения,
+     * поэтому очередь вмещает целую порцию, а число потоков ограничивает
+     * количество одновременных запросов к Telegram.
+     * </p>
+     *
+     * @return executor для отправки напоминаний
+     */
+    @Bean(name = "telegramReminderExecutor")
+    public TaskExecutor telegramReminderExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1_000);
+        executor.setThreadNamePrefix("TelegramReminder-");
+        executor.initialize();
+        return executor;
+    }
+}
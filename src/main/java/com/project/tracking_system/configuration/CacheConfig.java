@@ -1,12 +1,17 @@
 package com.project.tracking_system.configuration;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
- * Конфигурация кэширования на основе встроенного ConcurrentMapCacheManager.
+ * Конфигурация кэширования на основе Caffeine.
  * <p>
  * Выделяем отдельный бин, чтобы централизованно управлять кэшем и
  * придерживаться принципа единственной ответственности (SRP).
@@ -15,19 +20,31 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class CacheConfig {
 
+    /** Кэш деталей трека для модального окна, ключ {@code userId:trackId}. */
+    public static final String TRACK_DETAILS_CACHE = "track-details";
+
     /**
      * Создаёт менеджер кэшей приложения.
      * <p>
-     * Пока используется только кэш «track-details», однако при необходимости
-     * конфигурацию можно расширить без изменения существующей логики
-     * (принцип OCP).
+     * Записи ограничены по количеству и времени жизни, статистика обращений
+     * собирается для журнала. Кэш обёрнут в транзакционный прокси: удаление
+     * записи внутри транзакции выполняется после фиксации, поэтому параллельный
+     * запрос не вернёт в кэш данные, прочитанные до коммита.
      * </p>
      *
+     * @param maxSize максимальное количество записей
+     * @param ttl     время жизни записи после помещения в кэш
      * @return менеджер кэшей Spring
      */
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("track-details");
+    public CacheManager cacheManager(@Value("${tracking.track-details-cache.max-size:10000}") long maxSize,
+                                     @Value("${tracking.track-details-cache.ttl:5m}") Duration ttl) {
+        CaffeineCacheManager manager = new CaffeineCacheManager(TRACK_DETAILS_CACHE);
+        manager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        manager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(manager);
     }
 }
-
@@ -9,6 +9,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
@@ -52,6 +54,35 @@ public class SecurityConfiguration {
     @Value("${security.remember-me-key:defaultKey}")
     private String rememberMeKey;
 
+    /**
+     * Отдельная цепочка фильтров для вебхука Telegram.
+     * <p>
+     * Запросы Telegram не несут cookie и сессии, а подлинность проверяется
+     * секретным токеном в контроллере, поэтому цепочка работает без сессий
+     * и CSRF: иначе каждое обновление создавало бы новую HTTP-сессию.
+     * </p>
+     *
+     * @param http объект {@link HttpSecurity} для настройки безопасности
+     * @return цепочка фильтров для {@code /telegram/hook}
+     * @throws Exception при ошибках конфигурации
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain telegramWebhookFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/telegram/hook")
+                .authorizeHttpRequests(authorizeRequests -> authorizeRequests
+                        .requestMatchers(HttpMethod.POST, "/telegram/hook").permitAll()
+                        .anyRequest().denyAll()
+                )
+                .sessionManagement(sessionManagement -> sessionManagement
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                )
+                .csrf(csrf -> csrf.disable())
+                .requestCache(requestCache -> requestCache.disable());
+        return http.build();
+    }
+
     /**
      * Формирует настройки безопасности приложения.
      * <p>
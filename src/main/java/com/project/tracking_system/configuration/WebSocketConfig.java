@@ -1,9 +1,15 @@
 package com.project.tracking_system.configuration;
 
+import com.project.tracking_system.service.websocket.WebSocketMetricsService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.*;
 
 /**
@@ -19,9 +25,49 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      * Список разрешённых источников для WebSocket.
      */
     private final String[] allowedOrigins;
+    /** Предел буфера неотправленных данных одной сессии (байт). */
+    private final int sendBufferSizeLimit;
+    /** Предел времени отправки одного сообщения сессии (мс). */
+    private final int sendTimeLimitMs;
+    /** Максимальный размер входящего сообщения (байт). */
+    private final int messageSizeLimit;
+    /** Интервал heartbeat в обе стороны (мс). */
+    private final long heartbeatMs;
+    private final int inboundPoolSize;
+    private final int outboundPoolSize;
+    /** Ёмкость очередей входящего и исходящего каналов. */
+    private final int channelQueueCapacity;
+    private final WebSocketMetricsService webSocketMetricsService;
 
-    public WebSocketConfig(@Value("${websocket.allowed-origins:*}") String[] allowedOrigins) {
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    public WebSocketConfig(@Value("${websocket.allowed-origins:*}") String[] allowedOrigins,
+                           @Value("${websocket.send-buffer-size-limit:524288}") int sendBufferSizeLimit,
+                           @Value("${websocket.send-time-limit-ms:10000}") int sendTimeLimitMs,
+                           @Value("${websocket.message-size-limit:65536}") int messageSizeLimit,
+                           @Value("${websocket.heartbeat-ms:10000}") long heartbeatMs,
+                           @Value("${websocket.inbound-pool-size:4}") int inboundPoolSize,
+                           @Value("${websocket.outbound-pool-size:8}") int outboundPoolSize,
+                           @Value("${websocket.channel-queue-capacity:10000}") int channelQueueCapacity,
+                           WebSocketMetricsService webSocketMetricsService) {
         this.allowedOrigins = allowedOrigins;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.messageSizeLimit = messageSizeLimit;
+        this.heartbeatMs = heartbeatMs;
+        this.inboundPoolSize = inboundPoolSize;
+        this.outboundPoolSize = outboundPoolSize;
+        this.channelQueueCapacity = channelQueueCapacity;
+        this.webSocketMetricsService = webSocketMetricsService;
+    }
+
+    /**
+     * Планировщик брокера для отправки heartbeat.
+     * Внедряется лениво, так как создаётся той же конфигурацией брокера.
+     */
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler taskScheduler) {
+        this.messageBrokerTaskScheduler = taskScheduler;
     }
 
     /**
@@ -38,14 +84,63 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     /**
      * Настраивает брокер сообщений для WebSocket.
+     * <p>
+     * Брокер обменивается heartbeat с клиентами, чтобы быстро закрывать
+     * оборванные соединения и не копить для них сообщения.
+     * </p>
      *
      * @param registry конфигурация брокера сообщений
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        registry.enableSimpleBroker("/topic")
+                .setHeartbeatValue(new long[]{heartbeatMs, heartbeatMs})
+                .setTaskScheduler(messageBrokerTaskScheduler);
         registry.setApplicationDestinationPrefixes("/app");
         log.debug("✅ WebSocket Broker настроен!");
     }
 
-}
\ No newline at end of file
+    /**
+     * Ограничивает буфер и время отправки для каждой сессии.
+     * <p>
+     * Сессия, которая не успевает принимать сообщения, закрывается
+     * вместо бесконечного накопления данных в памяти сервера.
+     * </p>
+     *
+     * @param registration параметры транспорта WebSocket
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setMessageSizeLimit(messageSizeLimit);
+    }
+
+    /**
+     * Задаёт пул потоков для входящих STOMP-кадров.
+     *
+     * @param registration регистрация входящего канала
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundPoolSize)
+                .maxPoolSize(inboundPoolSize)
+                .queueCapacity(channelQueueCapacity);
+    }
+
+    /**
+     * Задаёт пул потоков для исходящих кадров и подключает сбор метрик.
+     *
+     * @param registration регистрация исходящего канала
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize)
+                .maxPoolSize(outboundPoolSize)
+                .queueCapacity(channelQueueCapacity);
+        registration.interceptors(webSocketMetricsService);
+    }
+
+}
@@ -4,6 +4,7 @@ import com.project.tracking_system.dto.*;
 import com.project.tracking_system.entity.*;
 import com.project.tracking_system.repository.StoreRepository;
 import com.project.tracking_system.service.SubscriptionService;
+import com.project.tracking_system.service.analytics.StatisticsRebuildService;
 import com.project.tracking_system.service.analytics.StatsAggregationService;
 import com.project.tracking_system.service.track.TrackParcelService;
 import com.project.tracking_system.service.user.UserService;
@@ -14,14 +15,18 @@ import com.project.tracking_system.service.admin.SubscriptionPlanService;
 import com.project.tracking_system.service.admin.ApplicationSettingsService;
 import com.project.tracking_system.service.tariff.TariffService;
 import com.project.tracking_system.service.DynamicSchedulerService;
+import com.project.tracking_system.service.websocket.WebSocketMetricsService;
+import com.project.tracking_system.service.telegram.ChatSessionCompactionJob;
+import com.project.tracking_system.service.telegram.TelegramAnnouncementBroadcaster;
+import com.project.tracking_system.service.telegram.TelegramSendGateway;
+import com.project.tracking_system.service.telegram.TelegramUpdateDispatcher;
 import com.project.tracking_system.exception.UserAlreadyExistsException;
 import com.project.tracking_system.utils.EmailUtils;
-import com.project.tracking_system.utils.PaginationItem;
-import com.project.tracking_system.utils.PaginationUtils;
-import com.project.tracking_system.utils.PaginationWindow;
+import com.project.tracking_system.utils.KeysetPage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -54,17 +59,18 @@ public class AdminController {
     private final SubscriptionPlanService subscriptionPlanService;
     private final StoreRepository storeRepository;
     private final StatsAggregationService statsAggregationService;
+    private final StatisticsRebuildService statisticsRebuildService;
     private final AdminService adminService;
     private final AdminNotificationService adminNotificationService;
     private final AppInfoService appInfoService;
     private final DynamicSchedulerService dynamicSchedulerService;
     private final TariffService tariffService;
     private final ApplicationSettingsService applicationSettingsService;
-
-    /**
-     * Ограничение количества отображаемых ссылок пагинации для компактности.
-     */
-    private static final int PAGE_WINDOW = 5;
+    private final WebSocketMetricsService webSocketMetricsService;
+    private final TelegramUpdateDispatcher telegramUpdateDispatcher;
+    private final TelegramSendGateway telegramSendGateway;
+    private final TelegramAnnouncementBroadcaster telegramAnnouncementBroadcaster;
+    private final ChatSessionCompactionJob chatSessionCompactionJob;
 
     /**
      * Отображает дашборд администратора.
@@ -207,7 +213,7 @@ public class AdminController {
      */
     @GetMapping("/users/{userId}")
     public String getUserDetails(@PathVariable Long userId, Model model) {
-        User user = userService.findUserById(userId);
+        User user = userService.findUserWithSubscription(userId);
 
         // Загружаем магазины пользователя
         List<Store> stores = storeRepository.findByOwnerId(userId);
@@ -348,6 +354,80 @@ public class AdminController {
         return "redirect:/admin";
     }
 
+    /**
+     * Запускает полный пересчёт статистики покупателей, магазинов и почтовых служб.
+     * Прогресс отправляется администратору через WebSocket.
+     *
+     * @param user               текущий администратор
+     * @param redirectAttributes атрибуты для сообщения о результате запуска
+     * @return редирект на страницу настроек
+     */
+    @PostMapping("/stats/rebuild")
+    public String rebuildStatistics(@AuthenticationPrincipal User user,
+                                    RedirectAttributes redirectAttributes) {
+        if (statisticsRebuildService.startRebuild(user.getId())) {
+            redirectAttributes.addFlashAttribute("successMessage", "Пересчёт статистики запущен");
+        } else {
+            redirectAttributes.addFlashAttribute("errorMessage", "Пересчёт статистики уже выполняется");
+        }
+        return "redirect:/admin/settings";
+    }
+
+    /**
+     * Экспорт исправлений последнего пересчёта статистики в формате CSV.
+     *
+     * @return CSV-строка с расхождениями
+     */
+    @GetMapping(value = "/stats/rebuild/report", produces = "text/csv")
+    @ResponseBody
+    public String exportRebuildReport() {
+        return statisticsRebuildService.getLastReportCsv();
+    }
+
+    /**
+     * Текущие метрики STOMP-брокера: сессии, подписки, поток кадров и потери.
+     *
+     * @return снимок метрик в формате JSON
+     */
+    @GetMapping(value = "/websocket/metrics", produces = "application/json")
+    @ResponseBody
+    public WebSocketMetricsDTO websocketMetrics() {
+        return webSocketMetricsService.snapshot();
+    }
+
+    /**
+     * Текущие метрики обработки обновлений Telegram-бота: очереди и задержка.
+     *
+     * @return снимок метрик в формате JSON
+     */
+    @GetMapping(value = "/telegram/metrics", produces = "application/json")
+    @ResponseBody
+    public TelegramUpdateMetricsDTO telegramMetrics() {
+        return telegramUpdateDispatcher.snapshot();
+    }
+
+    /**
+     * Текущие метрики исходящих запросов к Telegram: очереди по приоритетам и задержка.
+     *
+     * @return снимок метрик в формате JSON
+     */
+    @GetMapping(value = "/telegram/send-metrics", produces = "application/json")
+    @ResponseBody
+    public TelegramSendMetricsDTO telegramSendMetrics() {
+        return telegramSendGateway.snapshot();
+    }
+
+    /**
+     * История размеров таблиц состояния сессий Telegram-бота по запускам очистки.
+     *
+     * @return замеры таблиц от старых к новым в формате JSON
+     */
+    @GetMapping(value = "/telegram/session-storage", produces = "application/json")
+    @ResponseBody
+    public List<ChatSessionStorageDTO> telegramSessionStorage() {
+        return chatSessionCompactionJob.history();
+    }
+
     /**
      * Отображает статистику по покупателям.
      *
@@ -449,37 +529,27 @@ public class AdminController {
 
     /**
      * Отображает список всех посылок в системе.
+     * <p>
+     * Список листается по курсору без подсчёта страниц, а общее количество
+     * посылок берётся из оценки планировщика.
+     * </p>
      *
-     * @param model модель для передачи данных о посылках
+     * @param cursor курсор страницы или {@code null} для первой страницы
+     * @param size   размер страницы
+     * @param model  модель для передачи данных о посылках
      * @return имя шаблона со списком посылок
      */
     @GetMapping("/parcels")
-    public String parcels(@RequestParam(value = "page", defaultValue = "0") int page,
+    public String parcels(@RequestParam(value = "cursor", required = false) String cursor,
                           @RequestParam(value = "size", defaultValue = "20") int size,
                           Model model) {
-        int requestedPage = Math.max(page, 0);
-
-        // Загружаем посылки постранично
-        org.springframework.data.domain.Page<TrackParcelAdminInfoDTO> parcelPage = adminService.getAllParcels(requestedPage, size);
-
-        int totalPages = parcelPage.getTotalPages();
-        PaginationWindow paginationWindow = PaginationUtils.calculateWindow(requestedPage, totalPages, PAGE_WINDOW);
-
-        if (totalPages > 0 && paginationWindow.currentPage() != parcelPage.getNumber()) {
-            // Повторно запрашиваем данные, если пользователь запросил страницу вне диапазона
-            parcelPage = adminService.getAllParcels(paginationWindow.currentPage(), size);
-            totalPages = parcelPage.getTotalPages();
-            paginationWindow = PaginationUtils.calculateWindow(paginationWindow.currentPage(), totalPages, PAGE_WINDOW);
-        }
-
-        List<PaginationItem> paginationItems = paginationWindow.paginationItems();
+        // Загружаем посылки по ключу
+        KeysetPage<TrackParcelAdminInfoDTO> parcelPage = adminService.getAllParcels(cursor, size);
 
-        model.addAttribute("parcels", parcelPage.getContent());
-        model.addAttribute("currentPage", paginationWindow.currentPage());
-        model.addAttribute("totalPages", totalPages);
-        model.addAttribute("startPage", paginationWindow.startPage());
-        model.addAttribute("endPage", paginationWindow.endPage());
-        model.addAttribute("paginationItems", paginationItems);
+        model.addAttribute("parcels", parcelPage.content());
+        model.addAttribute("nextCursor", parcelPage.nextCursor());
+        model.addAttribute("previousCursor", parcelPage.previousCursor());
+        model.addAttribute("parcelCountEstimate", adminService.estimateParcelCount());
         model.addAttribute("size", size);
 
         // Хлебные крошки
@@ -588,6 +658,8 @@ public class AdminController {
         model.addAttribute("cacheTtl", applicationSettingsService.getResultCacheExpirationMs());
         // для таблицы тарифов используем DTO с лимитами и признаками функций
         model.addAttribute("plans", tariffService.getAllPlans());
+        model.addAttribute("statsRebuildRunning", statisticsRebuildService.isRunning());
+        model.addAttribute("statsRebuildReport", statisticsRebuildService.getLastReport().orElse(null));
 
         // Хлебные крошки
         List<BreadcrumbItemDTO> breadcrumbs = List.of(
@@ -774,6 +846,7 @@ public class AdminController {
         List<AdminNotification> notifications = adminNotificationService.getHistory();
         model.addAttribute("notifications", notifications);
         model.addAttribute("activeStatus", AdminNotificationStatus.ACTIVE);
+        model.addAttribute("latestBroadcast", telegramAnnouncementBroadcaster.findLatestBroadcast().orElse(null));
         addNotificationBreadcrumbs(model, List.of());
         return "admin/notifications/list";
     }
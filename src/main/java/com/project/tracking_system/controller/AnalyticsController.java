@@ -1,6 +1,7 @@
 package com.project.tracking_system.controller;
 
 import com.project.tracking_system.dto.PostalServiceStatsDTO;
+import com.project.tracking_system.entity.PostalServiceType;
 import com.project.tracking_system.entity.Store;
 import com.project.tracking_system.entity.StoreStatistics;
 import com.project.tracking_system.entity.User;
@@ -246,6 +247,41 @@ public class AnalyticsController {
         );
     }
 
+    /**
+     * Возвращает медиану и 90-й перцентиль времени доставки и ожидания на пункте выдачи
+     * по периодам выбранного интервала.
+     *
+     * @param storeId       идентификатор магазина; если не указан, используются все магазины пользователя
+     * @param postalService почтовая служба; если не указана, учитываются все службы
+     * @param interval      интервал агрегации (DAYS/WEEKS/MONTHS/YEARS)
+     * @param user          текущий пользователь
+     * @return карта с рядами перцентилей
+     */
+    @GetMapping("/percentiles")
+    @ResponseBody
+    public Map<String, Object> getDeliveryPercentiles(@RequestParam(required = false) Long storeId,
+                                                      @RequestParam(required = false) PostalServiceType postalService,
+                                                      @RequestParam(defaultValue = "WEEKS") String interval,
+                                                      @AuthenticationPrincipal User user) {
+        Long userId = user.getId();
+        List<Long> storeIds;
+        if (storeId != null) {
+            try {
+                // Проверяем права доступа к магазину
+                storeService.getStore(storeId, userId);
+            } catch (SecurityException ex) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+            }
+            storeIds = List.of(storeId);
+        } else {
+            storeIds = storeService.getUserStores(userId).stream().map(Store::getId).toList();
+        }
+
+        ChronoUnit chrono = ChronoUnit.valueOf(interval.toUpperCase());
+        return storeDashboardDataService.getDeliveryPercentilesChart(
+                storeIds, postalService, chrono, ZoneId.of(user.getTimeZone()));
+    }
+
     /**
      * Удаляет всю аналитику пользователя.
      */
@@ -6,7 +6,6 @@ import com.project.tracking_system.entity.Store;
 import com.project.tracking_system.dto.TrackUpdateResponse;
 import com.project.tracking_system.entity.User;
 import com.project.tracking_system.entity.GlobalStatus;
-import com.project.tracking_system.service.track.StatusTrackService;
 import com.project.tracking_system.service.track.TrackParcelService;
 import com.project.tracking_system.service.track.TrackFacade;
 
@@ -28,6 +27,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
+import com.project.tracking_system.utils.KeysetPage;
 import com.project.tracking_system.utils.PaginationItem;
 import com.project.tracking_system.utils.PaginationUtils;
 import com.project.tracking_system.utils.PaginationWindow;
@@ -50,7 +50,6 @@ public class DeparturesController {
 
     private final TrackParcelService trackParcelService;
     private final TrackFacade trackFacade;
-    private final StatusTrackService statusTrackService;
     private final StoreService storeService;
     private final WebSocketController webSocketController;
     private final UserService userService;
@@ -68,7 +67,8 @@ public class DeparturesController {
      * @param storeId      (опционально) ID магазина, если нужно показать посылки только из одного магазина.
      * @param statusString строковое представление статуса для фильтрации.
      * @param query        строка поиска по номеру посылки или телефону.
-     * @param page         номер страницы для пагинации.
+     * @param page         номер страницы для пагинации поиска и предрегистрации.
+     * @param cursor       курсор страницы основного списка (keyset-пагинация).
      * @param size         размер страницы.
      * @param sortOrder    порядок сортировки по дате (asc/desc).
      * @param model        модель для передачи данных на представление.
@@ -81,6 +81,7 @@ public class DeparturesController {
             @RequestParam(value = "status", required = false) String statusString, // Фильтр по статусу
             @RequestParam(value = "query", required = false) String query, // Поиск по номеру или телефону
             @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "cursor", required = false) String cursor,
             @RequestParam(value = "size", defaultValue = "20") int size,
             @RequestParam(value = "sortOrder", defaultValue = "desc") String sortOrder,
             Model model,
@@ -115,6 +116,20 @@ public class DeparturesController {
         int requestedPage = Math.max(page, 0);
         String normalizedQuery = query != null ? query.trim() : null;
 
+        // Основной список листается по ключу: глубина страницы не влияет на стоимость запроса
+        boolean keysetMode = (normalizedQuery == null || normalizedQuery.isEmpty())
+                && status != GlobalStatus.PRE_REGISTERED;
+        if (keysetMode) {
+            KeysetPage<TrackParcelDTO> keysetPage = trackParcelService.findByStoreTracksKeyset(
+                    filteredStoreIds, status, cursor, size, userId, sortOrder);
+            addListAttributes(model, user, stores, storeId, size, statusString, query, sortOrder,
+                    keysetPage.content(), PaginationUtils.calculateWindow(0, 0, PAGE_WINDOW));
+            model.addAttribute("keyset", true);
+            model.addAttribute("nextCursor", keysetPage.nextCursor());
+            model.addAttribute("previousCursor", keysetPage.previousCursor());
+            return "app/departures";
+        }
+
         // Загружаем посылки с учётом статуса, магазина и параметра поиска
         Page<TrackParcelDTO> trackParcelPage = loadTrackParcelPage(
                 filteredStoreIds, status, normalizedQuery, requestedPage, size, userId, sortOrder);
@@ -132,34 +147,12 @@ public class DeparturesController {
             paginationWindow = PaginationUtils.calculateWindow(paginationWindow.currentPage(), totalPages, PAGE_WINDOW);
         }
 
-        // Добавляем иконки в DTO перед передачей в шаблон
-        trackParcelPage.forEach(dto -> {
-            GlobalStatus statusEnum = GlobalStatus.fromDescription(dto.getStatus()); // Конвертация строки в Enum
-            dto.setIconHtml(statusTrackService.getIcon(statusEnum)); // Передаем Enum в сервис для получения иконки
-        });
-
         log.debug("Передача атрибутов в модель: stores={}, storeId={}, trackParcelDTO={}, currentPage={}, totalPages={}, size={}",
                 stores, storeId, trackParcelPage.getContent(), paginationWindow.currentPage(), totalPages, size);
 
-        List<PaginationItem> paginationItems = paginationWindow.paginationItems();
-
-        // Добавляем атрибуты в модель
-        model.addAttribute("stores", stores);
-        model.addAttribute("storeId", storeId != null ? storeId : ""); // Если null, передаем пустую строку
-        model.addAttribute("size", size);
-        model.addAttribute("trackParcelDTO", trackParcelPage.getContent());
-        model.addAttribute("statusString", statusString);
-        model.addAttribute("query", query);
-        model.addAttribute("currentPage", paginationWindow.currentPage());
-        model.addAttribute("totalPages", totalPages);
-        model.addAttribute("startPage", paginationWindow.startPage());
-        model.addAttribute("endPage", paginationWindow.endPage());
-        model.addAttribute("paginationItems", paginationItems);
-        model.addAttribute("trackParcelNotification", trackParcelPage.isEmpty() ? "Отслеживаемых посылок нет" : null);
-        model.addAttribute("bulkUpdateButtonDTO",
-                new BulkUpdateButtonDTO(userService.isShowBulkUpdateButton(user.getId())));
-        // Передаём текущий порядок сортировки во вью, чтобы отобразить правильную стрелку на кнопке
-        model.addAttribute("sortOrder", sortOrder);
+        addListAttributes(model, user, stores, storeId, size, statusString, query, sortOrder,
+                trackParcelPage.getContent(), paginationWindow);
+        model.addAttribute("keyset", false);
 
         return "app/departures";
     }
@@ -286,7 +279,45 @@ public class DeparturesController {
     }
 
     /**
-     * Загружает страницу отправлений с учётом фильтров, сортировки и поиска.
+     * Заполняет модель атрибутами списка отправлений, общими для обоих режимов пагинации.
+     */
+    private void addListAttributes(Model model,
+                                   User user,
+                                   List<Store> stores,
+                                   Long storeId,
+                                   int size,
+                                   String statusString,
+                                   String query,
+                                   String sortOrder,
+                                   List<TrackParcelDTO> parcels,
+                                   PaginationWindow paginationWindow) {
+        List<PaginationItem> paginationItems = paginationWindow.paginationItems();
+
+        // Добавляем атрибуты в модель
+        model.addAttribute("stores", stores);
+        model.addAttribute("storeId", storeId != null ? storeId : ""); // Если null, передаем пустую строку
+        model.addAttribute("size", size);
+        model.addAttribute("trackParcelDTO", parcels);
+        model.addAttribute("statusString", statusString);
+        model.addAttribute("query", query);
+        model.addAttribute("currentPage", paginationWindow.currentPage());
+        model.addAttribute("totalPages", paginationWindow.totalPages());
+        model.addAttribute("startPage", paginationWindow.startPage());
+        model.addAttribute("endPage", paginationWindow.endPage());
+        model.addAttribute("paginationItems", paginationItems);
+        model.addAttribute("trackParcelNotification", parcels.isEmpty() ? "Отслеживаемых посылок нет" : null);
+        model.addAttribute("bulkUpdateButtonDTO",
+                new BulkUpdateButtonDTO(userService.isShowBulkUpdateButton(user.getId())));
+        // Передаём текущий порядок сортировки во вью, чтобы отобразить правильную стрелку на кнопке
+        model.addAttribute("sortOrder", sortOrder);
+    }
+
+    /**
+     * Загружает страницу результатов поиска или предрегистрированных посылок.
+     * <p>
+     * Эти выборки листаются по номеру страницы; основной список отправлений
+     * загружается по ключу через {@link TrackParcelService#findByStoreTracksKeyset}.
+     * </p>
      *
      * @param storeIds  идентификаторы магазинов для фильтрации
      * @param status    глобальный статус посылки
@@ -307,15 +338,7 @@ public class DeparturesController {
         if (query != null && !query.isBlank()) {
             return trackParcelService.searchByNumberPhoneOrName(storeIds, status, query, pageIndex, size, userId, sortOrder);
         }
-
-        if (status != null) {
-            if (status == GlobalStatus.PRE_REGISTERED) {
-                return trackParcelService.findByStoreTracksWithPreRegistered(storeIds, pageIndex, size, userId, sortOrder);
-            }
-            return trackParcelService.findByStoreTracksAndStatus(storeIds, status, pageIndex, size, userId, sortOrder);
-        }
-
-        return trackParcelService.findByStoreTracks(storeIds, pageIndex, size, userId, sortOrder);
+        return trackParcelService.findByStoreTracksWithPreRegistered(storeIds, pageIndex, size, userId, sortOrder);
     }
 
 }
@@ -471,8 +471,9 @@ public class ProfileController {
                                    @AuthenticationPrincipal User user,
                                    Model model) {
         Long userId = user.getId();
-        Store store = storeService.getStore(storeId, userId);
-        model.addAttribute("store", store);
+        model.addAttribute("store", storeService.getUserStoreDto(storeId, userId));
+        model.addAttribute("allowCustomTemplates", subscriptionService.canUseCustomNotifications(userId));
+        model.addAttribute("defaultReminderTemplate", com.project.tracking_system.service.telegram.TelegramNotificationService.DEFAULT_REMINDER_TEMPLATE);
         return "app/profile :: telegramStoreBlock";
     }
 
@@ -5,6 +5,7 @@ import com.project.tracking_system.service.track.ProgressAggregatorService;
 import com.project.tracking_system.service.track.TrackingResultCacheService;
 import com.project.tracking_system.service.track.InvalidTrackCacheService;
 import com.project.tracking_system.service.track.InvalidTrack;
+import com.project.tracking_system.dto.TrackResultsChunkDTO;
 import com.project.tracking_system.dto.TrackStatusUpdateDTO;
 import com.project.tracking_system.utils.ResponseBuilder;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +14,7 @@ import com.project.tracking_system.entity.User;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PostMapping;
 import java.util.List;
@@ -24,6 +26,9 @@ import java.util.List;
 @RestController
 public class ProgressController {
 
+    /** Максимальный размер порции результатов в одном ответе. */
+    private static final int MAX_RESULTS_CHUNK = 2000;
+
     private final ProgressAggregatorService progressAggregatorService;
     private final TrackingResultCacheService trackingResultCacheService;
     private final InvalidTrackCacheService invalidTrackCacheService;
@@ -74,6 +79,32 @@ public class ProgressController {
         return ResponseBuilder.ok(trackingResultCacheService.getLatestResults(user.getId()));
     }
 
+    /**
+     * Возвращает порцию результатов партии после указанного смещения.
+     * <p>
+     * При повторном подключении клиент передаёт {@code after}, равный
+     * {@code nextOffset} предыдущего ответа, и получает только новые строки.
+     * Без {@code batchId} используется последняя партия пользователя.
+     * </p>
+     *
+     * @param user    аутентифицированный пользователь
+     * @param batchId идентификатор партии
+     * @param after   количество уже полученных результатов
+     * @param limit   максимальный размер порции
+     * @return порция результатов
+     */
+    @GetMapping("/app/results")
+    public ResponseEntity<TrackResultsChunkDTO> getResultsChunk(@AuthenticationPrincipal User user,
+                                                                @RequestParam(value = "batchId", required = false) Long batchId,
+                                                                @RequestParam(value = "after", defaultValue = "0") int after,
+                                                                @RequestParam(value = "limit", defaultValue = "500") int limit) {
+        if (user == null) {
+            return ResponseBuilder.ok(new TrackResultsChunkDTO(null, 0, false, List.of()));
+        }
+        int chunkSize = Math.min(limit, MAX_RESULTS_CHUNK);
+        return ResponseBuilder.ok(trackingResultCacheService.getResultsChunk(user.getId(), batchId, after, chunkSize));
+    }
+
     /**
      * Возвращает сохранённые некорректные строки последней партии пользователя.
      *
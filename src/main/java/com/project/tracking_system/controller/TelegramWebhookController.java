@@ -0,0 +1,49 @@
+package com.project.tracking_system.controller;
+
+import com.project.tracking_system.service.telegram.TelegramWebhookService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Точка приёма обновлений Telegram в режиме вебхука.
+ * <p>
+ * Ответ возвращается сразу после постановки обновления в очередь:
+ * обработка выполняется асинхронно и не задерживает Telegram.
+ * </p>
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "telegram.webhook.enabled", havingValue = "true")
+public class TelegramWebhookController {
+
+    /** Заголовок, в котором Telegram передаёт секрет вебхука. */
+    static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private final TelegramWebhookService telegramWebhookService;
+
+    /**
+     * Принимает обновление Telegram.
+     *
+     * @param secretToken секретный токен из заголовка запроса
+     * @param body        исходное тело запроса
+     * @return 200 для принятых и повторных обновлений, 401 при неверном токене,
+     * 400 для некорректного тела и 503, если очередь обновлений заполнена
+     */
+    @PostMapping("/telegram/hook")
+    public ResponseEntity<Void> receive(@RequestHeader(value = SECRET_HEADER, required = false) String secretToken,
+                                        @RequestBody byte[] body) {
+        HttpStatus status = switch (telegramWebhookService.accept(secretToken, body)) {
+            case ACCEPTED, DUPLICATE -> HttpStatus.OK;
+            case FORBIDDEN -> HttpStatus.UNAUTHORIZED;
+            case MALFORMED -> HttpStatus.BAD_REQUEST;
+            case BUSY -> HttpStatus.SERVICE_UNAVAILABLE;
+        };
+        return ResponseEntity.status(status).build();
+    }
+}
@@ -6,6 +6,7 @@ import com.project.tracking_system.dto.BelPostBatchStartedDTO;
 import com.project.tracking_system.dto.TrackStatusUpdateDTO;
 import com.project.tracking_system.dto.BelPostBatchFinishedDTO;
 import com.project.tracking_system.dto.TrackProcessingProgressDTO;
+import com.project.tracking_system.service.track.ProgressBroadcaster;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -21,6 +22,7 @@ import org.springframework.stereotype.Controller;
 public class WebSocketController {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final ProgressBroadcaster progressBroadcaster;
 
     /**
      * Отправляет текстовое уведомление пользователю через WebSocket.
@@ -76,36 +78,51 @@ public class WebSocketController {
     }
 
     /**
-     * Отправляет информацию о результате обработки одного трека Белпочты.
+     * Ставит в очередь информацию о результате обработки одного трека Белпочты.
+     * <p>
+     * Треки пользователя накапливаются {@link ProgressBroadcaster} и уходят
+     * массивом в канал <code>/topic/belpost/track-processed/{userId}</code>.
+     * </p>
      *
      * @param userId идентификатор пользователя
      * @param dto    информация об обработанном треке
      */
     public void sendBelPostTrackProcessed(Long userId, TrackStatusUpdateDTO dto) {
         log.debug("\uD83D\uDCE1 WebSocket обработан трек {} партии {}: {}", dto.trackingNumber(), dto.batchId(), dto);
-        messagingTemplate.convertAndSend("/topic/belpost/track-processed/" + userId, dto);
+        progressBroadcaster.queueTrackProcessed(userId, dto);
     }
 
     /**
      * Отправляет сообщение о завершении обработки партии треков Белпочты.
+     * <p>
+     * Накопленные события пользователя отправляются перед итоговым сообщением.
+     * </p>
      *
      * @param userId идентификатор пользователя
      * @param dto    финальная статистика по партии, включая время обработки
      */
     public void sendBelPostBatchFinished(Long userId, BelPostBatchFinishedDTO dto) {
         log.debug("\uD83D\uDCE1 WebSocket партия {} завершена для {}: {}", dto.batchId(), userId, dto);
+        progressBroadcaster.flush(userId);
         messagingTemplate.convertAndSend("/topic/belpost/batch-finished/" + userId, dto);
     }
 
     /**
      * Передаёт текущий прогресс обработки партии треков.
+     * <p>
+     * Промежуточные значения объединяются {@link ProgressBroadcaster},
+     * финальное отправляется сразу вместе с накопленными событиями.
+     * </p>
      *
      * @param userId идентификатор пользователя
      * @param dto    данные о прогрессе обработки
      */
     public void sendProgress(Long userId, TrackProcessingProgressDTO dto) {
         log.debug("\uD83D\uDCE1 WebSocket прогресс партии {} для {}: {}", dto.batchId(), userId, dto);
-        messagingTemplate.convertAndSend("/topic/progress/" + userId, dto);
+        progressBroadcaster.queueProgress(userId, dto);
+        if (dto.processed() >= dto.total()) {
+            progressBroadcaster.flush(userId);
+        }
     }
 
     private static void getDebug(Long userId, UpdateResult updateResult) {
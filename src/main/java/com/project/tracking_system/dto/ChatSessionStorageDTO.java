@@ -0,0 +1,23 @@
+package com.project.tracking_system.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Замер таблиц состояния сессий покупательского Telegram-бота после очистки.
+ *
+ * @param sampledAt                  время замера
+ * @param screenStates               записей в таблице состояния экранов
+ * @param screenStatesBytes          размер таблицы состояния экранов с индексами
+ * @param announcementStates         записей в таблице состояния объявлений
+ * @param announcementStatesBytes    размер таблицы состояния объявлений с индексами
+ * @param removedScreenStates        удалено неактивных состояний экранов
+ * @param removedAnnouncementStates  удалено неактивных состояний объявлений
+ */
+public record ChatSessionStorageDTO(ZonedDateTime sampledAt,
+                                    long screenStates,
+                                    long screenStatesBytes,
+                                    long announcementStates,
+                                    long announcementStatesBytes,
+                                    int removedScreenStates,
+                                    int removedAnnouncementStates) {
+}
@@ -0,0 +1,21 @@
+package com.project.tracking_system.dto;
+
+/**
+ * Расхождение счётчиков покупателя с данными его посылок.
+ */
+public interface CustomerCounterDriftRow {
+
+    Long getCustomerId();
+
+    Long getActualSent();
+
+    Long getExpectedSent();
+
+    Long getActualPickedUp();
+
+    Long getExpectedPickedUp();
+
+    Long getActualReturned();
+
+    Long getExpectedReturned();
+}
@@ -0,0 +1,14 @@
+package com.project.tracking_system.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Перцентили длительности за период в целых днях.
+ *
+ * @param periodStart первый день периода
+ * @param count       количество посылок в выборке
+ * @param p50         медиана; {@code null}, если выборка пуста
+ * @param p90         90-й перцентиль; {@code null}, если выборка пуста
+ */
+public record DeliveryTimePercentilesDTO(LocalDate periodStart, long count, Integer p50, Integer p90) {
+}
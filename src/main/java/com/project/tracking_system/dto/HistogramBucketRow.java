@@ -0,0 +1,15 @@
+package com.project.tracking_system.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Суммарное количество посылок в корзине гистограммы за период.
+ */
+public interface HistogramBucketRow {
+
+    LocalDate getPeriodStart();
+
+    Integer getBucket();
+
+    Long getCount();
+}
@@ -0,0 +1,23 @@
+package com.project.tracking_system.dto;
+
+/**
+ * Посылка, по которой пора отправить напоминание покупателю.
+ * <p>
+ * Содержит только данные, нужные для текста сообщения и записи в журнал,
+ * чтобы рассылка напоминаний не загружала сущности посылки, магазина и покупателя.
+ * </p>
+ */
+public interface ReminderCandidateRow {
+
+    Long getParcelId();
+
+    String getTrackNumber();
+
+    String getStoreName();
+
+    Long getOwnerId();
+
+    Long getChatId();
+
+    String getReminderTemplate();
+}
@@ -0,0 +1,19 @@
+package com.project.tracking_system.dto;
+
+/**
+ * Исправленное значение статистики, попавшее в отчёт пересчёта.
+ *
+ * @param table    таблица, в которой найдено расхождение
+ * @param storeId  идентификатор магазина ({@code null} для покупателей)
+ * @param key      ключ строки: служба, дата или идентификатор покупателя
+ * @param field    название поля
+ * @param actual   значение до пересчёта
+ * @param expected значение после пересчёта
+ */
+public record StatisticsCorrectionDTO(String table,
+                                      Long storeId,
+                                      String key,
+                                      String field,
+                                      String actual,
+                                      String expected) {
+}
@@ -0,0 +1,39 @@
+package com.project.tracking_system.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Строка расхождения между сохранённой статистикой и значениями,
+ * пересчитанными по посылкам и истории доставки.
+ * <p>
+ * Заполняется нативными запросами пересчёта; для накопительной статистики
+ * поле {@code date} пустое, для статистики магазина пустое {@code postalService}.
+ * </p>
+ */
+public interface StatisticsDriftRow {
+
+    String getPostalService();
+
+    LocalDate getDate();
+
+    Long getActualSent();
+
+    Long getExpectedSent();
+
+    Long getActualDelivered();
+
+    Long getExpectedDelivered();
+
+    Long getActualReturned();
+
+    Long getExpectedReturned();
+
+    BigDecimal getActualDeliveryDays();
+
+    BigDecimal getExpectedDeliveryDays();
+
+    BigDecimal getActualPickupDays();
+
+    BigDecimal getExpectedPickupDays();
+}
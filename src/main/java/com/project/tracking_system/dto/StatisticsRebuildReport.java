@@ -0,0 +1,20 @@
+package com.project.tracking_system.dto;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Итог пересчёта статистики.
+ *
+ * @param startedAt       момент запуска
+ * @param finishedAt      момент завершения
+ * @param storesProcessed количество успешно пересчитанных магазинов
+ * @param failedStoreIds  магазины, пересчёт которых завершился ошибкой
+ * @param corrections     исправленные значения
+ */
+public record StatisticsRebuildReport(ZonedDateTime startedAt,
+                                      ZonedDateTime finishedAt,
+                                      int storesProcessed,
+                                      List<Long> failedStoreIds,
+                                      List<StatisticsCorrectionDTO> corrections) {
+}
@@ -0,0 +1,25 @@
+package com.project.tracking_system.dto;
+
+import java.util.Map;
+
+/**
+ * Снимок состояния исходящих запросов к Telegram.
+ *
+ * @param queuedByLane  запросов, ожидающих отправки, по приоритетам
+ * @param sent          всего успешно выполненных запросов
+ * @param failed        запросов, завершившихся ошибкой
+ * @param throttled     ответов Telegram 429 с требованием подождать
+ * @param avgWaitMs     среднее ожидание разрешения на отправку за последний интервал
+ * @param maxWaitMs     максимальное ожидание разрешения за последний интервал
+ * @param avgLatencyMs  среднее время запроса к Telegram за последний интервал
+ * @param maxLatencyMs  максимальное время запроса к Telegram за последний интервал
+ */
+public record TelegramSendMetricsDTO(Map<String, Integer> queuedByLane,
+                                     long sent,
+                                     long failed,
+                                     long throttled,
+                                     double avgWaitMs,
+                                     long maxWaitMs,
+                                     double avgLatencyMs,
+                                     long maxLatencyMs) {
+}
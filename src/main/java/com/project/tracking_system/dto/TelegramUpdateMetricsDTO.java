@@ -0,0 +1,21 @@
+package com.project.tracking_system.dto;
+
+/**
+ * Снимок состояния обработки обновлений Telegram-бота покупателей.
+ *
+ * @param lanes            количество очередей обработки
+ * @param queued           обновлений в очередях
+ * @param maxLaneQueued    обновлений в самой загруженной очереди
+ * @param processed        всего обработано обновлений
+ * @param failed           обновлений, завершившихся ошибкой
+ * @param avgLatencyMs     средняя задержка от получения до окончания обработки за последний интервал
+ * @param maxLatencyMs     максимальная задержка за последний интервал
+ */
+public record TelegramUpdateMetricsDTO(int lanes,
+                                       int queued,
+                                       int maxLaneQueued,
+                                       long processed,
+                                       long failed,
+                                       double avgLatencyMs,
+                                       long maxLatencyMs) {
+}
@@ -17,6 +17,9 @@ import java.time.format.DateTimeFormatter;
 @Getter
 @Setter
 public class TrackParcelDTO {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
+
     private Long id;
     private String number;
     private String status;
@@ -46,9 +49,7 @@ public class TrackParcelDTO {
         this.number = trackParcel.getNumber();
         this.status = trackParcel.getStatus().getDescription();
         this.storeId = trackParcel.getStore().getId();
-        this.timestamp = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss")
-                .withZone(userZone)
-                .format(trackParcel.getTimestamp());
+        this.timestamp = TIMESTAMP_FORMAT.withZone(userZone).format(trackParcel.getTimestamp());
 
         Customer customer = trackParcel.getCustomer();
         if (customer != null) {
@@ -59,4 +60,27 @@ public class TrackParcelDTO {
             this.nameSource = customer.getNameSource();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Конструктор DTO на основе строки списка отправлений.
+     * <p>
+     * Иконка статуса берётся из самого значения перечисления, поэтому
+     * строка не требует дополнительных обращений к базе или сервисам.
+     * </p>
+     *
+     * @param row      строка, выбранная запросом-проекцией
+     * @param userZone часовой пояс пользователя
+     */
+    public TrackParcelDTO(TrackParcelRow row, ZoneId userZone) {
+        this.id = row.id();
+        this.number = row.number();
+        this.status = row.status().getDescription();
+        this.iconHtml = row.status().getIconHtml();
+        this.storeId = row.storeId();
+        this.timestamp = TIMESTAMP_FORMAT.withZone(userZone).format(row.timestamp());
+        this.customerName = row.customerName();
+        this.shortCustomerName = NameUtils.shortenName(row.customerName());
+        this.customerPhone = row.customerPhone();
+        this.nameSource = row.nameSource();
+    }
+}
@@ -0,0 +1,23 @@
+package com.project.tracking_system.dto;
+
+import com.project.tracking_system.entity.GlobalStatus;
+import com.project.tracking_system.entity.NameSource;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Строка списка отправлений: только столбцы, которые выводит страница.
+ * <p>
+ * Заполняется конструктором в JPQL-запросе, поэтому не загружает связанные
+ * сущности магазина, покупателя и истории доставки.
+ * </p>
+ */
+public record TrackParcelRow(Long id,
+                             String number,
+                             GlobalStatus status,
+                             ZonedDateTime timestamp,
+                             Long storeId,
+                             String customerName,
+                             String customerPhone,
+                             NameSource nameSource) {
+}
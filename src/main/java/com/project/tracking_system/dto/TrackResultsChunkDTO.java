@@ -0,0 +1,17 @@
+package com.project.tracking_system.dto;
+
+import java.util.List;
+
+/**
+ * Порция результатов обработки партии, начиная с известного клиенту смещения.
+ *
+ * @param batchId    идентификатор партии или {@code null}, если результатов нет
+ * @param nextOffset смещение для следующего запроса
+ * @param hasMore    есть ли уже сохранённые результаты за пределами порции
+ * @param results    результаты порции
+ */
+public record TrackResultsChunkDTO(Long batchId,
+                                   int nextOffset,
+                                   boolean hasMore,
+                                   List<TrackStatusUpdateDTO> results) {
+}
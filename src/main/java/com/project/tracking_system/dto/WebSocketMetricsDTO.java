@@ -0,0 +1,23 @@
+package com.project.tracking_system.dto;
+
+/**
+ * Снимок состояния STOMP-брокера.
+ *
+ * @param sessions            количество подключённых сессий
+ * @param subscriptions       количество активных подписок
+ * @param framesSent          всего отправлено кадров MESSAGE
+ * @param framesPerSecond     кадров в секунду за последний интервал измерения
+ * @param droppedMessages     событий, отброшенных при объединении для медленных клиентов
+ * @param slowSessionsClosed  сессий, закрытых из-за превышения лимитов отправки
+ * @param outboundQueueSize   сообщений в очереди исходящего канала
+ * @param inboundQueueSize    сообщений в очереди входящего канала
+ */
+public record WebSocketMetricsDTO(int sessions,
+                                  int subscriptions,
+                                  long framesSent,
+                                  double framesPerSecond,
+                                  long droppedMessages,
+                                  long slowSessionsClosed,
+                                  int outboundQueueSize,
+                                  int inboundQueueSize) {
+}
@@ -0,0 +1,87 @@
+package com.project.tracking_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Задание рассылки административного объявления подтверждённым чатам Telegram.
+ * <p>
+ * Чаты обрабатываются по возрастанию идентификатора, а {@link #lastChatId}
+ * хранит последний полностью обработанный чат. После перезапуска приложения
+ * рассылка продолжается с этого места.
+ * </p>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "tb_announcement_broadcasts")
+public class AnnouncementBroadcast {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "notification_id", nullable = false)
+    private Long notificationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 32)
+    private AnnouncementBroadcastStatus status = AnnouncementBroadcastStatus.RUNNING;
+
+    @Column(name = "total_chats", nullable = false)
+    private long totalChats;
+
+    @Column(name = "sent_count", nullable = false)
+    private long sentCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    /**
+     * Последний обработанный чат или {@code null}, если рассылка ещё не начата.
+     */
+    @Column(name = "last_chat_id")
+    private Long lastChatId;
+
+    @Column(name = "started_at", nullable = false)
+    private ZonedDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private ZonedDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private ZonedDateTime finishedAt;
+
+    /**
+     * Возвращает количество обработанных чатов.
+     *
+     * @return сумма успешных и неудачных отправок
+     */
+    public long getProcessedCount() {
+        return sentCount + failedCount;
+    }
+
+    /**
+     * Устанавливает временные метки перед сохранением новой записи.
+     */
+    @PrePersist
+    public void onCreate() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        this.startedAt = now;
+        this.updatedAt = now;
+    }
+
+    /**
+     * Обновляет временную метку перед изменением записи.
+     */
+    @PreUpdate
+    public void onUpdate() {
+        this.updatedAt = ZonedDateTime.now(ZoneOffset.UTC);
+    }
+}
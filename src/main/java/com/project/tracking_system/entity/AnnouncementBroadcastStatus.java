@@ -0,0 +1,19 @@
+package com.project.tracking_system.entity;
+
+/**
+ * Статус рассылки административного объявления в Telegram.
+ */
+public enum AnnouncementBroadcastStatus {
+    /**
+     * Рассылка выполняется или была прервана остановкой приложения и будет продолжена.
+     */
+    RUNNING,
+    /**
+     * Объявление обработано для всех подтверждённых чатов.
+     */
+    COMPLETED,
+    /**
+     * Рассылка остановлена: запущена новая рассылка или объявление больше не активно.
+     */
+    CANCELLED
+}
@@ -3,12 +3,15 @@ package com.project.tracking_system.entity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 
 /**
@@ -59,5 +62,20 @@ public class BuyerAnnouncementState {
     @Column(name = "notification_updated_at")
     private ZonedDateTime notificationUpdatedAt;
 
+    /**
+     * Время последнего изменения состояния, по которому удаляются неактивные записи.
+     */
+    @Column(name = "last_activity_at", nullable = false)
+    private ZonedDateTime lastActivityAt;
+
+    /**
+     * Отмечает активность чата перед сохранением записи.
+     */
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.lastActivityAt = ZonedDateTime.now(ZoneOffset.UTC);
+    }
+
 }
 
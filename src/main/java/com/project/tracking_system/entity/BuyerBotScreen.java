@@ -2,6 +2,10 @@ package com.project.tracking_system.entity;
 
 /**
  * Экран, отображаемый покупателю в якорном сообщении бота.
+ * <p>
+ * Путь навигации хранится порядковыми номерами констант, поэтому новые
+ * экраны добавляются только в конец перечисления.
+ * </p>
  */
 public enum BuyerBotScreen {
     /**
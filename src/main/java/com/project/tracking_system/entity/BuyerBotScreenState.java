@@ -5,12 +5,17 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
 /**
  * Состояние якорного сообщения покупателя в Telegram.
  * <p>
@@ -67,8 +72,24 @@ public class BuyerBotScreenState {
 
     /**
      * Последовательность экранов, составляющая путь навигации пользователя.
+     * Каждый экран записан одной цифрой base36 — порядковым номером {@link BuyerBotScreen}.
      */
     @Column(name = "navigation_path")
     private String navigationPath;
+
+    /**
+     * Время последнего изменения состояния, по которому удаляются неактивные сессии.
+     */
+    @Column(name = "last_activity_at", nullable = false)
+    private ZonedDateTime lastActivityAt;
+
+    /**
+     * Отмечает активность чата перед сохранением записи.
+     */
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.lastActivityAt = ZonedDateTime.now(ZoneOffset.UTC);
+    }
 }
 
@@ -0,0 +1,48 @@
+package com.project.tracking_system.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Замер таблиц состояния сессий покупательского Telegram-бота.
+ * <p>
+ * Записывается после каждой очистки неактивных сессий; хранится ограниченное
+ * количество последних замеров.
+ * </p>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "tb_chat_session_storage_samples")
+public class ChatSessionStorageSample {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sampled_at", nullable = false)
+    private ZonedDateTime sampledAt;
+
+    @Column(name = "screen_states", nullable = false)
+    private long screenStates;
+
+    @Column(name = "screen_states_bytes", nullable = false)
+    private long screenStatesBytes;
+
+    @Column(name = "announcement_states", nullable = false)
+    private long announcementStates;
+
+    @Column(name = "announcement_states_bytes", nullable = false)
+    private long announcementStatesBytes;
+
+    @Column(name = "removed_screen_states", nullable = false)
+    private int removedScreenStates;
+
+    @Column(name = "removed_announcement_states", nullable = false)
+    private int removedAnnouncementStates;
+}
@@ -0,0 +1,63 @@
+package com.project.tracking_system.entity;
+
+import com.project.tracking_system.dto.PeriodStatsSource;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Корзина гистограммы времени доставки или ожидания на пункте выдачи.
+ * <p>
+ * Каждая строка хранит количество посылок, длительность которых попала
+ * в интервал {@code [bucket, bucket + 1)} дней, для магазина, почтовой службы
+ * и периода. Для недель, месяцев и лет {@code periodStart} — первый день периода.
+ * </p>
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "tb_delivery_time_histograms")
+public class DeliveryTimeHistogram {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "store_id", nullable = false)
+    private Store store;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "postal_service_type", nullable = false)
+    private PostalServiceType postalServiceType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period_type", nullable = false)
+    private PeriodStatsSource periodType;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "metric", nullable = false)
+    private DeliveryTimeMetric metric;
+
+    @Column(name = "bucket", nullable = false)
+    private int bucket;
+
+    @Column(name = "count", nullable = false)
+    private int count;
+
+    /**
+     * Момент последнего обновления корзины (UTC).
+     */
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
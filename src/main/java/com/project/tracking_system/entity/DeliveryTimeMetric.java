@@ -0,0 +1,11 @@
+package com.project.tracking_system.entity;
+
+/**
+ * Измеряемая длительность, по которой строится гистограмма.
+ */
+public enum DeliveryTimeMetric {
+    /** Дни от отправки до прибытия на пункт выдачи. */
+    DELIVERY,
+    /** Дни ожидания получателя на пункте выдачи (только доставленные). */
+    PICKUP;
+}
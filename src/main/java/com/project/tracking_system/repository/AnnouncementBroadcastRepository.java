@@ -0,0 +1,83 @@
+package com.project.tracking_system.repository;
+
+import com.project.tracking_system.entity.AnnouncementBroadcast;
+import com.project.tracking_system.entity.AnnouncementBroadcastStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий заданий рассылки административных объявлений в Telegram.
+ */
+public interface AnnouncementBroadcastRepository extends JpaRepository<AnnouncementBroadcast, Long> {
+
+    /**
+     * Возвращает задания в указанном статусе, начиная с самого нового.
+     *
+     * @param status статус рассылки
+     * @return список заданий
+     */
+    List<AnnouncementBroadcast> findAllByStatusOrderByIdDesc(AnnouncementBroadcastStatus status);
+
+    /**
+     * Возвращает последнее созданное задание рассылки.
+     *
+     * @return задание или пустой результат, если рассылок ещё не было
+     */
+    Optional<AnnouncementBroadcast> findTopByOrderByIdDesc();
+
+    /**
+     * Добавляет результаты обработанной порции и сдвигает курсор выполняющейся рассылки.
+     *
+     * @param id         идентификатор рассылки
+     * @param sent       количество успешных отправок в порции
+     * @param failed     количество неудачных отправок в порции
+     * @param lastChatId последний обработанный чат
+     * @param updatedAt  время обновления
+     * @return количество обновлённых записей (0, если рассылка уже остановлена)
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE AnnouncementBroadcast b
+        SET b.sentCount = b.sentCount + :sent,
+            b.failedCount = b.failedCount + :failed,
+            b.lastChatId = :lastChatId,
+            b.updatedAt = :updatedAt
+        WHERE b.id = :id
+          AND b.status = com.project.tracking_system.entity.AnnouncementBroadcastStatus.RUNNING
+        """)
+    int advance(@Param("id") Long id,
+                @Param("sent") long sent,
+                @Param("failed") long failed,
+                @Param("lastChatId") Long lastChatId,
+                @Param("updatedAt") ZonedDateTime updatedAt);
+
+    /**
+     * Завершает выполняющуюся рассылку с указанным статусом.
+     *
+     * @param id         идентификатор рассылки
+     * @param status     итоговый статус
+     * @param finishedAt время завершения
+     * @return количество обновлённых записей (0, если рассылка уже завершена)
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE AnnouncementBroadcast b
+        SET b.status = :status,
+            b.finishedAt = :finishedAt,
+            b.updatedAt = :finishedAt
+        WHERE b.id = :id
+          AND b.status = com.project.tracking_system.entity.AnnouncementBroadcastStatus.RUNNING
+        """)
+    int finish(@Param("id") Long id,
+               @Param("status") AnnouncementBroadcastStatus status,
+               @Param("finishedAt") ZonedDateTime finishedAt);
+}
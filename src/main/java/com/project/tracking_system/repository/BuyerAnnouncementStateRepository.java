@@ -2,7 +2,13 @@ package com.project.tracking_system.repository;
 
 import com.project.tracking_system.entity.BuyerAnnouncementState;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,5 +23,52 @@ public interface BuyerAnnouncementStateRepository extends JpaRepository<BuyerAnn
      * @return список состояний пользователей, подписанных на указанное уведомление
      */
     List<BuyerAnnouncementState> findAllByCurrentNotificationId(Long notificationId);
-}
 
+    /**
+     * Возвращает порцию чатов, состояние объявлений которых не менялось с указанного момента.
+     *
+     * @param cutoff граница неактивности
+     * @param limit  максимальный размер порции
+     * @return идентификаторы чатов, начиная с самых давно неактивных
+     */
+    @Query(value = """
+        SELECT s.chat_id
+        FROM tb_buyer_announcement_states s
+        WHERE s.last_activity_at < :cutoff
+        ORDER BY s.last_activity_at
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Long> findIdleChatIds(@Param("cutoff") ZonedDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * Удаляет состояния объявлений, если они так и остались неактивными.
+     *
+     * @param chatIds идентификаторы чатов
+     * @param cutoff  граница неактивности
+     * @return количество удалённых записей
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BuyerAnnouncementState s WHERE s.chatId IN :chatIds AND s.lastActivityAt < :cutoff")
+    int deleteIdle(@Param("chatIds") Collection<Long> chatIds, @Param("cutoff") ZonedDateTime cutoff);
+
+    /**
+     * Отмечает активность чата, не изменяя остальные поля записи.
+     *
+     * @param chatId идентификатор чата
+     * @param now    момент активности
+     * @return количество обновлённых записей (0, если записи нет)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BuyerAnnouncementState s SET s.lastActivityAt = :now WHERE s.chatId = :chatId")
+    int touchActivity(@Param("chatId") Long chatId, @Param("now") ZonedDateTime now);
+
+    /**
+     * Возвращает размер таблицы вместе с индексами.
+     *
+     * @return размер в байтах
+     */
+    @Query(value = "SELECT pg_total_relation_size('tb_buyer_announcement_states')", nativeQuery = true)
+    long totalRelationSize();
+}
@@ -2,10 +2,66 @@ package com.project.tracking_system.repository;
 
 import com.project.tracking_system.entity.BuyerBotScreenState;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Репозиторий хранения якорных сообщений покупателей в Telegram.
  */
 public interface BuyerBotScreenStateRepository extends JpaRepository<BuyerBotScreenState, Long> {
-}
 
+    /**
+     * Возвращает порцию чатов, состояние которых не менялось с указанного момента.
+     *
+     * @param cutoff граница неактивности
+     * @param limit  максимальный размер порции
+     * @return идентификаторы чатов, начиная с самых давно неактивных
+     */
+    @Query(value = """
+        SELECT s.chat_id
+        FROM tb_buyer_bot_screen_states s
+        WHERE s.last_activity_at < :cutoff
+        ORDER BY s.last_activity_at
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Long> findIdleChatIds(@Param("cutoff") ZonedDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * Удаляет состояния чатов, если они так и остались неактивными.
+     * Повторная проверка времени не даёт удалить чат, ставший активным после выборки.
+     *
+     * @param chatIds идентификаторы чатов
+     * @param cutoff  граница неактивности
+     * @return количество удалённых записей
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BuyerBotScreenState s WHERE s.chatId IN :chatIds AND s.lastActivityAt < :cutoff")
+    int deleteIdle(@Param("chatIds") Collection<Long> chatIds, @Param("cutoff") ZonedDateTime cutoff);
+
+    /**
+     * Отмечает активность чата, не изменяя остальные поля записи.
+     *
+     * @param chatId идентификатор чата
+     * @param now    момент активности
+     * @return количество обновлённых записей (0, если записи нет)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BuyerBotScreenState s SET s.lastActivityAt = :now WHERE s.chatId = :chatId")
+    int touchActivity(@Param("chatId") Long chatId, @Param("now") ZonedDateTime now);
+
+    /**
+     * Возвращает размер таблицы вместе с индексами.
+     *
+     * @return размер в байтах
+     */
+    @Query(value = "SELECT pg_total_relation_size('tb_buyer_bot_screen_states')", nativeQuery = true)
+    long totalRelationSize();
+}
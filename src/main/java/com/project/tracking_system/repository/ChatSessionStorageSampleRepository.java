@@ -0,0 +1,43 @@
+package com.project.tracking_system.repository;
+
+import com.project.tracking_system.entity.ChatSessionStorageSample;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Репозиторий замеров таблиц состояния сессий Telegram-бота.
+ */
+public interface ChatSessionStorageSampleRepository extends JpaRepository<ChatSessionStorageSample, Long> {
+
+    /**
+     * Возвращает последние замеры, начиная с самого нового.
+     *
+     * @param limit максимальное количество замеров
+     * @return замеры по убыванию времени
+     */
+    List<ChatSessionStorageSample> findAllByOrderBySampledAtDescIdDesc(Limit limit);
+
+    /**
+     * Удаляет замеры, не входящие в указанное количество последних.
+     *
+     * @param keep количество сохраняемых замеров
+     * @return количество удалённых записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        DELETE FROM tb_chat_session_storage_samples
+        WHERE id NOT IN (
+            SELECT id FROM tb_chat_session_storage_samples
+            ORDER BY sampled_at DESC, id DESC
+            LIMIT :keep
+        )
+        """, nativeQuery = true)
+    int deleteAllExceptLatest(@Param("keep") int keep);
+}
@@ -1,13 +1,18 @@
 package com.project.tracking_system.repository;
 
 import com.project.tracking_system.entity.CustomerNotificationLog;
-import com.project.tracking_system.entity.GlobalStatus;
-import com.project.tracking_system.entity.NotificationType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Репозиторий для работы с логом уведомлений покупателей.
@@ -15,28 +20,78 @@ import java.util.List;
 public interface CustomerNotificationLogRepository extends JpaRepository<CustomerNotificationLog, Long> {
 
     /**
-     * Проверить, существует ли запись уведомления с заданными параметрами.
+     * Занять запись о мгновенном уведомлении по статусу посылки.
+     * <p>
+     * Вставка и проверка на повтор выполняются одним запросом: при наличии записи
+     * по той же посылке и статусу уникальный индекс оставляет её без изменений,
+     * а параллельная вставка ждёт фиксации первой транзакции. Уведомление
+     * отправляется только вызывающим, получившим идентификатор записи.
+     * Запись фиксируется в отдельной транзакции, чтобы блокировка не
+     * удерживалась на время отправки сообщения.
+     * </p>
      *
-     * @param parcelId идентификатор посылки
-     * @param status   статус посылки
-     * @param type     тип уведомления
-     * @return {@code true}, если запись существует
+     * @param customerId идентификатор покупателя
+     * @param parcelId   идентификатор посылки
+     * @param status     имя статуса посылки
+     * @param sentAt     время отправки
+     * @return идентификатор новой записи или пустое значение, если уведомление уже записано
      */
-    boolean existsByParcelIdAndStatusAndNotificationType(Long parcelId,
-                                                         GlobalStatus status,
-                                                         NotificationType type);
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = """
+        INSERT INTO tb_customer_notifications (customer_id, parcel_id, status, notification_type, sent_at)
+        VALUES (:customerId, :parcelId, :status, 'INSTANT', :sentAt)
+        ON CONFLICT (parcel_id, status) WHERE notification_type = 'INSTANT' DO NOTHING
+        RETURNING id
+        """, nativeQuery = true)
+    Optional<Long> claimInstantNotification(@Param("customerId") Long customerId,
+                                            @Param("parcelId") Long parcelId,
+                                            @Param("status") String status,
+                                            @Param("sentAt") ZonedDateTime sentAt);
 
     /**
-     * Найти последнее напоминание для посылки.
+     * Освободить запись о мгновенном уведомлении, если сообщение не было отправлено.
+     *
+     * @param id идентификатор записи, полученный при её занятии
+     * @return количество удалённых записей
      */
-    CustomerNotificationLog findTopByParcelIdAndNotificationTypeOrderBySentAtDesc(Long parcelId,
-                                           NotificationType type);
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("DELETE FROM CustomerNotificationLog l WHERE l.id = :id")
+    int releaseInstantNotification(@Param("id") Long id);
+
+    /**
+     * Записать в журнал напоминания по нескольким посылкам одним запросом.
+     * <p>
+     * Покупатель берётся из посылки, поэтому сущности загружать не требуется.
+     * </p>
+     *
+     * @param parcelIds идентификаторы посылок, по которым отправлены напоминания
+     * @param sentAt    время отправки
+     * @return количество добавленных записей
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = """
+        INSERT INTO tb_customer_notifications (customer_id, parcel_id, status, notification_type, sent_at)
+        SELECT p.customer_id, p.id, 'WAITING_FOR_CUSTOMER', 'REMINDER', :sentAt
+        FROM tb_track_parcels p
+        WHERE p.id IN (:parcelIds)
+          AND p.customer_id IS NOT NULL
+        """, nativeQuery = true)
+    int insertReminderLogs(@Param("parcelIds") Collection<Long> parcelIds,
+                           @Param("sentAt") ZonedDateTime sentAt);
 
     /**
      * Получить последние десять записей журнала уведомлений.
      *
+     * <p>
+     * Покупатель и посылка загружаются тем же запросом: журнал выводится
+     * на странице администратора с телефоном и номером посылки.
+     * </p>
+     *
      * @return список из десяти последних уведомлений
      */
+    @EntityGraph(attributePaths = {"customer", "parcel"})
     List<CustomerNotificationLog> findTop10ByOrderBySentAtDesc();
 
     /**
@@ -1,9 +1,11 @@
 package com.project.tracking_system.repository;
 
+import com.project.tracking_system.dto.CustomerCounterDriftRow;
 import com.project.tracking_system.entity.Customer;
 import com.project.tracking_system.entity.BuyerReputation;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -140,12 +142,16 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     long countByTelegramChatIdNotNull();
 
     /**
-     * Получить идентификаторы чатов подтверждённых покупателей в Telegram.
+     * Получить очередную порцию идентификаторов чатов подтверждённых покупателей в Telegram.
      * <p>
      * Метод возвращает только те чаты, где покупатель подтвердил связку с ботом, что
-     * позволяет выполнять рассылки без загрузки полного профиля клиента.
+     * позволяет выполнять рассылки без загрузки полного профиля клиента. Чаты
+     * упорядочены по возрастанию идентификатора, поэтому рассылка может продолжить
+     * обход с последнего обработанного чата.
      * </p>
      *
+     * @param afterChatId идентификатор чата, после которого начинается порция
+     * @param pageable    размер порции
      * @return список идентификаторов чатов Telegram
      */
     @Query("""
@@ -153,6 +159,139 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
         FROM Customer c
         WHERE c.telegramChatId IS NOT NULL
           AND c.telegramConfirmed = true
+          AND c.telegramChatId > :afterChatId
+        ORDER BY c.telegramChatId
     """)
-    List<Long> findConfirmedTelegramChatIds();
+    List<Long> findConfirmedTelegramChatIdsAfter(@Param("afterChatId") long afterChatId, Pageable pageable);
+
+    /**
+     * Подсчитать подтверждённые чаты покупателей в Telegram.
+     *
+     * @return количество чатов, участвующих в рассылках
+     */
+    @Query("""
+        SELECT COUNT(c)
+        FROM Customer c
+        WHERE c.telegramChatId IS NOT NULL
+          AND c.telegramConfirmed = true
+    """)
+    long countConfirmedTelegramChats();
+
+    /**
+     * Поднять счётчик отправленных посылок до суммы полученных и возвращённых
+     * одним запросом для всех покупателей.
+     *
+     * @return количество исправленных покупателей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE tb_customers c
+        SET sent_count = p.finished,
+            version = c.version + 1
+        FROM (
+            SELECT t.customer_id, COUNT(*) AS finished
+            FROM tb_track_parcels t
+            WHERE t.customer_id IS NOT NULL
+              AND t.status IN ('DELIVERED', 'RETURNED')
+            GROUP BY t.customer_id
+        ) p
+        WHERE p.customer_id = c.id
+          AND p.finished > c.sent_count
+        """, nativeQuery = true)
+    int raiseSentCountToFinished();
+
+    /**
+     * Найти покупателей, счётчики которых отстают от их посылок.
+     * <p>
+     * Удалённые посылки восстановить нельзя, поэтому ожидаемые значения
+     * не опускаются ниже сохранённых: счётчики только догоняют данные посылок.
+     * </p>
+     *
+     * @return расхождения по покупателям
+     */
+    @Query(value = """
+        WITH expected AS (
+            SELECT c.id,
+                   c.sent_count,
+                   c.picked_up_count,
+                   c.returned_count,
+                   GREATEST(c.picked_up_count, COALESCE(p.delivered, 0)) AS picked_up,
+                   GREATEST(c.returned_count, COALESCE(p.returned, 0)) AS returned,
+                   COALESCE(p.total, 0) AS total
+            FROM tb_customers c
+            LEFT JOIN (
+                SELECT t.customer_id,
+                       COUNT(*) AS total,
+                       COUNT(*) FILTER (WHERE t.status = 'DELIVERED') AS delivered,
+                       COUNT(*) FILTER (WHERE t.status = 'RETURNED') AS returned
+                FROM tb_track_parcels t
+                WHERE t.customer_id IS NOT NULL
+                GROUP BY t.customer_id
+            ) p ON p.customer_id = c.id
+        )
+        SELECT e.id AS "customerId",
+               e.sent_count AS "actualSent",
+               GREATEST(e.sent_count, e.total, e.picked_up + e.returned) AS "expectedSent",
+               e.picked_up_count AS "actualPickedUp",
+               e.picked_up AS "expectedPickedUp",
+               e.returned_count AS "actualReturned",
+               e.returned AS "expectedReturned"
+        FROM expected e
+        WHERE e.picked_up <> e.picked_up_count
+           OR e.returned <> e.returned_count
+           OR GREATEST(e.total, e.picked_up + e.returned) > e.sent_count
+        ORDER BY e.id
+        """, nativeQuery = true)
+    List<CustomerCounterDriftRow> findCounterDrift();
+
+    /**
+     * Пересчитать счётчики и репутацию покупателей по их посылкам одним запросом.
+     * <p>
+     * Правила репутации повторяют {@link Customer#recalculateReputation()}.
+     * Версия увеличивается только у изменённых записей.
+     * </p>
+     *
+     * @return количество исправленных покупателей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        WITH expected AS (
+            SELECT c.id,
+                   c.sent_count,
+                   c.picked_up_count,
+                   c.returned_count,
+                   GREATEST(c.picked_up_count, COALESCE(p.delivered, 0)) AS picked_up,
+                   GREATEST(c.returned_count, COALESCE(p.returned, 0)) AS returned,
+                   COALESCE(p.total, 0) AS total
+            FROM tb_customers c
+            LEFT JOIN (
+                SELECT t.customer_id,
+                       COUNT(*) AS total,
+                       COUNT(*) FILTER (WHERE t.status = 'DELIVERED') AS delivered,
+                       COUNT(*) FILTER (WHERE t.status = 'RETURNED') AS returned
+                FROM tb_track_parcels t
+                WHERE t.customer_id IS NOT NULL
+                GROUP BY t.customer_id
+            ) p ON p.customer_id = c.id
+        )
+        UPDATE tb_customers c
+        SET sent_count = GREATEST(e.sent_count, e.total, e.picked_up + e.returned),
+            picked_up_count = e.picked_up,
+            returned_count = e.returned,
+            reputation = CASE
+                WHEN e.picked_up + e.returned < 3 THEN 'NEW'
+                WHEN e.picked_up >= 0.8 * (e.picked_up + e.returned) THEN 'RELIABLE'
+                WHEN e.picked_up >= 0.5 * (e.picked_up + e.returned) THEN 'NEUTRAL'
+                ELSE 'UNRELIABLE'
+            END,
+            version = c.version + 1
+        FROM expected e
+        WHERE e.id = c.id
+          AND (e.picked_up <> e.picked_up_count
+               OR e.returned <> e.returned_count
+               OR GREATEST(e.total, e.picked_up + e.returned) > e.sent_count)
+        """, nativeQuery = true)
+    int recalculateCountersFromParcels();
 }
@@ -0,0 +1,182 @@
+package com.project.tracking_system.repository;
+
+import com.project.tracking_system.dto.HistogramBucketRow;
+import com.project.tracking_system.entity.DeliveryTimeHistogram;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Репозиторий гистограмм времени доставки и ожидания на пункте выдачи.
+ * <p>
+ * Параметры {@code periodType}, {@code metric} и {@code postalServiceType}
+ * передаются строковыми именами соответствующих перечислений.
+ * </p>
+ */
+public interface DeliveryTimeHistogramRepository
+        extends JpaRepository<DeliveryTimeHistogram, Long>,
+        DeletableByStoreOrUser<DeliveryTimeHistogram, Long> {
+
+    /**
+     * Атомарно изменить количество посылок в ежедневной корзине, создав её при отсутствии.
+     * Значение не опускается ниже нуля.
+     *
+     * @param storeId           идентификатор магазина
+     * @param postalServiceType тип почтовой службы
+     * @param date              дата события
+     * @param metric            измеряемая длительность
+     * @param bucket            номер корзины в днях
+     * @param delta             величина изменения (отрицательная при откате)
+     * @return количество затронутых записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tb_delivery_time_histograms
+            (store_id, postal_service_type, period_type, period_start, metric, bucket, count, updated_at)
+        VALUES (:storeId, :postalServiceType, 'DAILY', :date, :metric, :bucket, GREATEST(:delta, 0), CURRENT_TIMESTAMP)
+        ON CONFLICT (store_id, postal_service_type, period_type, period_start, metric, bucket)
+        DO UPDATE SET count = GREATEST(tb_delivery_time_histograms.count + :delta, 0),
+                      updated_at = CURRENT_TIMESTAMP
+        """, nativeQuery = true)
+    int addToDailyBucket(@Param("storeId") Long storeId,
+                         @Param("postalServiceType") String postalServiceType,
+                         @Param("date") LocalDate date,
+                         @Param("metric") String metric,
+                         @Param("bucket") int bucket,
+                         @Param("delta") int delta);
+
+    /**
+     * Удалить гистограммы всех магазинов за указанный период.
+     *
+     * @param periodType  тип периода
+     * @param periodStart первый день периода
+     * @return количество удалённых записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        DELETE FROM tb_delivery_time_histograms
+        WHERE period_type = :periodType AND period_start = :periodStart
+        """, nativeQuery = true)
+    int deletePeriod(@Param("periodType") String periodType,
+                     @Param("periodStart") LocalDate periodStart);
+
+    /**
+     * Собрать гистограммы периода всех магазинов суммированием ежедневных корзин.
+     * Перед вызовом строки периода удаляются через {@link #deletePeriod(String, LocalDate)}.
+     *
+     * @param periodType  тип периода
+     * @param periodStart первый день периода
+     * @param from        первая дата ежедневных корзин (включительно)
+     * @param to          последняя дата ежедневных корзин (включительно)
+     * @return количество вставленных записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tb_delivery_time_histograms
+            (store_id, postal_service_type, period_type, period_start, metric, bucket, count, updated_at)
+        SELECT h.store_id, h.postal_service_type, :periodType, :periodStart, h.metric, h.bucket,
+               SUM(h.count), CURRENT_TIMESTAMP
+        FROM tb_delivery_time_histograms h
+        WHERE h.period_type = 'DAILY'
+          AND h.period_start BETWEEN :from AND :to
+        GROUP BY h.store_id, h.postal_service_type, h.metric, h.bucket
+        HAVING SUM(h.count) > 0
+        """, nativeQuery = true)
+    int rollupPeriod(@Param("periodType") String periodType,
+                     @Param("periodStart") LocalDate periodStart,
+                     @Param("from") LocalDate from,
+                     @Param("to") LocalDate to);
+
+    /**
+     * Заново заполнить ежедневные гистограммы магазина по посылкам и истории доставки.
+     * Перед вызовом строки магазина удаляются через {@link #deleteByStoreId(Long)}.
+     *
+     * @param storeId идентификатор магазина
+     * @return количество вставленных записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tb_delivery_time_histograms
+            (store_id, postal_service_type, period_type, period_start, metric, bucket, count, updated_at)
+        SELECT f.store_id, f.postal_service, 'DAILY', f.event_date, m.metric, m.bucket,
+               COUNT(*), CURRENT_TIMESTAMP
+        FROM v_parcel_statistics_facts f
+        CROSS JOIN LATERAL (
+            SELECT 'DELIVERY' AS metric, LEAST(FLOOR(f.delivery_days), 60) AS bucket
+            WHERE f.has_delivery_days
+            UNION ALL
+            SELECT 'PICKUP', LEAST(FLOOR(f.pickup_days), 60)
+            WHERE f.has_pickup_days
+        ) m
+        WHERE f.store_id = :storeId
+          AND f.event_date IS NOT NULL
+        GROUP BY f.store_id, f.postal_service, f.event_date, m.metric, m.bucket
+        """, nativeQuery = true)
+    int rebuildDailyByStoreId(@Param("storeId") Long storeId);
+
+    /**
+     * Собрать гистограммы периодов магазина из его ежедневных корзин.
+     *
+     * @param storeId    идентификатор магазина
+     * @param periodType тип периода
+     * @param unit       единица {@code date_trunc}: {@code week}, {@code month} или {@code year}
+     * @return количество вставленных записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tb_delivery_time_histograms
+            (store_id, postal_service_type, period_type, period_start, metric, bucket, count, updated_at)
+        SELECT h.store_id, h.postal_service_type, :periodType,
+               CAST(date_trunc(:unit, h.period_start) AS DATE), h.metric, h.bucket,
+               SUM(h.count), CURRENT_TIMESTAMP
+        FROM tb_delivery_time_histograms h
+        WHERE h.store_id = :storeId
+          AND h.period_type = 'DAILY'
+        GROUP BY 1, 2, 3, 4, 5, 6
+        HAVING SUM(h.count) > 0
+        """, nativeQuery = true)
+    int rebuildPeriodsFromDailyByStoreId(@Param("storeId") Long storeId,
+                                         @Param("periodType") String periodType,
+                                         @Param("unit") String unit);
+
+    /**
+     * Получить суммарные корзины по периодам для набора магазинов.
+     *
+     * @param storeIds          идентификаторы магазинов
+     * @param postalServiceType тип почтовой службы или {@code null} для всех служб
+     * @param periodType        тип периода
+     * @param metric            измеряемая длительность
+     * @param from              первый день первого периода (включительно)
+     * @param to                первый день последнего периода (включительно)
+     * @return корзины, упорядоченные по периоду и номеру корзины
+     */
+    @Query(value = """
+        SELECT h.period_start AS "periodStart",
+               h.bucket AS "bucket",
+               SUM(h.count) AS "count"
+        FROM tb_delivery_time_histograms h
+        WHERE h.store_id IN (:storeIds)
+          AND (CAST(:postalServiceType AS VARCHAR) IS NULL OR h.postal_service_type = :postalServiceType)
+          AND h.period_type = :periodType
+          AND h.metric = :metric
+          AND h.period_start BETWEEN :from AND :to
+        GROUP BY h.period_start, h.bucket
+        ORDER BY h.period_start, h.bucket
+        """, nativeQuery = true)
+    List<HistogramBucketRow> findBuckets(@Param("storeIds") List<Long> storeIds,
+                                         @Param("postalServiceType") String postalServiceType,
+                                         @Param("periodType") String periodType,
+                                         @Param("metric") String metric,
+                                         @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to);
+}
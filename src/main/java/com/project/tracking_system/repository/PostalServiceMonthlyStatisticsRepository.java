@@ -3,6 +3,10 @@ package com.project.tracking_system.repository;
 import com.project.tracking_system.entity.PostalServiceMonthlyStatistics;
 import com.project.tracking_system.entity.PostalServiceType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 /**
@@ -27,4 +31,36 @@ public interface PostalServiceMonthlyStatisticsRepository
      * Удалить месячную статистику конкретного магазина.
      */
     // Методы удаления определены в DeletableByStoreOrUser
+
+    /**
+     * Заново собрать статистику почтовых служб магазина по месяцам из ежедневных записей одним запросом.
+     * <p>
+     * Перед вызовом существующие строки магазина удаляются через
+     * {@link #deleteByStoreId(Long)}.
+     * </p>
+     *
+     * @param storeId идентификатор магазина
+     * @return количество вставленных записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tb_postal_service_statistics_monthly
+            (store_id, postal_service_type, period_year, period_number, sent, delivered, returned,
+             sum_delivery_days, sum_pickup_days, updated_at)
+        SELECT d.store_id,
+               d.postal_service_type,
+               CAST(EXTRACT(YEAR FROM d.date) AS INT),
+               CAST(EXTRACT(MONTH FROM d.date) AS INT),
+               SUM(d.sent),
+               SUM(d.delivered),
+               SUM(d.returned),
+               SUM(d.sum_delivery_days),
+               SUM(d.sum_pickup_days),
+               CURRENT_TIMESTAMP
+        FROM tb_postal_service_statistics_daily d
+        WHERE d.store_id = :storeId
+        GROUP BY 1, 2, 3, 4
+        """, nativeQuery = true)
+    int rebuildFromDailyByStoreId(@Param("storeId") Long storeId);
 }
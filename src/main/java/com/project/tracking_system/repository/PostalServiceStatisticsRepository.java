@@ -1,5 +1,6 @@
 package com.project.tracking_system.repository;
 
+import com.project.tracking_system.dto.StatisticsDriftRow;
 import com.project.tracking_system.entity.PostalServiceStatistics;
 import com.project.tracking_system.entity.PostalServiceType;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -146,4 +147,88 @@ public interface PostalServiceStatisticsRepository
         """)
     void resetByStoreId(@Param("storeId") Long storeId);
 
+    /**
+     * Сравнить накопительную статистику почтовых служб магазина со значениями,
+     * пересчитанными по посылкам и истории доставки.
+     *
+     * @param storeId идентификатор магазина
+     * @return расхождения по каждой службе
+     */
+    @Query(value = """
+        SELECT COALESCE(e.postal_service, a.postal_service_type) AS "postalService",
+               CAST(NULL AS DATE) AS "date",
+               COALESCE(a.total_sent, 0) AS "actualSent",
+               COALESCE(e.sent, 0) AS "expectedSent",
+               COALESCE(a.total_delivered, 0) AS "actualDelivered",
+               COALESCE(e.delivered, 0) AS "expectedDelivered",
+               COALESCE(a.total_returned, 0) AS "actualReturned",
+               COALESCE(e.returned, 0) AS "expectedReturned",
+               COALESCE(a.sum_delivery_days, 0) AS "actualDeliveryDays",
+               COALESCE(e.sum_delivery_days, 0) AS "expectedDeliveryDays",
+               COALESCE(a.sum_pickup_days, 0) AS "actualPickupDays",
+               COALESCE(e.sum_pickup_days, 0) AS "expectedPickupDays"
+        FROM (
+            SELECT f.postal_service,
+                   COUNT(*) AS sent,
+                   COUNT(*) FILTER (WHERE f.final_status = 'DELIVERED') AS delivered,
+                   COUNT(*) FILTER (WHERE f.final_status = 'RETURNED') AS returned,
+                   SUM(f.delivery_days) AS sum_delivery_days,
+                   SUM(f.pickup_days) AS sum_pickup_days
+            FROM v_parcel_statistics_facts f
+            WHERE f.store_id = :storeId
+              AND f.postal_service IS NOT NULL
+              AND f.postal_service <> 'UNKNOWN'
+            GROUP BY f.postal_service
+        ) e
+        FULL OUTER JOIN (
+            SELECT p.postal_service_type,
+                   SUM(p.total_sent) AS total_sent,
+                   SUM(p.total_delivered) AS total_delivered,
+                   SUM(p.total_returned) AS total_returned,
+                   SUM(p.sum_delivery_days) AS sum_delivery_days,
+                   SUM(p.sum_pickup_days) AS sum_pickup_days
+            FROM tb_postal_service_statistics p
+            WHERE p.store_id = :storeId
+            GROUP BY p.postal_service_type
+        ) a ON a.postal_service_type = e.postal_service
+        WHERE (COALESCE(a.total_sent, 0), COALESCE(a.total_delivered, 0), COALESCE(a.total_returned, 0),
+               COALESCE(a.sum_delivery_days, 0), COALESCE(a.sum_pickup_days, 0))
+              IS DISTINCT FROM
+              (COALESCE(e.sent, 0), COALESCE(e.delivered, 0), COALESCE(e.returned, 0),
+               COALESCE(e.sum_delivery_days, 0), COALESCE(e.sum_pickup_days, 0))
+        """, nativeQuery = true)
+    List<StatisticsDriftRow> findDriftByStoreId(@Param("storeId") Long storeId);
+
+    /**
+     * Заново заполнить накопительную статистику почтовых служб магазина
+     * по посылкам и истории доставки.
+     * <p>
+     * Перед вызовом существующие строки магазина удаляются через
+     * {@link #deleteByStoreId(Long)}.
+     * </p>
+     *
+     * @param storeId идентификатор магазина
+     * @return количество вставленных записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tb_postal_service_statistics
+            (store_id, postal_service_type, total_sent, total_delivered, total_returned,
+             sum_delivery_days, sum_pickup_days, updated_at)
+        SELECT f.store_id,
+               f.postal_service,
+               COUNT(*),
+               COUNT(*) FILTER (WHERE f.final_status = 'DELIVERED'),
+               COUNT(*) FILTER (WHERE f.final_status = 'RETURNED'),
+               SUM(f.delivery_days),
+               SUM(f.pickup_days),
+               CURRENT_TIMESTAMP
+        FROM v_parcel_statistics_facts f
+        WHERE f.store_id = :storeId
+          AND f.postal_service IS NOT NULL
+          AND f.postal_service <> 'UNKNOWN'
+        GROUP BY f.store_id, f.postal_service
+        """, nativeQuery = true)
+    int rebuildByStoreId(@Param("storeId") Long storeId);
 }
@@ -3,6 +3,10 @@ package com.project.tracking_system.repository;
 import com.project.tracking_system.entity.PostalServiceType;
 import com.project.tracking_system.entity.PostalServiceWeeklyStatistics;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 /**
@@ -23,4 +27,35 @@ public interface PostalServiceWeeklyStatisticsRepository
      */
     Optional<PostalServiceWeeklyStatistics> findByStoreIdAndPostalServiceTypeAndPeriodYearAndPeriodNumber(Long storeId, PostalServiceType postalServiceType, int periodYear, int periodNumber);
 
-}
\ No newline at end of file
+    /**
+     * Заново собрать статистику почтовых служб магазина по неделям из ежедневных записей одним запросом.
+     * <p>
+     * Перед вызовом существующие строки магазина удаляются через
+     * {@link #deleteByStoreId(Long)}.
+     * </p>
+     *
+     * @param storeId идентификатор магазина
+     * @return количество вставленных записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tb_postal_service_statistics_weekly
+            (store_id, postal_service_type, period_year, period_number, sent, delivered, returned,
+             sum_delivery_days, sum_pickup_days, updated_at)
+        SELECT d.store_id,
+               d.postal_service_type,
+               CAST(EXTRACT(ISOYEAR FROM d.date) AS INT),
+               CAST(EXTRACT(WEEK FROM d.date) AS INT),
+               SUM(d.sent),
+               SUM(d.delivered),
+               SUM(d.returned),
+               SUM(d.sum_delivery_days),
+               SUM(d.sum_pickup_days),
+               CURRENT_TIMESTAMP
+        FROM tb_postal_service_statistics_daily d
+        WHERE d.store_id = :storeId
+        GROUP BY 1, 2, 3, 4
+        """, nativeQuery = true)
+    int rebuildFromDailyByStoreId(@Param("storeId") Long storeId);
+}
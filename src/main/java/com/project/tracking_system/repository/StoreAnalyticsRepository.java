@@ -1,7 +1,10 @@
 package com.project.tracking_system.repository;
 
+import com.project.tracking_system.dto.StatisticsDriftRow;
 import com.project.tracking_system.entity.StoreStatistics;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
@@ -21,22 +24,43 @@ public interface StoreAnalyticsRepository
 
     /**
      * Найти статистику магазина по его идентификатору.
+     * <p>
+     * Магазин загружается вместе со статистикой: Open Session In View отключён,
+     * а шаблоны аналитики выводят его название.
+     * </p>
      *
      * @param storeId идентификатор магазина
      * @return статистика магазина, если найдена
      */
-    Optional<StoreStatistics> findByStoreId(Long storeId);
+    @Query("""
+        SELECT s FROM StoreStatistics s
+        JOIN FETCH s.store st
+        WHERE st.id = :storeId
+    """)
+    Optional<StoreStatistics> findByStoreId(@Param("storeId") Long storeId);
 
+    /**
+     * Получить статистику всех магазинов пользователя вместе с магазинами.
+     *
+     * @param userId идентификатор владельца магазинов
+     * @return статистика магазинов пользователя
+     */
     @Query("""
         SELECT s FROM StoreStatistics s
-        WHERE s.store.owner.id = :userId
+        JOIN FETCH s.store st
+        WHERE st.owner.id = :userId
     """)
     List<StoreStatistics> findAllByUserId(@Param("userId") Long userId);
 
     /**
-     * Получить статистику сразу по нескольким магазинам.
+     * Получить статистику сразу по нескольким магазинам вместе с магазинами.
      */
-    List<StoreStatistics> findByStoreIdIn(List<Long> storeIds);
+    @Query("""
+        SELECT s FROM StoreStatistics s
+        JOIN FETCH s.store st
+        WHERE st.id IN :storeIds
+    """)
+    List<StoreStatistics> findByStoreIdIn(@Param("storeIds") List<Long> storeIds);
 
     /**
      * Атомарно увеличивает счётчик отправленных посылок магазина.
@@ -142,5 +166,89 @@ public interface StoreAnalyticsRepository
         """)
     void resetByStoreId(@Param("storeId") Long storeId);
 
+    /**
+     * Заблокировать строку статистики магазина до конца транзакции.
+     * <p>
+     * Используется пересчётом статистики, чтобы инкрементальные обновления
+     * этого магазина дождались завершения пересчёта.
+     * </p>
+     *
+     * @param storeId идентификатор магазина
+     * @return заблокированная статистика, если найдена
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM StoreStatistics s WHERE s.store.id = :storeId")
+    Optional<StoreStatistics> lockByStoreId(@Param("storeId") Long storeId);
+
+    /**
+     * Сравнить накопительную статистику магазина со значениями,
+     * пересчитанными по посылкам и истории доставки.
+     *
+     * @param storeId идентификатор магазина
+     * @return строка расхождения или пустой список, если данные совпадают
+     */
+    @Query(value = """
+        SELECT CAST(NULL AS VARCHAR) AS "postalService",
+               CAST(NULL AS DATE) AS "date",
+               COALESCE(a.total_sent, 0) AS "actualSent",
+               e.sent AS "expectedSent",
+               COALESCE(a.total_delivered, 0) AS "actualDelivered",
+               e.delivered AS "expectedDelivered",
+               COALESCE(a.total_returned, 0) AS "actualReturned",
+               e.returned AS "expectedReturned",
+               COALESCE(a.sum_delivery_days, 0) AS "actualDeliveryDays",
+               e.sum_delivery_days AS "expectedDeliveryDays",
+               COALESCE(a.sum_pickup_days, 0) AS "actualPickupDays",
+               e.sum_pickup_days AS "expectedPickupDays"
+        FROM (
+            SELECT COUNT(*) AS sent,
+                   COUNT(*) FILTER (WHERE f.final_status = 'DELIVERED') AS delivered,
+                   COUNT(*) FILTER (WHERE f.final_status = 'RETURNED') AS returned,
+                   COALESCE(SUM(f.delivery_days), 0) AS sum_delivery_days,
+                   COALESCE(SUM(f.pickup_days), 0) AS sum_pickup_days
+            FROM v_parcel_statistics_facts f
+            WHERE f.store_id = :storeId
+        ) e
+        LEFT JOIN tb_store_statistics a ON a.store_id = :storeId
+        WHERE (COALESCE(a.total_sent, 0), COALESCE(a.total_delivered, 0), COALESCE(a.total_returned, 0),
+               COALESCE(a.sum_delivery_days, 0), COALESCE(a.sum_pickup_days, 0))
+              IS DISTINCT FROM
+              (e.sent, e.delivered, e.returned, e.sum_delivery_days, e.sum_pickup_days)
+        """, nativeQuery = true)
+    List<StatisticsDriftRow> findDriftByStoreId(@Param("storeId") Long storeId);
+
+    /**
+     * Пересчитать накопительную статистику магазина одним запросом
+     * по посылкам и истории доставки.
+     * <p>
+     * Если у магазина ещё нет строки статистики, она создаётся.
+     * </p>
+     *
+     * @param storeId идентификатор магазина
+     * @return количество вставленных или обновлённых записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tb_store_statistics
+            (store_id, total_sent, total_delivered, total_returned, sum_delivery_days, sum_pickup_days, updated_at)
+        SELECT :storeId,
+               COUNT(*),
+               COUNT(*) FILTER (WHERE f.final_status = 'DELIVERED'),
+               COUNT(*) FILTER (WHERE f.final_status = 'RETURNED'),
+               COALESCE(SUM(f.delivery_days), 0),
+               COALESCE(SUM(f.pickup_days), 0),
+               CURRENT_TIMESTAMP
+        FROM v_parcel_statistics_facts f
+        WHERE f.store_id = :storeId
+        ON CONFLICT (store_id) DO UPDATE
+        SET total_sent = EXCLUDED.total_sent,
+            total_delivered = EXCLUDED.total_delivered,
+            total_returned = EXCLUDED.total_returned,
+            sum_delivery_days = EXCLUDED.sum_delivery_days,
+            sum_pickup_days = EXCLUDED.sum_pickup_days,
+            updated_at = EXCLUDED.updated_at
+        """, nativeQuery = true)
+    int rebuildByStoreId(@Param("storeId") Long storeId);
 
 }
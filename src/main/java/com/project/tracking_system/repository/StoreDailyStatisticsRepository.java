@@ -1,5 +1,6 @@
 package com.project.tracking_system.repository;
 
+import com.project.tracking_system.dto.StatisticsDriftRow;
 import com.project.tracking_system.entity.StoreDailyStatistics;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -128,4 +129,84 @@ public interface StoreDailyStatisticsRepository
                           @Param("deliveryDays") java.math.BigDecimal deliveryDays,
                           @Param("pickupDays") java.math.BigDecimal pickupDays);
 
+    /**
+     * Сравнить ежедневную статистику магазина со значениями,
+     * пересчитанными по посылкам и истории доставки.
+     *
+     * @param storeId идентификатор магазина
+     * @return расхождения по датам
+     */
+    @Query(value = """
+        SELECT CAST(NULL AS VARCHAR) AS "postalService",
+               COALESCE(e.date, a.date) AS "date",
+               COALESCE(a.sent, 0) AS "actualSent",
+               COALESCE(e.sent, 0) AS "expectedSent",
+               COALESCE(a.delivered, 0) AS "actualDelivered",
+               COALESCE(e.delivered, 0) AS "expectedDelivered",
+               COALESCE(a.returned, 0) AS "actualReturned",
+               COALESCE(e.returned, 0) AS "expectedReturned",
+               COALESCE(a.sum_delivery_days, 0) AS "actualDeliveryDays",
+               COALESCE(e.sum_delivery_days, 0) AS "expectedDeliveryDays",
+               COALESCE(a.sum_pickup_days, 0) AS "actualPickupDays",
+               COALESCE(e.sum_pickup_days, 0) AS "expectedPickupDays"
+        FROM (
+            SELECT v.date,
+                   SUM(v.sent) AS sent,
+                   SUM(v.delivered) AS delivered,
+                   SUM(v.returned) AS returned,
+                   SUM(v.sum_delivery_days) AS sum_delivery_days,
+                   SUM(v.sum_pickup_days) AS sum_pickup_days
+            FROM v_statistics_daily_expected v
+            WHERE v.store_id = :storeId
+            GROUP BY v.date
+        ) e
+        FULL OUTER JOIN (
+            SELECT d.date,
+                   SUM(d.sent) AS sent,
+                   SUM(d.delivered) AS delivered,
+                   SUM(d.returned) AS returned,
+                   SUM(d.sum_delivery_days) AS sum_delivery_days,
+                   SUM(d.sum_pickup_days) AS sum_pickup_days
+            FROM tb_store_statistics_daily d
+            WHERE d.store_id = :storeId
+            GROUP BY d.date
+        ) a ON a.date = e.date
+        WHERE (COALESCE(a.sent, 0), COALESCE(a.delivered, 0), COALESCE(a.returned, 0),
+               COALESCE(a.sum_delivery_days, 0), COALESCE(a.sum_pickup_days, 0))
+              IS DISTINCT FROM
+              (COALESCE(e.sent, 0), COALESCE(e.delivered, 0), COALESCE(e.returned, 0),
+               COALESCE(e.sum_delivery_days, 0), COALESCE(e.sum_pickup_days, 0))
+        ORDER BY 2
+        """, nativeQuery = true)
+    List<StatisticsDriftRow> findDriftByStoreId(@Param("storeId") Long storeId);
+
+    /**
+     * Заново заполнить ежедневную статистику магазина по посылкам
+     * и истории доставки.
+     * <p>
+     * Перед вызовом существующие строки магазина удаляются через
+     * {@link #deleteByStoreId(Long)}.
+     * </p>
+     *
+     * @param storeId идентификатор магазина
+     * @return количество вставленных записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tb_store_statistics_daily
+            (store_id, date, sent, delivered, returned, sum_delivery_days, sum_pickup_days, updated_at)
+        SELECT v.store_id,
+               v.date,
+               SUM(v.sent),
+               SUM(v.delivered),
+               SUM(v.returned),
+               SUM(v.sum_delivery_days),
+               SUM(v.sum_pickup_days),
+               CURRENT_TIMESTAMP
+        FROM v_statistics_daily_expected v
+        WHERE v.store_id = :storeId
+        GROUP BY v.store_id, v.date
+        """, nativeQuery = true)
+    int rebuildByStoreId(@Param("storeId") Long storeId);
 }
@@ -2,6 +2,10 @@ package com.project.tracking_system.repository;
 
 import com.project.tracking_system.entity.StoreMonthlyStatistics;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,4 +32,35 @@ public interface StoreMonthlyStatisticsRepository
      * Удалить месячную статистику конкретного магазина.
      */
     // Методы удаления определены в DeletableByStoreOrUser
+
+    /**
+     * Заново собрать статистику магазина по месяцам из ежедневных записей одним запросом.
+     * <p>
+     * Перед вызовом существующие строки магазина удаляются через
+     * {@link #deleteByStoreId(Long)}.
+     * </p>
+     *
+     * @param storeId идентификатор магазина
+     * @return количество вставленных записей
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO tb_store_statistics_monthly
+            (store_id, period_year, period_number, sent, delivered, returned,
+             sum_delivery_days, sum_pickup_days, updated_at)
+        SELECT d.store_id,
+               CAST(EXTRACT(YEAR FROM d.date) AS INT),
+               CAST(EXTRACT(MONTH FROM d.date) AS INT),
+               SUM(d.sent),
+               SUM(d.delivered),
+               SUM(d.returned),
+               SUM(d.sum_delivery_days),
+               SUM(d.sum_pickup_days),
+               CURRENT_TIMESTAMP
+        FROM tb_store_statistics_daily d
+        WHERE d.store_id = :storeId
+        GROUP BY 1, 2, 3
+        """, nativeQuery = true)
+    int rebuildFromDailyByStoreId(@Param("storeId") Long storeId);
 }
@@ -59,6 +59,14 @@ public interface StoreRepository extends JpaRepository<Store, Long> {
     @Query("SELECT s.id FROM Store s WHERE s.owner.id = :ownerId")
     List<Long> findStoreIdsByOwnerId(@Param("ownerId") Long ownerId);
 
+    /**
+     * Получить идентификаторы всех магазинов системы.
+     *
+     * @return список идентификаторов магазинов по возрастанию
+     */
+    @Query("SELECT s.id FROM Store s ORDER BY s.id")
+    List<Long> findAllIds();
+
     /**
      * Получить магазины пользователя вместе с Telegram-настройками.
      *
@@ -71,6 +79,18 @@ public interface StoreRepository extends JpaRepository<Store, Long> {
            "WHERE s.owner.id = :ownerId")
     List<Store> findByOwnerIdFetchSettings(@Param("ownerId") Long ownerId);
 
+    /**
+     * Получить магазин вместе с настройками Telegram и шаблонами.
+     *
+     * @param storeId идентификатор магазина
+     * @return магазин с инициализированными настройками или {@code null}
+     */
+    @Query("SELECT DISTINCT s FROM Store s " +
+           "LEFT JOIN FETCH s.telegramSettings ts " +
+           "LEFT JOIN FETCH ts.templates " +
+           "WHERE s.id = :storeId")
+    Store findByIdFetchSettings(@Param("storeId") Long storeId);
+
     /**
      * Получить все магазины с Telegram-настройками и подпиской владельца.
      *
@@ -1,7 +1,10 @@
 package com.project.tracking_system.repository;
 
+import com.project.tracking_system.dto.ReminderCandidateRow;
+import com.project.tracking_system.dto.TrackParcelRow;
 import com.project.tracking_system.entity.TrackParcel;
 import com.project.tracking_system.entity.GlobalStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -11,10 +14,22 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 
 public interface TrackParcelRepository extends JpaRepository<TrackParcel, Long> {
 
+    /**
+     * Выборка строк списка отправлений одним запросом, без загрузки
+     * связанных сущностей. Покупатель присоединяется левым соединением,
+     * идентификатор магазина читается из внешнего ключа посылки.
+     */
+    String LIST_ROW_SELECT = """
+            SELECT new com.project.tracking_system.dto.TrackParcelRow(
+                t.id, t.number, t.status, t.timestamp, t.store.id, c.fullName, c.phone, c.nameSource)
+            FROM TrackParcel t LEFT JOIN t.customer c
+            """;
+
     List<TrackParcel> findByUserId(Long userId);
 
     /**
@@ -40,9 +55,6 @@ public interface TrackParcelRepository extends JpaRepository<TrackParcel, Long>
 
     boolean existsByNumberAndUserId(String number, Long userId);
 
-    // Поиск посылок по списку магазинов с пагинацией.
-    Page<TrackParcel> findByStoreIdIn(List<Long> storeIds, Pageable pageable);
-
     // Поиск одной посылки по номеру в рамках конкретного магазина
     TrackParcel findByNumberAndStoreId(String number, Long storeId);
 
@@ -54,6 +66,28 @@ public interface TrackParcelRepository extends JpaRepository<TrackParcel, Long>
      */
     Page<TrackParcel> findByPreRegisteredTrue(Pageable pageable);
 
+    /**
+     * Строки предзарегистрированных посылок магазинов: в статусе
+     * {@code PRE_REGISTERED} либо с флагом {@code preRegistered}.
+     *
+     * @param storeIds идентификаторы магазинов
+     * @param status   статус предрегистрации
+     * @param pageable настройки пагинации и сортировки
+     * @return страница строк списка
+     */
+    @Query(value = LIST_ROW_SELECT + """
+            WHERE t.store.id IN :storeIds
+              AND (t.status = :status OR t.preRegistered = true)
+            """,
+            countQuery = """
+            SELECT COUNT(t) FROM TrackParcel t
+            WHERE t.store.id IN :storeIds
+              AND (t.status = :status OR t.preRegistered = true)
+            """)
+    Page<TrackParcelRow> findPreRegisteredRows(@Param("storeIds") List<Long> storeIds,
+                                               @Param("status") GlobalStatus status,
+                                               Pageable pageable);
+
     /**
      * Найти предварительно зарегистрированную посылку по идентификатору.
      * <p>
@@ -90,10 +124,6 @@ public interface TrackParcelRepository extends JpaRepository<TrackParcel, Long>
      */
     Page<TrackParcel> findByStatus(GlobalStatus status, Pageable pageable);
 
-    // Поиск посылок по статусу для конкретного магазина (с пагинацией)
-    @Query("SELECT t FROM TrackParcel t WHERE t.store.id IN :storeIds AND t.status = :status")
-    Page<TrackParcel> findByStoreIdInAndStatus(@Param("storeIds") List<Long> storeIds, @Param("status") GlobalStatus status, Pageable pageable);
-
     // Подсчёт всех посылок в магазине
     @Query("SELECT COUNT(t) FROM TrackParcel t WHERE t.store.id = :storeId")
     int countByStoreId(@Param("storeId") Long storeId);
@@ -112,20 +142,55 @@ public interface TrackParcelRepository extends JpaRepository<TrackParcel, Long>
     void deleteByStoreId(@Param("storeId") Long storeId);
 
     /**
-     * Найти посылки, ожидающие покупателя дольше указанной даты.
+     * Найти посылки, по которым пора отправить напоминание покупателю.
+     * <p>
+     * Отбор выполняется одним запросом: учитываются настройки напоминаний
+     * магазина, дата прибытия на пункт выдачи, согласие покупателя на уведомления
+     * и время последнего напоминания из журнала. Посылки возвращаются порциями
+     * по возрастанию идентификатора.
+     * </p>
      *
-     * @param status    статус посылки
-     * @param threshold дата, ранее которой посылка прибыла на пункт выдачи
-     * @return список подходящих посылок
+     * @param now       текущий момент
+     * @param threshold дата, ранее которой посылка должна прибыть на пункт выдачи
+     * @param afterId   идентификатор посылки, после которой начинается порция
+     * @param limit     размер порции
+     * @return посылки, ожидающие напоминания
      */
-    @Query("""
-        SELECT p FROM TrackParcel p
-        JOIN DeliveryHistory h ON h.trackParcel.id = p.id
-        WHERE p.status = :status
-          AND h.arrivedDate < :threshold
-        """)
-    List<TrackParcel> findWaitingForPickupBefore(@Param("status") GlobalStatus status,
-                                                 @Param("threshold") java.time.ZonedDateTime threshold);
+    @Query(value = """
+        SELECT p.id AS "parcelId",
+               p.tracking_number AS "trackNumber",
+               s.name AS "storeName",
+               s.user_id AS "ownerId",
+               c.telegram_chat_id AS "chatId",
+               ts.reminder_template AS "reminderTemplate"
+        FROM tb_track_parcels p
+        JOIN tb_delivery_history h ON h.track_parcel_id = p.id
+        JOIN tb_stores s ON s.id = p.store_id
+        JOIN tb_store_telegram_settings ts ON ts.store_id = s.id
+        JOIN tb_customers c ON c.id = p.customer_id
+        WHERE p.status = 'WAITING_FOR_CUSTOMER'
+          AND p.id > :afterId
+          AND p.tracking_number IS NOT NULL
+          AND ts.enabled = TRUE
+          AND ts.reminders_enabled = TRUE
+          AND c.telegram_chat_id IS NOT NULL
+          AND c.notifications_enabled = TRUE
+          AND h.arrived_date < :threshold
+          AND h.arrived_date <= :now - make_interval(days => ts.reminder_start_after_days)
+          AND NOT EXISTS (
+              SELECT 1
+              FROM tb_customer_notifications l
+              WHERE l.parcel_id = p.id
+                AND l.notification_type = 'REMINDER'
+                AND l.sent_at > :now - make_interval(days => ts.reminder_repeat_interval_days)
+          )
+        ORDER BY p.id
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<ReminderCandidateRow> findDueReminders(@Param("now") ZonedDateTime now,
+                                                @Param("threshold") ZonedDateTime threshold,
+                                                @Param("afterId") long afterId,
+                                                @Param("limit") int limit);
 
     /**
      * Найти все активные посылки покупателя в указанных статусах.
@@ -150,14 +215,125 @@ public interface TrackParcelRepository extends JpaRepository<TrackParcel, Long>
     List<TrackParcel> findAllWithStoreAndUser();
 
     /**
-     * Получить все посылки постранично с подгруженными магазином и пользователем.
+     * Страница посылок всех пользователей с подгруженными магазином и пользователем,
+     * начиная со строки раньше указанной позиции (timestamp, id).
+     * <p>
+     * Условие {@code t.timestamp <= :timestamp} вынесено за пределы {@code OR}, чтобы
+     * PostgreSQL использовал его как границу диапазона индекса (timestamp, id):
+     * ожидаемый план — {@code Index Scan Backward using idx_parcels_timestamp_id},
+     * {@code Index Cond: (timestamp <= $1)}, остаток условия проверяется только
+     * для строк с той же отметкой времени.
+     * </p>
      *
-     * @param pageable настройки пагинации
-     * @return страница посылок
+     * @param timestamp момент граничной строки
+     * @param id        идентификатор граничной строки
+     * @param limit     максимальное количество строк
+     * @return посылки по убыванию (timestamp, id)
+     */
+    @Query("""
+            SELECT t FROM TrackParcel t JOIN FETCH t.store JOIN FETCH t.user
+            WHERE t.timestamp <= :timestamp
+              AND (t.timestamp < :timestamp OR t.id < :id)
+            ORDER BY t.timestamp DESC, t.id DESC
+            """)
+    List<TrackParcel> findAllWithStoreAndUserBefore(@Param("timestamp") ZonedDateTime timestamp,
+                                                    @Param("id") Long id,
+                                                    Limit limit);
+
+    /**
+     * Страница посылок всех пользователей с подгруженными магазином и пользователем,
+     * начиная со строки позже указанной позиции (timestamp, id).
+     * <p>
+     * Как и в {@link #findAllWithStoreAndUserBefore}, граница {@code t.timestamp >= :timestamp}
+     * задаёт диапазон сканирования индекса idx_parcels_timestamp_id.
+     * </p>
+     *
+     * @param timestamp момент граничной строки
+     * @param id        идентификатор граничной строки
+     * @param limit     максимальное количество строк
+     * @return посылки по возрастанию (timestamp, id)
      */
-    @Query(value = "SELECT t FROM TrackParcel t JOIN FETCH t.store JOIN FETCH t.user",
-           countQuery = "SELECT count(t) FROM TrackParcel t")
-    Page<TrackParcel> findAllWithStoreAndUser(Pageable pageable);
+    @Query("""
+            SELECT t FROM TrackParcel t JOIN FETCH t.store JOIN FETCH t.user
+            WHERE t.timestamp >= :timestamp
+              AND (t.timestamp > :timestamp OR t.id > :id)
+            ORDER BY t.timestamp ASC, t.id ASC
+            """)
+    List<TrackParcel> findAllWithStoreAndUserAfter(@Param("timestamp") ZonedDateTime timestamp,
+                                                   @Param("id") Long id,
+                                                   Limit limit);
+
+    /**
+     * Посылки магазина, расположенные раньше позиции (timestamp, id).
+     * <p>
+     * Запрос выполняется для одного магазина: при {@code store_id IN (...)} строки
+     * разных магазинов не упорядочены в индексе, и PostgreSQL сортирует все строки
+     * до курсора. С равенством по магазину и границей {@code t.timestamp <= :timestamp}
+     * вне {@code OR} ожидаемый план —
+     * {@code Index Scan Backward using idx_parcels_store_timestamp_id},
+     * {@code Index Cond: ((store_id = $1) AND (timestamp <= $2))} без узла Sort;
+     * сканирование останавливается после {@code limit} строк.
+     * </p>
+     *
+     * @param storeId   идентификатор магазина
+     * @param status    фильтр статуса (может быть {@code null})
+     * @param timestamp момент граничной строки
+     * @param id        идентификатор граничной строки
+     * @param limit     максимальное количество строк
+     * @return строки списка по убыванию (timestamp, id)
+     */
+    @Query(LIST_ROW_SELECT + """
+            WHERE t.store.id = :storeId
+              AND (:status IS NULL OR t.status = :status)
+              AND t.timestamp <= :timestamp
+              AND (t.timestamp < :timestamp OR t.id < :id)
+            ORDER BY t.timestamp DESC, t.id DESC
+            """)
+    List<TrackParcelRow> findByStoreIdBefore(@Param("storeId") Long storeId,
+                                             @Param("status") GlobalStatus status,
+                                             @Param("timestamp") ZonedDateTime timestamp,
+                                             @Param("id") Long id,
+                                             Limit limit);
+
+    /**
+     * Посылки магазина, расположенные позже позиции (timestamp, id).
+     * <p>
+     * Зеркальный вариант {@link #findByStoreIdBefore}: граница
+     * {@code t.timestamp >= :timestamp} задаёт диапазон прямого сканирования
+     * idx_parcels_store_timestamp_id.
+     * </p>
+     *
+     * @param storeId   идентификатор магазина
+     * @param status    фильтр статуса (может быть {@code null})
+     * @param timestamp момент граничной строки
+     * @param id        идентификатор граничной строки
+     * @param limit     максимальное количество строк
+     * @return строки списка по возрастанию (timestamp, id)
+     */
+    @Query(LIST_ROW_SELECT + """
+            WHERE t.store.id = :storeId
+              AND (:status IS NULL OR t.status = :status)
+              AND t.timestamp >= :timestamp
+              AND (t.timestamp > :timestamp OR t.id > :id)
+            ORDER BY t.timestamp ASC, t.id ASC
+            """)
+    List<TrackParcelRow> findByStoreIdAfter(@Param("storeId") Long storeId,
+                                            @Param("status") GlobalStatus status,
+                                            @Param("timestamp") ZonedDateTime timestamp,
+                                            @Param("id") Long id,
+                                            Limit limit);
+
+    /**
+     * Оценить количество посылок по статистике планировщика без сканирования таблицы.
+     *
+     * @return приблизительное количество строк; {@code 0}, если статистика ещё не собрана
+     */
+    @Query(value = """
+            SELECT CAST(GREATEST(c.reltuples, 0) AS BIGINT)
+            FROM pg_class c
+            WHERE c.oid = CAST('tb_track_parcels' AS regclass)
+            """, nativeQuery = true)
+    long estimateCount();
 
     /**
      * Найти посылку по номеру с подгруженными магазином и пользователем.
@@ -211,6 +387,28 @@ public interface TrackParcelRepository extends JpaRepository<TrackParcel, Long>
     int countByCustomerIdAndStatus(@Param("customerId") Long customerId,
                                    @Param("status") GlobalStatus status);
 
+    /**
+     * Идентификаторы посылок пользователя, совпавших с поисковым запросом
+     * по номеру, телефону или ФИО покупателя.
+     */
+    String SEARCH_MATCHED_IDS = """
+                SELECT p.id FROM TrackParcel p
+                WHERE p.user.id = :userId
+                  AND LOWER(p.number) LIKE LOWER(CONCAT('%', :query, '%'))
+                UNION
+                SELECT p.id FROM TrackParcel p JOIN p.customer c
+                WHERE p.user.id = :userId
+                  AND :phoneDigits <> ''
+                  AND c.phone LIKE CONCAT('%', :phoneDigits, '%')
+                UNION
+                SELECT p.id FROM TrackParcel p JOIN p.customer c
+                WHERE p.user.id = :userId
+                  AND :nameToken1 <> ''
+                  AND LOWER(c.fullName) LIKE CONCAT('%', :nameToken1, '%')
+                  AND (:nameToken2 = '' OR LOWER(c.fullName) LIKE CONCAT('%', :nameToken2, '%'))
+                  AND (:nameToken3 = '' OR LOWER(c.fullName) LIKE CONCAT('%', :nameToken3, '%'))
+            """;
+
     /**
      * Поиск посылок по номеру, телефону или ФИО покупателя.
      * <p>
@@ -219,6 +417,13 @@ public interface TrackParcelRepository extends JpaRepository<TrackParcel, Long>
      * до трёх токенов, каждый из которых должен встречаться в полном имени.
      * Посылки без трек-номера исключаются из поиска по номеру.
      * </p>
+     * <p>
+     * Условия разнесены по ветвям {@code UNION}, чтобы каждая ветвь
+     * обслуживалась своим триграммным индексом: номер посылки —
+     * {@code idx_parcels_number_trgm}, телефон — {@code idx_customers_phone_trgm},
+     * ФИО — {@code idx_customers_full_name_trgm}. Ветвь с пустым параметром
+     * отбрасывается планировщиком без обращения к таблицам.
+     * </p>
      *
      * @param storeIds    магазины владельца
      * @param userId      идентификатор пользователя
@@ -229,34 +434,29 @@ public interface TrackParcelRepository extends JpaRepository<TrackParcel, Long>
      * @param nameToken2  второй токен ФИО
      * @param nameToken3  третий токен ФИО
      * @param pageable    настройки пагинации
-     * @return страница посылок, удовлетворяющих условиям
+     * @return страница строк списка, удовлетворяющих условиям
      */
-    @Query("""
-            SELECT t FROM TrackParcel t
-            LEFT JOIN t.customer c
+    @Query(value = LIST_ROW_SELECT + """
             WHERE t.user.id = :userId
               AND t.store.id IN :storeIds
               AND (:status IS NULL OR t.status = :status)
-              AND (
-                    (t.number IS NOT NULL AND LOWER(t.number) LIKE LOWER(CONCAT('%', :query, '%')))
-                    OR (:phoneDigits <> '' AND c.phone LIKE CONCAT('%', :phoneDigits, '%'))
-                    OR (
-                        :nameToken1 <> ''
-                        AND c.fullName IS NOT NULL
-                        AND LOWER(c.fullName) LIKE CONCAT('%', :nameToken1, '%')
-                        AND (:nameToken2 = '' OR LOWER(c.fullName) LIKE CONCAT('%', :nameToken2, '%'))
-                        AND (:nameToken3 = '' OR LOWER(c.fullName) LIKE CONCAT('%', :nameToken3, '%'))
-                    )
-              )
-            """)
-    Page<TrackParcel> searchByNumberPhoneOrName(@Param("storeIds") List<Long> storeIds,
-                                                @Param("userId") Long userId,
-                                                @Param("status") GlobalStatus status,
-                                                @Param("query") String query,
-                                                @Param("phoneDigits") String phoneDigits,
-                                                @Param("nameToken1") String nameToken1,
-                                                @Param("nameToken2") String nameToken2,
-                                                @Param("nameToken3") String nameToken3,
-                                                Pageable pageable);
+              AND t.id IN (
+            """ + SEARCH_MATCHED_IDS + ")",
+            countQuery = """
+            SELECT COUNT(t) FROM TrackParcel t
+            WHERE t.user.id = :userId
+              AND t.store.id IN :storeIds
+              AND (:status IS NULL OR t.status = :status)
+              AND t.id IN (
+            """ + SEARCH_MATCHED_IDS + ")")
+    Page<TrackParcelRow> searchByNumberPhoneOrName(@Param("storeIds") List<Long> storeIds,
+                                                   @Param("userId") Long userId,
+                                                   @Param("status") GlobalStatus status,
+                                                   @Param("query") String query,
+                                                   @Param("phoneDigits") String phoneDigits,
+                                                   @Param("nameToken1") String nameToken1,
+                                                   @Param("nameToken2") String nameToken2,
+                                                   @Param("nameToken3") String nameToken3,
+                                                   Pageable pageable);
 
 }
\ No newline at end of file
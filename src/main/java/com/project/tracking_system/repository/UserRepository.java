@@ -2,6 +2,7 @@ package com.project.tracking_system.repository;
 
 import com.project.tracking_system.entity.Role;
 import com.project.tracking_system.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -27,6 +28,15 @@ public interface UserRepository extends JpaRepository <User, Long> {
      */
     Optional<User> findById(Long userId);
 
+    /**
+     * Найти пользователя вместе с подпиской и тарифным планом.
+     *
+     * @param userId идентификатор пользователя
+     * @return пользователь с инициализированной подпиской
+     */
+    @EntityGraph(attributePaths = {"subscription", "subscription.subscriptionPlan"})
+    Optional<User> findWithSubscriptionById(Long userId);
+
     /**
      * Подсчитать количество пользователей по коду их тарифного плана.
      *
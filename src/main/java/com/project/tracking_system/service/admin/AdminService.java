@@ -10,8 +10,11 @@ import com.project.tracking_system.service.track.TrackDeletionService;
 import com.project.tracking_system.service.track.TrackMeta;
 import com.project.tracking_system.service.track.TrackUpdateService;
 import com.project.tracking_system.service.user.UserService;
+import com.project.tracking_system.utils.KeysetCursor;
+import com.project.tracking_system.utils.KeysetPage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +31,11 @@ import java.util.stream.Collectors;
 @Slf4j
 public class AdminService {
 
+    /**
+     * Размер таблицы посылок, до которого точный подсчёт дешевле, чем неточность оценки.
+     */
+    private static final long EXACT_COUNT_THRESHOLD = 100_000;
+
     private final CustomerRepository customerRepository;
     private final CustomerNotificationLogRepository notificationRepository;
     private final StoreRepository storeRepository;
@@ -194,32 +202,55 @@ public class AdminService {
     }
 
     /**
-     * Получить список всех посылок системы с информацией о владельце и магазине.
+     * Получить страницу всех посылок системы с информацией о владельце и магазине.
+     * <p>
+     * Посылки упорядочены от новых к старым и листаются по ключу (timestamp, id),
+     * поэтому стоимость запроса не зависит от глубины страницы.
+     * </p>
      *
-     * @param page номер страницы
-     * @param size размер страницы
+     * @param cursor курсор страницы или {@code null} для первой страницы
+     * @param size   размер страницы
      * @return страница посылок для отображения в админ-панели
      */
     @Transactional(readOnly = true)
-    public org.springframework.data.domain.Page<TrackParcelAdminInfoDTO> getAllParcels(int page, int size) {
-        // Создаём объект пагинации
-        org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(page, size);
+    public KeysetPage<TrackParcelAdminInfoDTO> getAllParcels(String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        KeysetCursor from = position != null ? position : KeysetCursor.start(false);
+        Limit limit = Limit.of(size + 1);
 
         // Загружаем посылки с подгруженными магазином и пользователем
-        org.springframework.data.domain.Page<TrackParcel> parcels = trackParcelRepository.findAllWithStoreAndUser(pageable);
+        List<TrackParcel> rows = from.seekAscending(false)
+                ? trackParcelRepository.findAllWithStoreAndUserAfter(from.timestampUtc(), from.id(), limit)
+                : trackParcelRepository.findAllWithStoreAndUserBefore(from.timestampUtc(), from.id(), limit);
 
         // Преобразуем в DTO с форматированной датой
         java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss")
                 .withZone(java.time.ZoneId.systemDefault());
 
-        return parcels.map(p -> new TrackParcelAdminInfoDTO(
-                p.getId(),
-                p.getNumber(),
-                p.getStatus().getDescription(),
-                p.getStore().getName(),
-                p.getUser().getEmail(),
-                formatter.format(p.getTimestamp())
-        ));
+        return KeysetPage.fromRows(rows, size, position, TrackParcel::getTimestamp, TrackParcel::getId)
+                .map(p -> new TrackParcelAdminInfoDTO(
+                        p.getId(),
+                        p.getNumber(),
+                        p.getStatus().getDescription(),
+                        p.getStore().getName(),
+                        p.getUser().getEmail(),
+                        formatter.format(p.getTimestamp())
+                ));
+    }
+
+    /**
+     * Оценить количество посылок в системе.
+     * <p>
+     * Для больших таблиц используется статистика планировщика PostgreSQL,
+     * точный подсчёт выполняется только пока таблица небольшая.
+     * </p>
+     *
+     * @return приблизительное количество посылок
+     */
+    @Transactional(readOnly = true)
+    public long estimateParcelCount() {
+        long estimate = trackParcelRepository.estimateCount();
+        return estimate < EXACT_COUNT_THRESHOLD ? trackParcelRepository.count() : estimate;
     }
 
     /**
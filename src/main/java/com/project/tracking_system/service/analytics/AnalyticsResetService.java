@@ -1,5 +1,6 @@
 package com.project.tracking_system.service.analytics;
 
+import com.project.tracking_system.repository.DeliveryTimeHistogramRepository;
 import com.project.tracking_system.repository.PostalServiceStatisticsRepository;
 import com.project.tracking_system.repository.StoreAnalyticsRepository;
 import com.project.tracking_system.repository.StoreDailyStatisticsRepository;
@@ -34,6 +35,7 @@ public class AnalyticsResetService {
     private final PostalServiceWeeklyStatisticsRepository psWeeklyRepo;
     private final PostalServiceMonthlyStatisticsRepository psMonthlyRepo;
     private final PostalServiceYearlyStatisticsRepository psYearlyRepo;
+    private final DeliveryTimeHistogramRepository histogramRepository;
     private final StoreService storeService;
 
     /**
@@ -60,6 +62,8 @@ public class AnalyticsResetService {
         psMonthlyRepo.deleteByUserId(userId);
         psYearlyRepo.deleteByUserId(userId);
 
+        histogramRepository.deleteByUserId(userId);
+
         log.info("Аналитика пользователя ID={} успешно сброшена", userId);
     }
 
@@ -90,6 +94,8 @@ public class AnalyticsResetService {
         psMonthlyRepo.deleteByStoreId(storeId);
         psYearlyRepo.deleteByStoreId(storeId);
 
+        histogramRepository.deleteByStoreId(storeId);
+
         log.info("Аналитика магазина ID={} пользователя ID={} успешно сброшена", storeId, userId);
     }
 }
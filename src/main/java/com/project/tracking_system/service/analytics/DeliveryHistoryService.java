@@ -11,15 +11,13 @@ import com.project.tracking_system.repository.PostalServiceStatisticsRepository;
 import com.project.tracking_system.repository.StoreDailyStatisticsRepository;
 import com.project.tracking_system.repository.PostalServiceDailyStatisticsRepository;
 import com.project.tracking_system.service.track.StatusTrackService;
+import com.project.tracking_system.service.track.TrackEventClassification;
 import com.project.tracking_system.service.track.TypeDefinitionTrackPostService;
 import com.project.tracking_system.service.customer.CustomerService;
 import com.project.tracking_system.service.customer.CustomerStatsService;
 import com.project.tracking_system.service.telegram.TelegramNotificationService;
 import com.project.tracking_system.service.SubscriptionService;
 import com.project.tracking_system.model.subscription.FeatureKey;
-import com.project.tracking_system.repository.CustomerNotificationLogRepository;
-import com.project.tracking_system.entity.CustomerNotificationLog;
-import com.project.tracking_system.entity.NotificationType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -30,12 +28,10 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import com.project.tracking_system.utils.DateParserUtils;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.function.Consumer;
 
 /**
@@ -58,9 +54,10 @@ public class DeliveryHistoryService {
     private final CustomerService customerService;
     private final CustomerStatsService customerStatsService;
     private final TelegramNotificationService telegramNotificationService;
-    private final CustomerNotificationLogRepository customerNotificationLogRepository;
     private final SubscriptionService subscriptionService;
     private final DeliveryMetricsRollbackService deliveryMetricsRollbackService;
+    private final DeliveryTimeHistogramService deliveryTimeHistogramService;
+    private final TrackStatisticsUpdater trackStatisticsUpdater;
 
 
     /**
@@ -173,13 +170,10 @@ public class DeliveryHistoryService {
             );
         }
 
-        if (!initialFinalStatus && newStatus != GlobalStatus.PRE_REGISTERED && shouldNotifyCustomer(trackParcel, newStatus)) {
-            boolean notificationSent = telegramNotificationService.sendStatusUpdate(trackParcel, newStatus);
-            if (notificationSent) {
-                log.info("✅ Уведомление о статусе {} отправлено для трека {}", newStatus, trackParcel.getNumber());
-                saveNotificationLog(trackParcel, newStatus);
-            } else {
-                log.debug("Уведомление о статусе {} не было отправлено для трека {}", newStatus, trackParcel.getNumber());
+        if (!initialFinalStatus && newStatus != GlobalStatus.PRE_REGISTERED && shouldNotifyCustomer(trackParcel)) {
+            // Отправка выполняется после фиксации транзакции, поэтому откат не оставляет отправленных сообщений
+            if (telegramNotificationService.requestStatusUpdate(trackParcel, newStatus)) {
+                log.debug("Уведомление о статусе {} запрошено для трека {}", newStatus, trackParcel.getNumber());
             }
         }
     }
@@ -223,9 +217,12 @@ public class DeliveryHistoryService {
             }
         }
 
+        // Классифицируем все события за один проход, повторяющиеся описания берутся из кэша
+        TrackEventClassification classification = statusTrackService.classifyEvents(trackInfoList);
+
         // Определяем дату получения или возврата
         TrackInfoDTO latestStatus = trackInfoList.get(0);
-        GlobalStatus finalStatus = statusTrackService.setStatus(List.of(latestStatus));
+        GlobalStatus finalStatus = classification.latestStatus();
 
         if (finalStatus == GlobalStatus.DELIVERED) {
             receivedDate = DateParserUtils.parse(latestStatus.getTimex(), userZone);
@@ -233,15 +230,11 @@ public class DeliveryHistoryService {
             returnedDate = DateParserUtils.parse(latestStatus.getTimex(), userZone);
         }
 
-        // Поиск первого (по времени) статуса WAITING_FOR_CUSTOMER
-        for (int i = trackInfoList.size() - 1; i >= 0; i--) {
-            TrackInfoDTO info = trackInfoList.get(i);
-            GlobalStatus status = statusTrackService.setStatus(List.of(info));
-            if (status == GlobalStatus.WAITING_FOR_CUSTOMER) {
-                arrivedDate = DateParserUtils.parse(info.getTimex(), userZone);
-                log.info("Извлечена дата прибытия на пункт выдачи: {}", arrivedDate);
-                break;
-            }
+        // Первый (по времени) статус WAITING_FOR_CUSTOMER
+        if (classification.hasWaitingEvent()) {
+            TrackInfoDTO info = trackInfoList.get(classification.earliestWaitingIndex());
+            arrivedDate = DateParserUtils.parse(info.getTimex(), userZone);
+            log.info("Извлечена дата прибытия на пункт выдачи: {}", arrivedDate);
         }
 
         return new DeliveryDates(sendDate, receivedDate, returnedDate, arrivedDate);
@@ -318,7 +311,7 @@ public class DeliveryHistoryService {
         if (status == GlobalStatus.DELIVERED) {
             if (history.getReceivedDate() != null) {
                 // День получения используется как ключ для ежедневной статистики
-                eventDate = history.getReceivedDate().toLocalDate();
+                eventDate = StatisticsDates.dayOf(history.getReceivedDate());
             }
 
             if (history.getSendDate() != null && history.getArrivedDate() != null) {
@@ -372,7 +365,7 @@ public class DeliveryHistoryService {
 
         } else if (status == GlobalStatus.RETURNED) {
             if (history.getReturnedDate() != null) {
-                eventDate = history.getReturnedDate().toLocalDate();
+                eventDate = StatisticsDates.dayOf(history.getReturnedDate());
             }
 
             if (history.getSendDate() != null && history.getArrivedDate() != null) {
@@ -421,6 +414,8 @@ public class DeliveryHistoryService {
 
         if (!alreadyRegistered && eventDate != null) {
             updateDailyStats(store, history.getPostalService(), eventDate, status, deliveryDays, pickupDays);
+            deliveryTimeHistogramService.record(store.getId(), history.getPostalService(), eventDate,
+                    status, deliveryDays, pickupDays, 1);
         }
 
         // Текущий покупатель на треке (может быть новым после редактирования)
@@ -636,6 +631,9 @@ public class DeliveryHistoryService {
      * <p>Если посылка не имела финального статуса и ещё не была включена в расчёты,
      * метод уменьшает значение {@code totalSent} в {@code StoreStatistics} на 1.</p>
      *
+     * <p>Для уже учтённой посылки счётчики сохраняются, а отправка в ежедневной
+     * статистике переносится на дату отправки из истории доставки, как при пересчёте.</p>
+     *
      * Это позволяет избежать искажения статистики при удалении черновиков и неактуальных треков.
      *
      * @param parcel объект удаляемой посылки
@@ -649,7 +647,11 @@ public class DeliveryHistoryService {
         }
 
         if (parcel.isIncludedInStatistics()) {
-            log.debug("Удаляется уже учтённая в статистике посылка {}, статистику не трогаем", parcel.getNumber());
+            // Счётчики остаются, но пересчёт относит отправку к дате отправки из истории доставки
+            if (parcel.getDeliveryHistory() != null) {
+                trackStatisticsUpdater.moveSentDayToHistory(parcel, parcel.getDeliveryHistory());
+            }
+            log.debug("Удаляется уже учтённая в статистике посылка {}, счётчики не трогаем", parcel.getNumber());
             return;
         }
 
@@ -689,7 +691,7 @@ public class DeliveryHistoryService {
             postalServiceStatisticsRepository.save(psStats);
         }
 
-        LocalDate day = parcel.getTimestamp() != null ? parcel.getTimestamp().toLocalDate() : null;
+        LocalDate day = StatisticsDates.dayOf(parcel.getTimestamp());
         if (day != null) {
             StoreDailyStatistics daily = storeDailyStatisticsRepository
                     .findByStoreIdAndDate(store.getId(), day)
@@ -739,40 +741,18 @@ public class DeliveryHistoryService {
 
     /**
      * Определяет, нужно ли отправлять уведомление покупателю о смене статуса.
-     * Проверяет наличие идентификатора чата в Telegram, активную подписку
-     * и факт отсутствия ранее отправленного уведомления по данному статусу.
+     * Проверяет наличие идентификатора чата в Telegram и активную подписку.
+     * Повторная отправка по тому же статусу исключается записью в журнал,
+     * см. {@link TelegramNotificationService#sendStatusUpdateOnce}.
      */
-    private boolean shouldNotifyCustomer(TrackParcel parcel, GlobalStatus status) {
+    private boolean shouldNotifyCustomer(TrackParcel parcel) {
         Customer customer = parcel.getCustomer();
         if (customer == null || customer.getTelegramChatId() == null) {
             return false;
         }
 
         Long ownerId = parcel.getStore().getOwner().getId();
-        boolean allowed = subscriptionService.isFeatureEnabled(ownerId, FeatureKey.TELEGRAM_NOTIFICATIONS);
-        if (!allowed) {
-            return false;
-        }
-
-        return !customerNotificationLogRepository.existsByParcelIdAndStatusAndNotificationType(
-                parcel.getId(),
-                status,
-                NotificationType.INSTANT
-        );
-    }
-
-    /**
-     * Сохраняет запись об отправленном уведомлении, чтобы исключить повторные отправки
-     * для одного и того же статуса.
-     */
-    private void saveNotificationLog(TrackParcel parcel, GlobalStatus status) {
-        CustomerNotificationLog logEntry = new CustomerNotificationLog();
-        logEntry.setCustomer(parcel.getCustomer());
-        logEntry.setParcel(parcel);
-        logEntry.setStatus(status);
-        logEntry.setNotificationType(NotificationType.INSTANT);
-        logEntry.setSentAt(ZonedDateTime.now(ZoneOffset.UTC));
-        customerNotificationLogRepository.save(logEntry);
+        return subscriptionService.isFeatureEnabled(ownerId, FeatureKey.TELEGRAM_NOTIFICATIONS);
     }
 
 }
\ No newline at end of file
@@ -43,6 +43,7 @@ public class DeliveryMetricsRollbackService {
     private final TrackParcelRepository trackParcelRepository;
     private final CustomerService customerService;
     private final CustomerStatsService customerStatsService;
+    private final DeliveryTimeHistogramService deliveryTimeHistogramService;
 
     /**
      * Выполняет полный откат финального статуса, возвращая все связанные показатели к состоянию до учёта.
@@ -75,17 +76,19 @@ public class DeliveryMetricsRollbackService {
                 );
             }
             if (history.getReceivedDate() != null) {
-                eventDate = history.getReceivedDate().toLocalDate();
+                eventDate = StatisticsDates.dayOf(history.getReceivedDate());
             }
         } else if (previousStatus == GlobalStatus.RETURNED) {
             if (history.getReturnedDate() != null) {
-                eventDate = history.getReturnedDate().toLocalDate();
+                eventDate = StatisticsDates.dayOf(history.getReturnedDate());
             }
         }
 
         if (wasIncluded && serviceType != PostalServiceType.UNKNOWN) {
             rollbackStoreAndServiceAggregates(store, serviceType, previousStatus, deliveryDays, pickupDays);
             rollbackDailyAggregates(store, serviceType, previousStatus, deliveryDays, pickupDays, eventDate);
+            deliveryTimeHistogramService.record(store.getId(), serviceType, eventDate,
+                    previousStatus, deliveryDays, pickupDays, -1);
         } else if (wasIncluded) {
             log.warn("⚠️ Невозможно откатить статистику для трека {}: неизвестная почтовая служба",
                     trackParcel.getNumber());
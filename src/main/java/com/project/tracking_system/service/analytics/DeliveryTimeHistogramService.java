@@ -0,0 +1,198 @@
+package com.project.tracking_system.service.analytics;
+
+import com.project.tracking_system.dto.DeliveryTimePercentilesDTO;
+import com.project.tracking_system.dto.HistogramBucketRow;
+import com.project.tracking_system.dto.PeriodStatsSource;
+import com.project.tracking_system.entity.DeliveryTimeMetric;
+import com.project.tracking_system.entity.GlobalStatus;
+import com.project.tracking_system.entity.PostalServiceType;
+import com.project.tracking_system.repository.DeliveryTimeHistogramRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ведёт гистограммы времени доставки и ожидания на пункте выдачи
+ * и вычисляет по ним перцентили без чтения истории доставки.
+ * <p>
+ * Корзины имеют ширину один день, значения от {@value #MAX_BUCKET} дней
+ * и больше попадают в последнюю корзину. Ежедневные гистограммы обновляются
+ * при учёте финального статуса, а недельные, месячные и годовые собираются
+ * из ежедневных вместе с остальной периодической статистикой.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeliveryTimeHistogramService {
+
+    /**
+     * Номер последней корзины; в неё попадают все длительности от этого значения.
+     */
+    static final int MAX_BUCKET = 60;
+
+    private final DeliveryTimeHistogramRepository histogramRepository;
+
+    /**
+     * Учесть длительности посылки с финальным статусом в ежедневной гистограмме.
+     *
+     * @param storeId      идентификатор магазина
+     * @param serviceType  тип почтовой службы
+     * @param eventDate    дата получения или возврата
+     * @param status       финальный статус
+     * @param deliveryDays время доставки в днях или {@code null}
+     * @param pickupDays   время ожидания в днях или {@code null}
+     * @param delta        {@code 1} при учёте, {@code -1} при откате
+     */
+    @Transactional
+    public void record(Long storeId,
+                       PostalServiceType serviceType,
+                       LocalDate eventDate,
+                       GlobalStatus status,
+                       BigDecimal deliveryDays,
+                       BigDecimal pickupDays,
+                       int delta) {
+        if (eventDate == null || serviceType == PostalServiceType.UNKNOWN) {
+            return;
+        }
+        if (deliveryDays != null) {
+            histogramRepository.addToDailyBucket(storeId, serviceType.name(), eventDate,
+                    DeliveryTimeMetric.DELIVERY.name(), toBucket(deliveryDays), delta);
+        }
+        // Время ожидания имеет смысл только для выданных посылок
+        if (status == GlobalStatus.DELIVERED && pickupDays != null) {
+            histogramRepository.addToDailyBucket(storeId, serviceType.name(), eventDate,
+                    DeliveryTimeMetric.PICKUP.name(), toBucket(pickupDays), delta);
+        }
+    }
+
+    /**
+     * Пересобрать недельные, месячные и годовые гистограммы периодов, содержащих дату.
+     * Операция идемпотентна.
+     *
+     * @param date дата, за которую агрегируется статистика
+     */
+    @Transactional
+    public void rollupForDate(LocalDate date) {
+        LocalDate weekStart = date.with(ChronoField.DAY_OF_WEEK, 1);
+        LocalDate monthStart = date.withDayOfMonth(1);
+        LocalDate yearStart = date.withDayOfYear(1);
+
+        rollup(PeriodStatsSource.WEEKLY, weekStart, weekStart.plusDays(6));
+        rollup(PeriodStatsSource.MONTHLY, monthStart, monthStart.plusMonths(1).minusDays(1));
+        rollup(PeriodStatsSource.YEARLY, yearStart, yearStart.plusYears(1).minusDays(1));
+    }
+
+    /**
+     * Заново построить все гистограммы магазина по посылкам и истории доставки.
+     *
+     * @param storeId идентификатор магазина
+     */
+    @Transactional
+    public void rebuildForStore(Long storeId) {
+        histogramRepository.deleteByStoreId(storeId);
+        histogramRepository.rebuildDailyByStoreId(storeId);
+        histogramRepository.rebuildPeriodsFromDailyByStoreId(storeId, PeriodStatsSource.WEEKLY.name(), "week");
+        histogramRepository.rebuildPeriodsFromDailyByStoreId(storeId, PeriodStatsSource.MONTHLY.name(), "month");
+        histogramRepository.rebuildPeriodsFromDailyByStoreId(storeId, PeriodStatsSource.YEARLY.name(), "year");
+    }
+
+    /**
+     * Получить медиану и 90-й перцентиль длительности по периодам.
+     *
+     * @param storeIds    идентификаторы магазинов
+     * @param serviceType почтовая служба или {@code null} для всех служб
+     * @param periodType  тип периода
+     * @param metric      измеряемая длительность
+     * @param from        первый день первого периода
+     * @param to          первый день последнего периода
+     * @return перцентили по каждому периоду, в котором есть данные
+     */
+    @Transactional(readOnly = true)
+    public List<DeliveryTimePercentilesDTO> getPercentiles(List<Long> storeIds,
+                                                           PostalServiceType serviceType,
+                                                           PeriodStatsSource periodType,
+                                                           DeliveryTimeMetric metric,
+                                                           LocalDate from,
+                                                           LocalDate to) {
+        if (storeIds == null || storeIds.isEmpty()) {
+            return List.of();
+        }
+        List<HistogramBucketRow> rows = histogramRepository.findBuckets(
+                storeIds,
+                serviceType != null ? serviceType.name() : null,
+                periodType.name(),
+                metric.name(),
+                from,
+                to
+        );
+
+        Map<LocalDate, long[]> histograms = new LinkedHashMap<>();
+        for (HistogramBucketRow row : rows) {
+            long[] counts = histograms.computeIfAbsent(row.getPeriodStart(), d -> new long[MAX_BUCKET + 1]);
+            counts[Math.min(row.getBucket(), MAX_BUCKET)] += row.getCount();
+        }
+
+        List<DeliveryTimePercentilesDTO> result = new ArrayList<>(histograms.size());
+        histograms.forEach((periodStart, counts) -> {
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            result.add(new DeliveryTimePercentilesDTO(
+                    periodStart,
+                    total,
+                    percentile(counts, total, 0.5),
+                    percentile(counts, total, 0.9)
+            ));
+        });
+        return result;
+    }
+
+    /**
+     * Определить номер корзины для длительности в днях.
+     *
+     * @param days длительность в днях
+     * @return номер корзины от {@code 0} до {@value #MAX_BUCKET}
+     */
+    static int toBucket(BigDecimal days) {
+        int whole = days.setScale(0, RoundingMode.FLOOR).intValue();
+        return Math.max(0, Math.min(whole, MAX_BUCKET));
+    }
+
+    /**
+     * Найти корзину, в которой накопленная доля посылок впервые достигает {@code quantile}.
+     *
+     * @return номер корзины или {@code null}, если гистограмма пуста
+     */
+    static Integer percentile(long[] counts, long total, double quantile) {
+        if (total <= 0) {
+            return null;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long cumulative = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            cumulative += counts[bucket];
+            if (cumulative >= rank) {
+                return bucket;
+            }
+        }
+        return counts.length - 1;
+    }
+
+    private void rollup(PeriodStatsSource periodType, LocalDate periodStart, LocalDate periodEnd) {
+        histogramRepository.deletePeriod(periodType.name(), periodStart);
+        int inserted = histogramRepository.rollupPeriod(periodType.name(), periodStart, periodStart, periodEnd);
+        log.debug("Гистограммы {} за период с {} собраны: {}", periodType, periodStart, inserted);
+    }
+}
@@ -0,0 +1,28 @@
+package com.project.tracking_system.service.analytics;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Определение дня, к которому событие относится в ежедневной статистике.
+ * <p>
+ * Инкрементальные обновления и пересчёт статистики ({@code v_parcel_statistics_facts})
+ * берут дату события в UTC, чтобы пересчёт не переносил события между днями.
+ * </p>
+ */
+final class StatisticsDates {
+
+    private StatisticsDates() {
+    }
+
+    /**
+     * Вернуть день события в UTC.
+     *
+     * @param moment момент события
+     * @return день в UTC или {@code null}, если момент не задан
+     */
+    static LocalDate dayOf(ZonedDateTime moment) {
+        return moment != null ? moment.withZoneSameInstant(ZoneOffset.UTC).toLocalDate() : null;
+    }
+}
@@ -0,0 +1,189 @@
+package com.project.tracking_system.service.analytics;
+
+import com.project.tracking_system.controller.WebSocketController;
+import com.project.tracking_system.dto.StatisticsCorrectionDTO;
+import com.project.tracking_system.dto.StatisticsRebuildReport;
+import com.project.tracking_system.repository.StoreRepository;
+import com.project.tracking_system.service.customer.CustomerStatisticsFixService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Запускаемый администратором пересчёт статистики покупателей, магазинов и почтовых служб.
+ * <p>
+ * Работа делится на независимые части: по одной на магазин и одна для счётчиков покупателей.
+ * Части выполняются параллельно в пуле {@code statsRebuildExecutor}, каждая в своей транзакции.
+ * Прогресс отправляется инициатору через канал {@code /topic/status/{userId}},
+ * а итоговый отчёт с исправленными значениями доступен через {@link #getLastReport()}.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatisticsRebuildService {
+
+    /**
+     * Сколько раз за пересчёт отправлять промежуточный прогресс.
+     */
+    private static final int PROGRESS_STEPS = 20;
+
+    private final StoreRepository storeRepository;
+    private final StoreStatisticsRebuilder storeStatisticsRebuilder;
+    private final CustomerStatisticsFixService customerStatisticsFixService;
+    private final WebSocketController webSocketController;
+    private final TaskExecutor statsRebuildExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile StatisticsRebuildReport lastReport;
+
+    /**
+     * Запустить пересчёт в фоне.
+     *
+     * @param userId идентификатор администратора, получающего прогресс
+     * @return {@code false}, если пересчёт уже выполняется
+     */
+    public boolean startRebuild(Long userId) {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Пересчёт статистики уже выполняется, повторный запуск отклонён");
+            return false;
+        }
+        try {
+            runRebuild(userId);
+        } catch (RuntimeException ex) {
+            running.set(false);
+            throw ex;
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true}, если пересчёт сейчас выполняется
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return отчёт последнего завершённого пересчёта
+     */
+    public Optional<StatisticsRebuildReport> getLastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    /**
+     * Сформировать CSV с исправленными значениями последнего пересчёта.
+     *
+     * @return CSV-строка; только заголовок, если отчёта ещё нет
+     */
+    public String getLastReportCsv() {
+        StringBuilder sb = new StringBuilder("table,storeId,key,field,actual,expected\n");
+        getLastReport().ifPresent(report -> report.corrections().forEach(c -> sb
+                .append(csvField(c.table())).append(',')
+                .append(c.storeId() != null ? c.storeId() : "").append(',')
+                .append(csvField(c.key())).append(',')
+                .append(csvField(c.field())).append(',')
+                .append(csvField(c.actual())).append(',')
+                .append(csvField(c.expected())).append('\n')));
+        return sb.toString();
+    }
+
+    /**
+     * Экранирует поле CSV: значения с разделителем, кавычками или переводом строки
+     * заключаются в кавычки, а кавычки внутри удваиваются.
+     */
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.chars().noneMatch(ch -> ch == ',' || ch == ';' || ch == '"' || ch == '\n' || ch == '\r')) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private void runRebuild(Long userId) {
+        ZonedDateTime startedAt = ZonedDateTime.now(ZoneOffset.UTC);
+        List<Long> storeIds = storeRepository.findAllIds();
+        int totalParts = storeIds.size() + 1;
+        int progressStep = Math.max(1, totalParts / PROGRESS_STEPS);
+
+        ConcurrentLinkedQueue<StatisticsCorrectionDTO> corrections = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> failedStores = new ConcurrentLinkedQueue<>();
+        AtomicInteger done = new AtomicInteger();
+
+        log.info("🔄 Запуск пересчёта статистики: магазинов {}", storeIds.size());
+        webSocketController.sendUpdateStatus(userId,
+                "Пересчёт статистики запущен: магазинов " + storeIds.size(), true);
+
+        List<CompletableFuture<Void>> parts = new ArrayList<>(totalParts);
+        parts.add(CompletableFuture.runAsync(() -> {
+            try {
+                corrections.addAll(customerStatisticsFixService.recalculateCounters());
+            } catch (RuntimeException ex) {
+                log.error("Ошибка пересчёта счётчиков покупателей", ex);
+                failedStores.add(0L);
+            }
+            reportProgress(userId, done.incrementAndGet(), totalParts, progressStep);
+        }, statsRebuildExecutor));
+
+        for (Long storeId : storeIds) {
+            parts.add(CompletableFuture.runAsync(() -> {
+                try {
+                    corrections.addAll(storeStatisticsRebuilder.rebuild(storeId));
+                } catch (RuntimeException ex) {
+                    log.error("Ошибка пересчёта статистики магазина ID={}", storeId, ex);
+                    failedStores.add(storeId);
+                }
+                reportProgress(userId, done.incrementAndGet(), totalParts, progressStep);
+            }, statsRebuildExecutor));
+        }
+
+        CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, throwable) -> finish(userId, startedAt, storeIds.size(),
+                        new ArrayList<>(failedStores), new ArrayList<>(corrections)));
+    }
+
+    private void reportProgress(Long userId, int done, int total, int step) {
+        if (done < total && done % step == 0) {
+            webSocketController.sendUpdateStatus(userId,
+                    "Пересчёт статистики: выполнено " + done + " из " + total, true);
+        }
+    }
+
+    private void finish(Long userId,
+                        ZonedDateTime startedAt,
+                        int storesTotal,
+                        List<Long> failed,
+                        List<StatisticsCorrectionDTO> corrections) {
+        // Нулевой идентификатор обозначает сбой части с покупателями, а не магазин
+        int storesFailed = (int) failed.stream().filter(id -> id != 0L).count();
+        lastReport = new StatisticsRebuildReport(
+                startedAt,
+                ZonedDateTime.now(ZoneOffset.UTC),
+                storesTotal - storesFailed,
+                Collections.unmodifiableList(failed),
+                Collections.unmodifiableList(corrections)
+        );
+        running.set(false);
+
+        log.info("✅ Пересчёт статистики завершён: исправлено значений {}, ошибок {}",
+                corrections.size(), failed.size());
+        String message = failed.isEmpty()
+                ? "Пересчёт статистики завершён. Исправлено значений: " + corrections.size()
+                : "Пересчёт статистики завершён с ошибками (" + failed.size() + "). Исправлено значений: " + corrections.size();
+        webSocketController.sendUpdateStatus(userId, message, failed.isEmpty());
+    }
+}
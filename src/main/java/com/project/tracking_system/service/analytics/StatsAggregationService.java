@@ -34,6 +34,8 @@ public class StatsAggregationService {
     private final PostalServiceMonthlyStatisticsRepository psMonthlyRepo;
     private final PostalServiceYearlyStatisticsRepository psYearlyRepo;
 
+    private final DeliveryTimeHistogramService deliveryTimeHistogramService;
+
     /**
      * Агрегирует статистику за предыдущий день.
      */
@@ -75,6 +77,7 @@ public class StatsAggregationService {
         for (PostalServiceDailyStatistics d : psDaily) {
             aggregatePostalService(d, date);
         }
+        deliveryTimeHistogramService.rollupForDate(date);
     }
 
     private void aggregateStore(StoreDailyStatistics d, LocalDate date) {
@@ -1,12 +1,18 @@
 package com.project.tracking_system.service.analytics;
 
+import com.project.tracking_system.dto.DeliveryTimePercentilesDTO;
 import com.project.tracking_system.dto.PeriodStatsDTO;
+import com.project.tracking_system.dto.PeriodStatsSource;
+import com.project.tracking_system.entity.DeliveryTimeMetric;
+import com.project.tracking_system.entity.PostalServiceType;
 import com.project.tracking_system.entity.StoreStatistics;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoField;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Map;
@@ -20,6 +26,7 @@ import java.util.Map;
 public class StoreDashboardDataService {
 
     private final DeliveryAnalyticsService deliveryAnalyticsService;
+    private final DeliveryTimeHistogramService deliveryTimeHistogramService;
 
     /**
      * Агрегирует данные для круговой диаграммы по переданному списку статистик.
@@ -81,4 +88,67 @@ public class StoreDashboardDataService {
     }
 
 
+    /**
+     * Строит данные для графика медианы и 90-го перцентиля времени доставки и ожидания.
+     * Значения берутся из заранее собранных гистограмм соответствующего интервала.
+     *
+     * @param storeIds    список идентификаторов магазинов для агрегации
+     * @param serviceType почтовая служба или {@code null} для всех служб
+     * @param interval    запрашиваемый интервал (дни, недели, месяцы, годы)
+     * @param userZone    часовой пояс пользователя
+     * @return карта с метками периодов и рядами перцентилей в днях
+     */
+    public Map<String, Object> getDeliveryPercentilesChart(List<Long> storeIds,
+                                                           PostalServiceType serviceType,
+                                                           ChronoUnit interval,
+                                                           ZoneId userZone) {
+        LocalDate today = LocalDate.now(userZone);
+        PeriodStatsSource periodType;
+        LocalDate from;
+        LocalDate to;
+        switch (interval) {
+            case DAYS -> {
+                periodType = PeriodStatsSource.DAILY;
+                from = today.minusDays(7);
+                to = today;
+            }
+            case WEEKS -> {
+                periodType = PeriodStatsSource.WEEKLY;
+                to = today.with(ChronoField.DAY_OF_WEEK, 1);
+                from = to.minusWeeks(4);
+            }
+            case MONTHS -> {
+                periodType = PeriodStatsSource.MONTHLY;
+                to = today.withDayOfMonth(1);
+                from = to.minusMonths(6);
+            }
+            case YEARS -> {
+                periodType = PeriodStatsSource.YEARLY;
+                to = today.withDayOfYear(1);
+                from = to.minusYears(5);
+            }
+            default -> throw new IllegalArgumentException("Неподдерживаемый интервал: " + interval);
+        }
+
+        List<DeliveryTimePercentilesDTO> delivery = deliveryTimeHistogramService.getPercentiles(
+                storeIds, serviceType, periodType, DeliveryTimeMetric.DELIVERY, from, to);
+        List<DeliveryTimePercentilesDTO> pickup = deliveryTimeHistogramService.getPercentiles(
+                storeIds, serviceType, periodType, DeliveryTimeMetric.PICKUP, from, to);
+
+        return Map.of(
+                "delivery", toSeries(delivery),
+                "pickup", toSeries(pickup)
+        );
+    }
+
+    private Map<String, Object> toSeries(List<DeliveryTimePercentilesDTO> list) {
+        // Map.of не допускает null, поэтому пустые перцентили заменяем нулём
+        return Map.of(
+                "labels", list.stream().map(p -> p.periodStart().toString()).toList(),
+                "count", list.stream().map(DeliveryTimePercentilesDTO::count).toList(),
+                "p50", list.stream().map(p -> p.p50() != null ? p.p50() : 0).toList(),
+                "p90", list.stream().map(p -> p.p90() != null ? p.p90() : 0).toList()
+        );
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.project.tracking_system.service.analytics;
+
+import com.project.tracking_system.dto.StatisticsCorrectionDTO;
+import com.project.tracking_system.dto.StatisticsDriftRow;
+import com.project.tracking_system.repository.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Пересчитывает статистику одного магазина set-based запросами.
+ * <p>
+ * Накопительные и ежедневные таблицы заполняются заново по посылкам и истории доставки,
+ * недельные, месячные и годовые — из ежедневных записей. Весь пересчёт магазина
+ * выполняется в одной транзакции под блокировкой строки {@code tb_store_statistics},
+ * поэтому инкрементальные обновления этого магазина ждут его завершения.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StoreStatisticsRebuilder {
+
+    private final StoreAnalyticsRepository storeAnalyticsRepository;
+    private final PostalServiceStatisticsRepository postalStatisticsRepository;
+    private final StoreDailyStatisticsRepository storeDailyRepo;
+    private final StoreWeeklyStatisticsRepository storeWeeklyRepo;
+    private final StoreMonthlyStatisticsRepository storeMonthlyRepo;
+    private final StoreYearlyStatisticsRepository storeYearlyRepo;
+    private final PostalServiceDailyStatisticsRepository psDailyRepo;
+    private final PostalServiceWeeklyStatisticsRepository psWeeklyRepo;
+    private final PostalServiceMonthlyStatisticsRepository psMonthlyRepo;
+    private final PostalServiceYearlyStatisticsRepository psYearlyRepo;
+    private final DeliveryTimeHistogramService deliveryTimeHistogramService;
+
+    /**
+     * Пересчитать статистику магазина.
+     *
+     * @param storeId идентификатор магазина
+     * @return исправленные значения накопительной и ежедневной статистики
+     */
+    @Transactional
+    public List<StatisticsCorrectionDTO> rebuild(Long storeId) {
+        storeAnalyticsRepository.lockByStoreId(storeId);
+
+        List<StatisticsCorrectionDTO> corrections = new ArrayList<>();
+        collect(corrections, "tb_store_statistics", storeId, storeAnalyticsRepository.findDriftByStoreId(storeId));
+        collect(corrections, "tb_postal_service_statistics", storeId, postalStatisticsRepository.findDriftByStoreId(storeId));
+        collect(corrections, "tb_store_statistics_daily", storeId, storeDailyRepo.findDriftByStoreId(storeId));
+        collect(corrections, "tb_postal_service_statistics_daily", storeId, psDailyRepo.findDriftByStoreId(storeId));
+
+        storeAnalyticsRepository.rebuildByStoreId(storeId);
+        postalStatisticsRepository.deleteByStoreId(storeId);
+        postalStatisticsRepository.rebuildByStoreId(storeId);
+
+        storeDailyRepo.deleteByStoreId(storeId);
+        storeDailyRepo.rebuildByStoreId(storeId);
+        psDailyRepo.deleteByStoreId(storeId);
+        psDailyRepo.rebuildByStoreId(storeId);
+
+        // Периодические таблицы собираются из только что пересчитанных ежедневных
+        storeWeeklyRepo.deleteByStoreId(storeId);
+        storeWeeklyRepo.rebuildFromDailyByStoreId(storeId);
+        storeMonthlyRepo.deleteByStoreId(storeId);
+        storeMonthlyRepo.rebuildFromDailyByStoreId(storeId);
+        storeYearlyRepo.deleteByStoreId(storeId);
+        storeYearlyRepo.rebuildFromDailyByStoreId(storeId);
+
+        psWeeklyRepo.deleteByStoreId(storeId);
+        psWeeklyRepo.rebuildFromDailyByStoreId(storeId);
+        psMonthlyRepo.deleteByStoreId(storeId);
+        psMonthlyRepo.rebuildFromDailyByStoreId(storeId);
+        psYearlyRepo.deleteByStoreId(storeId);
+        psYearlyRepo.rebuildFromDailyByStoreId(storeId);
+
+        deliveryTimeHistogramService.rebuildForStore(storeId);
+
+        if (!corrections.isEmpty()) {
+            log.info("🛠 Статистика магазина ID={} исправлена, расхождений: {}", storeId, corrections.size());
+        }
+        return corrections;
+    }
+
+    /**
+     * Разворачивает строки расхождений в построчные исправления отчёта.
+     */
+    private void collect(List<StatisticsCorrectionDTO> target, String table, Long storeId, List<StatisticsDriftRow> rows) {
+        for (StatisticsDriftRow row : rows) {
+            String key = buildKey(row);
+            addIfChanged(target, table, storeId, key, "sent", row.getActualSent(), row.getExpectedSent());
+            addIfChanged(target, table, storeId, key, "delivered", row.getActualDelivered(), row.getExpectedDelivered());
+            addIfChanged(target, table, storeId, key, "returned", row.getActualReturned(), row.getExpectedReturned());
+            addIfChanged(target, table, storeId, key, "sum_delivery_days", row.getActualDeliveryDays(), row.getExpectedDeliveryDays());
+            addIfChanged(target, table, storeId, key, "sum_pickup_days", row.getActualPickupDays(), row.getExpectedPickupDays());
+        }
+    }
+
+    private String buildKey(StatisticsDriftRow row) {
+        List<String> parts = new ArrayList<>();
+        if (row.getPostalService() != null) {
+            parts.add(row.getPostalService());
+        }
+        if (row.getDate() != null) {
+            parts.add(row.getDate().toString());
+        }
+        return parts.isEmpty() ? "total" : String.join(" ", parts);
+    }
+
+    private void addIfChanged(List<StatisticsCorrectionDTO> target,
+                              String table,
+                              Long storeId,
+                              String key,
+                              String field,
+                              Number actual,
+                              Number expected) {
+        if (sameValue(actual, expected)) {
+            return;
+        }
+        target.add(new StatisticsCorrectionDTO(table, storeId, key, field, String.valueOf(actual), String.valueOf(expected)));
+    }
+
+    private boolean sameValue(Number actual, Number expected) {
+        if (actual == null || expected == null) {
+            return Objects.equals(actual, expected);
+        }
+        // Сравниваем численно: NUMERIC(12,2) и неокруглённые суммы отличаются только масштабом
+        return new BigDecimal(actual.toString()).compareTo(new BigDecimal(expected.toString())) == 0;
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
+import java.util.Objects;
 
 /**
  * Обновляет статистику магазина и почтовых служб при сохранении или перемещении посылки.
@@ -29,6 +30,11 @@ public class TrackStatisticsUpdater {
 
     /**
      * Обновляет статистику для переданной посылки.
+     * <p>
+     * Отправка относится к дню текущей отметки времени посылки в UTC, как и при
+     * пересчёте статистики ({@code v_parcel_statistics_facts}), поэтому при
+     * смещении отметки на другой день отправка переносится вместе с ней.
+     * </p>
      *
      * @param parcel          сохраняемая или обновляемая посылка
      * @param isNewParcel     {@code true}, если посылка создаётся впервые
@@ -53,6 +59,36 @@ public class TrackStatisticsUpdater {
         if (storeChanged) {
             decrementOldStore(previousStoreId, serviceType, previousDate);
         }
+        if (!isNewParcel && !storeChanged) {
+            moveSentDay(parcel, serviceType, previousDate);
+        }
+    }
+
+    /**
+     * Переносит отправку удаляемой посылки, уже учтённой в статистике, на день
+     * отправки из её истории доставки.
+     * <p>
+     * История доставки остаётся после удаления посылки, и пересчёт относит её
+     * отправку к дню {@code send_date} в UTC; без даты отправки посылка
+     * в ежедневной статистике отправок не учитывается.
+     * </p>
+     *
+     * @param parcel  удаляемая посылка
+     * @param history история доставки посылки
+     */
+    @Transactional
+    public void moveSentDayToHistory(TrackParcel parcel, DeliveryHistory history) {
+        LocalDate day = StatisticsDates.dayOf(parcel.getTimestamp());
+        LocalDate historyDay = StatisticsDates.dayOf(history.getSendDate());
+        if (Objects.equals(day, historyDay)) {
+            return;
+        }
+
+        Long storeId = parcel.getStore().getId();
+        decrementSentDay(storeId, history.getPostalService(), day);
+        if (historyDay != null) {
+            incrementSentDay(storeId, parcel.getStore(), history.getPostalService(), historyDay);
+        }
     }
 
     /**
@@ -73,36 +109,21 @@ public class TrackStatisticsUpdater {
             storeAnalyticsRepository.save(statistics);
         }
 
-        LocalDate day = parcel.getTimestamp().toLocalDate();
-        int dailyUpdated = storeDailyStatisticsRepository.incrementSent(storeId, day, 1);
-        if (dailyUpdated == 0) {
-            StoreDailyStatistics daily = storeDailyStatisticsRepository
-                    .findByStoreIdAndDate(storeId, day)
-                    .orElseGet(() -> {
-                        StoreDailyStatistics d = new StoreDailyStatistics();
-                        d.setStore(statistics.getStore());
-                        d.setDate(day);
-                        return d;
-                    });
-            daily.setSent(daily.getSent() + 1);
-            daily.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
-            storeDailyStatisticsRepository.save(daily);
-        }
-
         if (serviceType != PostalServiceType.UNKNOWN) {
-            updatePostalIncrement(storeId, statistics.getStore(), serviceType, day);
+            updatePostalIncrement(storeId, statistics.getStore(), serviceType);
         } else {
             log.warn("⛔ Пропуск обновления аналитики для UNKNOWN службы: {}", parcel.getNumber());
         }
+
+        incrementSentDay(storeId, statistics.getStore(), serviceType, StatisticsDates.dayOf(parcel.getTimestamp()));
     }
 
     /**
-     * Увеличивает статистику по выбранной почтовой службе для магазина.
+     * Увеличивает накопительную статистику по выбранной почтовой службе для магазина.
      */
     private void updatePostalIncrement(Long storeId,
                                        Store store,
-                                       PostalServiceType serviceType,
-                                       LocalDate day) {
+                                       PostalServiceType serviceType) {
         int psUpdated = postalServiceStatisticsRepository.incrementTotalSent(storeId, serviceType, 1);
         if (psUpdated == 0) {
             PostalServiceStatistics psStats = postalServiceStatisticsRepository
@@ -117,22 +138,6 @@ public class TrackStatisticsUpdater {
             psStats.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
             postalServiceStatisticsRepository.save(psStats);
         }
-
-        int psdUpdated = postalServiceDailyStatisticsRepository.incrementSent(storeId, serviceType, day, 1);
-        if (psdUpdated == 0) {
-            PostalServiceDailyStatistics psDaily = postalServiceDailyStatisticsRepository
-                    .findByStoreIdAndPostalServiceTypeAndDate(storeId, serviceType, day)
-                    .orElseGet(() -> {
-                        PostalServiceDailyStatistics d = new PostalServiceDailyStatistics();
-                        d.setStore(store);
-                        d.setPostalServiceType(serviceType);
-                        d.setDate(day);
-                        return d;
-                    });
-            psDaily.setSent(psDaily.getSent() + 1);
-            psDaily.setUpdatedAt(Instant.now());
-            postalServiceDailyStatisticsRepository.save(psDaily);
-        }
     }
 
     /**
@@ -160,26 +165,97 @@ public class TrackStatisticsUpdater {
             }
         }
 
-        if (previousDate != null) {
-            LocalDate prevDay = previousDate.toLocalDate();
-            StoreDailyStatistics oldDaily = storeDailyStatisticsRepository
-                    .findByStoreIdAndDate(previousStoreId, prevDay)
-                    .orElse(null);
-            if (oldDaily != null && oldDaily.getSent() > 0) {
-                oldDaily.setSent(oldDaily.getSent() - 1);
-                oldDaily.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
-                storeDailyStatisticsRepository.save(oldDaily);
-            }
+        decrementSentDay(previousStoreId, serviceType, StatisticsDates.dayOf(previousDate));
+    }
+
+    /**
+     * Переносит отправку в ежедневной статистике магазина, если отметка
+     * времени посылки сместилась на другой день.
+     */
+    private void moveSentDay(TrackParcel parcel,
+                             PostalServiceType serviceType,
+                             ZonedDateTime previousDate) {
+        LocalDate previousDay = StatisticsDates.dayOf(previousDate);
+        LocalDate day = StatisticsDates.dayOf(parcel.getTimestamp());
+        if (previousDay == null || day == null || previousDay.equals(day)) {
+            return;
+        }
+
+        Long storeId = parcel.getStore().getId();
+        decrementSentDay(storeId, serviceType, previousDay);
+        incrementSentDay(storeId, parcel.getStore(), serviceType, day);
+    }
+
+    /**
+     * Увеличивает число отправленных посылок магазина и почтовой службы за день.
+     */
+    private void incrementSentDay(Long storeId,
+                                  Store store,
+                                  PostalServiceType serviceType,
+                                  LocalDate day) {
+        int dailyUpdated = storeDailyStatisticsRepository.incrementSent(storeId, day, 1);
+        if (dailyUpdated == 0) {
+            StoreDailyStatistics daily = storeDailyStatisticsRepository
+                    .findByStoreIdAndDate(storeId, day)
+                    .orElseGet(() -> {
+                        StoreDailyStatistics d = new StoreDailyStatistics();
+                        d.setStore(store);
+                        d.setDate(day);
+                        return d;
+                    });
+            daily.setSent(daily.getSent() + 1);
+            daily.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
+            storeDailyStatisticsRepository.save(daily);
+        }
+
+        if (serviceType == PostalServiceType.UNKNOWN) {
+            return;
+        }
+
+        int psdUpdated = postalServiceDailyStatisticsRepository.incrementSent(storeId, serviceType, day, 1);
+        if (psdUpdated == 0) {
+            PostalServiceDailyStatistics psDaily = postalServiceDailyStatisticsRepository
+                    .findByStoreIdAndPostalServiceTypeAndDate(storeId, serviceType, day)
+                    .orElseGet(() -> {
+                        PostalServiceDailyStatistics d = new PostalServiceDailyStatistics();
+                        d.setStore(store);
+                        d.setPostalServiceType(serviceType);
+                        d.setDate(day);
+                        return d;
+                    });
+            psDaily.setSent(psDaily.getSent() + 1);
+            psDaily.setUpdatedAt(Instant.now());
+            postalServiceDailyStatisticsRepository.save(psDaily);
+        }
+    }
 
-            if (serviceType != PostalServiceType.UNKNOWN) {
-                PostalServiceDailyStatistics oldPsDaily = postalServiceDailyStatisticsRepository
-                        .findByStoreIdAndPostalServiceTypeAndDate(previousStoreId, serviceType, prevDay)
-                        .orElse(null);
-                if (oldPsDaily != null && oldPsDaily.getSent() > 0) {
-                    oldPsDaily.setSent(oldPsDaily.getSent() - 1);
-                    oldPsDaily.setUpdatedAt(Instant.now());
-                    postalServiceDailyStatisticsRepository.save(oldPsDaily);
-                }
+    /**
+     * Уменьшает число отправленных посылок магазина и почтовой службы за день.
+     */
+    private void decrementSentDay(Long storeId,
+                                  PostalServiceType serviceType,
+                                  LocalDate day) {
+        if (day == null) {
+            return;
+        }
+
+        StoreDailyStatistics daily = storeDailyStatisticsRepository
+                .findByStoreIdAndDate(storeId, day)
+                .orElse(null);
+        if (daily != null && daily.getSent() > 0) {
+            daily.setSent(daily.getSent() - 1);
+            daily.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
+            storeDailyStatisticsRepository.save(daily);
+        }
+
+        if (serviceType != PostalServiceType.UNKNOWN) {
+            PostalServiceDailyStatistics psDaily = postalServiceDailyStatisticsRepository
+                    .findByStoreIdAndPostalServiceTypeAndDate(storeId, serviceType, day)
+                    .orElse(null);
+            if (psDaily != null && psDaily.getSent() > 0) {
+                psDaily.setSent(psDaily.getSent() - 1);
+                psDaily.setUpdatedAt(Instant.now());
+                postalServiceDailyStatisticsRepository.save(psDaily);
             }
         }
     }
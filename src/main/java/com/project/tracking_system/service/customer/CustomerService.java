@@ -8,12 +8,16 @@ import com.project.tracking_system.repository.TrackParcelRepository;
 import com.project.tracking_system.service.SubscriptionService;
 import com.project.tracking_system.service.user.UserSettingsService;
 import com.project.tracking_system.service.customer.CustomerNameEventService;
+import com.project.tracking_system.service.customer.event.CustomerParcelsChangedEvent;
+import com.project.tracking_system.service.telegram.TelegramSendGateway;
+import com.project.tracking_system.service.telegram.TelegramSendPriority;
 import com.project.tracking_system.model.subscription.FeatureKey;
 import com.project.tracking_system.utils.NameUtils;
 import com.project.tracking_system.utils.PhoneUtils;
 import org.springframework.beans.factory.annotation.Value;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,7 +25,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
-import org.telegram.telegrambots.meta.generics.TelegramClient;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
@@ -46,8 +49,10 @@ public class CustomerService {
     private final SubscriptionService subscriptionService;
     private final UserSettingsService userSettingsService;
     private final CustomerNameEventService customerNameEventService;
-    /** Клиент Telegram для отправки уведомлений. */
-    private final TelegramClient telegramClient;
+    /** Шлюз исходящих запросов к Telegram для отправки уведомлений. */
+    private final TelegramSendGateway sendGateway;
+    /** Публикатор событий об изменении посылок покупателя. */
+    private final ApplicationEventPublisher eventPublisher;
 
     /** Фича-флаг для вывода маскированных ФИО в DEBUG. */
     @Value("${debug.log-masked-fio:false}")
@@ -195,7 +200,7 @@ public class CustomerService {
         }
         String text = "⚠️ Администратор изменил ваше имя на '" + newName + "'.";
         try {
-            telegramClient.execute(new SendMessage(chatId.toString(), text));
+            sendGateway.execute(chatId, new SendMessage(chatId.toString(), text), TelegramSendPriority.STATUS);
         } catch (TelegramApiException e) {
             log.error("Ошибка отправки уведомления клиенту {}: {}", chatId, e.getMessage(), e);
         }
@@ -396,6 +401,10 @@ public class CustomerService {
 
         log.debug("📈 Статистика покупателя ID={} обновлена после привязки посылки ID={}",
                 newCustomer.getId(), parcelId);
+        if (current != null) {
+            eventPublisher.publishEvent(CustomerParcelsChangedEvent.of(current));
+        }
+        eventPublisher.publishEvent(CustomerParcelsChangedEvent.of(newCustomer));
         // Возвращаем имя и его источник, чтобы при подтверждённом имени запретить дальнейшее редактирование
         return toInfoDto(newCustomer);
     }
@@ -428,6 +437,22 @@ public class CustomerService {
                 .map(User::getId)
                 .orElse(null);
 
+        return isOwnerNotifiable(ownerId);
+    }
+
+    /**
+     * Проверяет, разрешает ли владелец магазина отправку Telegram-уведомлений покупателям.
+     * <p>
+     * Учитываются тариф владельца и его пользовательские настройки. Проверка
+     * не зависит от покупателя, поэтому при массовой рассылке её результат
+     * можно использовать для всех посылок магазинов одного владельца.
+     * </p>
+     *
+     * @param ownerId идентификатор владельца магазина
+     * @return {@code true}, если уведомления разрешены
+     */
+    @Transactional(readOnly = true)
+    public boolean isOwnerNotifiable(Long ownerId) {
         if (ownerId == null || !subscriptionService.isFeatureEnabled(ownerId, FeatureKey.TELEGRAM_NOTIFICATIONS)) {
             return false;
         }
@@ -1,15 +1,16 @@
 package com.project.tracking_system.service.customer;
 
-import com.project.tracking_system.entity.Customer;
-import com.project.tracking_system.entity.GlobalStatus;
+import com.project.tracking_system.dto.CustomerCounterDriftRow;
+import com.project.tracking_system.dto.StatisticsCorrectionDTO;
 import com.project.tracking_system.repository.CustomerRepository;
-import com.project.tracking_system.repository.TrackParcelRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Сервис пересчёта статистики покупателей.
@@ -24,26 +25,44 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CustomerStatisticsFixService {
 
+    private static final String CUSTOMERS_TABLE = "tb_customers";
+
     private final CustomerRepository customerRepository;
-    private final TrackParcelRepository trackParcelRepository;
 
     /**
      * Пересчитать счётчик отправленных посылок для всех покупателей.
      * Если отправлено меньше, чем сумма полученных и возвращённых,
-     * значение отправленных корректируется.
+     * значение отправленных корректируется одним запросом.
      */
     @Transactional
     public void recalculateSentCount() {
-        List<Customer> customers = customerRepository.findAll();
-        for (Customer customer : customers) {
-            int received = trackParcelRepository.countByCustomerIdAndStatus(customer.getId(), GlobalStatus.DELIVERED);
-            int returned = trackParcelRepository.countByCustomerIdAndStatus(customer.getId(), GlobalStatus.RETURNED);
-            int total = received + returned;
-            if (total > customer.getSentCount()) {
-                customer.setSentCount(total);
-                customerRepository.save(customer);
-                log.info("\uD83D\uDCC8 Обновлён sentCount для customerId={}: {}", customer.getId(), total);
-            }
+        int updated = customerRepository.raiseSentCountToFinished();
+        log.info("📈 Обновлён sentCount у покупателей: {}", updated);
+    }
+
+    /**
+     * Привести счётчики и репутацию покупателей в соответствие с их посылками.
+     *
+     * @return исправленные значения для отчёта пересчёта
+     */
+    @Transactional
+    public List<StatisticsCorrectionDTO> recalculateCounters() {
+        List<StatisticsCorrectionDTO> corrections = new ArrayList<>();
+        for (CustomerCounterDriftRow row : customerRepository.findCounterDrift()) {
+            String key = String.valueOf(row.getCustomerId());
+            addIfChanged(corrections, key, "sent_count", row.getActualSent(), row.getExpectedSent());
+            addIfChanged(corrections, key, "picked_up_count", row.getActualPickedUp(), row.getExpectedPickedUp());
+            addIfChanged(corrections, key, "returned_count", row.getActualReturned(), row.getExpectedReturned());
+        }
+        int updated = customerRepository.recalculateCountersFromParcels();
+        log.info("📈 Пересчитаны счётчики покупателей: {}", updated);
+        return corrections;
+    }
+
+    private void addIfChanged(List<StatisticsCorrectionDTO> target, String key, String field, Long actual, Long expected) {
+        if (!Objects.equals(actual, expected)) {
+            target.add(new StatisticsCorrectionDTO(CUSTOMERS_TABLE, null, key, field,
+                    String.valueOf(actual), String.valueOf(expected)));
         }
     }
 }
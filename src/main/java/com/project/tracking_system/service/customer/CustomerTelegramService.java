@@ -4,7 +4,6 @@ import com.project.tracking_system.dto.TelegramParcelInfoDTO;
 import com.project.tracking_system.dto.TelegramParcelsOverviewDTO;
 import com.project.tracking_system.entity.*;
 import com.project.tracking_system.mapper.BuyerStatusMapper;
-import com.project.tracking_system.repository.CustomerNotificationLogRepository;
 import com.project.tracking_system.repository.CustomerRepository;
 import com.project.tracking_system.repository.TrackParcelRepository;
 import com.project.tracking_system.service.telegram.FullNameValidator;
@@ -36,7 +35,6 @@ public class CustomerTelegramService {
     private final CustomerRepository customerRepository;
     private final CustomerService customerService;
     private final TrackParcelRepository trackParcelRepository;
-    private final CustomerNotificationLogRepository notificationLogRepository;
     private final TelegramNotificationService telegramNotificationService;
     private final FullNameValidator fullNameValidator;
 
@@ -221,30 +219,13 @@ public class CustomerTelegramService {
         for (TrackParcel parcel : parcels) {
             GlobalStatus status = parcel.getStatus();
 
-            if (notificationLogRepository.existsByParcelIdAndStatusAndNotificationType(
-                    parcel.getId(), status, NotificationType.INSTANT)) {
-                continue;
-            }
-
             BuyerStatus buyerStatus = BuyerStatusMapper.map(status);
             if (buyerStatus == null) {
                 continue; // статус не подлежит уведомлению
             }
 
-            boolean sent = telegramNotificationService.sendStatusUpdate(parcel, status);
-            if (!sent) {
-                log.debug("Уведомление для посылки {} со статусом {} не отправлено, запись в журнал пропущена",
-                        parcel.getNumber(), status);
-                continue;
-            }
-
-            CustomerNotificationLog logEntry = new CustomerNotificationLog();
-            logEntry.setCustomer(customer);
-            logEntry.setParcel(parcel);
-            logEntry.setStatus(status);
-            logEntry.setNotificationType(NotificationType.INSTANT);
-            logEntry.setSentAt(ZonedDateTime.now(ZoneOffset.UTC));
-            notificationLogRepository.save(logEntry);
+            // Повтор исключается записью в журнал, отправка выполняется после фиксации транзакции
+            telegramNotificationService.requestStatusUpdate(parcel, status);
         }
     }
 
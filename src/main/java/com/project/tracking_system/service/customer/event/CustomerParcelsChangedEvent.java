@@ -0,0 +1,27 @@
+package com.project.tracking_system.service.customer.event;
+
+import com.project.tracking_system.entity.Customer;
+
+/**
+ * Событие изменения посылок покупателя.
+ * <p>
+ * Публикуется при смене статуса, привязке или удалении посылки, чтобы
+ * компоненты, хранящие подготовленные данные о посылках покупателя,
+ * могли их сбросить.
+ * </p>
+ *
+ * @param customerId     идентификатор покупателя
+ * @param telegramChatId идентификатор Telegram-чата покупателя, если он привязан
+ */
+public record CustomerParcelsChangedEvent(Long customerId, Long telegramChatId) {
+
+    /**
+     * Создаёт событие для покупателя.
+     *
+     * @param customer покупатель, чьи посылки изменились
+     * @return событие изменения посылок
+     */
+    public static CustomerParcelsChangedEvent of(Customer customer) {
+        return new CustomerParcelsChangedEvent(customer.getId(), customer.getTelegramChatId());
+    }
+}
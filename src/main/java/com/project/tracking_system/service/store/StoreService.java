@@ -11,9 +11,11 @@ import com.project.tracking_system.repository.StoreTelegramSettingsRepository;
 import com.project.tracking_system.dto.StoreTelegramSettingsDTO;
 import com.project.tracking_system.dto.StoreDTO;
 import com.project.tracking_system.exception.InvalidTemplateException;
+import com.project.tracking_system.service.store.event.StoreNotificationSettingsChangedEvent;
 import java.security.Principal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -41,6 +43,7 @@ public class StoreService {
     private final TrackParcelRepository trackParcelRepository;
     private final StoreTelegramSettingsRepository storeTelegramSettingsRepository;
     private final WebSocketController webSocketController;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Возвращает `Store` по Id, проверяя, принадлежит ли он указанному пользователю.
@@ -232,6 +235,7 @@ public class StoreService {
 
         store.setName(newName);
         Store updatedStore = storeRepository.save(store);
+        eventPublisher.publishEvent(new StoreNotificationSettingsChangedEvent(storeId));
 
         webSocketController.sendUpdateStatus(userId, "Название магазина обновлено на '" + newName + "'", true);
 
@@ -536,5 +540,26 @@ public class StoreService {
                 .toList();
     }
 
+    /**
+     * Возвращает магазин пользователя с настройками Telegram в виде DTO.
+     *
+     * @param storeId идентификатор магазина
+     * @param userId  идентификатор владельца
+     * @return магазин с настройками и шаблонами
+     * @throws IllegalArgumentException если магазин не найден
+     * @throws SecurityException        если магазин принадлежит другому пользователю
+     */
+    @Transactional(readOnly = true)
+    public StoreDTO getUserStoreDto(Long storeId, Long userId) {
+        Store store = storeRepository.findByIdFetchSettings(storeId);
+        if (store == null) {
+            throw new IllegalArgumentException("Магазин не найден!");
+        }
+        if (!store.getOwner().getId().equals(userId)) {
+            throw new SecurityException("Вы не можете управлять этим магазином!");
+        }
+        return toDto(store);
+    }
+
 
 }
\ No newline at end of file
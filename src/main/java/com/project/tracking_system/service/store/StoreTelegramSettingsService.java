@@ -7,8 +7,10 @@ import com.project.tracking_system.service.SubscriptionService;
 import com.project.tracking_system.controller.WebSocketController;
 import com.project.tracking_system.exception.InvalidTemplateException;
 import com.project.tracking_system.model.subscription.FeatureKey;
+import com.project.tracking_system.service.store.event.StoreNotificationSettingsChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +28,7 @@ public class StoreTelegramSettingsService {
     private final SubscriptionService subscriptionService;
     private final WebSocketController webSocketController;
     private final StoreService storeService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Создать или обновить настройки Telegram магазина.
@@ -81,6 +84,7 @@ public class StoreTelegramSettingsService {
 
         settingsRepository.save(settings);
         store.setTelegramSettings(settings);
+        eventPublisher.publishEvent(new StoreNotificationSettingsChangedEvent(store.getId()));
         log.info("Настройки Telegram для магазина ID={} обновлены", store.getId());
     }
 
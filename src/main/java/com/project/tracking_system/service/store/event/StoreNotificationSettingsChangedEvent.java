@@ -0,0 +1,14 @@
+package com.project.tracking_system.service.store.event;
+
+/**
+ * Событие изменения данных магазина, используемых в уведомлениях покупателям.
+ * <p>
+ * Публикуется при сохранении Telegram-настроек и шаблонов магазина, а также
+ * при его переименовании, чтобы подготовленные шаблоны уведомлений были
+ * собраны заново.
+ * </p>
+ *
+ * @param storeId идентификатор магазина
+ */
+public record StoreNotificationSettingsChangedEvent(Long storeId) {
+}
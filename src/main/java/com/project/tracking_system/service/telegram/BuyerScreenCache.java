@@ -0,0 +1,118 @@
+package com.project.tracking_system.service.telegram;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.tracking_system.service.customer.event.CustomerParcelsChangedEvent;
+import com.project.tracking_system.utils.CacheUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Кэш подготовленных экранов «Мои посылки» и «Статистика» Telegram-бота покупателей.
+ * <p>
+ * Экраны хранятся по идентификатору чата уже отрисованными: тексты разделов
+ * и строки кнопок категорий. Навигация по меню отвечает из памяти, а запись
+ * сбрасывается после фиксации транзакции, изменившей посылки покупателя.
+ * Время жизни записи ограничивает устаревание при изменениях, о которых
+ * событие не публикуется. Отсутствие покупателя не кэшируется, чтобы
+ * привязка телефона сразу отражалась в меню.
+ * </p>
+ */
+@Component
+public class BuyerScreenCache {
+
+    private final Cache<Long, ParcelsScreens> parcels;
+    private final Cache<Long, String> statistics;
+
+    /**
+     * @param maxSize максимальное количество чатов в каждом из кэшей
+     * @param ttl     время жизни подготовленного экрана
+     */
+    public BuyerScreenCache(@Value("${telegram.buyer-screen-cache.max-size:50000}") long maxSize,
+                            @Value("${telegram.buyer-screen-cache.ttl:10m}") Duration ttl) {
+        this.parcels = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.statistics = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Возвращает подготовленный раздел «Мои посылки», загружая его при отсутствии в кэше.
+     *
+     * @param chatId идентификатор чата Telegram
+     * @param loader загрузка и отрисовка раздела; пустой результат не кэшируется
+     * @return подготовленный раздел или пустой результат, если покупатель не найден
+     */
+    public Optional<ParcelsScreens> getParcels(Long chatId, Function<Long, Optional<ParcelsScreens>> loader) {
+        return getOrLoad(parcels, chatId, loader);
+    }
+
+    /**
+     * Возвращает подготовленный текст статистики, загружая его при отсутствии в кэше.
+     *
+     * @param chatId идентификатор чата Telegram
+     * @param loader загрузка и отрисовка статистики; пустой результат не кэшируется
+     * @return текст статистики или пустой результат, если покупатель не найден
+     */
+    public Optional<String> getStatistics(Long chatId, Function<Long, Optional<String>> loader) {
+        return getOrLoad(statistics, chatId, loader);
+    }
+
+    /**
+     * Удаляет подготовленные экраны чата.
+     *
+     * @param chatId идентификатор чата Telegram
+     */
+    public void evict(Long chatId) {
+        if (chatId == null) {
+            return;
+        }
+        parcels.invalidate(chatId);
+        statistics.invalidate(chatId);
+    }
+
+    /**
+     * Сбрасывает экраны покупателя после фиксации изменений его посылок.
+     *
+     * @param event событие изменения посылок покупателя
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleCustomerParcelsChanged(CustomerParcelsChangedEvent event) {
+        evict(event.telegramChatId());
+    }
+
+    private <V> Optional<V> getOrLoad(Cache<Long, V> cache, Long chatId, Function<Long, Optional<V>> loader) {
+        if (chatId == null) {
+            return loader.apply(null);
+        }
+        return Optional.ofNullable(CacheUtils.getOrLoad(cache, chatId, id -> loader.apply(id).orElse(null)));
+    }
+
+    /**
+     * Подготовленный раздел «Мои посылки».
+     *
+     * @param categoryRows  строки кнопок непустых категорий без навигационной строки
+     * @param categoryTexts тексты списков посылок по callback-идентификатору категории
+     */
+    public record ParcelsScreens(List<InlineKeyboardRow> categoryRows, Map<String, String> categoryTexts) {
+
+        /**
+         * @return {@code true}, если хотя бы в одной категории есть посылки
+         */
+        public boolean hasParcels() {
+            return !categoryRows.isEmpty();
+        }
+    }
+}
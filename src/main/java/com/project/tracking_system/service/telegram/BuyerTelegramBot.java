@@ -2,6 +2,7 @@ package com.project.tracking_system.service.telegram;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.tracking_system.dto.CustomerStatisticsDTO;
 import com.project.tracking_system.dto.TelegramParcelInfoDTO;
 import com.project.tracking_system.dto.TelegramParcelsOverviewDTO;
 import com.project.tracking_system.entity.AdminNotification;
@@ -16,8 +17,6 @@ import com.project.tracking_system.utils.PhoneUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.telegram.telegrambots.longpolling.interfaces.LongPollingUpdateConsumer;
-import org.telegram.telegrambots.longpolling.starter.SpringLongPollingBot;
 import org.telegram.telegrambots.longpolling.util.LongPollingSingleThreadUpdateConsumer;
 import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
 import org.telegram.telegrambots.meta.api.methods.ParseMode;
@@ -38,14 +37,12 @@ import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.Keyboard
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
-import org.telegram.telegrambots.meta.generics.TelegramClient;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Function;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -54,7 +51,7 @@ import java.util.stream.Collectors;
  */
 @Component
 @Slf4j
-public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingleThreadUpdateConsumer, TelegramAnnouncementSender {
+public class BuyerTelegramBot implements LongPollingSingleThreadUpdateConsumer, TelegramAnnouncementSender {
 
     private static final String BUTTON_STATS = "📊 Статистика";
     private static final String BUTTON_PARCELS = "📦 Мои посылки";
@@ -82,6 +79,10 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
     private static final String CALLBACK_ANNOUNCEMENT_ACK = "announcement:ack";
     private static final String CALLBACK_NAVIGATE_BACK = "nav:back";
 
+    private static final String TITLE_PARCELS_DELIVERED = "📬 Полученные посылки";
+    private static final String TITLE_PARCELS_AWAITING = "🏬 Посылки, ожидающие забора";
+    private static final String TITLE_PARCELS_TRANSIT = "🚚 Посылки в пути";
+
     private static final String NO_PARCELS_PLACEHOLDER = "• нет посылок";
 
     private static final String TELEGRAM_PARSE_MODE = ParseMode.MARKDOWNV2;
@@ -101,38 +102,46 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
     private static final String NAME_EDIT_ANCHOR_TEXT =
             "✍️ Отправьте новое ФИО сообщением.\n\nПосле ввода воспользуйтесь кнопкой «🏠 Меню», чтобы вернуться.";
 
-    private final TelegramClient telegramClient;
+    private final TelegramSendGateway sendGateway;
     private final CustomerTelegramService telegramService;
     private final AdminNotificationService adminNotificationService;
     private final FullNameValidator fullNameValidator;
     private final ChatSessionRepository chatSessionRepository;
     private final ObjectMapper objectMapper;
+    private final TelegramUpdateDispatcher updateDispatcher;
+    private final BuyerScreenCache buyerScreenCache;
     private final String botToken;
 
     /**
      * Создаёт телеграм-бота для покупателей.
      *
-     * @param telegramClient       клиент Telegram, предоставляемый Spring
+     * @param sendGateway          шлюз исходящих запросов к Telegram
      * @param token                токен бота (может отсутствовать)
      * @param telegramService      сервис привязки покупателей к Telegram
      * @param fullNameValidator    валидатор для проверки корректности ФИО
      * @param chatSessionRepository репозиторий состояния чатов покупателей
      * @param objectMapper         преобразователь объектов Telegram в JSON-структуры
+     * @param updateDispatcher     распределитель обновлений по очередям чатов
+     * @param buyerScreenCache     кэш подготовленных экранов посылок и статистики
      */
-    public BuyerTelegramBot(TelegramClient telegramClient,
+    public BuyerTelegramBot(TelegramSendGateway sendGateway,
                             @Value("${telegram.bot.token:}") String token,
                             CustomerTelegramService telegramService,
                             AdminNotificationService adminNotificationService,
                             FullNameValidator fullNameValidator,
                             ChatSessionRepository chatSessionRepository,
-                            ObjectMapper objectMapper) {
-        this.telegramClient = telegramClient;
+                            ObjectMapper objectMapper,
+                            TelegramUpdateDispatcher updateDispatcher,
+                            BuyerScreenCache buyerScreenCache) {
+        this.sendGateway = sendGateway;
         this.botToken = token;
         this.telegramService = telegramService;
         this.adminNotificationService = adminNotificationService;
         this.fullNameValidator = fullNameValidator;
         this.chatSessionRepository = chatSessionRepository;
         this.objectMapper = objectMapper;
+        this.updateDispatcher = updateDispatcher;
+        this.buyerScreenCache = buyerScreenCache;
     }
 
     /**
@@ -140,19 +149,32 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
      *
      * @return токен бота
      */
-    @Override
     public String getBotToken() {
         return botToken;
     }
 
     /**
-     * Возвращает обработчик обновлений, регистрируя самого бота как потребителя.
+     * Передаёт полученные обновления в очереди, разделённые по чатам.
+     * <p>
+     * Обновления одного чата обрабатываются последовательно, разных чатов —
+     * параллельно в пуле {@link TelegramUpdateDispatcher}.
+     * </p>
      *
-     * @return обработчик обновлений Telegram
+     * @param updates обновления, полученные за один запрос к Telegram
      */
     @Override
-    public LongPollingUpdateConsumer getUpdatesConsumer() {
-        return this;
+    public void consume(List<Update> updates) {
+        updateDispatcher.dispatch(updates, this::extractChatId, this::consume);
+    }
+
+    /**
+     * Ставит обновление, полученное через вебхук, в очередь его чата без ожидания.
+     *
+     * @param update обновление Telegram
+     * @return {@code true}, если обновление принято в обработку
+     */
+    public boolean acceptWebhookUpdate(Update update) {
+        return updateDispatcher.offer(update, this::extractChatId, this::consume);
     }
 
     /**
@@ -167,6 +189,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
         Long chatIdForActivity = extractChatId(update);
         Customer customerForActivity = null;
         if (chatIdForActivity != null) {
+            chatSessionRepository.recordActivity(chatIdForActivity);
             customerForActivity = telegramService.findByChatId(chatIdForActivity)
                     .orElse(null);
             synchronizeAnnouncementState(chatIdForActivity, customerForActivity);
@@ -475,7 +498,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
                 .replyMarkup(null)
                 .build();
         try {
-            telegramClient.execute(editMarkup);
+            sendGateway.execute(chatId, editMarkup);
         } catch (TelegramApiException e) {
             log.debug("ℹ️ Не удалось снять клавиатуру с сообщения {} в чате {}", messageId, chatId, e);
         }
@@ -642,8 +665,8 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
         handleParcelsCategoryCallback(chatId,
                 callbackQuery,
                 "Полученные",
-                "📬 Полученные посылки",
-                TelegramParcelsOverviewDTO::getDelivered,
+                TITLE_PARCELS_DELIVERED,
+                CALLBACK_PARCELS_DELIVERED,
                 ParcelsSection.DELIVERED);
     }
 
@@ -657,8 +680,8 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
         handleParcelsCategoryCallback(chatId,
                 callbackQuery,
                 "Ждут забора",
-                "🏬 Посылки, ожидающие забора",
-                TelegramParcelsOverviewDTO::getWaitingForPickup,
+                TITLE_PARCELS_AWAITING,
+                CALLBACK_PARCELS_AWAITING,
                 ParcelsSection.WAITING_FOR_PICKUP);
     }
 
@@ -672,8 +695,8 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
         handleParcelsCategoryCallback(chatId,
                 callbackQuery,
                 "В пути",
-                "🚚 Посылки в пути",
-                TelegramParcelsOverviewDTO::getInTransit,
+                TITLE_PARCELS_TRANSIT,
+                CALLBACK_PARCELS_TRANSIT,
                 ParcelsSection.IN_TRANSIT);
     }
 
@@ -684,13 +707,13 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
      * @param callbackQuery  исходный callback-запрос
      * @param acknowledgement текст подтверждения для всплывающего уведомления
      * @param title           заголовок сообщения со списком
-     * @param extractor       функция получения нужной категории из сводки
+     * @param callbackData    callback-идентификатор категории в подготовленном разделе
      */
     private void handleParcelsCategoryCallback(Long chatId,
                                                CallbackQuery callbackQuery,
                                                String acknowledgement,
                                                String title,
-                                               Function<TelegramParcelsOverviewDTO, List<TelegramParcelInfoDTO>> extractor,
+                                               String callbackData,
                                                ParcelsSection section) {
         if (chatId == null) {
             answerCallbackQuery(callbackQuery, "Команда недоступна");
@@ -699,16 +722,12 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
 
         answerCallbackQuery(callbackQuery, acknowledgement);
 
-        Optional<TelegramParcelsOverviewDTO> overviewOptional = telegramService.getParcelsOverview(chatId);
-
         List<BuyerBotScreen> navigationPath = computeNavigationPath(chatId, BuyerBotScreen.PARCELS, true);
         InlineKeyboardMarkup markup = buildNavigationKeyboard(navigationPath);
 
-        List<TelegramParcelInfoDTO> parcels = overviewOptional
-                .map(extractor)
-                .orElse(List.of());
-
-        String text = buildParcelsCategoryText(title, parcels, section);
+        String text = findParcelsScreens(chatId)
+                .map(screens -> screens.categoryTexts().get(callbackData))
+                .orElseGet(() -> buildParcelsCategoryText(title, List.of(), section));
         sendInlineMessage(chatId, text, markup, BuyerBotScreen.PARCELS, navigationPath);
     }
 
@@ -913,7 +932,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
                 SendMessage confirm = createPlainMessage(chatId,
                         "🔕 Уведомления отключены. Чтобы возобновить их, снова отправьте /start.");
                 try {
-                    telegramClient.execute(confirm);
+                    sendGateway.execute(chatId, confirm);
                 } catch (TelegramApiException e) {
                     log.error("❌ Ошибка отправки подтверждения", e);
                 }
@@ -982,35 +1001,46 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
     private void sendStatisticsScreen(Long chatId) {
         List<BuyerBotScreen> navigationPath = computeNavigationPath(chatId, BuyerBotScreen.STATISTICS);
         InlineKeyboardMarkup backMarkup = buildNavigationKeyboard(navigationPath);
-        telegramService.getStatistics(chatId)
-                .ifPresentOrElse(stats -> {
-                    String stores = stats.getStoreNames().isEmpty()
-                            ? "-"
-                            : stats.getStoreNames().stream()
-                            .map(this::escapeMarkdown)
-                            .collect(Collectors.joining(", "));
-                    String reputation = stats.getReputation() == null
-                            ? "-"
-                            : escapeMarkdown(stats.getReputation().getDisplayName());
-                    String text = String.format(
-                            "\uD83D\uDCCA Ваша статистика:\n" +
-                                    "Забрано: %d\n" +
-                                    "Не забрано: %d\n" +
-                                    "Магазины: %s\n" +
-                                    "Репутация: %s",
-                            stats.getPickedUpCount(),
-                            stats.getReturnedCount(),
-                            stores,
-                            reputation
-                    );
-                    sendInlineMessage(chatId, text, backMarkup, BuyerBotScreen.STATISTICS, navigationPath);
-                }, () -> sendInlineMessage(chatId,
+        buyerScreenCache.getStatistics(chatId, id -> telegramService.getStatistics(id).map(this::buildStatisticsText))
+                .ifPresentOrElse(text -> sendInlineMessage(chatId,
+                        text,
+                        backMarkup,
+                        BuyerBotScreen.STATISTICS,
+                        navigationPath), () -> sendInlineMessage(chatId,
                         "\uD83D\uDCCA Статистика пока недоступна. Попробуйте позже или проверьте, есть ли у вас активные заказы.",
                         backMarkup,
                         BuyerBotScreen.STATISTICS,
                         navigationPath));
     }
 
+    /**
+     * Формирует текст экрана статистики покупателя.
+     *
+     * @param stats статистика покупателя
+     * @return готовый текст для отправки в Telegram
+     */
+    private String buildStatisticsText(CustomerStatisticsDTO stats) {
+        String stores = stats.getStoreNames().isEmpty()
+                ? "-"
+                : stats.getStoreNames().stream()
+                .map(this::escapeMarkdown)
+                .collect(Collectors.joining(", "));
+        String reputation = stats.getReputation() == null
+                ? "-"
+                : escapeMarkdown(stats.getReputation().getDisplayName());
+        return String.format(
+                "\uD83D\uDCCA Ваша статистика:\n" +
+                        "Забрано: %d\n" +
+                        "Не забрано: %d\n" +
+                        "Магазины: %s\n" +
+                        "Репутация: %s",
+                stats.getPickedUpCount(),
+                stats.getReturnedCount(),
+                stores,
+                reputation
+        );
+    }
+
     /**
      * Отправляет раздел с посылками покупателя, разбитыми по статусам.
      *
@@ -1019,15 +1049,12 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
     private void sendParcelsScreen(Long chatId) {
         List<BuyerBotScreen> navigationPath = computeNavigationPath(chatId, BuyerBotScreen.PARCELS);
         InlineKeyboardMarkup backMarkup = buildNavigationKeyboard(navigationPath);
-        telegramService.getParcelsOverview(chatId)
-                .ifPresentOrElse(overview -> {
-                    boolean hasDelivered = hasParcels(overview.getDelivered());
-                    boolean hasAwaiting = hasParcels(overview.getWaitingForPickup());
-                    boolean hasTransit = hasParcels(overview.getInTransit());
-                    boolean hasAny = hasDelivered || hasAwaiting || hasTransit;
+        findParcelsScreens(chatId)
+                .ifPresentOrElse(screens -> {
+                    boolean hasAny = screens.hasParcels();
 
                     InlineKeyboardMarkup markup = hasAny
-                            ? buildParcelsOverviewKeyboard(overview, navigationPath)
+                            ? buildParcelsOverviewKeyboard(screens, navigationPath)
                             : backMarkup;
                     String text = hasAny
                             ? buildParcelsScreenText()
@@ -1041,6 +1068,40 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
                         navigationPath));
     }
 
+    /**
+     * Возвращает подготовленный раздел «Мои посылки» из кэша, отрисовывая его при промахе.
+     *
+     * @param chatId идентификатор чата Telegram
+     * @return подготовленный раздел или пустой результат, если покупатель не найден
+     */
+    private Optional<BuyerScreenCache.ParcelsScreens> findParcelsScreens(Long chatId) {
+        return buyerScreenCache.getParcels(chatId,
+                id -> telegramService.getParcelsOverview(id).map(this::buildParcelsScreens));
+    }
+
+    /**
+     * Отрисовывает раздел «Мои посылки»: кнопки категорий и тексты их списков.
+     * <p>
+     * Навигационная строка зависит от пути пользователя, поэтому в подготовленный
+     * раздел не входит и добавляется при отправке.
+     * </p>
+     *
+     * @param overview сводка посылок по категориям
+     * @return подготовленный раздел для кэша
+     */
+    private BuyerScreenCache.ParcelsScreens buildParcelsScreens(TelegramParcelsOverviewDTO overview) {
+        Map<String, String> categoryTexts = Map.of(
+                CALLBACK_PARCELS_DELIVERED,
+                buildParcelsCategoryText(TITLE_PARCELS_DELIVERED, overview.getDelivered(), ParcelsSection.DELIVERED),
+                CALLBACK_PARCELS_AWAITING,
+                buildParcelsCategoryText(TITLE_PARCELS_AWAITING, overview.getWaitingForPickup(),
+                        ParcelsSection.WAITING_FOR_PICKUP),
+                CALLBACK_PARCELS_TRANSIT,
+                buildParcelsCategoryText(TITLE_PARCELS_TRANSIT, overview.getInTransit(), ParcelsSection.IN_TRANSIT)
+        );
+        return new BuyerScreenCache.ParcelsScreens(List.copyOf(buildParcelsCategoryRows(overview)), categoryTexts);
+    }
+
     /**
      * Формирует пояснение для случая, когда у покупателя нет посылок ни в одной категории.
      *
@@ -1064,11 +1125,27 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
     /**
      * Создаёт инлайн-клавиатуру со списком доступных категорий посылок и кнопкой возврата.
      *
-     * @param overview сводка посылок по категориям
+     * @param screens        подготовленный раздел с кнопками категорий
+     * @param navigationPath путь экранов, ведущий к разделу
      * @return клавиатура с кнопками категорий
      */
-    private InlineKeyboardMarkup buildParcelsOverviewKeyboard(TelegramParcelsOverviewDTO overview,
+    private InlineKeyboardMarkup buildParcelsOverviewKeyboard(BuyerScreenCache.ParcelsScreens screens,
                                                               List<BuyerBotScreen> navigationPath) {
+        List<InlineKeyboardRow> rows = new ArrayList<>(screens.categoryRows());
+        appendNavigationRow(rows, navigationPath);
+
+        return InlineKeyboardMarkup.builder()
+                .keyboard(rows)
+                .build();
+    }
+
+    /**
+     * Создаёт строки кнопок для непустых категорий посылок.
+     *
+     * @param overview сводка посылок по категориям
+     * @return строки кнопок категорий без навигации
+     */
+    private List<InlineKeyboardRow> buildParcelsCategoryRows(TelegramParcelsOverviewDTO overview) {
         int deliveredCount = Optional.ofNullable(overview.getDelivered())
                 .map(List::size)
                 .orElse(0);
@@ -1095,11 +1172,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
                     buildParcelsCategoryLabel(BUTTON_PARCELS_TRANSIT, transitCount),
                     CALLBACK_PARCELS_TRANSIT)));
         }
-        appendNavigationRow(rows, navigationPath);
-
-        return InlineKeyboardMarkup.builder()
-                .keyboard(rows)
-                .build();
+        return rows;
     }
 
     /**
@@ -1610,7 +1683,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
         }
         AnswerCallbackQuery answer = builder.build();
         try {
-            telegramClient.execute(answer);
+            sendGateway.execute(null, answer);
         } catch (TelegramApiException e) {
             log.error("❌ Ошибка ответа на callback", e);
         }
@@ -1956,18 +2029,22 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
 
         ensurePersistentKeyboard(chatId);
         if (resolvedCustomer != null && resolvedCustomer.isTelegramConfirmed()) {
-            showActiveAnnouncement(chatId);
+            renderActiveAnnouncement(chatId);
         }
     }
 
     /**
      * Отрисовывает активное объявление администратора для указанного подтверждённого чата.
+     * <p>
+     * Метод вызывается рассылкой, поэтому запросы к Telegram уходят с приоритетом
+     * {@link TelegramSendPriority#BROADCAST} и уступают ответам бота и уведомлениям.
+     * </p>
      *
      * @param chatId идентификатор чата Telegram, в который следует отправить баннер
      */
     @Override
-    public void showActiveAnnouncement(Long chatId) {
-        renderActiveAnnouncement(chatId);
+    public boolean showActiveAnnouncement(Long chatId) {
+        return sendGateway.withPriority(TelegramSendPriority.BROADCAST, () -> renderActiveAnnouncement(chatId));
     }
 
     /**
@@ -2067,14 +2144,15 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
      * </p>
      *
      * @param chatId идентификатор чата Telegram подтверждённого покупателя
+     * @return {@code false}, если баннер требовалось показать, но Telegram отклонил отправку
      */
-    private void renderActiveAnnouncement(Long chatId) {
+    private boolean renderActiveAnnouncement(Long chatId) {
         if (chatId == null) {
-            return;
+            return true;
         }
 
-        adminNotificationService.findActiveNotification()
-                .ifPresent(notification -> {
+        return adminNotificationService.findActiveNotification()
+                .map(notification -> {
                     ChatSession session = chatSessionRepository.find(chatId).orElse(null);
                     Long storedId = session != null ? session.getCurrentNotificationId() : null;
                     boolean seen = session != null && session.isAnnouncementSeen();
@@ -2093,9 +2171,11 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
                     }
 
                     if (matchesActive && !seen) {
-                        renderAnnouncementBanner(chatId, notification);
+                        return renderAnnouncementBanner(chatId, notification);
                     }
-                });
+                    return true;
+                })
+                .orElse(true);
     }
 
     /**
@@ -2125,16 +2205,17 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
      *
      * @param chatId       идентификатор чата Telegram
      * @param notification активное объявление администратора
+     * @return {@code false}, если Telegram отклонил отправку баннера
      */
-    private void renderAnnouncementBanner(Long chatId, AdminNotification notification) {
+    private boolean renderAnnouncementBanner(Long chatId, AdminNotification notification) {
         if (chatId == null || notification == null) {
-            return;
+            return false;
         }
 
         String text = buildAnnouncementText(notification);
         InlineKeyboardMarkup markup = buildAnnouncementKeyboard();
         List<BuyerBotScreen> navigationPath = computeNavigationPath(chatId, BuyerBotScreen.MENU);
-        sendInlineMessage(chatId, text, markup, BuyerBotScreen.MENU, true, navigationPath);
+        boolean delivered = sendInlineMessage(chatId, text, markup, BuyerBotScreen.MENU, true, navigationPath);
 
         Integer anchorId = chatSessionRepository.find(chatId)
                 .map(ChatSession::getAnchorMessageId)
@@ -2143,6 +2224,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
                 notification.getId(),
                 anchorId,
                 notification.getUpdatedAt());
+        return delivered;
     }
 
     /**
@@ -2330,7 +2412,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
         message.setDisableNotification(true);
 
         try {
-            Message sent = telegramClient.execute(message);
+            Message sent = sendGateway.execute(chatId, message);
             chatSessionRepository.markKeyboardVisible(chatId);
             if (sent == null) {
                 log.debug("ℹ️ Telegram не вернул данные отправленного сообщения для чата {}", chatId);
@@ -2365,15 +2447,16 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
      * @param markup                   инлайн-клавиатура для сообщения
      * @param screen                   экран, который следует зафиксировать для последующего восстановления
      * @param forceResendOnNotModified требовать переотправку при ответе «message is not modified»
+     * @return {@code false}, если Telegram отклонил отправку сообщения
      */
-    private void sendInlineMessage(Long chatId,
+    private boolean sendInlineMessage(Long chatId,
                                    String text,
                                    InlineKeyboardMarkup markup,
                                    BuyerBotScreen screen,
                                    boolean forceResendOnNotModified,
                                    List<BuyerBotScreen> navigationPath) {
         if (chatId == null) {
-            return;
+            return false;
         }
 
         ChatSession session = chatSessionRepository.find(chatId).orElse(null);
@@ -2393,9 +2476,9 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
                     .replyMarkup(markup)
                     .build();
             try {
-                telegramClient.execute(edit);
+                sendGateway.execute(chatId, edit);
                 chatSessionRepository.updateAnchorAndScreen(chatId, messageId, screen, navigationPath);
-                return;
+                return true;
             } catch (TelegramApiException e) {
                 String errorMessage = e.getMessage();
                 boolean notModified = errorMessage != null && errorMessage.contains("message is not modified");
@@ -2406,7 +2489,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
                     } else {
                         log.debug("ℹ️ Содержимое якорного сообщения для чата {} не изменилось, якорь обновлён без повторной отправки", chatId);
                     }
-                    return;
+                    return true;
                 } else {
                     log.warn("⚠️ Не удалось обновить якорное сообщение для чата {}", chatId, e);
                     deactivateAnchorAndRemoveKeyboard(chatId, messageId, false);
@@ -2416,7 +2499,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
         }
 
         if (!shouldSendNewMessage) {
-            return;
+            return true;
         }
 
         SendMessage message = new SendMessage(chatId.toString(), text);
@@ -2424,11 +2507,13 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
         message.setDisableNotification(true);
         message.setParseMode(TELEGRAM_PARSE_MODE);
         try {
-            Message sent = telegramClient.execute(message);
+            Message sent = sendGateway.execute(chatId, message);
             Integer newAnchorId = sent != null ? sent.getMessageId() : null;
             chatSessionRepository.updateAnchorAndScreen(chatId, newAnchorId, screen, navigationPath);
+            return true;
         } catch (TelegramApiException e) {
             log.error("❌ Ошибка отправки якорного сообщения", e);
+            return false;
         }
     }
 
@@ -2507,7 +2592,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
         }
         SendMessage msg = createPlainMessage(chatId, text);
         try {
-            telegramClient.execute(msg);
+            sendGateway.execute(chatId, msg);
         } catch (TelegramApiException e) {
             log.error("❌ Ошибка отправки сообщения", e);
         }
@@ -2590,7 +2675,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
         message.setReplyMarkup(createPhoneRequestKeyboard());
 
         try {
-            telegramClient.execute(message);
+            sendGateway.execute(chatId, message);
         } catch (TelegramApiException e) {
             log.error("❌ Ошибка отправки запроса номера", e);
         }
@@ -2808,6 +2893,8 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
 
         try {
             Customer customer = telegramService.linkTelegramToCustomer(phone, chatId);
+            // Чат мог быть привязан к другому покупателю — подготовленные экраны устарели
+            buyerScreenCache.evict(chatId);
 
             if (customer.isTelegramConfirmed()) {
                 sendKeyboardRemovalMessage(chatId, "✅ Номер уже подтверждён. Обновляю меню...");
@@ -2874,7 +2961,7 @@ public class BuyerTelegramBot implements SpringLongPollingBot, LongPollingSingle
         }
 
         try {
-            telegramClient.execute(removalMessage);
+            sendGateway.execute(chatId, removalMessage);
         } catch (TelegramApiException e) {
             log.error("❌ Ошибка скрытия клавиатуры в чате {}", chatId, e);
         }
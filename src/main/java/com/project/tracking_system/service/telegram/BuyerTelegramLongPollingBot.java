@@ -0,0 +1,39 @@
+package com.project.tracking_system.service.telegram;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.longpolling.interfaces.LongPollingUpdateConsumer;
+import org.telegram.telegrambots.longpolling.starter.SpringLongPollingBot;
+
+/**
+ * Регистрирует бота покупателей для получения обновлений через long polling.
+ * <p>
+ * Используется, пока вебхук выключен. При {@code telegram.webhook.enabled=true}
+ * бин не создаётся, и стартер telegrambots не запускает цикл getUpdates,
+ * который Telegram запрещает при установленном вебхуке.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "telegram.webhook.enabled", havingValue = "false", matchIfMissing = true)
+public class BuyerTelegramLongPollingBot implements SpringLongPollingBot {
+
+    private final BuyerTelegramBot buyerTelegramBot;
+
+    /**
+     * @return токен бота покупателей
+     */
+    @Override
+    public String getBotToken() {
+        return buyerTelegramBot.getBotToken();
+    }
+
+    /**
+     * @return бот покупателей, распределяющий обновления по очередям чатов
+     */
+    @Override
+    public LongPollingUpdateConsumer getUpdatesConsumer() {
+        return buyerTelegramBot;
+    }
+}
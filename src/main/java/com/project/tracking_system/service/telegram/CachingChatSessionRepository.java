@@ -0,0 +1,597 @@
+package com.project.tracking_system.service.telegram;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.tracking_system.entity.BuyerBotScreen;
+import com.project.tracking_system.entity.BuyerChatState;
+import com.project.tracking_system.service.admin.event.AdminAnnouncementEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Репозиторий сессий с кэшем в памяти и отложенной записью в базу данных.
+ * <p>
+ * Сессии читаются из {@link DatabaseChatSessionRepository} при первом обращении
+ * и дальше обслуживаются из ограниченного кэша. Поля, потеря которых после
+ * падения приложения лишь заставит бота заново отправить меню (якорное сообщение,
+ * экран, путь навигации, флаги клавиатуры и запроса контакта), только помечают
+ * сессию изменённой: накопленные изменения записываются пачками по расписанию.
+ * Сценарное состояние и состояние объявлений записываются в базу сразу.
+ * </p>
+ * <p>
+ * Изменённые сессии удерживаются до записи независимо от вытеснения из кэша,
+ * поэтому вытеснение не теряет данных. Запись пачки выполняется под блокировками
+ * её сессий, так что немедленная запись не может быть перезаписана устаревшим снимком.
+ * </p>
+ */
+@Slf4j
+@Primary
+@Repository
+public class CachingChatSessionRepository implements ChatSessionRepository {
+
+    private final DatabaseChatSessionRepository delegate;
+    private final int flushBatchSize;
+    /** Минимальный интервал между отметками активности одного чата в базе. */
+    private final Duration activityInterval;
+
+    /** Сессии, прочитанные из базы; отсутствие записи кэшируется пустым элементом. */
+    private final Cache<Long, Entry> sessions;
+
+    /** Изменённые, но ещё не записанные сессии. */
+    private final Map<Long, Entry> dirty = new ConcurrentHashMap<>();
+
+    public CachingChatSessionRepository(DatabaseChatSessionRepository delegate,
+                                        @Value("${telegram.session-cache.max-size:50000}") long maxSize,
+                                        @Value("${telegram.session-cache.flush-batch-size:200}") int flushBatchSize,
+                                        @Value("${telegram.session-cache.activity-interval:1d}") Duration activityInterval) {
+        this.delegate = delegate;
+        this.flushBatchSize = Math.max(1, flushBatchSize);
+        this.activityInterval = activityInterval;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<ChatSession> find(Long chatId) {
+        if (chatId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(read(chatId, CachingChatSessionRepository::copyOf, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ChatSession save(ChatSession session) {
+        if (session == null || session.getChatId() == null) {
+            return session;
+        }
+        Entry entry = entry(session.getChatId());
+        entry.lock.lock();
+        try {
+            ChatSession saved = delegate.save(session);
+            entry.session = copyOf(saved);
+            entry.announcementStale = false;
+            dirty.remove(session.getChatId(), entry);
+            return saved;
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BuyerChatState getState(Long chatId) {
+        if (chatId == null) {
+            return BuyerChatState.IDLE;
+        }
+        return read(chatId, ChatSession::getState, BuyerChatState.IDLE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateState(Long chatId, BuyerChatState state) {
+        if (chatId == null || state == null) {
+            return;
+        }
+        Entry entry = entry(chatId);
+        entry.lock.lock();
+        try {
+            if (entry.session != null && entry.session.getState() == state) {
+                return;
+            }
+            delegate.updateState(chatId, state);
+            sessionOf(entry, chatId).setState(state);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateAnchor(Long chatId, Integer anchorMessageId) {
+        if (chatId == null || anchorMessageId == null) {
+            return;
+        }
+        writeBack(chatId, true, session -> session.setAnchorMessageId(anchorMessageId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateAnchorAndScreen(Long chatId,
+                                      Integer anchorMessageId,
+                                      BuyerBotScreen screen,
+                                      List<BuyerBotScreen> navigationPath) {
+        if (chatId == null) {
+            return;
+        }
+        writeBack(chatId, true, session -> {
+            session.setAnchorMessageId(anchorMessageId);
+            session.setLastScreen(screen);
+            session.setNavigationPath(navigationPath);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAnchor(Long chatId) {
+        if (chatId == null) {
+            return;
+        }
+        writeBack(chatId, false, session -> {
+            session.setAnchorMessageId(null);
+            session.setPersistentKeyboardHidden(true);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deactivateAnchor(Long chatId) {
+        if (chatId == null) {
+            return;
+        }
+        writeBack(chatId, false, session -> session.setAnchorMessageId(null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isKeyboardHidden(Long chatId) {
+        if (chatId == null) {
+            return false;
+        }
+        return read(chatId, ChatSession::isPersistentKeyboardHidden, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markKeyboardHidden(Long chatId) {
+        if (chatId == null) {
+            return;
+        }
+        writeBack(chatId, true, session -> session.setPersistentKeyboardHidden(true));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markKeyboardVisible(Long chatId) {
+        if (chatId == null) {
+            return;
+        }
+        writeBack(chatId, true, session -> session.setPersistentKeyboardHidden(false));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isContactRequestSent(Long chatId) {
+        if (chatId == null) {
+            return false;
+        }
+        return read(chatId, ChatSession::isContactRequestSent, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markContactRequestSent(Long chatId) {
+        if (chatId == null) {
+            return;
+        }
+        writeBack(chatId, true, session -> session.setContactRequestSent(true));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearContactRequestSent(Long chatId) {
+        if (chatId == null) {
+            return;
+        }
+        writeBack(chatId, true, session -> session.setContactRequestSent(false));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAnnouncementSeen(Long chatId) {
+        if (chatId == null) {
+            return false;
+        }
+        return read(chatId, ChatSession::isAnnouncementSeen, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void markAnnouncementSeen(Long chatId) {
+        if (chatId == null) {
+            return;
+        }
+        Entry entry = entry(chatId);
+        entry.lock.lock();
+        try {
+            refreshAnnouncement(entry, chatId);
+            if (entry.session == null || entry.session.getCurrentNotificationId() == null
+                    || entry.session.isAnnouncementSeen()) {
+                return;
+            }
+            delegate.markAnnouncementSeen(chatId);
+            entry.session.setAnnouncementSeen(true);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateAnnouncement(Long chatId,
+                                   Long notificationId,
+                                   Integer anchorMessageId,
+                                   ZonedDateTime notificationUpdatedAt) {
+        if (chatId == null) {
+            return;
+        }
+        Entry entry = entry(chatId);
+        entry.lock.lock();
+        try {
+            delegate.updateAnnouncement(chatId, notificationId, anchorMessageId, notificationUpdatedAt);
+            ChatSession session = sessionOf(entry, chatId);
+            session.setCurrentNotificationId(notificationId);
+            session.setAnnouncementAnchorMessageId(anchorMessageId);
+            session.setAnnouncementSeen(false);
+            session.setAnnouncementUpdatedAt(notificationUpdatedAt);
+            entry.announcementStale = false;
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAnnouncementAsSeen(Long chatId, Long notificationId, ZonedDateTime updatedAt) {
+        if (chatId == null) {
+            return;
+        }
+        Entry entry = entry(chatId);
+        entry.lock.lock();
+        try {
+            refreshAnnouncement(entry, chatId);
+            delegate.setAnnouncementAsSeen(chatId, notificationId, updatedAt);
+            ChatSession session = sessionOf(entry, chatId);
+            session.setCurrentNotificationId(notificationId);
+            session.setAnnouncementSeen(true);
+            session.setAnnouncementUpdatedAt(updatedAt);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Отметка записывается в базу не чаще раза в {@code telegram.session-cache.activity-interval}
+     * для закэшированной сессии: этого достаточно, чтобы очистка неактивных сессий
+     * не удалила чат, который пишет боту, но не меняет своё состояние.
+     * </p>
+     */
+    @Override
+    public void recordActivity(Long chatId) {
+        if (chatId == null) {
+            return;
+        }
+        Entry entry = entry(chatId);
+        entry.lock.lock();
+        try {
+            if (entry.session == null) {
+                return;
+            }
+            ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+            if (entry.activityRecordedAt != null && entry.activityRecordedAt.plus(activityInterval).isAfter(now)) {
+                return;
+            }
+            delegate.recordActivity(chatId);
+            entry.activityRecordedAt = now;
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * Помечает состояние объявлений всех закэшированных сессий устаревшим.
+     * <p>
+     * Сброс просмотров выполняется администратором напрямую в базе данных,
+     * поэтому после фиксации транзакции состояние объявлений перечитывается
+     * при следующем обращении. Обработчик выполняется раньше рассылки объявления.
+     * </p>
+     *
+     * @param event событие изменения административного объявления
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleAdminAnnouncement(AdminAnnouncementEvent event) {
+        sessions.asMap().values().forEach(entry -> entry.announcementStale = true);
+        dirty.values().forEach(entry -> entry.announcementStale = true);
+    }
+
+    /**
+     * Убирает из кэша сессии, удалённые из базы как неактивные.
+     * <p>
+     * Сессии с незаписанными изменениями остаются: чат снова стал активен,
+     * и ближайшая запись восстановит его состояние в базе.
+     * </p>
+     *
+     * @param chatIds идентификаторы удалённых чатов
+     */
+    public void evict(Collection<Long> chatIds) {
+        for (Long chatId : chatIds) {
+            Entry entry = sessions.getIfPresent(chatId);
+            if (entry == null) {
+                continue;
+            }
+            entry.lock.lock();
+            try {
+                if (!dirty.containsKey(chatId)) {
+                    sessions.invalidate(chatId);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Записывает накопленные изменения сессий в базу данных пачками.
+     * <p>
+     * Сессии пачки блокируются на время записи; после успешной записи они
+     * перестают считаться изменёнными. При ошибке сессии остаются в очереди
+     * и будут записаны при следующем запуске.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${telegram.session-cache.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Entry>> pending = new ArrayList<>(dirty.entrySet());
+        int written = 0;
+        for (int from = 0; from < pending.size(); from += flushBatchSize) {
+            List<Map.Entry<Long, Entry>> batch = pending.subList(from, Math.min(pending.size(), from + flushBatchSize));
+            batch.forEach(item -> item.getValue().lock.lock());
+            try {
+                List<ChatSession> snapshots = batch.stream()
+                        .map(item -> item.getValue().session)
+                        .filter(Objects::nonNull)
+                        .map(CachingChatSessionRepository::copyOf)
+                        .toList();
+                delegate.saveScreenStates(snapshots);
+                batch.forEach(item -> dirty.remove(item.getKey(), item.getValue()));
+                written += snapshots.size();
+            } catch (RuntimeException e) {
+                log.warn("Не удалось записать {} сессий Telegram, повторим позже: {}", batch.size(), e.getMessage());
+                return;
+            } finally {
+                batch.forEach(item -> item.getValue().lock.unlock());
+            }
+        }
+        log.debug("Записано {} изменённых сессий Telegram", written);
+    }
+
+    /**
+     * Записывает оставшиеся изменения при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Возвращает элемент кэша, загружая сессию из базы при промахе.
+     * Изменённая, но вытесненная из кэша сессия возвращается из очереди записи.
+     */
+    private Entry entry(Long chatId) {
+        return sessions.get(chatId, id -> {
+            Entry pending = dirty.get(id);
+            return pending != null ? pending : new Entry(delegate.find(id).orElse(null));
+        });
+    }
+
+    /**
+     * Читает значение из закэшированной сессии.
+     *
+     * @param chatId       идентификатор чата
+     * @param getter       функция получения значения
+     * @param defaultValue значение при отсутствии сессии
+     */
+    private <T> T read(Long chatId, Function<ChatSession, T> getter, T defaultValue) {
+        Entry entry = entry(chatId);
+        entry.lock.lock();
+        try {
+            refreshAnnouncement(entry, chatId);
+            return entry.session != null ? getter.apply(entry.session) : defaultValue;
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * Изменяет поля с отложенной записью. Сессия считается изменённой,
+     * только если значения действительно поменялись.
+     *
+     * @param chatId идентификатор чата
+     * @param create создавать ли сессию, если её ещё нет
+     * @param change изменение сессии
+     */
+    private void writeBack(Long chatId, boolean create, Consumer<ChatSession> change) {
+        Entry entry = entry(chatId);
+        entry.lock.lock();
+        try {
+            if (entry.session == null && !create) {
+                return;
+            }
+            ChatSession session = sessionOf(entry, chatId);
+            ScreenFields before = ScreenFields.of(session);
+            change.accept(session);
+            if (!before.equals(ScreenFields.of(session))) {
+                dirty.put(chatId, entry);
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает сессию элемента, создавая её с настройками по умолчанию.
+     */
+    private ChatSession sessionOf(Entry entry, Long chatId) {
+        if (entry.session == null) {
+            entry.session = new ChatSession(chatId, BuyerChatState.IDLE, null, null);
+            dirty.put(chatId, entry);
+        }
+        return entry.session;
+    }
+
+    /**
+     * Перечитывает состояние объявлений, если оно было сброшено администратором.
+     */
+    private void refreshAnnouncement(Entry entry, Long chatId) {
+        if (!entry.announcementStale) {
+            return;
+        }
+        entry.announcementStale = false;
+        if (entry.session == null) {
+            entry.session = delegate.find(chatId).orElse(null);
+            return;
+        }
+        delegate.find(chatId).ifPresent(stored -> {
+            entry.session.setCurrentNotificationId(stored.getCurrentNotificationId());
+            entry.session.setAnnouncementAnchorMessageId(stored.getAnnouncementAnchorMessageId());
+            entry.session.setAnnouncementSeen(stored.isAnnouncementSeen());
+            entry.session.setAnnouncementUpdatedAt(stored.getAnnouncementUpdatedAt());
+        });
+    }
+
+    /**
+     * Создаёт независимую копию сессии, чтобы вызывающий код не менял кэш напрямую.
+     */
+    private static ChatSession copyOf(ChatSession source) {
+        ChatSession copy = new ChatSession(source.getChatId(),
+                source.getState(),
+                source.getAnchorMessageId(),
+                source.getLastScreen(),
+                source.isPersistentKeyboardHidden(),
+                source.isContactRequestSent());
+        copy.setNavigationPath(source.getNavigationPath());
+        copy.setCurrentNotificationId(source.getCurrentNotificationId());
+        copy.setAnnouncementAnchorMessageId(source.getAnnouncementAnchorMessageId());
+        copy.setAnnouncementSeen(source.isAnnouncementSeen());
+        copy.setAnnouncementUpdatedAt(source.getAnnouncementUpdatedAt());
+        return copy;
+    }
+
+    /**
+     * Элемент кэша: сессия чата или {@code null}, если записи в базе нет.
+     */
+    private static final class Entry {
+        final ReentrantLock lock = new ReentrantLock();
+        ChatSession session;
+        volatile boolean announcementStale;
+        /** Момент последней отметки активности в базе; изменяется под {@link #lock}. */
+        ZonedDateTime activityRecordedAt;
+
+        Entry(ChatSession session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * Снимок полей с отложенной записью для определения фактических изменений.
+     */
+    private record ScreenFields(Integer anchorMessageId,
+                                BuyerBotScreen lastScreen,
+                                List<BuyerBotScreen> navigationPath,
+                                boolean keyboardHidden,
+                                boolean contactRequestSent) {
+
+        static ScreenFields of(ChatSession session) {
+            return new ScreenFields(session.getAnchorMessageId(),
+                    session.getLastScreen(),
+                    List.copyOf(session.getNavigationPath()),
+                    session.isPersistentKeyboardHidden(),
+                    session.isContactRequestSent());
+        }
+    }
+}
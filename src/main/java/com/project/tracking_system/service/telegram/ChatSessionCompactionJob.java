@@ -0,0 +1,156 @@
+package com.project.tracking_system.service.telegram;
+
+import com.project.tracking_system.dto.ChatSessionStorageDTO;
+import com.project.tracking_system.entity.ChatSessionStorageSample;
+import com.project.tracking_system.repository.BuyerAnnouncementStateRepository;
+import com.project.tracking_system.repository.BuyerBotScreenStateRepository;
+import com.project.tracking_system.repository.ChatSessionStorageSampleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Периодическая очистка состояния сессий покупательского Telegram-бота.
+ * <p>
+ * Состояния экранов и объявлений хранятся для каждого чата, когда-либо
+ * писавшего боту. Записи чатов, от которых дольше заданного числа дней не
+ * приходило обновлений (см. {@link ChatSessionRepository#recordActivity}),
+ * удаляются порциями: вернувшийся покупатель начнёт с главного меню,
+ * а активное объявление будет показано ему заново. После очистки размеры
+ * таблиц записываются в журнал и в таблицу замеров, где хранится ограниченное
+ * количество последних записей.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ChatSessionCompactionJob {
+
+    private final BuyerBotScreenStateRepository screenStateRepository;
+    private final BuyerAnnouncementStateRepository announcementStateRepository;
+    private final CachingChatSessionRepository sessionCache;
+    private final ChatSessionStorageSampleRepository sampleRepository;
+    private final int idleDays;
+    private final int batchSize;
+    private final int historySize;
+
+    /**
+     * @param idleDays    через сколько дней без активности сессия удаляется; {@code 0} отключает удаление
+     * @param batchSize   количество чатов, удаляемых одной транзакцией
+     * @param historySize количество хранимых замеров таблиц
+     */
+    public ChatSessionCompactionJob(BuyerBotScreenStateRepository screenStateRepository,
+                                    BuyerAnnouncementStateRepository announcementStateRepository,
+                                    CachingChatSessionRepository sessionCache,
+                                    ChatSessionStorageSampleRepository sampleRepository,
+                                    @Value("${telegram.session-compaction.idle-days:90}") int idleDays,
+                                    @Value("${telegram.session-compaction.batch-size:500}") int batchSize,
+                                    @Value("${telegram.session-compaction.history-size:30}") int historySize) {
+        this.screenStateRepository = screenStateRepository;
+        this.announcementStateRepository = announcementStateRepository;
+        this.sessionCache = sessionCache;
+        this.sampleRepository = sampleRepository;
+        this.idleDays = idleDays;
+        this.batchSize = Math.max(1, batchSize);
+        this.historySize = Math.max(1, historySize);
+    }
+
+    /**
+     * Удаляет неактивные сессии и замеряет размеры таблиц.
+     */
+    @Scheduled(cron = "${telegram.session-compaction.cron:0 30 4 * * *}")
+    public void compact() {
+        int removedScreens = 0;
+        int removedAnnouncements = 0;
+        if (idleDays > 0) {
+            ZonedDateTime cutoff = ZonedDateTime.now(ZoneOffset.UTC).minusDays(idleDays);
+            removedScreens = removeIdle(cutoff,
+                    screenStateRepository::findIdleChatIds, screenStateRepository::deleteIdle);
+            removedAnnouncements = removeIdle(cutoff,
+                    announcementStateRepository::findIdleChatIds, announcementStateRepository::deleteIdle);
+        }
+
+        ChatSessionStorageDTO sample = new ChatSessionStorageDTO(ZonedDateTime.now(ZoneOffset.UTC),
+                screenStateRepository.count(),
+                screenStateRepository.totalRelationSize(),
+                announcementStateRepository.count(),
+                announcementStateRepository.totalRelationSize(),
+                removedScreens,
+                removedAnnouncements);
+        record(sample);
+        log.info("Очистка сессий Telegram: удалено {} состояний экранов и {} состояний объявлений, "
+                        + "осталось {} ({} байт) и {} ({} байт)",
+                removedScreens, removedAnnouncements,
+                sample.screenStates(), sample.screenStatesBytes(),
+                sample.announcementStates(), sample.announcementStatesBytes());
+    }
+
+    /**
+     * Возвращает историю замеров таблиц, от старых к новым.
+     *
+     * @return последние замеры
+     */
+    public List<ChatSessionStorageDTO> history() {
+        List<ChatSessionStorageDTO> samples = new ArrayList<>(sampleRepository
+                .findAllByOrderBySampledAtDescIdDesc(Limit.of(historySize)).stream()
+                .map(ChatSessionCompactionJob::toDto)
+                .toList());
+        Collections.reverse(samples);
+        return samples;
+    }
+
+    /**
+     * Удаляет неактивные записи таблицы порциями, пока выборка не станет неполной.
+     *
+     * @param cutoff  граница неактивности
+     * @param finder  выборка идентификаторов неактивных чатов
+     * @param remover удаление записей с повторной проверкой активности
+     * @return количество удалённых записей
+     */
+    private int removeIdle(ZonedDateTime cutoff,
+                           BiFunction<ZonedDateTime, Integer, List<Long>> finder,
+                           BiFunction<List<Long>, ZonedDateTime, Integer> remover) {
+        int removed = 0;
+        List<Long> chatIds;
+        do {
+            chatIds = finder.apply(cutoff, batchSize);
+            if (chatIds.isEmpty()) {
+                break;
+            }
+            removed += remover.apply(chatIds, cutoff);
+            sessionCache.evict(chatIds);
+        } while (chatIds.size() == batchSize);
+        return removed;
+    }
+
+    private void record(ChatSessionStorageDTO sample) {
+        ChatSessionStorageSample entity = new ChatSessionStorageSample();
+        entity.setSampledAt(sample.sampledAt());
+        entity.setScreenStates(sample.screenStates());
+        entity.setScreenStatesBytes(sample.screenStatesBytes());
+        entity.setAnnouncementStates(sample.announcementStates());
+        entity.setAnnouncementStatesBytes(sample.announcementStatesBytes());
+        entity.setRemovedScreenStates(sample.removedScreenStates());
+        entity.setRemovedAnnouncementStates(sample.removedAnnouncementStates());
+        sampleRepository.save(entity);
+        sampleRepository.deleteAllExceptLatest(historySize);
+    }
+
+    private static ChatSessionStorageDTO toDto(ChatSessionStorageSample sample) {
+        return new ChatSessionStorageDTO(sample.getSampledAt(),
+                sample.getScreenStates(),
+                sample.getScreenStatesBytes(),
+                sample.getAnnouncementStates(),
+                sample.getAnnouncementStatesBytes(),
+                sample.getRemovedScreenStates(),
+                sample.getRemovedAnnouncementStates());
+    }
+}
@@ -167,4 +167,15 @@ public interface ChatSessionRepository {
      * @param updatedAt      момент последнего обновления уведомления
      */
     void setAnnouncementAsSeen(Long chatId, Long notificationId, ZonedDateTime updatedAt);
+
+    /**
+     * Отмечает входящее обновление чата, чтобы его сессия не считалась неактивной.
+     * <p>
+     * Реализация может ограничивать частоту записи: отметка нужна лишь для
+     * очистки сессий, не менявшихся много дней.
+     * </p>
+     *
+     * @param chatId идентификатор чата Telegram
+     */
+    void recordActivity(Long chatId);
 }
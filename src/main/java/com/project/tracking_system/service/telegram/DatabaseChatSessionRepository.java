@@ -10,11 +10,15 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -81,6 +85,48 @@ public class DatabaseChatSessionRepository implements ChatSessionRepository {
         return result;
     }
 
+    /**
+     * Сохраняет экранное состояние нескольких сессий одной транзакцией.
+     * <p>
+     * Записываются только поля таблицы состояния экрана: сценарное состояние,
+     * якорное сообщение, экран, путь навигации и флаги клавиатуры и запроса
+     * контакта. Состояние объявлений не затрагивается.
+     * </p>
+     *
+     * @param sessions сохраняемые сессии
+     */
+    @Transactional
+    public void saveScreenStates(Collection<ChatSession> sessions) {
+        if (sessions == null || sessions.isEmpty()) {
+            return;
+        }
+        Map<Long, BuyerBotScreenState> existing = repository.findAllById(sessions.stream()
+                        .map(ChatSession::getChatId)
+                        .filter(Objects::nonNull)
+                        .toList())
+                .stream()
+                .collect(Collectors.toMap(BuyerBotScreenState::getChatId, Function.identity()));
+
+        List<BuyerBotScreenState> entities = new ArrayList<>(sessions.size());
+        for (ChatSession session : sessions) {
+            if (session == null || session.getChatId() == null) {
+                continue;
+            }
+            BuyerBotScreenState entity = existing.get(session.getChatId());
+            if (entity == null) {
+                entity = newEntity(session.getChatId());
+            }
+            entity.setChatState(session.getState());
+            entity.setAnchorMessageId(session.getAnchorMessageId());
+            entity.setLastScreen(session.getLastScreen());
+            entity.setKeyboardHidden(session.isPersistentKeyboardHidden());
+            entity.setContactRequestSent(session.isContactRequestSent());
+            entity.setNavigationPath(serializeNavigationPath(session.getNavigationPath()));
+            entities.add(entity);
+        }
+        repository.saveAll(entities);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -327,6 +373,20 @@ public class DatabaseChatSessionRepository implements ChatSessionRepository {
         announcementRepository.save(state);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void recordActivity(Long chatId) {
+        if (chatId == null) {
+            return;
+        }
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        repository.touchActivity(chatId, now);
+        announcementRepository.touchActivity(chatId, now);
+    }
+
     /**
      * Возвращает сущность состояния, создавая новую запись с настройками по умолчанию.
      *
@@ -335,13 +395,24 @@ public class DatabaseChatSessionRepository implements ChatSessionRepository {
      */
     private BuyerBotScreenState getOrCreateEntity(Long chatId) {
         return repository.findById(chatId)
-                .orElseGet(() -> new BuyerBotScreenState(chatId,
-                        null,
-                        null,
-                        BuyerChatState.IDLE,
-                        Boolean.TRUE,
-                        Boolean.FALSE,
-                        null));
+                .orElseGet(() -> newEntity(chatId));
+    }
+
+    /**
+     * Создаёт сущность состояния с настройками по умолчанию.
+     *
+     * @param chatId идентификатор чата Telegram
+     * @return новая несохранённая сущность
+     */
+    private BuyerBotScreenState newEntity(Long chatId) {
+        return new BuyerBotScreenState(chatId,
+                null,
+                null,
+                BuyerChatState.IDLE,
+                Boolean.TRUE,
+                Boolean.FALSE,
+                null,
+                null);
     }
 
     /**
@@ -400,34 +471,65 @@ public class DatabaseChatSessionRepository implements ChatSessionRepository {
 
     /**
      * Преобразует путь навигации в строку для хранения в базе данных.
+     * <p>
+     * Каждый экран записывается одной цифрой base36 — порядковым номером
+     * константы {@link BuyerBotScreen}.
+     * </p>
      *
      * @param navigationPath последовательность экранов
      * @return сериализованное представление или {@code null}, если путь пуст
      */
-    private String serializeNavigationPath(List<BuyerBotScreen> navigationPath) {
+    static String serializeNavigationPath(List<BuyerBotScreen> navigationPath) {
         if (navigationPath == null || navigationPath.isEmpty()) {
             return null;
         }
-        return navigationPath.stream()
-                .filter(Objects::nonNull)
-                .map(Enum::name)
-                .collect(Collectors.joining(","));
+        StringBuilder builder = new StringBuilder(navigationPath.size());
+        for (BuyerBotScreen screen : navigationPath) {
+            if (screen != null) {
+                builder.append(Character.forDigit(screen.ordinal(), Character.MAX_RADIX));
+            }
+        }
+        return builder.isEmpty() ? null : builder.toString();
     }
 
     /**
      * Восстанавливает путь навигации из строки, сохранённой в базе данных.
+     * <p>
+     * Поддерживается и прежний формат с именами экранов через запятую:
+     * имена содержат заглавные буквы, которые не встречаются в цифрах base36.
+     * </p>
      *
      * @param serialized сохранённое представление пути
      * @return список экранов с учётом возможных ошибок формата
      */
-    private List<BuyerBotScreen> deserializeNavigationPath(String serialized) {
+    static List<BuyerBotScreen> deserializeNavigationPath(String serialized) {
         List<BuyerBotScreen> result = new ArrayList<>();
         if (serialized == null || serialized.isBlank()) {
             return result;
         }
-        String[] parts = serialized.split(",");
-        for (String part : parts) {
-            if (part == null || part.isBlank()) {
+        if (serialized.chars().anyMatch(Character::isUpperCase)) {
+            return deserializeLegacyNavigationPath(serialized);
+        }
+        BuyerBotScreen[] screens = BuyerBotScreen.values();
+        for (int i = 0; i < serialized.length(); i++) {
+            int ordinal = Character.digit(serialized.charAt(i), Character.MAX_RADIX);
+            if (ordinal >= 0 && ordinal < screens.length) {
+                result.add(screens[ordinal]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Разбирает путь навигации, записанный именами экранов через запятую.
+     *
+     * @param serialized сохранённое представление пути
+     * @return список экранов без устаревших и некорректных значений
+     */
+    private static List<BuyerBotScreen> deserializeLegacyNavigationPath(String serialized) {
+        List<BuyerBotScreen> result = new ArrayList<>();
+        for (String part : serialized.split(",")) {
+            if (part.isBlank()) {
                 continue;
             }
             try {
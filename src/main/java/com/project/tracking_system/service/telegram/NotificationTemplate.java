@@ -0,0 +1,73 @@
+package com.project.tracking_system.service.telegram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Шаблон уведомления, заранее разобранный для одного магазина.
+ * <p>
+ * Название магазина подставляется при разборе, а шаблон хранится как
+ * неизменные фрагменты текста между вхождениями {@code {track}}. Отрисовка
+ * сводится к склейке фрагментов с трек-номером в буфер заранее известного
+ * размера.
+ * </p>
+ */
+public final class NotificationTemplate {
+
+    static final String TRACK_PLACEHOLDER = "{track}";
+    static final String STORE_PLACEHOLDER = "{store}";
+
+    /** Фрагменты текста; трек-номер вставляется между соседними фрагментами. */
+    private final String[] segments;
+    private final int segmentsLength;
+
+    private NotificationTemplate(String[] segments) {
+        this.segments = segments;
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.segmentsLength = length;
+    }
+
+    /**
+     * Разбирает шаблон с плейсхолдерами {@code {track}} и {@code {store}}.
+     *
+     * @param template  текст шаблона
+     * @param storeName название магазина, подставляемое вместо {@code {store}}
+     * @return разобранный шаблон
+     */
+    public static NotificationTemplate compile(String template, String storeName) {
+        List<String> segments = new ArrayList<>();
+        int from = 0;
+        int index;
+        while ((index = template.indexOf(TRACK_PLACEHOLDER, from)) >= 0) {
+            segments.add(substituteStore(template.substring(from, index), storeName));
+            from = index + TRACK_PLACEHOLDER.length();
+        }
+        segments.add(substituteStore(template.substring(from), storeName));
+        return new NotificationTemplate(segments.toArray(String[]::new));
+    }
+
+    /**
+     * Формирует текст уведомления для посылки.
+     *
+     * @param track трек-номер посылки
+     * @return готовый текст
+     */
+    public String render(String track) {
+        if (segments.length == 1) {
+            return segments[0];
+        }
+        StringBuilder builder = new StringBuilder(segmentsLength + track.length() * (segments.length - 1));
+        builder.append(segments[0]);
+        for (int i = 1; i < segments.length; i++) {
+            builder.append(track).append(segments[i]);
+        }
+        return builder.toString();
+    }
+
+    private static String substituteStore(String segment, String storeName) {
+        return segment.replace(STORE_PLACEHOLDER, storeName);
+    }
+}
@@ -0,0 +1,161 @@
+package com.project.tracking_system.service.telegram;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.tracking_system.entity.BuyerStatus;
+import com.project.tracking_system.entity.Store;
+import com.project.tracking_system.entity.StoreTelegramSettings;
+import com.project.tracking_system.entity.User;
+import com.project.tracking_system.service.customer.CustomerService;
+import com.project.tracking_system.service.store.event.StoreNotificationSettingsChangedEvent;
+import com.project.tracking_system.service.user.event.UserNotificationSettingsChangedEvent;
+import com.project.tracking_system.utils.CacheUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Кэш правил отправки уведомлений о статусах по магазинам и их владельцам.
+ * <p>
+ * Для магазина хранятся флаг Telegram-уведомлений и шаблоны всех статусов,
+ * уже разобранные {@link NotificationTemplate} с подставленным названием.
+ * При массовом обновлении посылок настройки магазина загружаются один раз,
+ * а не для каждой посылки. Запись магазина сбрасывается после сохранения его
+ * настроек или переименования.
+ * </p>
+ * <p>
+ * Разрешение владельца зависит от тарифа, поэтому хранится ограниченное время:
+ * смена или окончание подписки событием не сопровождаются. Отключение
+ * уведомлений в настройках пользователя сбрасывает запись сразу.
+ * </p>
+ */
+@Component
+public class StoreNotificationPolicyCache {
+
+    private final CustomerService customerService;
+    private final Cache<Long, StoreNotificationPolicy> stores;
+    private final Cache<Long, Boolean> owners;
+
+    /**
+     * @param maxSize  максимальное количество магазинов и владельцев в кэше
+     * @param storeTtl время жизни правил магазина
+     * @param ownerTtl время жизни разрешения владельца
+     */
+    public StoreNotificationPolicyCache(CustomerService customerService,
+                                        @Value("${telegram.notification-policy.max-size:10000}") long maxSize,
+                                        @Value("${telegram.notification-policy.store-ttl:30m}") Duration storeTtl,
+                                        @Value("${telegram.notification-policy.owner-ttl:1m}") Duration ownerTtl) {
+        this.customerService = customerService;
+        this.stores = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(storeTtl)
+                .build();
+        this.owners = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ownerTtl)
+                .build();
+    }
+
+    /**
+     * Возвращает правила уведомлений магазина, собирая их при отсутствии в кэше.
+     * <p>
+     * При сборке читаются Telegram-настройки магазина, поэтому первый вызов
+     * для магазина должен выполняться внутри транзакции.
+     * </p>
+     *
+     * @param store магазин посылки
+     * @return правила уведомлений магазина
+     */
+    public StoreNotificationPolicy forStore(Store store) {
+        if (store.getId() == null) {
+            return compile(store);
+        }
+        return CacheUtils.getOrLoad(stores, store.getId(), id -> compile(store));
+    }
+
+    /**
+     * Проверяет, разрешает ли владелец магазина уведомления покупателям.
+     *
+     * @param ownerId идентификатор владельца
+     * @return {@code true}, если уведомления разрешены тарифом и настройками владельца
+     */
+    public boolean isOwnerNotifiable(Long ownerId) {
+        if (ownerId == null) {
+            return false;
+        }
+        return CacheUtils.getOrLoad(owners, ownerId, customerService::isOwnerNotifiable);
+    }
+
+    /**
+     * Сбрасывает правила магазина после фиксации изменения его настроек.
+     *
+     * @param event событие изменения настроек магазина
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleStoreSettingsChanged(StoreNotificationSettingsChangedEvent event) {
+        stores.invalidate(event.storeId());
+    }
+
+    /**
+     * Сбрасывает разрешение владельца после фиксации изменения его настроек.
+     *
+     * @param event событие изменения настройки уведомлений пользователя
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleUserSettingsChanged(UserNotificationSettingsChangedEvent event) {
+        owners.invalidate(event.userId());
+    }
+
+    private static StoreNotificationPolicy compile(Store store) {
+        StoreTelegramSettings settings = store.getTelegramSettings();
+        Map<BuyerStatus, String> customTemplates = settings != null ? settings.getTemplatesMap() : Map.of();
+        String storeName = store.getName();
+
+        Map<BuyerStatus, NotificationTemplate> templates = new EnumMap<>(BuyerStatus.class);
+        for (BuyerStatus status : BuyerStatus.values()) {
+            String template = customTemplates.get(status);
+            if (template == null) {
+                // Стандартный текст статуса приводится к виду с плейсхолдерами
+                template = status.formatMessage(NotificationTemplate.TRACK_PLACEHOLDER,
+                        NotificationTemplate.STORE_PLACEHOLDER);
+            }
+            templates.put(status, NotificationTemplate.compile(template, storeName));
+        }
+
+        Long ownerId = Optional.ofNullable(store.getOwner())
+                .map(User::getId)
+                .orElse(null);
+        boolean enabled = settings == null || settings.isEnabled();
+        return new StoreNotificationPolicy(store.getId(), ownerId, enabled, templates);
+    }
+
+    /**
+     * Правила уведомлений магазина.
+     *
+     * @param storeId   идентификатор магазина
+     * @param ownerId   идентификатор владельца магазина
+     * @param enabled   включены ли Telegram-уведомления в настройках магазина
+     * @param templates разобранные шаблоны по статусам
+     */
+    public record StoreNotificationPolicy(Long storeId,
+                                          Long ownerId,
+                                          boolean enabled,
+                                          Map<BuyerStatus, NotificationTemplate> templates) {
+
+        /**
+         * Формирует текст уведомления о статусе.
+         *
+         * @param status статус для покупателя
+         * @param track  трек-номер посылки
+         * @return готовый текст
+         */
+        public String render(BuyerStatus status, String track) {
+            return templates.get(status).render(track);
+        }
+    }
+}
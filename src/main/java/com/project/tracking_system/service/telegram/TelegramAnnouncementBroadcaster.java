@@ -1,49 +1,280 @@
 package com.project.tracking_system.service.telegram;
 
+import com.project.tracking_system.entity.AdminNotification;
+import com.project.tracking_system.entity.AnnouncementBroadcast;
+import com.project.tracking_system.entity.AnnouncementBroadcastStatus;
+import com.project.tracking_system.repository.AnnouncementBroadcastRepository;
 import com.project.tracking_system.repository.CustomerRepository;
 import com.project.tracking_system.service.admin.AdminNotificationService;
-import java.util.List;
-import lombok.RequiredArgsConstructor;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Bucket4j;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Компонент, выполняющий широковещательную рассылку активного объявления в Telegram.
+ * <p>
+ * Рассылка оформляется заданием {@link AnnouncementBroadcast} и выполняется в фоне
+ * порциями чатов по возрастанию идентификатора. Чаты порции обрабатываются
+ * несколькими потоками, а общий темп отправки ограничивается маркерной корзиной,
+ * чтобы не превышать лимит Telegram. После каждой порции в задании сохраняются
+ * счётчики и последний обработанный чат: прерванная остановкой приложения
+ * рассылка продолжается с этого места при следующем запуске.
+ * </p>
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class TelegramAnnouncementBroadcaster {
 
     private final AdminNotificationService adminNotificationService;
     private final CustomerRepository customerRepository;
     private final TelegramAnnouncementSender announcementSender;
+    private final AnnouncementBroadcastRepository broadcastRepository;
+
+    private final Bucket bucket;
+    private final long tokenWaitMs;
+    private final int chunkSize;
+    private final ExecutorService runner;
+    private final ExecutorService workers;
+
+    /** Рассылка, которую разрешено продолжать; остальные останавливаются на ближайшем чате. */
+    private volatile Long activeBroadcastId;
+
+    /**
+     * @param ratePerSecond максимальное количество отправок в секунду
+     * @param workerCount   количество потоков отправки
+     * @param chunkSize     размер порции чатов между сохранениями прогресса
+     */
+    public TelegramAnnouncementBroadcaster(AdminNotificationService adminNotificationService,
+                                           CustomerRepository customerRepository,
+                                           TelegramAnnouncementSender announcementSender,
+                                           AnnouncementBroadcastRepository broadcastRepository,
+                                           @Value("${telegram.announcements.rate-per-second:25}") int ratePerSecond,
+                                           @Value("${telegram.announcements.workers:4}") int workerCount,
+                                           @Value("${telegram.announcements.chunk-size:200}") int chunkSize) {
+        this.adminNotificationService = adminNotificationService;
+        this.customerRepository = customerRepository;
+        this.announcementSender = announcementSender;
+        this.broadcastRepository = broadcastRepository;
+        int rate = Math.max(1, ratePerSecond);
+        this.bucket = Bucket4j.builder()
+                .addLimit(Bandwidth.simple(rate, Duration.ofSeconds(1)))
+                .build();
+        this.tokenWaitMs = Math.max(1, 1000 / rate);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.runner = Executors.newSingleThreadExecutor(namedThreads("tg-broadcast-"));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerCount), namedThreads("tg-broadcast-worker-"));
+    }
 
     /**
-     * Отправить активное объявление всем подтверждённым подписчикам Telegram.
+     * Запустить рассылку активного объявления всем подтверждённым подписчикам Telegram.
      * <p>
      * Метод запрашивает актуальный баннер у сервиса административных уведомлений и,
-     * только если объявление существует, перебирает идентификаторы подтверждённых чатов.
-     * Для каждого адресата вызывается публичный метод бота, повторно использующий
-     * логику отрисовки баннера без загрузки лишних данных о покупателе.
+     * только если объявление существует, останавливает предыдущие рассылки и создаёт
+     * новое задание. Для каждого адресата вызывается публичный метод бота, повторно
+     * использующий логику отрисовки баннера без загрузки лишних данных о покупателе.
      * </p>
      *
      * @param notificationId идентификатор уведомления, инициировавшего рассылку
      */
     public void broadcastActiveAnnouncement(Long notificationId) {
         adminNotificationService.findActiveNotification().ifPresentOrElse(activeNotification -> {
-            Long activeId = activeNotification.getId();
-            List<Long> chatIds = customerRepository.findConfirmedTelegramChatIds();
+            cancelRunning();
+            AnnouncementBroadcast broadcast = new AnnouncementBroadcast();
+            broadcast.setNotificationId(activeNotification.getId());
+            broadcast.setTotalChats(customerRepository.countConfirmedTelegramChats());
+            AnnouncementBroadcast saved = broadcastRepository.save(broadcast);
+            if (saved.getTotalChats() == 0) {
+                log.debug("Нет подтверждённых чатов для рассылки объявления {}", activeNotification.getId());
+                broadcastRepository.finish(saved.getId(), AnnouncementBroadcastStatus.COMPLETED, now());
+                return;
+            }
+            start(saved);
+        }, () -> log.warn("Рассылка объявления {} отменена: активное уведомление отсутствует", notificationId));
+    }
+
+    /**
+     * Продолжает рассылку, прерванную остановкой приложения.
+     * <p>
+     * Продолжается только самое новое задание и только если его объявление всё ещё
+     * активно; остальные незавершённые задания отменяются.
+     * </p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        List<AnnouncementBroadcast> running =
+                broadcastRepository.findAllByStatusOrderByIdDesc(AnnouncementBroadcastStatus.RUNNING);
+        if (running.isEmpty()) {
+            return;
+        }
+        Long activeId = adminNotificationService.findActiveNotification()
+                .map(AdminNotification::getId)
+                .orElse(null);
+        AnnouncementBroadcast latest = running.get(0);
+        running.stream()
+                .skip(1)
+                .forEach(stale -> broadcastRepository.finish(stale.getId(), AnnouncementBroadcastStatus.CANCELLED, now()));
+        if (latest.getNotificationId().equals(activeId)) {
+            log.info("Продолжаем рассылку объявления {} после чата {}", activeId, latest.getLastChatId());
+            start(latest);
+        } else {
+            broadcastRepository.finish(latest.getId(), AnnouncementBroadcastStatus.CANCELLED, now());
+        }
+    }
+
+    /**
+     * Возвращает последнее задание рассылки для отображения в панели администратора.
+     *
+     * @return задание или пустой результат, если рассылок ещё не было
+     */
+    public Optional<AnnouncementBroadcast> findLatestBroadcast() {
+        return broadcastRepository.findTopByOrderByIdDesc();
+    }
+
+    /**
+     * Выполняет рассылку порциями до конца списка чатов или до её остановки.
+     *
+     * @param broadcast задание рассылки
+     */
+    void run(AnnouncementBroadcast broadcast) {
+        Long broadcastId = broadcast.getId();
+        long cursor = broadcast.getLastChatId() != null ? broadcast.getLastChatId() : Long.MIN_VALUE;
+        while (broadcastId.equals(activeBroadcastId)) {
+            List<Long> chatIds = customerRepository.findConfirmedTelegramChatIdsAfter(cursor, PageRequest.of(0, chunkSize));
             if (chatIds.isEmpty()) {
-                log.debug("Нет подтверждённых чатов для рассылки объявления {}", activeId);
+                broadcastRepository.finish(broadcastId, AnnouncementBroadcastStatus.COMPLETED, now());
+                log.info("Рассылка объявления {} завершена", broadcast.getNotificationId());
                 return;
             }
-            chatIds.forEach(chatId -> {
-                if (chatId == null) {
-                    return;
+            List<CompletableFuture<Boolean>> results = chatIds.stream()
+                    .map(chatId -> CompletableFuture.supplyAsync(() -> deliver(broadcastId, chatId), workers))
+                    .toList();
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).join();
+            long sent = 0;
+            long failed = 0;
+            int processed = 0;
+            for (CompletableFuture<Boolean> result : results) {
+                Boolean delivered = result.join();
+                if (delivered == null) {
+                    break;
                 }
-                announcementSender.showActiveAnnouncement(chatId);
-            });
-        }, () -> log.warn("Рассылка объявления {} отменена: активное уведомление отсутствует", notificationId));
+                processed++;
+                if (delivered) {
+                    sent++;
+                } else {
+                    failed++;
+                }
+            }
+            // Курсор сдвигается только по непрерывно обработанным чатам: пропущенные
+            // при остановке будут обработаны после возобновления
+            if (processed == 0) {
+                break;
+            }
+            cursor = chatIds.get(processed - 1);
+            if (broadcastRepository.advance(broadcastId, sent, failed, cursor, now()) == 0
+                    || processed < chatIds.size()) {
+                break;
+            }
+        }
+        log.info("Рассылка объявления {} остановлена", broadcast.getNotificationId());
+    }
+
+    /**
+     * Отправляет объявление в один чат с учётом лимита скорости.
+     *
+     * @return результат отправки или {@code null}, если рассылка остановлена
+     */
+    private Boolean deliver(Long broadcastId, Long chatId) {
+        try {
+            while (!bucket.tryConsume(1)) {
+                if (!broadcastId.equals(activeBroadcastId)) {
+                    return null;
+                }
+                TimeUnit.MILLISECONDS.sleep(tokenWaitMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        if (!broadcastId.equals(activeBroadcastId)) {
+            return null;
+        }
+        try {
+            return announcementSender.showActiveAnnouncement(chatId);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось отправить объявление в чат {}: {}", chatId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void start(AnnouncementBroadcast broadcast) {
+        activeBroadcastId = broadcast.getId();
+        runner.execute(() -> {
+            try {
+                run(broadcast);
+            } catch (RuntimeException e) {
+                log.error("Рассылка объявления {} прервана, будет продолжена после перезапуска",
+                        broadcast.getNotificationId(), e);
+            }
+        });
+    }
+
+    private void cancelRunning() {
+        activeBroadcastId = null;
+        broadcastRepository.findAllByStatusOrderByIdDesc(AnnouncementBroadcastStatus.RUNNING)
+                .forEach(running -> broadcastRepository.finish(running.getId(),
+                        AnnouncementBroadcastStatus.CANCELLED, now()));
+    }
+
+    private static ZonedDateTime now() {
+        return ZonedDateTime.now(ZoneOffset.UTC);
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Останавливает потоки рассылки. Незавершённое задание остаётся в статусе
+     * {@link AnnouncementBroadcastStatus#RUNNING} и продолжится после перезапуска.
+     */
+    @PreDestroy
+    public void shutdown() {
+        activeBroadcastId = null;
+        runner.shutdown();
+        workers.shutdown();
+        try {
+            if (!runner.awaitTermination(10, TimeUnit.SECONDS)) {
+                runner.shutdownNow();
+            }
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
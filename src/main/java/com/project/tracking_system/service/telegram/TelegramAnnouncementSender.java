@@ -9,6 +9,8 @@ public interface TelegramAnnouncementSender {
      * Показать актуальное административное объявление подтверждённому покупателю.
      *
      * @param chatId идентификатор чата Telegram, в который необходимо отправить баннер
+     * @return {@code true}, если баннер доставлен или показывать его не требуется;
+     *         {@code false}, если Telegram отклонил отправку
      */
-    void showActiveAnnouncement(Long chatId);
+    boolean showActiveAnnouncement(Long chatId);
 }
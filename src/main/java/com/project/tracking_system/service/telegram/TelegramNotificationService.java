@@ -1,18 +1,27 @@
 package com.project.tracking_system.service.telegram;
 
+import com.project.tracking_system.dto.ReminderCandidateRow;
 import com.project.tracking_system.entity.BuyerStatus;
+import com.project.tracking_system.entity.Customer;
 import com.project.tracking_system.entity.GlobalStatus;
+import com.project.tracking_system.entity.Store;
 import com.project.tracking_system.entity.TrackParcel;
-import com.project.tracking_system.entity.StoreTelegramSettings;
 import com.project.tracking_system.mapper.BuyerStatusMapper;
-import com.project.tracking_system.service.customer.CustomerService;
+import com.project.tracking_system.repository.CustomerNotificationLogRepository;
+import com.project.tracking_system.service.telegram.StoreNotificationPolicyCache.StoreNotificationPolicy;
+import com.project.tracking_system.service.telegram.event.StatusNotificationRequestedEvent;
 import org.springframework.util.StringUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
-import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Optional;
 
 /**
  * Сервис отправки уведомлений в Telegram-покупателям.
@@ -26,61 +35,121 @@ public class TelegramNotificationService {
     public static final String DEFAULT_REMINDER_TEMPLATE =
             "\uD83D\uDD14 Не забудьте забрать посылку {track} из магазина {store} — она ждёт вас в пункте выдачи.";
 
-    private final TelegramClient telegramClient;
-    private final CustomerService customerService;
+    private final TelegramSendGateway sendGateway;
+    private final StoreNotificationPolicyCache policyCache;
+    private final CustomerNotificationLogRepository notificationLogRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * Отправить уведомление о смене статуса посылки.
+     * Запросить однократное уведомление о смене статуса посылки.
      * <p>
-     * Метод возвращает {@code true}, только если сообщение действительно было
-     * доставлено в Telegram. Во всех случаях раннего выхода возвращается
-     * {@code false}, что позволяет вызывающему коду не сохранять запись об
-     * уведомлении в журнале.
+     * Текст уведомления формируется сразу, пока доступны настройки магазина,
+     * а запись в журнал и отправка выполняются после фиксации текущей транзакции
+     * в {@link #sendStatusUpdateOnce(StatusNotificationRequestedEvent)}, поэтому
+     * сообщение о статусе не может уйти в обход журнала уведомлений.
+     * Настройки магазина, разрешение владельца и разобранные шаблоны берутся из
+     * {@link StoreNotificationPolicyCache}, поэтому при массовом обновлении
+     * посылок они не загружаются повторно.
      * </p>
      *
      * @param parcel посылка
      * @param status новый статус
-     * @return {@code true}, если сообщение отправлено успешно
+     * @return {@code true}, если уведомление поставлено на отправку;
+     *         {@code false}, если условия отправки не выполнены
      */
-    public boolean sendStatusUpdate(TrackParcel parcel, GlobalStatus status) {
-        if (!customerService.isNotifiable(parcel.getCustomer(), parcel.getStore())) {
-            log.warn("⛔ Уведомление не отправлено: условия не выполнены для трека {}", parcel.getNumber());
+    public boolean requestStatusUpdate(TrackParcel parcel, GlobalStatus status) {
+        Optional<StatusNotificationRequestedEvent> notification = prepareStatusUpdate(parcel, status);
+        notification.ifPresent(eventPublisher::publishEvent);
+        return notification.isPresent();
+    }
+
+    /**
+     * Отправить подготовленное уведомление не более одного раза по посылке и статусу.
+     * <p>
+     * Запись в журнал фиксируется в отдельной транзакции до отправки, поэтому
+     * параллельные обновления посылки не дублируют сообщение, а сама отправка
+     * не удерживает блокировку записи. Если сообщение не ушло, запись удаляется,
+     * чтобы уведомление могло быть отправлено при следующем обновлении.
+     * </p>
+     *
+     * @param notification подготовленное уведомление
+     * @return {@code true}, если сообщение отправлено этим вызовом
+     */
+    public boolean sendStatusUpdateOnce(StatusNotificationRequestedEvent notification) {
+        Optional<Long> logId = notificationLogRepository.claimInstantNotification(
+                notification.customerId(),
+                notification.parcelId(),
+                notification.status().name(),
+                ZonedDateTime.now(ZoneOffset.UTC)
+        );
+        if (logId.isEmpty()) {
+            log.debug("Уведомление о статусе {} уже отправлено для трека {}",
+                    notification.status(), notification.trackNumber());
             return false;
         }
 
-        StoreTelegramSettings settings = parcel.getStore().getTelegramSettings();
-        if (settings != null && !settings.isEnabled()) {
-            log.debug("Уведомления Telegram отключены для магазина {}", parcel.getStore().getId());
-            return false;
+        boolean sent = send(notification);
+        if (!sent) {
+            notificationLogRepository.releaseInstantNotification(logId.get());
         }
+        return sent;
+    }
 
-        BuyerStatus buyerStatus = BuyerStatusMapper.map(status);
-        if (buyerStatus == null) {
-            log.debug("Статус {} не предназначен для уведомления покупателя", status);
-            return false;
+    /**
+     * Отправляет уведомления, запрошенные через {@link #requestStatusUpdate(TrackParcel, GlobalStatus)},
+     * после фиксации транзакции обновления посылки.
+     *
+     * @param event подготовленное уведомление
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleStatusNotificationRequested(StatusNotificationRequestedEvent event) {
+        sendStatusUpdateOnce(event);
+    }
+
+    // Проверяет настройки покупателя и магазина и формирует текст уведомления
+    private Optional<StatusNotificationRequestedEvent> prepareStatusUpdate(TrackParcel parcel, GlobalStatus status) {
+        Customer customer = parcel.getCustomer();
+        Store store = parcel.getStore();
+        if (!isCustomerNotifiable(customer) || store == null) {
+            log.warn("⛔ Уведомление не отправлено: условия не выполнены для трека {}", parcel.getNumber());
+            return Optional.empty();
         }
 
-        Long chatId = getChatId(parcel);
-        if (chatId == null) {
-            log.warn("⛔ Уведомление не отправлено: отсутствует чат для покупателя трека {}", parcel.getNumber());
-            return false;
+        StoreNotificationPolicy policy = policyCache.forStore(store);
+        if (!policyCache.isOwnerNotifiable(policy.ownerId())) {
+            log.warn("⛔ Уведомление не отправлено: условия не выполнены для трека {}", parcel.getNumber());
+            return Optional.empty();
         }
 
-        String text;
-        if (settings != null && settings.getTemplatesMap().containsKey(buyerStatus)) {
-            text = settings.getTemplatesMap().get(buyerStatus)
-                    .replace("{track}", parcel.getNumber())
-                    .replace("{store}", parcel.getStore().getName());
-        } else {
-            text = buyerStatus.formatMessage(parcel.getNumber(), parcel.getStore().getName());
+        if (!policy.enabled()) {
+            log.debug("Уведомления Telegram отключены для магазина {}", policy.storeId());
+            return Optional.empty();
         }
 
-        SendMessage message = new SendMessage(chatId.toString(), text);
+        BuyerStatus buyerStatus = BuyerStatusMapper.map(status);
+        if (buyerStatus == null) {
+            log.debug("Статус {} не предназначен для уведомления покупателя", status);
+            return Optional.empty();
+        }
+
+        return Optional.of(new StatusNotificationRequestedEvent(
+                customer.getId(),
+                parcel.getId(),
+                status,
+                customer.getTelegramChatId(),
+                policy.render(buyerStatus, parcel.getNumber()),
+                parcel.getNumber()
+        ));
+    }
+
+    private boolean send(StatusNotificationRequestedEvent notification) {
+        Long chatId = notification.chatId();
+        SendMessage message = new SendMessage(chatId.toString(), notification.text());
 
         try {
-            telegramClient.execute(message);
+            sendGateway.execute(chatId, message, TelegramSendPriority.STATUS);
             log.info("📨 Уведомление отправлено: {} (статус {}) в чат {} для трека {}",
-                    text, status, chatId, parcel.getNumber());
+                    notification.text(), notification.status(), chatId, notification.trackNumber());
             return true;
         } catch (TelegramApiException e) {
             log.error("❌ Ошибка отправки уведомления в чат {}: {}", chatId, e.getMessage(), e);
@@ -90,45 +159,36 @@ public class TelegramNotificationService {
 
     /**
      * Отправить напоминание о необходимости забрать посылку.
+     * <p>
+     * Настройки магазина и согласие покупателя проверяются при отборе посылок,
+     * поэтому метод только формирует текст по шаблону магазина и отправляет его.
+     * </p>
      *
-     * @param parcel посылка
+     * @param reminder посылка, ожидающая напоминания
+     * @return {@code true}, если сообщение отправлено успешно
      */
-    public void sendReminder(TrackParcel parcel) {
-        if (!customerService.isNotifiable(parcel.getCustomer(), parcel.getStore())) {
-            log.warn("⛔ Напоминание не отправлено: условия не выполнены для трека {}", parcel.getNumber());
-            return;
-        }
-
-        StoreTelegramSettings settings = parcel.getStore().getTelegramSettings();
-        if (settings != null && (!settings.isEnabled() || !settings.isRemindersEnabled())) {
-            log.debug("Напоминания отключены для магазина {}", parcel.getStore().getId());
-            return;
-        }
-
-        Long chatId = getChatId(parcel);
-
-        String template = (settings != null && StringUtils.hasText(settings.getReminderTemplate()))
-                ? settings.getReminderTemplate()
+    public boolean sendReminder(ReminderCandidateRow reminder) {
+        String template = StringUtils.hasText(reminder.getReminderTemplate())
+                ? reminder.getReminderTemplate()
                 : DEFAULT_REMINDER_TEMPLATE;
-        String text = template.replace("{track}", parcel.getNumber())
-                .replace("{store}", parcel.getStore().getName());
+        String text = template.replace("{track}", reminder.getTrackNumber())
+                .replace("{store}", reminder.getStoreName());
 
-        SendMessage message = new SendMessage(chatId.toString(), text);
+        SendMessage message = new SendMessage(reminder.getChatId().toString(), text);
 
         try {
-            telegramClient.execute(message);
-            log.info("✅ Напоминание отправлено в чат {} о треке {}", chatId, parcel.getNumber());
+            sendGateway.execute(reminder.getChatId(), message, TelegramSendPriority.REMINDER);
+            log.info("✅ Напоминание отправлено в чат {} о треке {}", reminder.getChatId(), reminder.getTrackNumber());
+            return true;
         } catch (TelegramApiException e) {
-            log.error("❌ Ошибка отправки напоминания в чат {}: {}", chatId, e.getMessage(), e);
+            log.error("❌ Ошибка отправки напоминания в чат {}: {}", reminder.getChatId(), e.getMessage(), e);
+            return false;
         }
     }
 
-    // Получение chatId покупателя из посылки
-    private Long getChatId(TrackParcel parcel) {
-        if (parcel == null || parcel.getCustomer() == null) {
-            return null;
-        }
-        return parcel.getCustomer().getTelegramChatId();
+    // Покупатель привязал чат и не отключал уведомления
+    private static boolean isCustomerNotifiable(Customer customer) {
+        return customer != null && customer.getTelegramChatId() != null && customer.isNotificationsEnabled();
     }
 
 }
\ No newline at end of file
@@ -1,20 +1,22 @@
 package com.project.tracking_system.service.telegram;
 
-import com.project.tracking_system.entity.CustomerNotificationLog;
+import com.project.tracking_system.dto.ReminderCandidateRow;
 import com.project.tracking_system.entity.GlobalStatus;
-import com.project.tracking_system.entity.NotificationType;
-import com.project.tracking_system.entity.TrackParcel;
-import com.project.tracking_system.entity.StoreTelegramSettings;
 import com.project.tracking_system.repository.CustomerNotificationLogRepository;
 import com.project.tracking_system.repository.TrackParcelRepository;
+import com.project.tracking_system.service.customer.CustomerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Планировщик напоминаний о невыкупленных посылках.
@@ -24,52 +26,72 @@ import java.util.List;
 @Slf4j
 public class TelegramReminderScheduler {
 
+    /** Количество посылок, отбираемых и отправляемых за один проход. */
+    static final int PAGE_SIZE = 500;
+
     private final TrackParcelRepository trackParcelRepository;
     private final CustomerNotificationLogRepository customerNotificationLogRepository;
     private final TelegramNotificationService telegramNotificationService;
+    private final CustomerService customerService;
+    private final TaskExecutor telegramReminderExecutor;
 
     /**
      * Ежедневно отправляет напоминания покупателям.
      * <p>
-     * Находит посылки в статусе {@link GlobalStatus#WAITING_FOR_CUSTOMER},
-     * прибывшие на пункт выдачи более трёх дней назад, и отправляет
-     * напоминание через Telegram.
+     * Посылки в статусе {@link GlobalStatus#WAITING_FOR_CUSTOMER}, по которым
+     * пора напомнить с учётом настроек магазина и последнего напоминания,
+     * отбираются одним запросом порциями по {@value #PAGE_SIZE}. Сообщения
+     * порции отправляются параллельно в пуле {@code telegramReminderExecutor},
+     * после чего успешные отправки записываются в журнал одним запросом.
+     * Долгой транзакции на время рассылки нет.
      * </p>
      */
-    @Transactional
     public void sendReminders() {
         ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
         ZonedDateTime threshold = now.minusDays(1);
-        List<TrackParcel> parcels = trackParcelRepository
-                .findWaitingForPickupBefore(GlobalStatus.WAITING_FOR_CUSTOMER, threshold);
+        Map<Long, Boolean> ownerAllowed = new HashMap<>();
+        long afterId = 0;
+        int sentTotal = 0;
 
-        for (TrackParcel parcel : parcels) {
-            StoreTelegramSettings settings = parcel.getStore().getTelegramSettings();
-            if (settings == null || !settings.isEnabled() || !settings.isRemindersEnabled()) {
-                continue;
+        while (true) {
+            List<ReminderCandidateRow> page = trackParcelRepository.findDueReminders(now, threshold, afterId, PAGE_SIZE);
+            if (page.isEmpty()) {
+                break;
             }
+            afterId = page.get(page.size() - 1).getParcelId();
 
-            ZonedDateTime arrived = parcel.getDeliveryHistory() != null ? parcel.getDeliveryHistory().getArrivedDate() : null;
-            if (arrived == null || arrived.plusDays(settings.getReminderStartAfterDays()).isAfter(now)) {
-                continue;
-            }
+            List<CompletableFuture<Long>> sends = page.stream()
+                    .filter(reminder -> ownerAllowed.computeIfAbsent(reminder.getOwnerId(),
+                            customerService::isOwnerNotifiable))
+                    .map(reminder -> CompletableFuture.supplyAsync(() -> send(reminder), telegramReminderExecutor))
+                    .toList();
+            List<Long> sentParcelIds = sends.stream()
+                    .map(CompletableFuture::join)
+                    .filter(Objects::nonNull)
+                    .toList();
 
-            CustomerNotificationLog last = customerNotificationLogRepository
-                    .findTopByParcelIdAndNotificationTypeOrderBySentAtDesc(parcel.getId(), NotificationType.REMINDER);
-            if (last != null && last.getSentAt().plusDays(settings.getReminderRepeatIntervalDays()).isAfter(now)) {
-                continue;
+            if (!sentParcelIds.isEmpty()) {
+                customerNotificationLogRepository.insertReminderLogs(sentParcelIds, now);
+                sentTotal += sentParcelIds.size();
             }
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        log.info("📨 Отправлено напоминаний: {}", sentTotal);
+    }
 
-            telegramNotificationService.sendReminder(parcel);
-            log.info("📨 Напоминание отправлено для трека {}", parcel.getNumber());
-
-            CustomerNotificationLog logEntry = new CustomerNotificationLog();
-            logEntry.setCustomer(parcel.getCustomer());
-            logEntry.setParcel(parcel);
-            logEntry.setStatus(GlobalStatus.WAITING_FOR_CUSTOMER);
-            logEntry.setNotificationType(NotificationType.REMINDER);
-            logEntry.setSentAt(now);
-            customerNotificationLogRepository.save(logEntry);
+    /**
+     * Отправляет одно напоминание.
+     *
+     * @return идентификатор посылки при успешной отправке, иначе {@code null}
+     */
+    private Long send(ReminderCandidateRow reminder) {
+        try {
+            return telegramNotificationService.sendReminder(reminder) ? reminder.getParcelId() : null;
+        } catch (RuntimeException e) {
+            log.warn("Не удалось отправить напоминание по посылке {}: {}", reminder.getParcelId(), e.getMessage());
+            return null;
         }
     }
 }
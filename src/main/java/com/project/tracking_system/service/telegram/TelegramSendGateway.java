@@ -0,0 +1,371 @@
+package com.project.tracking_system.service.telegram;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.tracking_system.dto.TelegramSendMetricsDTO;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Bucket4j;
+import io.github.bucket4j.ConsumptionProbe;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.botapimethods.BotApiMethod;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Единая точка выполнения исходящих запросов к Telegram.
+ * <p>
+ * Бот, уведомления о статусах, напоминания и рассылка используют один токен,
+ * поэтому разрешение на каждый запрос выдаётся здесь: общая маркерная корзина
+ * ограничивает темп всего бота, а для чата дополнительно действует собственный
+ * лимит с небольшим запасом на серию сообщений. Ожидающие запросы разложены по
+ * очередям {@link TelegramSendPriority}; разрешение получает первый готовый
+ * запрос самой приоритетной очереди. Сам запрос выполняется в потоке вызывающего
+ * кода, поэтому результат и исключения Telegram возвращаются как при прямом вызове.
+ * </p>
+ * <p>
+ * На ответ 429 шлюз приостанавливает отправку на указанное Telegram время
+ * ({@code retry_after}) и повторяет запрос. Из ответа не видно, какой лимит
+ * превышен, поэтому пауза действует и для чата, и для всего бота.
+ * </p>
+ */
+@Slf4j
+@Component
+public class TelegramSendGateway {
+
+    /** Верхняя граница ожидания между перепроверками очереди. */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** Приоритет запросов текущего потока, заданный через {@link #withPriority}. */
+    private static final ThreadLocal<TelegramSendPriority> CURRENT_PRIORITY = new ThreadLocal<>();
+
+    private final TelegramClient telegramClient;
+    private final Bucket globalBucket;
+    private final long chatIntervalNanos;
+    private final long chatBurstToleranceNanos;
+    private final int maxRetries;
+
+    /** Расчётное время следующей отправки в чат (GCRA), по идентификатору чата. */
+    private final Cache<Long, Long> chatSchedule;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<TelegramSendPriority, Deque<Ticket>> lanes = new EnumMap<>(TelegramSendPriority.class);
+    private long pausedUntilNanos;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LatencyWindow waits = new LatencyWindow();
+    private final LatencyWindow latencies = new LatencyWindow();
+
+    private volatile double avgWaitMs;
+    private volatile long maxWaitMs;
+    private volatile double avgLatencyMs;
+    private volatile long maxLatencyMs;
+
+    /**
+     * @param telegramClient      клиент Telegram
+     * @param globalRatePerSecond общий лимит запросов бота в секунду
+     * @param chatInterval        минимальный средний интервал между сообщениями в один чат
+     * @param chatBurst           сколько сообщений подряд можно отправить в чат без ожидания
+     * @param maxRetries          количество повторов запроса после ответа 429
+     */
+    public TelegramSendGateway(TelegramClient telegramClient,
+                               @Value("${telegram.send.global-rate-per-second:30}") int globalRatePerSecond,
+                               @Value("${telegram.send.chat-interval:1s}") Duration chatInterval,
+                               @Value("${telegram.send.chat-burst:5}") int chatBurst,
+                               @Value("${telegram.send.max-retries:3}") int maxRetries) {
+        this.telegramClient = telegramClient;
+        this.globalBucket = Bucket4j.builder()
+                .addLimit(Bandwidth.simple(Math.max(1, globalRatePerSecond), Duration.ofSeconds(1)))
+                .build();
+        this.chatIntervalNanos = Math.max(0, chatInterval.toNanos());
+        this.chatBurstToleranceNanos = chatIntervalNanos * (Math.max(1, chatBurst) - 1);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.chatSchedule = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofNanos(chatIntervalNanos + chatBurstToleranceNanos).plusMinutes(1))
+                .build();
+        for (TelegramSendPriority priority : TelegramSendPriority.values()) {
+            lanes.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Выполняет запрос с приоритетом, заданным для текущего потока,
+     * или {@link TelegramSendPriority#INTERACTIVE} по умолчанию.
+     *
+     * @param chatId идентификатор чата для лимита на чат; {@code null}, если запрос не адресован чату
+     * @param method метод Bot API
+     * @return ответ Telegram
+     * @throws TelegramApiException ошибка Telegram или прерывание ожидания
+     */
+    public <T extends Serializable, M extends BotApiMethod<T>> T execute(Long chatId, M method)
+            throws TelegramApiException {
+        TelegramSendPriority priority = CURRENT_PRIORITY.get();
+        return execute(chatId, method, priority != null ? priority : TelegramSendPriority.INTERACTIVE);
+    }
+
+    /**
+     * Выполняет запрос, дождавшись разрешения на отправку.
+     *
+     * @param chatId   идентификатор чата для лимита на чат; {@code null}, если запрос не адресован чату
+     * @param method   метод Bot API
+     * @param priority очередь, в которой запрос ожидает разрешения
+     * @return ответ Telegram
+     * @throws TelegramApiException ошибка Telegram или прерывание ожидания
+     */
+    public <T extends Serializable, M extends BotApiMethod<T>> T execute(Long chatId,
+                                                                         M method,
+                                                                         TelegramSendPriority priority)
+            throws TelegramApiException {
+        for (int attempt = 0; ; attempt++) {
+            acquire(chatId, priority);
+            long started = System.nanoTime();
+            try {
+                T result = telegramClient.execute(method);
+                sent.increment();
+                return result;
+            } catch (TelegramApiRequestException e) {
+                Integer retryAfter = retryAfterSeconds(e);
+                if (retryAfter == null) {
+                    failed.increment();
+                    throw e;
+                }
+                throttled.increment();
+                pause(chatId, retryAfter);
+                if (attempt >= maxRetries) {
+                    failed.increment();
+                    throw e;
+                }
+                log.warn("Telegram ограничил запрос {} для чата {}, повтор через {} с",
+                        method.getMethod(), chatId, retryAfter);
+            } catch (TelegramApiException | RuntimeException e) {
+                failed.increment();
+                throw e;
+            } finally {
+                latencies.record(System.nanoTime() - started);
+            }
+        }
+    }
+
+    /**
+     * Выполняет действие, отправляя все его запросы к Telegram с указанным приоритетом.
+     *
+     * @param priority приоритет запросов текущего потока на время действия
+     * @param action   действие, выполняющее отправку
+     * @return результат действия
+     */
+    public <T> T withPriority(TelegramSendPriority priority, Supplier<T> action) {
+        TelegramSendPriority previous = CURRENT_PRIORITY.get();
+        CURRENT_PRIORITY.set(priority);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT_PRIORITY.set(previous);
+            } else {
+                CURRENT_PRIORITY.remove();
+            }
+        }
+    }
+
+    /**
+     * Возвращает текущие метрики отправки.
+     */
+    public TelegramSendMetricsDTO snapshot() {
+        Map<String, Integer> queued = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            lanes.forEach((priority, lane) -> queued.put(priority.name(), lane.size()));
+        } finally {
+            lock.unlock();
+        }
+        return new TelegramSendMetricsDTO(queued, sent.sum(), failed.sum(), throttled.sum(),
+                avgWaitMs, maxWaitMs, avgLatencyMs, maxLatencyMs);
+    }
+
+    /**
+     * Пересчитывает ожидание и время запросов за прошедший интервал и пишет метрики в журнал.
+     */
+    @Scheduled(fixedDelayString = "${telegram.send.metrics-interval-ms:60000}")
+    public synchronized void sample() {
+        avgWaitMs = waits.averageMs();
+        maxWaitMs = waits.maxMs();
+        avgLatencyMs = latencies.averageMs();
+        maxLatencyMs = latencies.maxMs();
+        waits.reset();
+        latencies.reset();
+        log.debug("Метрики отправки в Telegram: {}", snapshot());
+    }
+
+    /**
+     * Ждёт, пока запрос станет первым готовым в самой приоритетной очереди
+     * и для него найдутся разрешения общего лимита и лимита чата.
+     */
+    private void acquire(Long chatId, TelegramSendPriority priority) throws TelegramApiException {
+        long queuedAt = System.nanoTime();
+        Ticket ticket = new Ticket(chatId);
+        Deque<Ticket> lane = lanes.get(priority);
+        lock.lock();
+        try {
+            lane.addLast(ticket);
+            while (true) {
+                long wait = tryGrant(ticket, System.nanoTime());
+                if (wait <= 0) {
+                    return;
+                }
+                changed.awaitNanos(Math.min(wait, MAX_PARK_NANOS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TelegramApiException("Ожидание отправки в Telegram прервано", e);
+        } finally {
+            lane.remove(ticket);
+            changed.signalAll();
+            lock.unlock();
+            waits.record(System.nanoTime() - queuedAt);
+        }
+    }
+
+    /**
+     * Пытается выдать разрешение запросу.
+     *
+     * @return {@code 0}, если разрешение выдано, иначе сколько наносекунд подождать до следующей попытки
+     */
+    private long tryGrant(Ticket ticket, long now) {
+        long paused = pausedUntilNanos - now;
+        if (paused > 0) {
+            return paused;
+        }
+        Ticket next = null;
+        long earliestChatWait = MAX_PARK_NANOS;
+        for (Deque<Ticket> lane : lanes.values()) {
+            for (Ticket candidate : lane) {
+                long chatWait = chatWait(candidate.chatId, now);
+                if (chatWait <= 0) {
+                    next = candidate;
+                    break;
+                }
+                earliestChatWait = Math.min(earliestChatWait, chatWait);
+            }
+            if (next != null) {
+                break;
+            }
+        }
+        if (next != ticket) {
+            return next == null ? earliestChatWait : MAX_PARK_NANOS;
+        }
+        ConsumptionProbe probe = globalBucket.tryConsumeAndReturnRemaining(1);
+        if (!probe.isConsumed()) {
+            return Math.max(1, probe.getNanosToWaitForRefill());
+        }
+        if (ticket.chatId != null && chatIntervalNanos > 0) {
+            Long scheduled = chatSchedule.getIfPresent(ticket.chatId);
+            long base = scheduled != null ? Math.max(scheduled, now) : now;
+            chatSchedule.put(ticket.chatId, base + chatIntervalNanos);
+        }
+        return 0;
+    }
+
+    /**
+     * Сколько наносекунд осталось до разрешения отправки в чат.
+     */
+    private long chatWait(Long chatId, long now) {
+        if (chatId == null) {
+            return 0;
+        }
+        Long scheduled = chatSchedule.getIfPresent(chatId);
+        return scheduled != null ? scheduled - chatBurstToleranceNanos - now : 0;
+    }
+
+    /**
+     * Приостанавливает отправку после ответа 429.
+     */
+    private void pause(Long chatId, int retryAfterSeconds) {
+        long now = System.nanoTime();
+        long until = now + TimeUnit.SECONDS.toNanos(retryAfterSeconds);
+        lock.lock();
+        try {
+            if (until - pausedUntilNanos > 0) {
+                pausedUntilNanos = until;
+            }
+            if (chatId != null) {
+                Long scheduled = chatSchedule.getIfPresent(chatId);
+                long chatUntil = until + chatBurstToleranceNanos;
+                if (scheduled == null || chatUntil - scheduled > 0) {
+                    chatSchedule.put(chatId, chatUntil);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Integer retryAfterSeconds(TelegramApiRequestException e) {
+        if (e.getErrorCode() == null || e.getErrorCode() != 429 || e.getParameters() == null) {
+            return null;
+        }
+        Integer retryAfter = e.getParameters().getRetryAfter();
+        return retryAfter != null ? Math.max(1, retryAfter) : null;
+    }
+
+    /**
+     * Запрос, ожидающий разрешения на отправку.
+     */
+    private static final class Ticket {
+        private final Long chatId;
+
+        private Ticket(Long chatId) {
+            this.chatId = chatId;
+        }
+    }
+
+    /**
+     * Накопитель длительностей за интервал метрик.
+     */
+    private static final class LatencyWindow {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        double averageMs() {
+            long n = count.sum();
+            return n > 0 ? totalNanos.sum() / 1_000_000.0 / n : 0;
+        }
+
+        long maxMs() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.project.tracking_system.service.telegram;
+
+/**
+ * Приоритет исходящего запроса к Telegram в {@link TelegramSendGateway}.
+ * <p>
+ * Порядок констант задаёт порядок обслуживания: пока есть готовые к отправке
+ * запросы более высокого приоритета, запросы ниже ждут.
+ * </p>
+ */
+public enum TelegramSendPriority {
+
+    /** Ответы на действия пользователя в боте. */
+    INTERACTIVE,
+
+    /** Уведомления о смене статуса посылки. */
+    STATUS,
+
+    /** Напоминания о невыкупленных посылках. */
+    REMINDER,
+
+    /** Рассылка объявлений администратора. */
+    BROADCAST
+}
@@ -0,0 +1,190 @@
+package com.project.tracking_system.service.telegram;
+
+import com.project.tracking_system.dto.TelegramUpdateMetricsDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Распределяет обновления Telegram по очередям, разделённым по чату.
+ * <p>
+ * Каждая очередь обслуживается одним потоком, а чат всегда попадает в одну
+ * и ту же очередь по хешу идентификатора. Поэтому обновления одного чата
+ * обрабатываются строго по порядку, а разные чаты — параллельно. При
+ * заполнении очереди поток опроса Telegram ждёт освобождения места, а не
+ * выполняет обновление сам: иначе порядок внутри чата мог бы нарушиться.
+ * Обновления вебхука ставятся в очередь без ожидания: при заполнении
+ * очереди Telegram получает отказ и повторяет доставку позже.
+ * </p>
+ */
+@Slf4j
+@Component
+public class TelegramUpdateDispatcher {
+
+    private final ThreadPoolExecutor[] lanes;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder intervalCount = new LongAdder();
+    private final LongAdder intervalLatencyNanos = new LongAdder();
+    private final LongAccumulator intervalMaxNanos = new LongAccumulator(Math::max, 0L);
+
+    private volatile double avgLatencyMs;
+    private volatile long maxLatencyMs;
+
+    /**
+     * @param laneCount     количество параллельных очередей
+     * @param queueCapacity вместимость каждой очереди
+     */
+    public TelegramUpdateDispatcher(@Value("${telegram.updates.lanes:8}") int laneCount,
+                                    @Value("${telegram.updates.queue-capacity:1000}") int queueCapacity) {
+        int count = Math.max(1, laneCount);
+        this.lanes = new ThreadPoolExecutor[count];
+        AtomicInteger threadNumber = new AtomicInteger();
+        for (int i = 0; i < count; i++) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, queue,
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "tg-update-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    TelegramUpdateDispatcher::waitForSpace);
+            // Потоки запускаются заранее: offer кладёт задачи прямо в очередь
+            lanes[i].prestartAllCoreThreads();
+        }
+    }
+
+    /**
+     * Ставит обновления в очереди их чатов.
+     *
+     * @param updates     обновления, полученные за один запрос к Telegram
+     * @param chatIdOf    функция определения чата; {@code null} для обновлений без чата
+     * @param handler     обработчик одного обновления
+     */
+    public void dispatch(List<Update> updates, Function<Update, Long> chatIdOf, Consumer<Update> handler) {
+        for (Update update : updates) {
+            long received = System.nanoTime();
+            Long chatId = chatIdOf.apply(update);
+            lanes[laneIndex(chatId, update)].execute(() -> handle(update, handler, received));
+        }
+    }
+
+    /**
+     * Ставит обновление в очередь его чата без ожидания свободного места.
+     *
+     * @param update   обновление, полученное через вебхук
+     * @param chatIdOf функция определения чата; {@code null} для обновлений без чата
+     * @param handler  обработчик обновления
+     * @return {@code true}, если обновление принято; {@code false}, если очередь заполнена
+     */
+    public boolean offer(Update update, Function<Update, Long> chatIdOf, Consumer<Update> handler) {
+        long received = System.nanoTime();
+        Long chatId = chatIdOf.apply(update);
+        ThreadPoolExecutor lane = lanes[laneIndex(chatId, update)];
+        if (lane.isShutdown()) {
+            return false;
+        }
+        return lane.getQueue().offer(() -> handle(update, handler, received));
+    }
+
+    /**
+     * Возвращает текущие метрики обработки.
+     */
+    public TelegramUpdateMetricsDTO snapshot() {
+        int queued = 0;
+        int maxLaneQueued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            int size = lane.getQueue().size();
+            queued += size;
+            maxLaneQueued = Math.max(maxLaneQueued, size);
+        }
+        return new TelegramUpdateMetricsDTO(lanes.length, queued, maxLaneQueued,
+                processed.sum(), failed.sum(), avgLatencyMs, maxLatencyMs);
+    }
+
+    /**
+     * Пересчитывает задержку за прошедший интервал и пишет метрики в журнал.
+     */
+    @Scheduled(fixedDelayString = "${telegram.updates.metrics-interval-ms:60000}")
+    public synchronized void sample() {
+        long count = intervalCount.sumThenReset();
+        long latency = intervalLatencyNanos.sumThenReset();
+        long max = intervalMaxNanos.getThenReset();
+        avgLatencyMs = count > 0 ? latency / 1_000_000.0 / count : 0;
+        maxLatencyMs = TimeUnit.NANOSECONDS.toMillis(max);
+        log.debug("Метрики обновлений Telegram: {}", snapshot());
+    }
+
+    /**
+     * Останавливает очереди, дав им дообработать уже принятые обновления.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ThreadPoolExecutor lane : lanes) {
+                if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                    lane.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int laneIndex(Long chatId, Update update) {
+        if (chatId != null) {
+            return Math.floorMod(Long.hashCode(chatId), lanes.length);
+        }
+        Integer updateId = update.getUpdateId();
+        return updateId != null ? Math.floorMod(updateId, lanes.length) : 0;
+    }
+
+    private void handle(Update update, Consumer<Update> handler, long received) {
+        try {
+            handler.accept(update);
+        } catch (Exception e) {
+            failed.increment();
+            log.error("Ошибка обработки обновления Telegram {}", update.getUpdateId(), e);
+        } finally {
+            long latency = System.nanoTime() - received;
+            processed.increment();
+            intervalCount.increment();
+            intervalLatencyNanos.add(latency);
+            intervalMaxNanos.accumulate(latency);
+        }
+    }
+
+    /**
+     * Блокирует поток опроса, пока в очереди не освободится место.
+     */
+    private static void waitForSpace(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            log.warn("Очередь обновлений Telegram остановлена, обновление отброшено");
+            return;
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Ожидание места в очереди обновлений Telegram прервано");
+        }
+    }
+}
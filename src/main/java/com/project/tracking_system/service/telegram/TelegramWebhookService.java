@@ -0,0 +1,176 @@
+package com.project.tracking_system.service.telegram;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+
+/**
+ * Приём обновлений Telegram через вебхук.
+ * <p>
+ * Запрос проверяется по секретному токену, обновление разбирается и сразу
+ * ставится в очередь его чата в {@link TelegramUpdateDispatcher}; обработка
+ * выполняется асинхронно, поэтому Telegram получает ответ без ожидания.
+ * Повторная доставка одного {@code update_id} отбрасывается. Если очередь
+ * чата заполнена, обновление не принимается и Telegram повторит его позже.
+ * </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "telegram.webhook.enabled", havingValue = "true")
+public class TelegramWebhookService {
+
+    private final BuyerTelegramBot buyerTelegramBot;
+    private final TelegramClient telegramClient;
+    private final ObjectMapper objectMapper;
+    private final String url;
+    private final byte[] secretToken;
+    private final String rawSecretToken;
+    private final Path captureFile;
+
+    /** Недавно принятые идентификаторы обновлений. */
+    private final Cache<Integer, Boolean> recentUpdateIds;
+
+    /**
+     * @param url          публичный адрес вебхука; если пуст, вебхук не регистрируется при запуске
+     * @param secretToken  секрет, который Telegram передаёт в заголовке каждого запроса
+     * @param dedupSize    количество запоминаемых идентификаторов обновлений
+     * @param dedupTtl     время, в течение которого повтор обновления отбрасывается
+     * @param captureFile  файл для записи принятых обновлений (для повторного воспроизведения); пусто — не писать
+     */
+    public TelegramWebhookService(BuyerTelegramBot buyerTelegramBot,
+                                  TelegramClient telegramClient,
+                                  ObjectMapper objectMapper,
+                                  @Value("${telegram.webhook.url:}") String url,
+                                  @Value("${telegram.webhook.secret-token:}") String secretToken,
+                                  @Value("${telegram.webhook.dedup-size:100000}") long dedupSize,
+                                  @Value("${telegram.webhook.dedup-ttl:1h}") Duration dedupTtl,
+                                  @Value("${telegram.webhook.capture-file:}") String captureFile) {
+        if (!StringUtils.hasText(secretToken)) {
+            throw new IllegalStateException("Для режима вебхука требуется telegram.webhook.secret-token");
+        }
+        this.buyerTelegramBot = buyerTelegramBot;
+        this.telegramClient = telegramClient;
+        this.objectMapper = objectMapper;
+        this.url = url;
+        this.rawSecretToken = secretToken;
+        this.secretToken = secretToken.getBytes(StandardCharsets.UTF_8);
+        this.captureFile = StringUtils.hasText(captureFile) ? Path.of(captureFile) : null;
+        this.recentUpdateIds = Caffeine.newBuilder()
+                .maximumSize(dedupSize)
+                .expireAfterWrite(dedupTtl)
+                .build();
+    }
+
+    /**
+     * Регистрирует вебхук в Telegram после запуска приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerWebhook() {
+        if (!StringUtils.hasText(url)) {
+            log.info("Адрес вебхука Telegram не задан, регистрация пропущена");
+            return;
+        }
+        SetWebhook setWebhook = SetWebhook.builder()
+                .url(url)
+                .secretToken(rawSecretToken)
+                .build();
+        try {
+            telegramClient.execute(setWebhook);
+            log.info("Вебхук Telegram зарегистрирован");
+        } catch (TelegramApiException e) {
+            log.error("Не удалось зарегистрировать вебхук Telegram: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Принимает тело запроса вебхука.
+     *
+     * @param secretHeader значение заголовка {@code X-Telegram-Bot-Api-Secret-Token}
+     * @param body         исходное тело запроса
+     * @return результат приёма
+     */
+    public WebhookResult accept(String secretHeader, byte[] body) {
+        if (secretHeader == null
+                || !MessageDigest.isEqual(secretToken, secretHeader.getBytes(StandardCharsets.UTF_8))) {
+            return WebhookResult.FORBIDDEN;
+        }
+
+        JsonNode node;
+        Update update;
+        try {
+            node = objectMapper.readTree(body);
+            update = objectMapper.treeToValue(node, Update.class);
+        } catch (IOException e) {
+            log.warn("Некорректное обновление Telegram: {}", e.getMessage());
+            return WebhookResult.MALFORMED;
+        }
+        if (update == null || update.getUpdateId() == null) {
+            return WebhookResult.MALFORMED;
+        }
+
+        Integer updateId = update.getUpdateId();
+        if (recentUpdateIds.asMap().putIfAbsent(updateId, Boolean.TRUE) != null) {
+            log.debug("Повторная доставка обновления Telegram {} отброшена", updateId);
+            return WebhookResult.DUPLICATE;
+        }
+        if (!buyerTelegramBot.acceptWebhookUpdate(update)) {
+            // Обновление не принято — повтор от Telegram должен быть обработан
+            recentUpdateIds.invalidate(updateId);
+            log.warn("Очередь обновлений Telegram заполнена, обновление {} отклонено", updateId);
+            return WebhookResult.BUSY;
+        }
+        capture(node);
+        return WebhookResult.ACCEPTED;
+    }
+
+    /**
+     * Дописывает принятое обновление в файл для последующего воспроизведения.
+     */
+    private synchronized void capture(JsonNode node) {
+        if (captureFile == null) {
+            return;
+        }
+        try {
+            Files.writeString(captureFile, node.toString() + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Не удалось записать обновление Telegram в {}: {}", captureFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Результат приёма обновления вебхуком.
+     */
+    public enum WebhookResult {
+        /** Обновление поставлено в очередь. */
+        ACCEPTED,
+        /** Обновление уже было принято ранее. */
+        DUPLICATE,
+        /** Секретный токен не совпал. */
+        FORBIDDEN,
+        /** Тело запроса не является обновлением Telegram. */
+        MALFORMED,
+        /** Очередь чата заполнена, Telegram должен повторить доставку. */
+        BUSY
+    }
+}
@@ -0,0 +1,26 @@
+package com.project.tracking_system.service.telegram.event;
+
+import com.project.tracking_system.entity.GlobalStatus;
+
+/**
+ * Событие с подготовленным уведомлением покупателя о смене статуса посылки.
+ * <p>
+ * Публикуется внутри транзакции обновления посылки, а обрабатывается после её
+ * фиксации, поэтому откат транзакции не приводит к уже отправленному сообщению.
+ * Текст формируется заранее, так как настройки магазина доступны только в транзакции.
+ * </p>
+ *
+ * @param customerId  идентификатор покупателя
+ * @param parcelId    идентификатор посылки
+ * @param status      новый статус посылки
+ * @param chatId      идентификатор Telegram-чата покупателя
+ * @param text        текст уведомления
+ * @param trackNumber номер трека для журнала
+ */
+public record StatusNotificationRequestedEvent(Long customerId,
+                                               Long parcelId,
+                                               GlobalStatus status,
+                                               Long chatId,
+                                               String text,
+                                               String trackNumber) {
+}
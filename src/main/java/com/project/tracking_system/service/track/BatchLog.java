@@ -0,0 +1,125 @@
+package com.project.tracking_system.service.track;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Журнал записей одной партии, доступный только для дописывания.
+ * <p>
+ * Наследники хранят записи в компактных массивах и сами оценивают
+ * занимаемую память. Порядковый номер записи в журнале не меняется,
+ * поэтому клиент может дочитывать журнал с известного смещения.
+ * </p>
+ *
+ * @param <T> тип записи
+ */
+abstract class BatchLog<T> {
+
+    /** Оценка памяти на ссылку в массиве и заголовок строки. */
+    protected static final int REFERENCE_BYTES = 8;
+    protected static final int STRING_HEADER_BYTES = 40;
+
+    private int size;
+    private long bytes;
+    private final long createdAt;
+    private volatile long lastWrite;
+    private volatile long lastAccess;
+    private volatile boolean viewed;
+
+    protected BatchLog() {
+        long now = System.currentTimeMillis();
+        this.createdAt = now;
+        this.lastWrite = now;
+        this.lastAccess = now;
+    }
+
+    /**
+     * Дописывает запись, если журнал не превысит заданный объём.
+     *
+     * @param item     запись
+     * @param maxBytes предельный объём журнала
+     * @return оценка добавленной памяти; {@code 0}, если запись отклонена
+     */
+    synchronized long append(T item, long maxBytes) {
+        long estimate = estimate(item);
+        if (bytes + estimate > maxBytes) {
+            return 0;
+        }
+        long added = store(size, item);
+        size++;
+        bytes += added;
+        lastWrite = System.currentTimeMillis();
+        return added;
+    }
+
+    /**
+     * Возвращает записи начиная с указанного смещения и помечает журнал просмотренным.
+     *
+     * @param from  порядковый номер первой записи
+     * @param limit максимальное количество записей
+     * @return записи журнала после смещения
+     */
+    synchronized List<T> read(int from, int limit) {
+        viewed = true;
+        lastAccess = System.currentTimeMillis();
+        int start = Math.max(0, Math.min(from, size));
+        int end = (int) Math.min(size, (long) start + Math.max(0, limit));
+        List<T> items = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            items.add(load(i));
+        }
+        return items;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * Проверяет, истёк ли срок хранения журнала.
+     * <p>
+     * Просмотренный журнал хранится {@code viewedThreshold} от последнего
+     * просмотра, непросмотренный — от последней записи. Сравнение нестрогое,
+     * чтобы нулевой TTL удалял запись сразу.
+     * </p>
+     *
+     * @param viewedThreshold   порог для просмотренных журналов
+     * @param unviewedThreshold порог для непросмотренных журналов
+     * @return {@code true}, если журнал можно удалить
+     */
+    boolean expired(long viewedThreshold, long unviewedThreshold) {
+        return viewed ? lastAccess <= viewedThreshold : lastWrite <= unviewedThreshold;
+    }
+
+    /**
+     * Оценивает память, которую займёт запись, не сохраняя её.
+     */
+    protected abstract long estimate(T item);
+
+    /**
+     * Сохраняет запись под указанным номером.
+     *
+     * @return оценка добавленной памяти
+     */
+    protected abstract long store(int index, T item);
+
+    /**
+     * Восстанавливает запись по номеру.
+     */
+    protected abstract T load(int index);
+
+    /**
+     * Оценивает память строки.
+     */
+    protected static long stringBytes(String value) {
+        return value == null ? 0 : STRING_HEADER_BYTES + 2L * value.length();
+    }
+}
@@ -0,0 +1,194 @@
+package com.project.tracking_system.service.track;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ограниченное по памяти хранилище журналов партий, сгруппированных по пользователям.
+ * <p>
+ * Объём учитывается по оценкам журналов. Одна партия не может превысить
+ * лимит пользователя: лишние записи отклоняются. При превышении лимита
+ * пользователя вытесняются его старые партии, при превышении общего
+ * лимита — самые старые партии всех пользователей. Изменения выполняются
+ * внутри {@link ConcurrentHashMap#compute}, поэтому запись, вытеснение
+ * и очистка по одному пользователю не пересекаются.
+ * </p>
+ *
+ * @param <T> тип записи журнала
+ */
+@Slf4j
+final class BatchLogStore<T> {
+
+    private final String name;
+    private final Supplier<BatchLog<T>> logFactory;
+    private final long maxBytes;
+    private final long maxBytesPerUser;
+
+    private final Map<Long, UserLogs<T>> users = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    BatchLogStore(String name, Supplier<BatchLog<T>> logFactory, long maxBytes, long maxBytesPerUser) {
+        this.name = name;
+        this.logFactory = logFactory;
+        this.maxBytes = maxBytes;
+        this.maxBytesPerUser = Math.min(maxBytesPerUser, maxBytes);
+    }
+
+    /**
+     * Дописывает записи в журнал партии пользователя.
+     *
+     * @param userId  идентификатор пользователя
+     * @param batchId идентификатор партии
+     * @param items   записи
+     */
+    void append(Long userId, Long batchId, List<T> items) {
+        users.compute(userId, (id, existing) -> {
+            UserLogs<T> target = existing != null ? existing : new UserLogs<>();
+            BatchLog<T> batchLog = target.batches.computeIfAbsent(batchId, b -> logFactory.get());
+            target.latestBatchId = Math.max(target.latestBatchId, batchId);
+            int rejected = 0;
+            for (T item : items) {
+                long added = batchLog.append(item, maxBytesPerUser);
+                if (added == 0) {
+                    rejected++;
+                }
+                target.bytes += added;
+                totalBytes.addAndGet(added);
+            }
+            if (rejected > 0) {
+                log.debug("Кэш {}: партия {} пользователя {} достигла лимита, отброшено {} записей",
+                        name, batchId, userId, rejected);
+            }
+            while (target.bytes > maxBytesPerUser && target.batches.size() > 1) {
+                evictOldest(target, batchId);
+            }
+            return target;
+        });
+        if (totalBytes.get() > maxBytes) {
+            evictGlobally();
+        }
+    }
+
+    /**
+     * Читает не более {@code limit} записей партии пользователя начиная со смещения.
+     *
+     * @return записи или пустой список, если партии нет
+     */
+    List<T> read(Long userId, Long batchId, int from, int limit) {
+        UserLogs<T> userLogs = users.get(userId);
+        BatchLog<T> batchLog = userLogs != null ? userLogs.batches.get(batchId) : null;
+        return batchLog != null ? batchLog.read(from, limit) : List.of();
+    }
+
+    /**
+     * @return идентификатор последней партии пользователя или {@code null}
+     */
+    Long latestBatchId(Long userId) {
+        UserLogs<T> userLogs = users.get(userId);
+        return userLogs != null && !userLogs.batches.isEmpty() ? userLogs.latestBatchId : null;
+    }
+
+    void remove(Long userId) {
+        UserLogs<T> removed = users.remove(userId);
+        if (removed != null) {
+            totalBytes.addAndGet(-removed.bytes);
+        }
+    }
+
+    /**
+     * Удаляет журналы с истёкшим сроком хранения.
+     *
+     * @param viewedTtlMs   срок хранения после просмотра
+     * @param unviewedTtlMs срок хранения непросмотренного журнала после последней записи
+     */
+    void removeExpired(long viewedTtlMs, long unviewedTtlMs) {
+        long now = System.currentTimeMillis();
+        long viewedThreshold = now - viewedTtlMs;
+        long unviewedThreshold = now - unviewedTtlMs;
+        for (Long userId : users.keySet()) {
+            users.computeIfPresent(userId, (id, userLogs) -> {
+                userLogs.batches.entrySet().removeIf(entry -> {
+                    if (!entry.getValue().expired(viewedThreshold, unviewedThreshold)) {
+                        return false;
+                    }
+                    release(userLogs, entry.getValue());
+                    return true;
+                });
+                return userLogs.batches.isEmpty() ? null : userLogs.refreshLatest();
+            });
+        }
+    }
+
+    long totalBytes() {
+        return totalBytes.get();
+    }
+
+    /**
+     * Вытесняет самые старые партии, пока общий объём превышает лимит.
+     */
+    private void evictGlobally() {
+        while (totalBytes.get() > maxBytes) {
+            Long victimUser = null;
+            long oldest = Long.MAX_VALUE;
+            for (Map.Entry<Long, UserLogs<T>> entry : users.entrySet()) {
+                for (BatchLog<T> batchLog : entry.getValue().batches.values()) {
+                    if (batchLog.createdAt() < oldest) {
+                        oldest = batchLog.createdAt();
+                        victimUser = entry.getKey();
+                    }
+                }
+            }
+            if (victimUser == null) {
+                return;
+            }
+            users.computeIfPresent(victimUser, (id, userLogs) -> {
+                evictOldest(userLogs, null);
+                return userLogs.batches.isEmpty() ? null : userLogs;
+            });
+            log.debug("Кэш {}: превышен общий лимит, вытеснена партия пользователя {}", name, victimUser);
+        }
+    }
+
+    /**
+     * Удаляет самую старую партию пользователя, кроме указанной.
+     */
+    private void evictOldest(UserLogs<T> userLogs, Long keepBatchId) {
+        Long victim = null;
+        long oldest = Long.MAX_VALUE;
+        for (Map.Entry<Long, BatchLog<T>> entry : userLogs.batches.entrySet()) {
+            if (!entry.getKey().equals(keepBatchId) && entry.getValue().createdAt() < oldest) {
+                oldest = entry.getValue().createdAt();
+                victim = entry.getKey();
+            }
+        }
+        if (victim != null) {
+            release(userLogs, userLogs.batches.remove(victim));
+            userLogs.refreshLatest();
+        }
+    }
+
+    private void release(UserLogs<T> userLogs, BatchLog<T> batchLog) {
+        long bytes = batchLog.bytes();
+        userLogs.bytes -= bytes;
+        totalBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * Журналы одного пользователя. Изменяется только внутри {@code compute}.
+     */
+    private static final class UserLogs<T> {
+        final Map<Long, BatchLog<T>> batches = new ConcurrentHashMap<>();
+        volatile long latestBatchId = Long.MIN_VALUE;
+        long bytes;
+
+        UserLogs<T> refreshLatest() {
+            latestBatchId = batches.keySet().stream().mapToLong(Long::longValue).max().orElse(Long.MIN_VALUE);
+            return this;
+        }
+    }
+}
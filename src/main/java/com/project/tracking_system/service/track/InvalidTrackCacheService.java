@@ -1,33 +1,43 @@
 package com.project.tracking_system.service.track;
 
 import com.project.tracking_system.service.admin.ApplicationSettingsService;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Сервис-кэш для хранения некорректных треков, сгруппированных по пользователям и батчам.
  * <p>
  * Позволяет восстановить таблицу ошибок после обновления страницы.
  * Записи автоматически удаляются по истечении TTL, полученного из
- * {@link ApplicationSettingsService}.
+ * {@link ApplicationSettingsService}; непросмотренные — через
+ * {@code unviewedTtlMs} после последней записи. Объём кэша ограничен
+ * общим лимитом и лимитом на пользователя.
  * </p>
  */
 @Service
-@RequiredArgsConstructor
 public class InvalidTrackCacheService {
 
     /** Сервис получения настроек приложения. */
     private final ApplicationSettingsService applicationSettingsService;
 
-    /** Карта вида userId -> (batchId -> запись кэша). */
-    private final Map<Long, Map<Long, BatchEntry>> cache = new ConcurrentHashMap<>();
+    /** Срок хранения батча, который пользователь так и не открыл (мс). */
+    private final long unviewedTtlMs;
+
+    /** Журналы некорректных треков по пользователям и батчам. */
+    private final BatchLogStore<InvalidTrack> store;
+
+    public InvalidTrackCacheService(ApplicationSettingsService applicationSettingsService,
+                                    @Value("${tracking.result-cache.max-bytes:67108864}") long maxBytes,
+                                    @Value("${tracking.result-cache.max-bytes-per-user:8388608}") long maxBytesPerUser,
+                                    @Value("${tracking.result-cache.unviewed-ttl-ms:86400000}") long unviewedTtlMs) {
+        this.applicationSettingsService = applicationSettingsService;
+        this.unviewedTtlMs = unviewedTtlMs;
+        this.store = new BatchLogStore<>("invalid-tracks", InvalidLog::new, maxBytes, maxBytesPerUser);
+    }
 
     /**
      * Добавляет список некорректных треков для указанного батча пользователя.
@@ -45,10 +55,7 @@ public class InvalidTrackCacheService {
         if (userId == null || batchId == null || tracks == null || tracks.isEmpty()) {
             return;
         }
-        cache
-                .computeIfAbsent(userId, id -> new ConcurrentHashMap<>())
-                .computeIfAbsent(batchId, id -> new BatchEntry())
-                .addAll(tracks);
+        store.append(userId, batchId, tracks);
     }
 
     /**
@@ -66,12 +73,7 @@ public class InvalidTrackCacheService {
         if (userId == null || batchId == null) {
             return List.of();
         }
-        Map<Long, BatchEntry> byBatch = cache.get(userId);
-        if (byBatch == null) {
-            return List.of();
-        }
-        BatchEntry entry = byBatch.get(batchId);
-        return entry != null ? entry.snapshot() : List.of();
+        return store.read(userId, batchId, 0, Integer.MAX_VALUE);
     }
 
     /**
@@ -86,11 +88,10 @@ public class InvalidTrackCacheService {
      * @return список некорректных треков либо пустой список
      */
     public List<InvalidTrack> getLatestInvalidTracks(Long userId) {
-        Map<Long, BatchEntry> byBatch = cache.get(userId);
-        if (byBatch == null || byBatch.isEmpty()) {
+        if (userId == null) {
             return List.of();
         }
-        Long latestBatchId = byBatch.keySet().stream().max(Long::compareTo).orElse(null);
+        Long latestBatchId = store.latestBatchId(userId);
         if (latestBatchId == null) {
             return List.of();
         }
@@ -108,7 +109,7 @@ public class InvalidTrackCacheService {
      */
     public void clearInvalidTracks(Long userId) {
         if (userId != null) {
-            cache.remove(userId);
+            store.remove(userId);
         }
     }
 
@@ -122,67 +123,41 @@ public class InvalidTrackCacheService {
     @Scheduled(fixedDelay = 30_000)
     public void removeExpired() {
         long expiration = applicationSettingsService.getResultCacheExpirationMs();
-        long threshold = System.currentTimeMillis() - expiration;
-        cache.entrySet().removeIf(userEntry -> {
-            Map<Long, BatchEntry> byBatch = userEntry.getValue();
-            byBatch.entrySet().removeIf(e -> e.getValue().expired(threshold));
-            return byBatch.isEmpty();
-        });
+        store.removeExpired(expiration, unviewedTtlMs);
     }
 
     /**
-     * Контейнер с треками одного батча и отметкой последнего просмотра.
+     * Журнал некорректных треков одного батча: номера в массиве ссылок,
+     * причины — порядковыми номерами перечисления в массиве байтов.
      */
-    private static class BatchEntry {
-        /** Список некорректных треков. */
-        private final List<InvalidTrack> tracks = Collections.synchronizedList(new ArrayList<>());
-        /** Временная метка последнего просмотра кэша. */
-        private volatile long lastAccess;
-
-        /** Признак того, что пользователь уже открыл список некорректных треков. */
-        private volatile boolean viewed;
-
-        BatchEntry() {
-            lastAccess = System.currentTimeMillis();
-            viewed = false;
-        }
+    private static final class InvalidLog extends BatchLog<InvalidTrack> {
 
-        /**
-         * Добавляет список треков. Обновление времени будет произведено при обращении.
-         */
-        void addAll(List<InvalidTrack> list) {
-            tracks.addAll(list);
-        }
+        private static final InvalidTrackReason[] REASONS = InvalidTrackReason.values();
+
+        private String[] numbers = new String[16];
+        private byte[] reasons = new byte[16];
 
-        /**
-         * Возвращает копию списка и помечает запись просмотренной.
-         */
-        List<InvalidTrack> snapshot() {
-            viewed = true;
-            refresh();
-            return new ArrayList<>(tracks);
+        @Override
+        protected long estimate(InvalidTrack track) {
+            return REFERENCE_BYTES + 1 + stringBytes(track.number());
         }
 
-        /** Обновляет время последнего доступа текущим моментом. */
-        void refresh() {
-            lastAccess = System.currentTimeMillis();
+        @Override
+        protected long store(int index, InvalidTrack track) {
+            if (index == numbers.length) {
+                numbers = Arrays.copyOf(numbers, numbers.length * 2);
+                reasons = Arrays.copyOf(reasons, reasons.length * 2);
+            }
+            numbers[index] = track.number();
+            reasons[index] = (byte) (track.reason() != null ? track.reason().ordinal() : -1);
+            return estimate(track);
         }
 
-        /**
-         * Проверяет, истекло ли время жизни записи относительно заданного порога.
-         * <p>
-         * Используется нестрогое сравнение: запись считается просроченной ровно
-         * в момент окончания TTL. Это позволяет немедленно удалить запись,
-         * когда время жизни равно нулю и пользователь уже просмотрел данные.
-         * </p>
-         *
-         * @param threshold момент времени, с которым сравнивается {@code lastAccess}
-         * @return {@code true}, если запись следует считать просроченной
-         */
-        boolean expired(long threshold) {
-            // запись подлежит удалению только после просмотра пользователем
-            return viewed && lastAccess <= threshold;
+        @Override
+        protected InvalidTrack load(int index) {
+            byte reason = reasons[index];
+            return new InvalidTrack(numbers[index], reason >= 0 ? REASONS[reason] : null);
         }
     }
 
-}
\ No newline at end of file
+}
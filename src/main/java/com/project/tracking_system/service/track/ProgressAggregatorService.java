@@ -3,18 +3,28 @@ package com.project.tracking_system.service.track;
 import com.project.tracking_system.controller.WebSocketController;
 import com.project.tracking_system.dto.TrackProcessingProgressDTO;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Clock;
 import java.time.Duration;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Сервис агрегирует прогресс обработки треков от различных подсервисов
  * и отправляет единые обновления клиенту через {@link WebSocketController}.
+ * <p>
+ * Рабочие потоки только увеличивают счётчик партии и помечают её изменённой.
+ * Промежуточный прогресс отправляет планировщик {@link #flushDirty()} с
+ * интервалом {@code progress.update-interval-ms}; начальное и финальное
+ * состояния отправляются сразу.
+ * </p>
  */
 @Service
 @Slf4j
@@ -23,31 +33,26 @@ public class ProgressAggregatorService {
     private final WebSocketController webSocketController;
     /** Поставщик времени для вычисления длительности операций. */
     private final Clock clock;
-    /**
-     * Минимальный интервал между отправками одного и того же прогресса (мс).
-     * Значение берётся из конфигурации приложения.
-     */
-    private final long updateIntervalMs;
 
     /**
      * Создаёт экземпляр сервиса с указанными зависимостями.
      *
      * @param webSocketController контроллер для отправки обновлений клиенту
      * @param clock               абстракция времени для тестируемости
-     * @param updateIntervalMs    интервал между отправками прогресса
      */
     public ProgressAggregatorService(WebSocketController webSocketController,
-                                     Clock clock,
-                                     @Value("${progress.update-interval-ms:250}") long updateIntervalMs) {
+                                     Clock clock) {
         this.webSocketController = webSocketController;
         this.clock = clock;
-        this.updateIntervalMs = updateIntervalMs;
     }
 
     /** Состояние прогресса для каждой партии. */
     private final Map<Long, BatchProgress> progressMap = new ConcurrentHashMap<>();
-    /** Время последней отправки прогресса по каждой партии. */
-    private final Map<Long, Long> lastSentTimestamps = new ConcurrentHashMap<>();
+    /**
+     * Активные партии каждого пользователя. Идентификаторы партий растут
+     * монотонно, поэтому последняя партия — наибольший элемент множества.
+     */
+    private final Map<Long, NavigableSet<Long>> batchesByUser = new ConcurrentHashMap<>();
 
 
     /**
@@ -58,26 +63,27 @@ public class ProgressAggregatorService {
      * @param userId  идентификатор владельца партии
      */
     public void registerBatch(long batchId, int total, Long userId) {
-        progressMap.put(batchId, new BatchProgress(total, userId, clock));
+        BatchProgress progress = new BatchProgress(total, userId, clock);
+        progressMap.put(batchId, progress);
+        batchesByUser.compute(progress.userId, (id, batches) -> {
+            NavigableSet<Long> target = batches != null ? batches : new ConcurrentSkipListSet<>();
+            target.add(batchId);
+            return target;
+        });
         // сразу отправляем начальный прогресс (0 из total)
-        sendProgress(batchId);
-        // если треков нет, завершаем прогресс немедленно, чтобы статусбар скрытся
+        send(batchId, progress);
+        // если треков нет, завершаем прогресс немедленно, чтобы статусбар скрылся
         if (total == 0) {
-            progressMap.remove(batchId);
-            lastSentTimestamps.remove(batchId);
+            complete(batchId, progress);
         }
     }
 
     /**
-     * Увеличивает счётчик обработанных треков и отправляет обновлённый прогресс.
+     * Увеличивает счётчик обработанных треков и помечает партию изменённой.
      * <p>
-     * Метод инкрементирует значение {@code processed} выбранной партии и
-     * вызывает {@link #sendProgress(long)} для передачи текущего состояния
-     * клиенту. Когда количество обработанных треков достигает общего значения
-     * {@code total}, запись о партии удаляется из {@link #progressMap} вместе с
-     * таймстампом последней отправки. Таким образом, финальный прогресс
-     * отправляется мгновенно, а дальнейшие обновления для завершённой партии
-     * перестают обрабатываться.
+     * Промежуточный прогресс отправит {@link #flushDirty()}. Когда количество
+     * обработанных треков достигает {@code total}, финальный прогресс
+     * отправляется сразу, а партия перестаёт отслеживаться.
      * </p>
      *
      * @param batchId идентификатор партии
@@ -88,10 +94,10 @@ public class ProgressAggregatorService {
             return;
         }
         int processed = progress.processed.incrementAndGet();
-        sendProgress(batchId);
-        if (processed >= progress.total) {
-            progressMap.remove(batchId);
-            lastSentTimestamps.remove(batchId);
+        if (processed < progress.total) {
+            progress.dirty.set(true);
+        } else if (complete(batchId, progress)) {
+            send(batchId, progress);
         }
     }
 
@@ -119,44 +125,52 @@ public class ProgressAggregatorService {
      * @return id последней партии или {@code null}
      */
     public Long getLatestBatchId(Long userId) {
-        return progressMap.entrySet().stream()
-                .filter(e -> e.getValue().userId == (userId != null ? userId : 0L))
-                .max((a, b) -> Long.compare(a.getValue().startTime, b.getValue().startTime))
-                .map(Map.Entry::getKey)
-                .orElse(null);
+        NavigableSet<Long> batches = batchesByUser.get(userId != null ? userId : 0L);
+        if (batches == null) {
+            return null;
+        }
+        try {
+            return batches.last();
+        } catch (NoSuchElementException e) {
+            return null;
+        }
     }
 
     /**
-     * Отправляет агрегированный прогресс партии пользователю через WebSocket.
+     * Отправляет прогресс партий, изменившихся с предыдущего запуска.
      * <p>
-     * Метод проверяет время последней отправки и пропускает обновление,
-     * если после предыдущего прошло меньше заданного интервала в миллисекундах.
-     * Исключение составляет финальное состояние: когда все треки обработаны,
-     * данные отправляются сразу, а запись о времени последней отправки очищается.
-     * Таким образом, клиент получает последнее обновление без задержки, а
-     * последующие вызовы не приводят к отправке уже устаревшей информации.
+     * Завершённые партии пропускаются: их финальное состояние уже отправил
+     * поток, обработавший последний трек.
      * </p>
      */
-    private void sendProgress(long batchId) {
-        BatchProgress progress = progressMap.get(batchId);
-        if (progress == null) {
-            return;
-        }
-
-        long now = clock.millis();
-        boolean finished = progress.processed.get() >= progress.total;
-        Long last = lastSentTimestamps.get(batchId);
+    @Scheduled(fixedDelayString = "${progress.update-interval-ms:250}")
+    public void flushDirty() {
+        progressMap.forEach((batchId, progress) -> {
+            if (progress.dirty.compareAndSet(true, false)
+                    && progress.processed.get() < progress.total) {
+                send(batchId, progress);
+            }
+        });
+    }
 
-        if (!finished && last != null && now - last < updateIntervalMs) {
-            return;
+    /**
+     * Прекращает отслеживание партии.
+     *
+     * @return {@code true}, если партия была удалена этим вызовом
+     */
+    private boolean complete(long batchId, BatchProgress progress) {
+        if (!progressMap.remove(batchId, progress)) {
+            return false;
         }
+        batchesByUser.computeIfPresent(progress.userId, (id, batches) -> {
+            batches.remove(batchId);
+            return batches.isEmpty() ? null : batches;
+        });
+        return true;
+    }
 
-        lastSentTimestamps.put(batchId, now);
+    private void send(long batchId, BatchProgress progress) {
         webSocketController.sendProgress(progress.userId, buildDto(batchId, progress));
-
-        if (finished) {
-            lastSentTimestamps.remove(batchId);
-        }
     }
 
     private TrackProcessingProgressDTO buildDto(long batchId, BatchProgress progress) {
@@ -176,6 +190,8 @@ public class ProgressAggregatorService {
     private static class BatchProgress {
         final int total;
         final AtomicInteger processed = new AtomicInteger();
+        /** Признак изменения прогресса после последней отправки. */
+        final AtomicBoolean dirty = new AtomicBoolean();
         final long userId;
         final long startTime;
 
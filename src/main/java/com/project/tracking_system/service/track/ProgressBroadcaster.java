@@ -0,0 +1,145 @@
+package com.project.tracking_system.service.track;
+
+import com.project.tracking_system.dto.TrackProcessingProgressDTO;
+import com.project.tracking_system.dto.TrackStatusUpdateDTO;
+import com.project.tracking_system.service.websocket.WebSocketMetricsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Накопительная отправка событий обработки треков через WebSocket.
+ * <p>
+ * События пользователя копятся в буфере и уходят одним набором кадров
+ * раз в {@code websocket.broadcast.flush-interval-ms}: прогресс партии заменяется последним
+ * значением, обработанные треки Белпочты объединяются по номеру и
+ * отправляются массивом. Размер буфера ограничен, поэтому медленный клиент
+ * не приводит к росту очереди брокера: при переполнении отбрасываются самые
+ * старые треки, которые клиент восстановит из кэша результатов.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ProgressBroadcaster {
+
+    static final String PROGRESS_TOPIC = "/topic/progress/";
+    static final String TRACK_PROCESSED_TOPIC = "/topic/belpost/track-processed/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketMetricsService webSocketMetricsService;
+    /** Максимальное количество треков, ожидающих отправки одному пользователю. */
+    private final int maxPendingTracks;
+
+    /** Буферы событий по идентификатору пользователя. */
+    private final Map<Long, PendingEvents> pending = new ConcurrentHashMap<>();
+
+    public ProgressBroadcaster(SimpMessagingTemplate messagingTemplate,
+                               WebSocketMetricsService webSocketMetricsService,
+                               @Value("${websocket.broadcast.max-pending-tracks:500}") int maxPendingTracks) {
+        this.messagingTemplate = messagingTemplate;
+        this.webSocketMetricsService = webSocketMetricsService;
+        this.maxPendingTracks = maxPendingTracks;
+    }
+
+    /**
+     * Ставит в очередь прогресс партии, заменяя неотправленное значение той же партии.
+     *
+     * @param userId идентификатор пользователя
+     * @param dto    текущий прогресс
+     */
+    public void queueProgress(Long userId, TrackProcessingProgressDTO dto) {
+        pending.compute(userId, (id, events) -> {
+            PendingEvents target = events != null ? events : new PendingEvents();
+            target.progress.merge(dto.batchId(), dto,
+                    (previous, next) -> next.processed() >= previous.processed() ? next : previous);
+            return target;
+        });
+    }
+
+    /**
+     * Ставит в очередь результат обработки трека.
+     * <p>
+     * Повторное событие по тому же номеру заменяет предыдущее.
+     * </p>
+     *
+     * @param userId идентификатор пользователя
+     * @param dto    результат обработки трека
+     */
+    public void queueTrackProcessed(Long userId, TrackStatusUpdateDTO dto) {
+        pending.compute(userId, (id, events) -> {
+            PendingEvents target = events != null ? events : new PendingEvents();
+            target.tracks.remove(dto.trackingNumber());
+            target.tracks.put(dto.trackingNumber(), dto);
+            Iterator<TrackStatusUpdateDTO> oldest = target.tracks.values().iterator();
+            while (target.tracks.size() > maxPendingTracks) {
+                oldest.next();
+                oldest.remove();
+                target.dropped++;
+            }
+            return target;
+        });
+    }
+
+    /**
+     * Немедленно отправляет накопленные события пользователя.
+     * <p>
+     * Вызывается перед финальными сообщениями партии, чтобы клиент
+     * получил их после всех промежуточных. Отправка выполняется внутри
+     * {@link ConcurrentHashMap#computeIfPresent}: пока плановая отправка
+     * передаёт буфер брокеру, запись пользователя остаётся в карте, и
+     * параллельный вызов дожидается её завершения, а не возвращается сразу
+     * с пустым буфером.
+     * </p>
+     *
+     * @param userId идентификатор пользователя
+     */
+    public void flush(Long userId) {
+        pending.computeIfPresent(userId, (id, events) -> {
+            send(id, events);
+            return null;
+        });
+    }
+
+    /**
+     * Периодически отправляет накопленные события всех пользователей.
+     */
+    @Scheduled(fixedDelayString = "${websocket.broadcast.flush-interval-ms:200}")
+    public void flushAll() {
+        for (Long userId : pending.keySet()) {
+            flush(userId);
+        }
+    }
+
+    private void send(Long userId, PendingEvents events) {
+        if (events.dropped > 0) {
+            log.debug("Клиент {} не успевает получать события: отброшено {} треков", userId, events.dropped);
+            webSocketMetricsService.recordDropped(events.dropped);
+        }
+        if (!events.tracks.isEmpty()) {
+            List<TrackStatusUpdateDTO> tracks = new ArrayList<>(events.tracks.values());
+            messagingTemplate.convertAndSend(TRACK_PROCESSED_TOPIC + userId, tracks);
+        }
+        for (TrackProcessingProgressDTO progress : events.progress.values()) {
+            messagingTemplate.convertAndSend(PROGRESS_TOPIC + userId, progress);
+        }
+    }
+
+    /**
+     * Неотправленные события одного пользователя.
+     * Изменяется только внутри {@link ConcurrentHashMap#compute}.
+     */
+    private static class PendingEvents {
+        final Map<Long, TrackProcessingProgressDTO> progress = new LinkedHashMap<>();
+        final LinkedHashMap<String, TrackStatusUpdateDTO> tracks = new LinkedHashMap<>();
+        int dropped;
+    }
+}
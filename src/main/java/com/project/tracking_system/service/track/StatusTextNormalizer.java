@@ -0,0 +1,113 @@
+package com.project.tracking_system.service.track;
+
+/**
+ * Нормализация текста статуса почтовой службы перед классификацией.
+ * <p>
+ * Семантика совпадает с прежней цепочкой {@code replace/trim/replaceAll}:
+ * NBSP и NNBSP заменяются пробелом, строка обрезается, серии из двух и более
+ * пробельных символов схлопываются в один пробел, затем до стабилизации
+ * отрезаются хвостовая группа «(…)» и хвостовые точки, скобки и многоточия.
+ * Работа ведётся в одном проходе по переиспользуемому буферу потока;
+ * если текст уже нормализован, возвращается исходная строка.
+ * </p>
+ */
+final class StatusTextNormalizer {
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    private StatusTextNormalizer() {
+    }
+
+    /**
+     * Нормализует текст статуса.
+     *
+     * @param rawStatus исходный текст, может быть {@code null}
+     * @return нормализованный текст; пустая строка для {@code null}
+     */
+    static String normalize(String rawStatus) {
+        if (rawStatus == null) return "";
+
+        // Границы после trim(): NBSP к этому моменту уже считается пробелом
+        int start = 0;
+        int end = rawStatus.length();
+        while (start < end && mapSpace(rawStatus.charAt(start)) <= ' ') start++;
+        while (end > start && mapSpace(rawStatus.charAt(end - 1)) <= ' ') end--;
+
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+
+        // Копируем, схлопывая серии из двух и более пробельных символов \s
+        int i = start;
+        while (i < end) {
+            char c = mapSpace(rawStatus.charAt(i));
+            if (isRegexSpace(c)) {
+                int runEnd = i + 1;
+                while (runEnd < end && isRegexSpace(mapSpace(rawStatus.charAt(runEnd)))) runEnd++;
+                sb.append(runEnd - i >= 2 ? ' ' : c);
+                i = runEnd;
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+
+        // Хвостовые отрезки меняют только конец строки, поэтому достаточно укорачивать буфер
+        boolean changed;
+        do {
+            int before = sb.length();
+            cutTrailingParenthesized(sb);
+            trimEnd(sb);
+            cutTrailingPunctuation(sb);
+            trimEnd(sb);
+            changed = sb.length() != before;
+        } while (changed);
+
+        return rawStatus.contentEquals(sb) ? rawStatus : sb.toString();
+    }
+
+    /** Отрезает «\s*(…)» в конце строки, где внутри скобок нет {@code ')'}. */
+    private static void cutTrailingParenthesized(StringBuilder sb) {
+        int last = sb.length() - 1;
+        if (last < 0 || sb.charAt(last) != ')') return;
+
+        // Самая левая подходящая '(' — первая после предыдущей ')'
+        int open = -1;
+        for (int j = last - 1; j >= 0; j--) {
+            char c = sb.charAt(j);
+            if (c == ')') break;
+            if (c == '(') open = j;
+        }
+        if (open < 0) return;
+
+        int cut = open;
+        while (cut > 0 && isRegexSpace(sb.charAt(cut - 1))) cut--;
+        sb.setLength(cut);
+    }
+
+    /** Отрезает серию точек, закрывающих скобок и многоточий в конце строки. */
+    private static void cutTrailingPunctuation(StringBuilder sb) {
+        int len = sb.length();
+        while (len > 0) {
+            char c = sb.charAt(len - 1);
+            if (c != '.' && c != ')' && c != '…') break;
+            len--;
+        }
+        sb.setLength(len);
+    }
+
+    /** Хвостовая часть {@link String#trim()}: начало строки к этому моменту уже обрезано. */
+    private static void trimEnd(StringBuilder sb) {
+        int len = sb.length();
+        while (len > 0 && sb.charAt(len - 1) <= ' ') len--;
+        sb.setLength(len);
+    }
+
+    private static char mapSpace(char c) {
+        return c == '\u00A0' || c == '\u202F' ? ' ' : c;
+    }
+
+    /** Класс {@code \s} регулярных выражений Java без флага UNICODE_CHARACTER_CLASS. */
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -1,10 +1,15 @@
 package com.project.tracking_system.service.track;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.project.tracking_system.dto.TrackInfoDTO;
 import com.project.tracking_system.entity.GlobalStatus;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 /**
@@ -24,6 +29,38 @@ public class StatusTrackService {
         return StatusResolver.INSTANCE.resolveStatus(events);
     }
 
+    /**
+     * Классифицирует каждое событие истории отдельно за один проход.
+     * <p>
+     * Результат для события совпадает с {@code setStatus(List.of(event))}:
+     * разбор строки берётся из кэша резолвера, поэтому повторяющиеся статусы
+     * не проходят регулярные выражения повторно.
+     * </p>
+     *
+     * @param events история трека (0-й элемент — самый свежий)
+     * @return статусы событий и индекс самого раннего ожидания получателя
+     */
+    public TrackEventClassification classifyEvents(List<TrackInfoDTO> events) {
+        if (events == null || events.isEmpty()) {
+            return TrackEventClassification.EMPTY;
+        }
+        List<GlobalStatus> statuses = new ArrayList<>(events.size());
+        int earliestWaitingIndex = -1;
+        for (int i = 0; i < events.size(); i++) {
+            GlobalStatus status = classifyEvent(events.get(i));
+            statuses.add(status);
+            if (status == GlobalStatus.WAITING_FOR_CUSTOMER) {
+                // Список упорядочен от свежих к старым, поэтому запоминаем последний найденный индекс
+                earliestWaitingIndex = i;
+            }
+        }
+        return new TrackEventClassification(statuses, earliestWaitingIndex);
+    }
+
+    private GlobalStatus classifyEvent(TrackInfoDTO event) {
+        return StatusResolver.INSTANCE.resolveStatus(List.of(event));
+    }
+
     /** Возвращает HTML-иконку для статуса. */
     public String getIcon(GlobalStatus status) {
         return status != null ? status.getIconHtml() : GlobalStatus.UNKNOWN_STATUS.getIconHtml();
@@ -32,8 +69,6 @@ public class StatusTrackService {
     // ====== Вся логика инкапсулирована внутри резолвера ======
     private static final class StatusResolver {
 
-        private static final StatusResolver INSTANCE = new StatusResolver();
-
         private static final int F = Pattern.UNICODE_CASE | Pattern.CASE_INSENSITIVE;
 
         // --- Приоритетные/терминальные ---
@@ -108,78 +143,231 @@ public class StatusTrackService {
                 RETURNED
         };
 
+        /**
+         * Правила классификации последнего статуса в порядке приоритета.
+         * Для каждого правила перечислены буквальные префиксы (без учёта регистра),
+         * с одного из которых обязана начинаться строка, подходящая под шаблон.
+         * Правило без префиксов проверяется всегда.
+         */
+        private enum Rule {
+            CANCEL_ISSUANCE(StatusResolver.CANCEL_ISSUANCE, "аннулирование операции вручения"),
+            DELIVERED(StatusResolver.DELIVERED, "почтовое отправление ", "выдано", "вручено"),
+            RETURNED(StatusResolver.RETURNED, "почтовое отправление ", "выдано", "вручено", "возвращено"),
+            REGISTERED(StatusResolver.REGISTERED, "заявка на почтовое отправление зарегистрирована"),
+            REGISTRATION_CANCELLED(StatusResolver.REGISTRATION_CANCELLED, "заявка отменена"),
+            CUSTOMER_NOT_PICKING_UP(StatusResolver.CUSTOMER_NOT_PICKING_UP, "добрый день.", "отправление с "),
+            RETURN_START(RETURN_START_PATTERN, "почтовое отправление готово к возврату", "подготовлено для возврата"),
+            RETURN_PICKUP(RETURN_PICKUP_PATTERN, "отправление ", "почтовое отправление прибыло на отделение №"),
+            PICKUP_WAITING(PICKUP_WAITING_PATTERN),
+            BRANCH_ARRIVED(BRANCH_ARRIVED_GENERIC, "почтовое отправление прибыло на отделение №"),
+            SORTING_CENTER(SORTING_CENTER_STEPS, "почтовое отправление "),
+            WAITING(WAITING_GROUP, "почтовое отправление прибыло ", "добрый день.", "поступило в учреждение доставки"),
+            IN_TRANSIT(IN_TRANSIT_GROUP, "почтовое отправление принято на опс", "оплачено на опс", "отправлено",
+                    "принято от отправителя", "поступило в обработку"),
+            NONE(null);
+
+            private final Pattern pattern;
+            private final String[] prefixes;
+
+            Rule(Pattern pattern, String... prefixes) {
+                this.pattern = pattern;
+                this.prefixes = prefixes;
+            }
+        }
+
+        /** Результат разбора одной нормализованной строки. */
+        private record Classified(Rule rule, boolean returnTrigger) {
+        }
+
+        /** Узел префиксного дерева: битовая маска правил, чей префикс заканчивается в узле. */
+        private static final class TrieNode {
+            private final Map<Character, TrieNode> children = new HashMap<>();
+            private int rules;
+        }
+
+        /**
+         * Размер кэша разобранных строк. Словарь статусов почтовых служб невелик,
+         * редкие строки вытесняются частыми.
+         */
+        private static final long CACHE_SIZE = 10_000;
+
+        /** Подстановка вместо номера отправления в ключе кэша. */
+        private static final String TRACK_MASK = "XX0";
+
+        // Создаётся после всех шаблонов: дерево строится из уже инициализированных правил
+        private static final StatusResolver INSTANCE = new StatusResolver();
+
+        private final TrieNode root = buildTrie();
+        private final Cache<String, Classified> cache = Caffeine.newBuilder()
+                .maximumSize(CACHE_SIZE)
+                .build();
+
         private StatusResolver() {}
 
         GlobalStatus resolveStatus(List<TrackInfoDTO> events) {
             if (events == null || events.isEmpty()) return GlobalStatus.UNKNOWN_STATUS;
 
             // 0-й элемент — самый свежий; нормализуем текст
-            final String last = norm(events.get(0).getInfoTrack());
-
-            // === 1) Жёсткий приоритет: TERMINAL ===
-            if (CANCEL_ISSUANCE.matcher(last).matches())         return GlobalStatus.WAITING_FOR_CUSTOMER;
-            if (DELIVERED.matcher(last).matches())               return GlobalStatus.DELIVERED;
-            if (RETURNED.matcher(last).matches())                return GlobalStatus.RETURNED;
-            if (REGISTERED.matcher(last).matches())              return GlobalStatus.REGISTERED;
-            if (REGISTRATION_CANCELLED.matcher(last).matches())  return GlobalStatus.REGISTRATION_CANCELLED;
-            if (CUSTOMER_NOT_PICKING_UP.matcher(last).matches()) return GlobalStatus.CUSTOMER_NOT_PICKING_UP;
-
-            // === 2) Явные возвратные шаги (без истории) ===
-            if (RETURN_START_PATTERN.matcher(last).matches())    return GlobalStatus.RETURN_IN_PROGRESS;
-            if (RETURN_PICKUP_PATTERN.matcher(last).matches())   return GlobalStatus.RETURN_PENDING_PICKUP;
-
-            // === 3) Спорные группы — ONE-SHOT заглядываем в историю ===
-            if (PICKUP_WAITING_PATTERN.matcher(last).matches()
-                    || BRANCH_ARRIVED_GENERIC.matcher(last).matches()) {
-                return hasReturnTriggerInHistory(events)
+            final Rule rule = classify(StatusTextNormalizer.normalize(events.get(0).getInfoTrack())).rule();
+
+            return switch (rule) {
+                // === 1) Жёсткий приоритет: TERMINAL ===
+                case CANCEL_ISSUANCE -> GlobalStatus.WAITING_FOR_CUSTOMER;
+                case DELIVERED -> GlobalStatus.DELIVERED;
+                case RETURNED -> GlobalStatus.RETURNED;
+                case REGISTERED -> GlobalStatus.REGISTERED;
+                case REGISTRATION_CANCELLED -> GlobalStatus.REGISTRATION_CANCELLED;
+                case CUSTOMER_NOT_PICKING_UP -> GlobalStatus.CUSTOMER_NOT_PICKING_UP;
+                // === 2) Явные возвратные шаги (без истории) ===
+                case RETURN_START -> GlobalStatus.RETURN_IN_PROGRESS;
+                case RETURN_PICKUP -> GlobalStatus.RETURN_PENDING_PICKUP;
+                // === 3) Спорные группы — ONE-SHOT заглядываем в историю ===
+                case PICKUP_WAITING, BRANCH_ARRIVED -> hasReturnTriggerInHistory(events)
                         ? GlobalStatus.RETURN_PENDING_PICKUP
                         : GlobalStatus.WAITING_FOR_CUSTOMER;
-            }
-            if (SORTING_CENTER_STEPS.matcher(last).matches()) {
-                return hasReturnTriggerInHistory(events)
+                case SORTING_CENTER -> hasReturnTriggerInHistory(events)
                         ? GlobalStatus.RETURN_IN_PROGRESS
                         : GlobalStatus.IN_TRANSIT;
-            }
-
-            // === 4) Прочие явные группы ===
-            if (WAITING_GROUP.matcher(last).matches())           return GlobalStatus.WAITING_FOR_CUSTOMER;
-            if (IN_TRANSIT_GROUP.matcher(last).matches())        return GlobalStatus.IN_TRANSIT;
-
-            // === 5) Фоллбек ===
-            return GlobalStatus.UNKNOWN_STATUS;
+                // === 4) Прочие явные группы ===
+                case WAITING -> GlobalStatus.WAITING_FOR_CUSTOMER;
+                case IN_TRANSIT -> GlobalStatus.IN_TRANSIT;
+                // === 5) Фоллбек ===
+                case NONE -> GlobalStatus.UNKNOWN_STATUS;
+            };
         }
 
         // --- Вспомогательное ---
 
         /** Пробегает всю историю (в любом порядке) и ищет любой возвратный триггер. */
-        private static boolean hasReturnTriggerInHistory(List<TrackInfoDTO> events) {
+        private boolean hasReturnTriggerInHistory(List<TrackInfoDTO> events) {
             if (events == null || events.isEmpty()) return false;
             for (TrackInfoDTO dto : events) {
-                final String s = norm(dto.getInfoTrack());
-                for (Pattern p : RETURN_HISTORY_TRIGGERS) {
-                    if (p.matcher(s).find()) return true;
+                if (classify(StatusTextNormalizer.normalize(dto.getInfoTrack())).returnTrigger()) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Разбирает нормализованную строку: правило последнего статуса и наличие возвратного триггера.
+         * Номера отправлений заменяются общей подстановкой, поэтому статусы разных посылок
+         * разбираются и кэшируются как одна строка.
+         */
+        private Classified classify(String normalized) {
+            return cache.get(maskTrackNumbers(normalized),
+                    key -> new Classified(matchRule(key), hasReturnTrigger(key)));
+        }
+
+        /**
+         * Заменяет номера отправлений на {@link #TRACK_MASK}.
+         * <p>
+         * Номером считается латинско-цифровое слово из двух латинских букв и хотя бы
+         * одной цифры после них. Шаблоны правил принимают номер только как
+         * {@code [A-Z0-9]+} или {@code [A-Z]{2}[A-Z0-9]+}, а подстановке
+         * удовлетворяют оба класса, поэтому разбор строки от замены не меняется.
+         * </p>
+         */
+        private static String maskTrackNumbers(String s) {
+            StringBuilder sb = null;
+            int i = 0;
+            while (i < s.length()) {
+                int end = i;
+                while (end < s.length() && isLatinOrDigit(s.charAt(end))) end++;
+                if (end == i) {
+                    if (sb != null) sb.append(s.charAt(i));
+                    i++;
+                    continue;
+                }
+                boolean trackNumber = isTrackNumber(s, i, end);
+                if (trackNumber && sb == null) {
+                    sb = new StringBuilder(s.length()).append(s, 0, i);
+                }
+                if (sb != null) {
+                    if (trackNumber) {
+                        sb.append(TRACK_MASK);
+                    } else {
+                        sb.append(s, i, end);
+                    }
                 }
+                i = end;
+            }
+            return sb != null ? sb.toString() : s;
+        }
+
+        private static boolean isTrackNumber(String s, int start, int end) {
+            if (end - start < 3 || !isLatin(s.charAt(start)) || !isLatin(s.charAt(start + 1))) {
+                return false;
+            }
+            for (int i = start + 2; i < end; i++) {
+                if (s.charAt(i) >= '0' && s.charAt(i) <= '9') return true;
             }
             return false;
         }
 
-        /** Нормализует строку: NBSP/NNBSP → пробел, схлопывает пробелы, обрезает хвостовые скобки/точки/многоточия. */
-        private static String norm(String rawStatus) {
-            if (rawStatus == null) return "";
-            String normalized = rawStatus
-                    .replace('\u00A0', ' ')
-                    .replace('\u202F', ' ')
-                    .trim()
-                    .replaceAll("\\s{2,}", " ");
+        private static boolean isLatin(char c) {
+            return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+        }
+
+        private static boolean isLatinOrDigit(char c) {
+            return isLatin(c) || (c >= '0' && c <= '9');
+        }
+
+        /**
+         * Находит правило с наивысшим приоритетом. Префиксное дерево отбирает кандидатов
+         * за один проход по строке, регулярные выражения проверяются только для них.
+         */
+        private Rule matchRule(String s) {
+            int candidates = root.rules;
+            TrieNode node = root;
+            for (int i = 0; i < s.length() && node != null; i++) {
+                node = node.children.get(fold(s.charAt(i)));
+                if (node != null) {
+                    candidates |= node.rules;
+                }
+            }
+            for (Rule rule : Rule.values()) {
+                if (rule.pattern != null
+                        && (candidates & (1 << rule.ordinal())) != 0
+                        && rule.pattern.matcher(s).matches()) {
+                    return rule;
+                }
+            }
+            return Rule.NONE;
+        }
+
+        private static boolean hasReturnTrigger(String s) {
+            for (Pattern p : RETURN_HISTORY_TRIGGERS) {
+                if (p.matcher(s).find()) return true;
+            }
+            return false;
+        }
 
-            String prev;
-            do {
-                prev = normalized;
-                normalized = normalized.replaceAll("\\s*\\([^)]*\\)$", "").trim(); // «… (подробности)»
-                normalized = normalized.replaceAll("[\\.\\)…]+$", "").trim();     // точки/многоточия/скобки в конце
-            } while (!normalized.equals(prev));
+        private static TrieNode buildTrie() {
+            TrieNode root = new TrieNode();
+            for (Rule rule : Rule.values()) {
+                if (rule.pattern == null) continue;
+                if (rule.prefixes.length == 0) {
+                    root.rules |= 1 << rule.ordinal();
+                    continue;
+                }
+                for (String prefix : rule.prefixes) {
+                    TrieNode node = root;
+                    for (int i = 0; i < prefix.length(); i++) {
+                        node = node.children.computeIfAbsent(fold(prefix.charAt(i)), c -> new TrieNode());
+                    }
+                    node.rules |= 1 << rule.ordinal();
+                }
+            }
+            return root;
+        }
 
-            return normalized;
+        /**
+         * Приводит символ к общему виду для префиксного дерева: без учёта регистра,
+         * любой пробельный символ {@code \s} — обычный пробел. Склейка может лишь
+         * добавить кандидатов, окончательное решение принимает шаблон.
+         */
+        private static char fold(char c) {
+            if (c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') return ' ';
+            return Character.toLowerCase(Character.toUpperCase(c));
         }
     }
 
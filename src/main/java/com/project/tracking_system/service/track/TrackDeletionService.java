@@ -3,13 +3,16 @@ package com.project.tracking_system.service.track;
 import com.project.tracking_system.entity.TrackParcel;
 import com.project.tracking_system.repository.TrackParcelRepository;
 import com.project.tracking_system.service.analytics.DeliveryHistoryService;
+import com.project.tracking_system.service.customer.event.CustomerParcelsChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Сервис удаления треков пользователя.
@@ -21,6 +24,8 @@ public class TrackDeletionService {
 
     private final TrackParcelRepository trackParcelRepository;
     private final DeliveryHistoryService deliveryHistoryService;
+    private final TrackViewCacheInvalidator trackViewCacheInvalidator;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Удаляет посылки пользователя по номерам.
@@ -51,6 +56,8 @@ public class TrackDeletionService {
         }
 
         trackParcelRepository.deleteAll(parcelsToDelete);
+        parcelsToDelete.forEach(parcel -> trackViewCacheInvalidator.evict(userId, parcel.getId()));
+        publishCustomerParcelsChanged(parcelsToDelete);
         log.info("✅ Удалены {} посылок пользователя ID={}", parcelsToDelete.size(), userId);
     }
 
@@ -82,7 +89,22 @@ public class TrackDeletionService {
         }
 
         trackParcelRepository.deleteAll(parcelsToDelete);
+        parcelsToDelete.forEach(parcel -> trackViewCacheInvalidator.evict(userId, parcel.getId()));
+        publishCustomerParcelsChanged(parcelsToDelete);
         log.info("✅ Удалены {} посылок пользователя ID={}", parcelsToDelete.size(), userId);
     }
 
-}
\ No newline at end of file
+    /**
+     * Сообщает покупателям удалённых посылок об изменении их списка посылок.
+     *
+     * @param parcels удалённые посылки
+     */
+    private void publishCustomerParcelsChanged(List<TrackParcel> parcels) {
+        parcels.stream()
+                .map(TrackParcel::getCustomer)
+                .filter(Objects::nonNull)
+                .map(CustomerParcelsChangedEvent::of)
+                .distinct()
+                .forEach(eventPublisher::publishEvent);
+    }
+}
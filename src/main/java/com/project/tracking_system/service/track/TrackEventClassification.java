@@ -0,0 +1,39 @@
+package com.project.tracking_system.service.track;
+
+import com.project.tracking_system.entity.GlobalStatus;
+
+import java.util.List;
+
+/**
+ * Результат поэлементной классификации истории трека.
+ * <p>
+ * Каждое событие классифицируется независимо от остальных, как если бы
+ * оно было единственным в истории. Порядок совпадает с исходным списком:
+ * 0-й элемент — самое свежее событие.
+ * </p>
+ *
+ * @param statuses             статусы событий в порядке исходного списка
+ * @param earliestWaitingIndex индекс самого раннего события со статусом
+ *                             {@link GlobalStatus#WAITING_FOR_CUSTOMER} или {@code -1}
+ */
+public record TrackEventClassification(List<GlobalStatus> statuses, int earliestWaitingIndex) {
+
+    /**
+     * Пустой результат для истории без событий.
+     */
+    public static final TrackEventClassification EMPTY = new TrackEventClassification(List.of(), -1);
+
+    /**
+     * @return статус самого свежего события или {@link GlobalStatus#UNKNOWN_STATUS}, если событий нет
+     */
+    public GlobalStatus latestStatus() {
+        return statuses.isEmpty() ? GlobalStatus.UNKNOWN_STATUS : statuses.get(0);
+    }
+
+    /**
+     * @return {@code true}, если в истории есть событие ожидания получателя
+     */
+    public boolean hasWaitingEvent() {
+        return earliestWaitingIndex >= 0;
+    }
+}
@@ -1,6 +1,7 @@
 package com.project.tracking_system.service.track;
 
 import com.project.tracking_system.dto.TrackParcelDTO;
+import com.project.tracking_system.dto.TrackParcelRow;
 import com.project.tracking_system.entity.Customer;
 import com.project.tracking_system.entity.DeliveryHistory;
 import com.project.tracking_system.entity.GlobalStatus;
@@ -12,6 +13,8 @@ import com.project.tracking_system.repository.DeliveryHistoryRepository;
 import com.project.tracking_system.service.user.UserService;
 import com.project.tracking_system.service.track.TrackServiceClassifier;
 import com.project.tracking_system.service.track.TrackNumberAuditService;
+import com.project.tracking_system.utils.KeysetCursor;
+import com.project.tracking_system.utils.KeysetPage;
 import com.project.tracking_system.utils.NameSearchUtils;
 import com.project.tracking_system.utils.PhoneUtils;
 import com.project.tracking_system.utils.TrackNumberUtils;
@@ -20,10 +23,10 @@ import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -33,11 +36,8 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -83,53 +83,52 @@ public class TrackParcelService {
     }
 
     /**
-     * Находит посылки по магазинам с учётом пагинации.
+     * Находит посылки магазинов постранично по ключу (timestamp, id).
+     * <p>
+     * Стоимость запроса не зависит от глубины страницы, а общее количество
+     * посылок не подсчитывается: переход выполняется по курсорам соседних страниц.
+     * Каждый магазин читается отдельным запросом по индексу (store_id, timestamp, id),
+     * после чего строки объединяются в общий порядок и обрезаются до размера страницы.
+     * </p>
      *
-     * @param storeIds список идентификаторов магазинов
-     * @param page     номер страницы
-     * @param size     размер страницы
+     * @param storeIds  список идентификаторов магазинов
+     * @param status    фильтр статуса (может быть {@code null})
+     * @param cursor    курсор страницы или {@code null} для первой страницы
+     * @param size      размер страницы
      * @param userId    идентификатор пользователя
      * @param sortOrder порядок сортировки: {@code "asc"} или {@code "desc"}
-     * @return страница посылок указанного пользователя
+     * @return страница посылок с курсорами соседних страниц
      */
     @Transactional(readOnly = true)
-    public Page<TrackParcelDTO> findByStoreTracks(List<Long> storeIds,
-                                                  int page,
-                                                  int size,
-                                                  Long userId,
-                                                  String sortOrder) {
-        Sort sort = Sort.by("timestamp");
-        sort = "asc".equalsIgnoreCase(sortOrder) ? sort.ascending() : sort.descending();
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<TrackParcel> trackParcels = trackParcelRepository.findByStoreIdIn(storeIds, pageable);
-        ZoneId userZone = userService.getUserZone(userId);
-        return trackParcels.map(track -> toDto(track, userZone));
-    }
+    public KeysetPage<TrackParcelDTO> findByStoreTracksKeyset(List<Long> storeIds,
+                                                              GlobalStatus status,
+                                                              String cursor,
+                                                              int size,
+                                                              Long userId,
+                                                              String sortOrder) {
+        boolean ascending = "asc".equalsIgnoreCase(sortOrder);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        if (cursor != null && !cursor.isBlank() && position == null) {
+            log.warn("Некорректный курсор страницы отправлений для userId={}, показываем первую страницу", userId);
+        }
+        KeysetCursor from = position != null ? position : KeysetCursor.start(ascending);
+        Limit limit = Limit.of(size + 1);
+
+        boolean seekAscending = from.seekAscending(ascending);
+        Comparator<TrackParcelRow> seekOrder = Comparator.comparing(TrackParcelRow::timestamp)
+                .thenComparing(TrackParcelRow::id);
+        List<TrackParcelRow> rows = storeIds.stream()
+                .flatMap(storeId -> (seekAscending
+                        ? trackParcelRepository.findByStoreIdAfter(storeId, status, from.timestampUtc(), from.id(), limit)
+                        : trackParcelRepository.findByStoreIdBefore(storeId, status, from.timestampUtc(), from.id(), limit))
+                        .stream())
+                .sorted(seekAscending ? seekOrder : seekOrder.reversed())
+                .limit(limit.max())
+                .toList();
 
-    /**
-     * Ищет посылки магазинов по статусу с поддержкой пагинации.
-     *
-     * @param storeIds список идентификаторов магазинов
-     * @param status   статус посылки
-     * @param page     номер страницы
-     * @param size     размер страницы
-     * @param userId    идентификатор пользователя
-     * @param sortOrder порядок сортировки: {@code "asc"} или {@code "desc"}
-     * @return страница посылок
-     */
-    @Transactional(readOnly = true)
-    public Page<TrackParcelDTO> findByStoreTracksAndStatus(List<Long> storeIds,
-                                                          GlobalStatus status,
-                                                          int page,
-                                                          int size,
-                                                          Long userId,
-                                                          String sortOrder) {
-        Sort sort = Sort.by("timestamp");
-        sort = "asc".equalsIgnoreCase(sortOrder) ? sort.ascending() : sort.descending();
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<TrackParcel> trackParcels = trackParcelRepository.findByStoreIdInAndStatus(storeIds, status, pageable);
         ZoneId userZone = userService.getUserZone(userId);
-        return trackParcels.map(track -> toDto(track, userZone));
+        return KeysetPage.fromRows(rows, size, position, TrackParcelRow::timestamp, TrackParcelRow::id)
+                .map(row -> new TrackParcelDTO(row, userZone));
     }
 
     /**
@@ -156,12 +155,8 @@ public class TrackParcelService {
     /**
      * Находит посылки со статусом {@link GlobalStatus#PRE_REGISTERED} или отмеченные как предзарегистрированные.
      * <p>
-     * Метод объединяет результаты двух запросов:
-     * <ul>
-     *     <li>посылки выбранных магазинов в статусе {@code PRE_REGISTERED};</li>
-     *     <li>посылки с флагом {@code preRegistered=true} тех же магазинов.</li>
-     * </ul>
-     * Результат сортируется по времени добавления и постранично возвращается пользователю.
+     * Оба условия проверяются одним запросом, который сортирует и разбивает
+     * результат на страницы на стороне базы и выбирает только столбцы списка.
      * </p>
      *
      * @param storeIds  идентификаторы магазинов
@@ -179,42 +174,12 @@ public class TrackParcelService {
                                                                    String sortOrder) {
         Sort sort = Sort.by("timestamp");
         sort = "asc".equalsIgnoreCase(sortOrder) ? sort.ascending() : sort.descending();
+        Pageable pageable = PageRequest.of(page, size, sort);
 
-        // Загружаем все посылки в статусе PRE_REGISTERED для указанных магазинов
-        List<TrackParcel> statusParcels = trackParcelRepository
-                .findByStoreIdInAndStatus(storeIds, GlobalStatus.PRE_REGISTERED, Pageable.unpaged())
-                .getContent();
-
-        // Загружаем все посылки с флагом preRegistered=true и фильтруем по магазинам
-        List<TrackParcel> preRegisteredParcels = trackParcelRepository
-                .findByPreRegisteredTrue(Pageable.unpaged())
-                .stream()
-                .filter(parcel -> storeIds.contains(parcel.getStore().getId()))
-                .toList();
-
-        // Объединяем результаты без дубликатов по идентификатору
-        Map<Long, TrackParcel> mergedMap = new LinkedHashMap<>();
-        statusParcels.forEach(parcel -> mergedMap.put(parcel.getId(), parcel));
-        preRegisteredParcels.forEach(parcel -> mergedMap.put(parcel.getId(), parcel));
-        List<TrackParcel> merged = new ArrayList<>(mergedMap.values());
-
-        // Сортируем объединённый список
-        Comparator<TrackParcel> comparator = Comparator.comparing(TrackParcel::getTimestamp);
-        if (sort.isSorted() && sort.iterator().next().isDescending()) {
-            comparator = comparator.reversed();
-        }
-        merged.sort(comparator);
-
-        // Формируем страницу результатов
-        int start = Math.min(page * size, merged.size());
-        int end = Math.min(start + size, merged.size());
+        Page<TrackParcelRow> rows = trackParcelRepository.findPreRegisteredRows(
+                storeIds, GlobalStatus.PRE_REGISTERED, pageable);
         ZoneId userZone = userService.getUserZone(userId);
-        List<TrackParcelDTO> content = merged.subList(start, end)
-                .stream()
-                .map(track -> toDto(track, userZone))
-                .toList();
-
-        return new PageImpl<>(content, PageRequest.of(page, size, sort), merged.size());
+        return rows.map(row -> new TrackParcelDTO(row, userZone));
     }
 
     /**
@@ -265,7 +230,7 @@ public class TrackParcelService {
         Pageable pageable = PageRequest.of(page, size, sort);
         String phoneDigits = PhoneUtils.extractDigits(query);
         List<String> nameTokens = NameSearchUtils.extractNameTokens(query);
-        Page<TrackParcel> parcels = trackParcelRepository.searchByNumberPhoneOrName(
+        Page<TrackParcelRow> rows = trackParcelRepository.searchByNumberPhoneOrName(
                 storeIds,
                 userId,
                 status,
@@ -276,7 +241,7 @@ public class TrackParcelService {
                 NameSearchUtils.getTokenOrEmpty(nameTokens, 2),
                 pageable);
         ZoneId userZone = userService.getUserZone(userId);
-        return parcels.map(track -> toDto(track, userZone));
+        return rows.map(row -> new TrackParcelDTO(row, userZone));
     }
 
     /**
@@ -436,6 +401,7 @@ public class TrackParcelService {
      * @param userId   идентификатор пользователя
      */
     @Transactional
+    @CacheEvict(cacheNames = "track-details", key = "#userId + ':' + #parcelId")
     public void assignTrackNumber(Long parcelId, String number, Long userId) {
         TrackParcel parcel = trackParcelRepository.findByIdAndPreRegisteredTrue(parcelId);
         if (parcel == null || parcel.getUser() == null || !parcel.getUser().getId().equals(userId)) {
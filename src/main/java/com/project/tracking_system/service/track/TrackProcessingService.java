@@ -8,12 +8,14 @@ import com.project.tracking_system.service.SubscriptionService;
 import com.project.tracking_system.service.analytics.DeliveryHistoryService;
 import com.project.tracking_system.service.customer.CustomerService;
 import com.project.tracking_system.service.customer.CustomerStatsService;
+import com.project.tracking_system.service.customer.event.CustomerParcelsChangedEvent;
 import com.project.tracking_system.service.user.UserService;
 import com.project.tracking_system.utils.DateParserUtils;
 import com.project.tracking_system.utils.PhoneUtils;
 import com.project.tracking_system.utils.TrackNumberUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
@@ -44,6 +46,8 @@ public class TrackProcessingService {
     private final TrackParcelRepository trackParcelRepository;
     private final TrackStatisticsUpdater trackStatisticsUpdater;
     private final TrackStatusEventService trackStatusEventService;
+    private final TrackViewCacheInvalidator trackViewCacheInvalidator;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     /**
@@ -192,6 +196,7 @@ public class TrackProcessingService {
         if (!isNewParcel && trackParcel.isPreRegistered() && trackInfoListDTO.getList().isEmpty()) {
             log.debug("Статусы не получены, обновлено только время последнего обновления");
             refreshLastUpdate(trackParcel);
+            trackViewCacheInvalidator.evict(userId, trackParcel.getId());
             return;
         }
 
@@ -246,9 +251,31 @@ public class TrackProcessingService {
         // Обновляем историю доставки
         deliveryHistoryService.updateDeliveryHistory(trackParcel, oldStatus, newStatus, trackInfoListDTO);
 
+        // Детали модального окна устарели — удаляем их после фиксации транзакции
+        trackViewCacheInvalidator.evict(userId, trackParcel.getId());
+
+        // Сообщаем об изменении посылок покупателя, если оно видно ему в Telegram
+        if (oldStatus != newStatus || customerChanged || previousStoreId != null) {
+            publishCustomerParcelsChanged(trackParcel.getCustomer());
+            if (customerChanged) {
+                publishCustomerParcelsChanged(previousCustomer);
+            }
+        }
+
         log.debug("Трек обновлён");
     }
 
+    /**
+     * Публикует событие изменения посылок покупателя.
+     *
+     * @param customer покупатель посылки (может быть {@code null})
+     */
+    private void publishCustomerParcelsChanged(Customer customer) {
+        if (customer != null) {
+            eventPublisher.publishEvent(CustomerParcelsChangedEvent.of(customer));
+        }
+    }
+
     /**
      * Обновляет время последнего обновления предрегистрационной посылки,
      * чтобы соблюсти ограничение на повторный запуск обновления.
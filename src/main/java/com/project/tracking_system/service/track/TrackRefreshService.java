@@ -6,8 +6,6 @@ import com.project.tracking_system.service.SubscriptionService;
 import com.project.tracking_system.service.admin.ApplicationSettingsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -35,14 +33,12 @@ import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 public class TrackRefreshService {
 
-    private static final String CACHE_NAME = "track-details";
-
     private final TrackParcelService trackParcelService;
     private final TrackProcessingService trackProcessingService;
     private final TrackViewService trackViewService;
     private final ApplicationSettingsService applicationSettingsService;
     private final SubscriptionService subscriptionService;
-    private final CacheManager cacheManager;
+    private final TrackViewCacheInvalidator trackViewCacheInvalidator;
 
     /** Карта блокировок на идентификатор посылки для обеспечения идемпотентности. */
     private final Map<Long, Object> parcelLocks = new ConcurrentHashMap<>();
@@ -88,7 +84,7 @@ public class TrackRefreshService {
                 parcel.getNumber(), parcel.getId(), userId);
         trackProcessingService.processTrack(parcel.getNumber(), parcel.getStore().getId(), userId, true);
 
-        evictDetailsCache(trackId, userId);
+        trackViewCacheInvalidator.evict(userId, trackId);
         return trackViewService.getTrackDetails(trackId, userId);
     }
 
@@ -184,16 +180,6 @@ public class TrackRefreshService {
         );
     }
 
-    /**
-     * Инвалидирует кэш модального окна, чтобы вернуть пользователю свежие данные.
-     */
-    private void evictDetailsCache(Long trackId, Long userId) {
-        Cache cache = cacheManager.getCache(CACHE_NAME);
-        if (cache != null) {
-            cache.evict(userId + ":" + trackId);
-        }
-    }
-
     /**
      * Переносит результат проверки кулдауна в отдельную неизменяемую структуру.
      */
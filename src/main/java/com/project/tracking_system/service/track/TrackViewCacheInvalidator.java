@@ -1,5 +1,7 @@
 package com.project.tracking_system.service.track;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.project.tracking_system.configuration.CacheConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
@@ -8,11 +10,13 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
- * Плановый очиститель кэша деталей трека.
+ * Точечная инвалидация кэша деталей трека.
  * <p>
  * Компонент изолирован от основной логики сервисов, чтобы соблюсти принципы
- * SRP и DIP: {@link TrackViewService} не зависит от конкретного механизма
+ * SRP и DIP: {@link TrackViewSnapshotLoader} не зависит от конкретного механизма
  * инвалидации кэша и оперирует только абстракцией {@link CacheManager}.
+ * Запись удаляется сервисами, изменяющими посылку, поэтому кэш может хранить
+ * детали в течение нескольких минут.
  * </p>
  */
 @Slf4j
@@ -20,25 +24,45 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class TrackViewCacheInvalidator {
 
-    private static final String CACHE_NAME = "track-details";
-
     /** Менеджер кэшей приложения. */
     private final CacheManager cacheManager;
 
     /**
-     * Периодически очищает кэш деталей, чтобы данные не устаревали.
+     * Удаляет из кэша детали посылки пользователя.
      * <p>
-     * Интервал 8 секунд подобран как компромисс между нагрузкой на БД и
-     * своевременным обновлением данных модального окна.
+     * Внутри транзакции удаление откладывается до её фиксации.
      * </p>
+     *
+     * @param userId  идентификатор владельца посылки
+     * @param trackId идентификатор посылки
      */
-    @Scheduled(fixedDelay = 8_000)
-    public void evictTrackDetails() {
-        Cache cache = cacheManager.getCache(CACHE_NAME);
+    public void evict(Long userId, Long trackId) {
+        if (userId == null || trackId == null) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.TRACK_DETAILS_CACHE);
         if (cache != null) {
-            cache.clear();
-            log.trace("Очистка кэша {} выполнена", CACHE_NAME);
+            cache.evict(userId + ":" + trackId);
         }
     }
-}
 
+    /**
+     * Периодически пишет в журнал статистику обращений к кэшу деталей.
+     */
+    @Scheduled(fixedDelay = 300_000, initialDelay = 300_000)
+    public void logStats() {
+        Cache cache = cacheManager.getCache(CacheConfig.TRACK_DETAILS_CACHE);
+        if (cache == null
+                || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+            return;
+        }
+        CacheStats stats = nativeCache.stats();
+        log.debug("Кэш {}: записей={}, попаданий={}, промахов={}, hitRate={}, вытеснено={}",
+                CacheConfig.TRACK_DETAILS_CACHE,
+                nativeCache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                String.format("%.2f", stats.hitRate()),
+                stats.evictionCount());
+    }
+}
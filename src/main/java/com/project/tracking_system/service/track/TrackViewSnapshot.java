@@ -0,0 +1,38 @@
+package com.project.tracking_system.service.track;
+
+import com.project.tracking_system.entity.GlobalStatus;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Неизменяемые данные посылки для модального окна, хранимые в кэше.
+ * <p>
+ * Снимок не содержит значений, зависящих от текущего времени, настроек
+ * приложения или часового пояса пользователя: они вычисляются при каждом
+ * запросе в {@link TrackViewService}.
+ * </p>
+ *
+ * @param id              идентификатор посылки
+ * @param number          трек-номер
+ * @param deliveryService название почтовой службы
+ * @param status          глобальный статус посылки
+ * @param lastUpdate      момент последнего обновления трека
+ * @param history         события трека в обратном хронологическом порядке
+ */
+public record TrackViewSnapshot(Long id,
+                                String number,
+                                String deliveryService,
+                                GlobalStatus status,
+                                ZonedDateTime lastUpdate,
+                                List<Event> history) {
+
+    /**
+     * Событие истории с исходной отметкой времени.
+     *
+     * @param description описание статуса
+     * @param moment      момент события
+     */
+    public record Event(String description, ZonedDateTime moment) {
+    }
+}
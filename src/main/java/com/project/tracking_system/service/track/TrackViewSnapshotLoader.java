@@ -0,0 +1,125 @@
+package com.project.tracking_system.service.track;
+
+import com.project.tracking_system.configuration.CacheConfig;
+import com.project.tracking_system.entity.DeliveryHistory;
+import com.project.tracking_system.entity.GlobalStatus;
+import com.project.tracking_system.entity.PostalServiceType;
+import com.project.tracking_system.entity.TrackParcel;
+import com.project.tracking_system.entity.TrackStatusEvent;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Загружает и кэширует сохранённые данные посылки для модального окна.
+ * <p>
+ * Вынесен из {@link TrackViewService}, чтобы кэш содержал только данные из БД,
+ * а признаки обновления и форматирование в часовом поясе пользователя
+ * вычислялись при каждом запросе. Запись удаляется через
+ * {@link TrackViewCacheInvalidator} при сохранении, смене номера и удалении посылки.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TrackViewSnapshotLoader {
+
+    private final TrackParcelService trackParcelService;
+    private final TrackStatusEventService trackStatusEventService;
+
+    /**
+     * Возвращает снимок посылки, принадлежащей пользователю.
+     *
+     * @param trackId идентификатор посылки
+     * @param userId  идентификатор пользователя
+     * @return снимок сохранённых данных
+     * @throws AccessDeniedException  если посылка принадлежит другому пользователю
+     * @throws EntityNotFoundException если посылка не найдена
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.TRACK_DETAILS_CACHE, key = "#userId + ':' + #trackId")
+    public TrackViewSnapshot load(Long trackId, Long userId) {
+        TrackParcel parcel = loadParcel(trackId, userId);
+        String deliveryService = Optional.ofNullable(parcel.getDeliveryHistory())
+                .map(DeliveryHistory::getPostalService)
+                .map(PostalServiceType::getDisplayName)
+                .orElse(null);
+        return new TrackViewSnapshot(
+                parcel.getId(),
+                parcel.getNumber(),
+                deliveryService,
+                parcel.getStatus(),
+                parcel.getLastUpdate(),
+                buildHistory(parcel)
+        );
+    }
+
+    /**
+     * Загружает посылку и проверяет права доступа.
+     */
+    private TrackParcel loadParcel(Long trackId, Long userId) {
+        Optional<TrackParcel> owned = trackParcelService.findOwnedById(trackId, userId);
+        if (owned.isPresent()) {
+            return owned.get();
+        }
+        boolean exists = trackParcelService.findById(trackId).isPresent();
+        if (exists) {
+            throw new AccessDeniedException("Посылка не принадлежит пользователю");
+        }
+        log.warn("Не найдена посылка id={} для пользователя {}", trackId, userId);
+        throw new EntityNotFoundException("Посылка не найдена");
+    }
+
+    /**
+     * Возвращает сохранённую историю статусов.
+     */
+    private List<TrackViewSnapshot.Event> buildHistory(TrackParcel parcel) {
+        List<TrackStatusEvent> events = trackStatusEventService.findEvents(parcel.getId());
+        if (!events.isEmpty()) {
+            return events.stream()
+                    .map(event -> new TrackViewSnapshot.Event(event.getDescription(), event.getEventTime()))
+                    .toList();
+        }
+        return buildFallbackHistory(parcel);
+    }
+
+    /**
+     * Формирует минимальную историю на основе агрегированного статуса, если
+     * детальные события ещё не сохранены.
+     */
+    private List<TrackViewSnapshot.Event> buildFallbackHistory(TrackParcel parcel) {
+        GlobalStatus aggregateStatus = parcel.getStatus();
+        ZonedDateTime aggregateMoment = resolveStatusMoment(parcel);
+        if (aggregateStatus == null || aggregateMoment == null) {
+            return List.of();
+        }
+        return List.of(new TrackViewSnapshot.Event(aggregateStatus.getDescription(), aggregateMoment));
+    }
+
+    /**
+     * Определяет момент времени для обобщённого статуса посылки.
+     * <p>
+     * Если точная дата статуса неизвестна (например, история ещё не загружена
+     * из внешнего сервиса), используем отметку последнего обновления трека,
+     * чтобы пользователь видел актуальную временную метку.
+     * </p>
+     *
+     * @param parcel посылка, для которой нужно определить момент статуса
+     * @return момент статуса или {@code null}, если его невозможно вычислить
+     */
+    private ZonedDateTime resolveStatusMoment(TrackParcel parcel) {
+        ZonedDateTime statusMoment = parcel.getTimestamp();
+        if (statusMoment != null) {
+            return statusMoment;
+        }
+        return parcel.getLastUpdate();
+    }
+}
@@ -1,33 +1,52 @@
 package com.project.tracking_system.service.track;
 
+import com.project.tracking_system.dto.TrackResultsChunkDTO;
 import com.project.tracking_system.dto.TrackStatusUpdateDTO;
 import com.project.tracking_system.service.admin.ApplicationSettingsService;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Сервис-кэш для временного хранения результатов обработки по пользователям и партиям.
  * <p>
  * Используется для восстановления таблицы результатов после перезагрузки страницы.
- * Результаты группируются по идентификатору пользователя и идентификатору партии.
+ * Результаты группируются по идентификатору пользователя и идентификатору партии
+ * и хранятся в журналах, доступных только для дописывания: клиент может
+ * дочитать результаты начиная с известного смещения.
+ * </p>
+ * <p>
+ * Объём кэша ограничен общим лимитом и лимитом на пользователя. Непросмотренные
+ * партии удаляются через {@code unviewedTtlMs} после последней записи,
+ * просмотренные — через TTL из {@link ApplicationSettingsService}.
  * </p>
  */
 @Service
-@RequiredArgsConstructor
 public class TrackingResultCacheService {
 
     /** Сервис получения настроек приложения. */
     private final ApplicationSettingsService applicationSettingsService;
 
-    /** Карта вида userId -> (batchId -> результаты с отметкой времени). */
-    private final Map<Long, Map<Long, BatchEntry>> cache = new ConcurrentHashMap<>();
+    /** Срок хранения партии, которую пользователь так и не открыл (мс). */
+    private final long unviewedTtlMs;
+
+    /** Журналы результатов по пользователям и партиям. */
+    private final BatchLogStore<TrackStatusUpdateDTO> store;
+
+    public TrackingResultCacheService(ApplicationSettingsService applicationSettingsService,
+                                      @Value("${tracking.result-cache.max-bytes:67108864}") long maxBytes,
+                                      @Value("${tracking.result-cache.max-bytes-per-user:8388608}") long maxBytesPerUser,
+                                      @Value("${tracking.result-cache.unviewed-ttl-ms:86400000}") long unviewedTtlMs) {
+        this.applicationSettingsService = applicationSettingsService;
+        this.unviewedTtlMs = unviewedTtlMs;
+        this.store = new BatchLogStore<>("results", ResultLog::new, maxBytes, maxBytesPerUser);
+    }
 
     /**
      * Добавляет один результат обработки в кэш.
@@ -39,10 +58,7 @@ public class TrackingResultCacheService {
         if (userId == null || dto == null) {
             return;
         }
-        cache
-                .computeIfAbsent(userId, id -> new ConcurrentHashMap<>())
-                .computeIfAbsent(dto.batchId(), id -> new BatchEntry())
-                .add(dto);
+        store.append(userId, dto.batchId(), List.of(dto));
     }
 
     /**
@@ -53,15 +69,51 @@ public class TrackingResultCacheService {
      * @return список результатов, может быть пустым
      */
     public List<TrackStatusUpdateDTO> getResults(Long userId, Long batchId) {
+        return getResults(userId, batchId, 0);
+    }
+
+    /**
+     * Возвращает результаты партии, добавленные после указанного смещения.
+     *
+     * @param userId  идентификатор пользователя
+     * @param batchId идентификатор партии
+     * @param offset  количество уже полученных клиентом результатов
+     * @return результаты с номерами от {@code offset}, может быть пустым
+     */
+    public List<TrackStatusUpdateDTO> getResults(Long userId, Long batchId, int offset) {
         if (userId == null || batchId == null) {
             return List.of();
         }
-        Map<Long, BatchEntry> byBatch = cache.get(userId);
-        if (byBatch == null) {
-            return List.of();
+        return store.read(userId, batchId, offset, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Возвращает порцию результатов партии после указанного смещения.
+     * <p>
+     * Клиент запоминает {@link TrackResultsChunkDTO#nextOffset()} и при
+     * повторном подключении запрашивает только новые результаты. Если
+     * партия не указана, используется последняя партия пользователя.
+     * </p>
+     *
+     * @param userId  идентификатор пользователя
+     * @param batchId идентификатор партии или {@code null}
+     * @param offset  количество уже полученных клиентом результатов
+     * @param limit   максимальный размер порции
+     * @return порция результатов; пустая, если партии нет в кэше
+     */
+    public TrackResultsChunkDTO getResultsChunk(Long userId, Long batchId, int offset, int limit) {
+        Long targetBatchId = batchId != null ? batchId : getLatestBatchId(userId);
+        int from = Math.max(0, offset);
+        if (userId == null || targetBatchId == null) {
+            return new TrackResultsChunkDTO(null, from, false, List.of());
         }
-        BatchEntry entry = byBatch.get(batchId);
-        return entry != null ? entry.snapshot() : List.of();
+        int size = Math.max(1, limit);
+        List<TrackStatusUpdateDTO> results = store.read(userId, targetBatchId, from, size + 1);
+        boolean hasMore = results.size() > size;
+        if (hasMore) {
+            results = results.subList(0, size);
+        }
+        return new TrackResultsChunkDTO(targetBatchId, from + results.size(), hasMore, results);
     }
 
     /**
@@ -71,17 +123,26 @@ public class TrackingResultCacheService {
      * @return список результатов либо пустой список
      */
     public List<TrackStatusUpdateDTO> getLatestResults(Long userId) {
-        Map<Long, BatchEntry> byBatch = cache.get(userId);
-        if (byBatch == null || byBatch.isEmpty()) {
+        if (userId == null) {
             return List.of();
         }
-        Long latestBatchId = byBatch.keySet().stream().max(Long::compareTo).orElse(null);
+        Long latestBatchId = store.latestBatchId(userId);
         if (latestBatchId == null) {
             return List.of();
         }
         return getResults(userId, latestBatchId);
     }
 
+    /**
+     * Возвращает идентификатор последней партии пользователя в кэше.
+     *
+     * @param userId идентификатор пользователя
+     * @return идентификатор партии или {@code null}
+     */
+    public Long getLatestBatchId(Long userId) {
+        return userId != null ? store.latestBatchId(userId) : null;
+    }
+
     /**
      * Очищает кэш результатов пользователя.
      *
@@ -89,7 +150,7 @@ public class TrackingResultCacheService {
      */
     public void clearResults(Long userId) {
         if (userId != null) {
-            cache.remove(userId);
+            store.remove(userId);
         }
     }
 
@@ -101,79 +162,62 @@ public class TrackingResultCacheService {
     @Scheduled(fixedDelay = 30_000)
     public void removeExpired() {
         long expiration = applicationSettingsService.getResultCacheExpirationMs();
-        long threshold = System.currentTimeMillis() - expiration;
-        cache.entrySet().removeIf(userEntry -> {
-            Map<Long, BatchEntry> byBatch = userEntry.getValue();
-            byBatch.entrySet().removeIf(e -> e.getValue().expired(threshold));
-            return byBatch.isEmpty();
-        });
+        store.removeExpired(expiration, unviewedTtlMs);
     }
 
     /**
-     * Контейнер для списка результатов одной партии и отметки последнего просмотра.
+     * Журнал результатов одной партии.
+     * <p>
+     * Номера треков хранятся в массиве ссылок, статусы — кодами в массиве
+     * {@code int} с таблицей различных строк статуса на партию: в одной партии
+     * обычно встречается лишь несколько десятков статусов.
+     * </p>
      */
-    private static class BatchEntry {
-        /** Сохранённые результаты партии. */
-        private final List<TrackStatusUpdateDTO> results = Collections.synchronizedList(new ArrayList<>());
-
-        /** Момент последнего просмотра кэша пользователем. */
-        private volatile long lastAccess;
-
-        /** Флаг, указывающий, что пользователь уже открыл результаты. */
-        private volatile boolean viewed;
-
-        /**
-         * Создаёт контейнер. Отметка просмотра будет обновлена при первом обращении.
-         */
-        BatchEntry() {
-            lastAccess = System.currentTimeMillis();
-            viewed = false;
-        }
-
-        /**
-         * Добавляет результат в контейнер.
-         * Обновление времени происходит при обращении {@link #snapshot()}.
-         *
-         * @param dto результат обработки трека
-         */
-        void add(TrackStatusUpdateDTO dto) {
-            results.add(dto);
-        }
-
-        /**
-         * Возвращает копию результатов и помечает запись просмотренной.
-         * Одновременно обновляется время последнего доступа.
-         *
-         * @return список сохранённых результатов
-         */
-        List<TrackStatusUpdateDTO> snapshot() {
-            viewed = true;
-            refresh();
-            return new ArrayList<>(results);
+    private static final class ResultLog extends BatchLog<TrackStatusUpdateDTO> {
+
+        private long batchId;
+        private int total;
+        private String[] numbers = new String[16];
+        private int[] statusCodes = new int[16];
+        private int[] completed = new int[16];
+        private final List<String> statuses = new ArrayList<>();
+        private final Map<String, Integer> statusIndex = new HashMap<>();
+
+        @Override
+        protected long estimate(TrackStatusUpdateDTO dto) {
+            return REFERENCE_BYTES + 2L * Integer.BYTES
+                    + stringBytes(dto.trackingNumber()) + stringBytes(dto.status()) + REFERENCE_BYTES;
         }
 
-        /** Обновляет время последнего доступа текущим моментом. */
-        void refresh() {
-            lastAccess = System.currentTimeMillis();
+        @Override
+        protected long store(int index, TrackStatusUpdateDTO dto) {
+            if (index == numbers.length) {
+                int capacity = numbers.length * 2;
+                numbers = Arrays.copyOf(numbers, capacity);
+                statusCodes = Arrays.copyOf(statusCodes, capacity);
+                completed = Arrays.copyOf(completed, capacity);
+            }
+            long added = REFERENCE_BYTES + 2L * Integer.BYTES + stringBytes(dto.trackingNumber());
+            Integer code = statusIndex.get(dto.status());
+            if (code == null) {
+                code = statuses.size();
+                statuses.add(dto.status());
+                statusIndex.put(dto.status(), code);
+                added += stringBytes(dto.status()) + REFERENCE_BYTES;
+            }
+            batchId = dto.batchId();
+            total = dto.total();
+            numbers[index] = dto.trackingNumber();
+            statusCodes[index] = code;
+            completed[index] = dto.completed();
+            return added;
         }
 
-        /**
-         * Проверяет, истекло ли время хранения относительно переданного порога.
-         * <p>
-         * Используем нестрогое сравнение, чтобы запись считалась устаревшей
-         * в тот же момент, когда истёк срок хранения. Это позволяет корректно
-         * обрабатывать ситуации, когда время жизни кэша равно нулю и запись
-         * должна быть удалена сразу после просмотра.
-         * </p>
-         *
-         * @param threshold момент времени, с которым сверяется {@code lastAccess}
-         * @return {@code true}, если запись устарела
-         */
-        boolean expired(long threshold) {
-            // Сервис хранит записи до первого просмотра. После просмотра
-            // запись удаляется, если текущее время превышает установленный TTL.
-            return viewed && lastAccess <= threshold;
+        @Override
+        protected TrackStatusUpdateDTO load(int index) {
+            return new TrackStatusUpdateDTO(batchId, numbers[index], statuses.get(statusCodes[index]),
+                    completed[index], total);
         }
     }
 
-}
\ No newline at end of file
+}
@@ -462,6 +462,19 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
     }
 
+    /**
+     * Находит пользователя вместе с подпиской и тарифным планом.
+     *
+     * @param userId идентификатор пользователя
+     * @return пользователь с загруженной подпиской
+     * @throws IllegalArgumentException если пользователь не найден
+     */
+    @Transactional(readOnly = true)
+    public User findUserWithSubscription(Long userId) {
+        return userRepository.findWithSubscriptionById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
+    }
+
     /**
      * Получает список всех пользователей системы.
      *
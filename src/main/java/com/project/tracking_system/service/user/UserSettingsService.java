@@ -4,8 +4,10 @@ import com.project.tracking_system.entity.User;
 import com.project.tracking_system.entity.UserSettings;
 import com.project.tracking_system.repository.UserRepository;
 import com.project.tracking_system.repository.UserSettingsRepository;
+import com.project.tracking_system.service.user.event.UserNotificationSettingsChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +21,7 @@ public class UserSettingsService {
 
     private final UserSettingsRepository settingsRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Получить настройки пользователя. Если они отсутствуют, возвращается null.
@@ -88,6 +91,7 @@ public class UserSettingsService {
         UserSettings settings = getOrCreateSettings(userId);
         settings.setTelegramNotificationsEnabled(enabled);
         settingsRepository.save(settings);
+        eventPublisher.publishEvent(new UserNotificationSettingsChangedEvent(userId));
         log.info("Флаг telegramNotificationsEnabled обновлен для пользователя {}: {}", userId, enabled);
     }
 
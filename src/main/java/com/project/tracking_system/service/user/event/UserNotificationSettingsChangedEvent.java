@@ -0,0 +1,9 @@
+package com.project.tracking_system.service.user.event;
+
+/**
+ * Событие изменения пользовательской настройки Telegram-уведомлений покупателям.
+ *
+ * @param userId идентификатор пользователя — владельца магазинов
+ */
+public record UserNotificationSettingsChangedEvent(Long userId) {
+}
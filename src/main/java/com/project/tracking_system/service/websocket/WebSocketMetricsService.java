@@ -0,0 +1,152 @@
+package com.project.tracking_system.service.websocket;
+
+import com.project.tracking_system.dto.WebSocketMetricsDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики STOMP-брокера: сессии, подписки, поток кадров и потери.
+ * <p>
+ * Сессии и подписки учитываются по событиям жизненного цикла, исходящие
+ * кадры — перехватчиком исходящего канала. Повторные события отключения
+ * одной сессии не искажают счётчики.
+ * </p>
+ */
+@Slf4j
+@Service
+public class WebSocketMetricsService implements ChannelInterceptor {
+
+    private final ThreadPoolTaskExecutor inboundExecutor;
+    private final ThreadPoolTaskExecutor outboundExecutor;
+    private final Clock clock;
+
+    /** Количество подписок каждой подключённой сессии. */
+    private final Map<String, AtomicInteger> sessions = new ConcurrentHashMap<>();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder droppedMessages = new LongAdder();
+    private final LongAdder slowSessionsClosed = new LongAdder();
+
+    private long lastFrames;
+    private long lastSampleMillis;
+    private volatile double framesPerSecond;
+
+    public WebSocketMetricsService(@Lazy @Qualifier("clientInboundChannelExecutor") ThreadPoolTaskExecutor inboundExecutor,
+                                   @Lazy @Qualifier("clientOutboundChannelExecutor") ThreadPoolTaskExecutor outboundExecutor,
+                                   Clock clock) {
+        this.inboundExecutor = inboundExecutor;
+        this.outboundExecutor = outboundExecutor;
+        this.clock = clock;
+        this.lastSampleMillis = clock.millis();
+    }
+
+    /**
+     * Учитывает кадры MESSAGE, переданные в исходящий канал.
+     */
+    @Override
+    public void postSend(Message<?> message, MessageChannel channel, boolean sent) {
+        if (sent && SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+            framesSent.increment();
+        }
+    }
+
+    /**
+     * Учитывает события, отброшенные до отправки в брокер.
+     *
+     * @param count количество отброшенных событий
+     */
+    public void recordDropped(int count) {
+        if (count > 0) {
+            droppedMessages.add(count);
+        }
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId != null) {
+            sessions.putIfAbsent(sessionId, new AtomicInteger());
+        }
+    }
+
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        if (sessions.remove(event.getSessionId()) != null
+                && CloseStatus.SESSION_NOT_RELIABLE.equals(event.getCloseStatus())) {
+            // Так закрываются сессии, превысившие лимит буфера или времени отправки
+            slowSessionsClosed.increment();
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        changeSubscriptions(event.getMessage(), 1);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        changeSubscriptions(event.getMessage(), -1);
+    }
+
+    /**
+     * Возвращает текущий снимок метрик.
+     *
+     * @return состояние брокера
+     */
+    public WebSocketMetricsDTO snapshot() {
+        int subscriptions = sessions.values().stream().mapToInt(AtomicInteger::get).sum();
+        return new WebSocketMetricsDTO(
+                sessions.size(),
+                subscriptions,
+                framesSent.sum(),
+                framesPerSecond,
+                droppedMessages.sum(),
+                slowSessionsClosed.sum(),
+                outboundExecutor.getQueueSize(),
+                inboundExecutor.getQueueSize());
+    }
+
+    /**
+     * Обновляет скорость отправки кадров и пишет метрики в журнал.
+     */
+    @Scheduled(fixedDelayString = "${websocket.metrics.sample-interval-ms:60000}")
+    public synchronized void sample() {
+        long now = clock.millis();
+        long frames = framesSent.sum();
+        long elapsed = now - lastSampleMillis;
+        if (elapsed > 0) {
+            framesPerSecond = (frames - lastFrames) * 1000.0 / elapsed;
+        }
+        lastFrames = frames;
+        lastSampleMillis = now;
+        log.debug("WebSocket метрики: {}", snapshot());
+    }
+
+    private void changeSubscriptions(Message<?> message, int delta) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        AtomicInteger counter = sessionId != null ? sessions.get(sessionId) : null;
+        if (counter != null) {
+            counter.updateAndGet(value -> Math.max(0, value + delta));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.project.tracking_system.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import java.util.function.Function;
+
+/**
+ * Утилиты для кэшей Caffeine, которые сбрасываются событиями.
+ */
+public final class CacheUtils {
+
+    private CacheUtils() {
+    }
+
+    /**
+     * Возвращает значение из кэша, загружая его при отсутствии.
+     * <p>
+     * Загрузка выполняется внутри {@code asMap().compute} и удерживает блокировку
+     * только своего ключа. Сброс того же ключа через {@link Cache#invalidate}
+     * дожидается окончания загрузки и удаляет её результат, поэтому данные,
+     * прочитанные до фиксации изменений, не остаются в кэше. Сбросы других
+     * ключей загрузку не затрагивают. Загрузчик не должен обращаться к тому же
+     * кэшу.
+     * </p>
+     *
+     * @param cache  кэш Caffeine
+     * @param key    ключ записи
+     * @param loader загрузка значения; {@code null} не кэшируется
+     * @param <K>    тип ключа
+     * @param <V>    тип значения
+     * @return значение из кэша, загруженное значение или {@code null}
+     */
+    public static <K, V> V getOrLoad(Cache<K, V> cache, K key, Function<K, V> loader) {
+        V cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        return cache.asMap().compute(key, (k, current) -> current != null ? current : loader.apply(k));
+    }
+}
@@ -0,0 +1,119 @@
+package com.project.tracking_system.utils;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Позиция в списке посылок, упорядоченном по паре (timestamp, id).
+ * <p>
+ * Курсор передаётся клиенту в виде непрозрачной строки и указывает строку,
+ * после которой (или перед которой при движении назад) начинается следующая
+ * страница. Время хранится с точностью до микросекунд, как в PostgreSQL.
+ * </p>
+ *
+ * @param timestamp момент граничной строки
+ * @param id        идентификатор граничной строки
+ * @param backward  {@code true}, если страница запрашивается в обратном направлении
+ */
+public record KeysetCursor(Instant timestamp, long id, boolean backward) {
+
+    /** Граница, которая раньше любой посылки: начало списка по возрастанию. */
+    private static final Instant MIN_TIMESTAMP = Instant.parse("1900-01-01T00:00:00Z");
+
+    /** Граница, которая позже любой посылки: начало списка по убыванию. */
+    private static final Instant MAX_TIMESTAMP = Instant.parse("9999-12-31T00:00:00Z");
+
+    private static final int ENCODED_BYTES = Long.BYTES * 2 + 1;
+
+    /**
+     * Курсор первой страницы.
+     *
+     * @param ascending порядок сортировки списка
+     * @return курсор, предшествующий первой строке списка
+     */
+    public static KeysetCursor start(boolean ascending) {
+        return ascending
+                ? new KeysetCursor(MIN_TIMESTAMP, Long.MIN_VALUE, false)
+                : new KeysetCursor(MAX_TIMESTAMP, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * Курсор следующей страницы после указанной строки.
+     */
+    public static KeysetCursor after(ZonedDateTime timestamp, Long id) {
+        return new KeysetCursor(timestamp.toInstant().truncatedTo(ChronoUnit.MICROS), id, false);
+    }
+
+    /**
+     * Курсор предыдущей страницы перед указанной строкой.
+     */
+    public static KeysetCursor before(ZonedDateTime timestamp, Long id) {
+        return new KeysetCursor(timestamp.toInstant().truncatedTo(ChronoUnit.MICROS), id, true);
+    }
+
+    /**
+     * Определяет направление просмотра таблицы для этого курсора.
+     *
+     * @param ascending порядок сортировки списка
+     * @return {@code true}, если строки нужно выбирать по возрастанию (timestamp, id)
+     */
+    public boolean seekAscending(boolean ascending) {
+        return ascending != backward;
+    }
+
+    /**
+     * @return момент граничной строки в UTC для передачи в запрос
+     */
+    public ZonedDateTime timestampUtc() {
+        return timestamp.atZone(ZoneOffset.UTC);
+    }
+
+    /**
+     * Кодирует курсор в строку, безопасную для URL.
+     *
+     * @return непрозрачное представление курсора
+     */
+    public String encode() {
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, timestamp);
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .put((byte) (backward ? 1 : 0))
+                .putLong(micros)
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Восстанавливает курсор из строки.
+     *
+     * @param token строка, полученная из {@link #encode()}
+     * @return курсор или {@code null}, если строка пуста, повреждена или выходит за допустимый диапазон
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(token);
+            if (bytes.length != ENCODED_BYTES) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte direction = buffer.get();
+            if (direction != 0 && direction != 1) {
+                return null;
+            }
+            Instant timestamp = Instant.EPOCH.plus(buffer.getLong(), ChronoUnit.MICROS);
+            if (timestamp.isBefore(MIN_TIMESTAMP) || timestamp.isAfter(MAX_TIMESTAMP)) {
+                return null;
+            }
+            return new KeysetCursor(timestamp, buffer.getLong(), direction == 1);
+        } catch (IllegalArgumentException | ArithmeticException | DateTimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.project.tracking_system.utils;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница списка, полученная поиском по ключу (keyset pagination).
+ * <p>
+ * В отличие от {@link org.springframework.data.domain.Page} не содержит общего
+ * количества строк: стоимость запроса не зависит от глубины страницы, а переход
+ * выполняется по курсорам соседних страниц.
+ * </p>
+ *
+ * @param content        строки страницы в порядке отображения
+ * @param nextCursor     курсор следующей страницы или {@code null}
+ * @param previousCursor курсор предыдущей страницы или {@code null}
+ * @param <T>            тип строк
+ */
+public record KeysetPage<T>(List<T> content, String nextCursor, String previousCursor) {
+
+    public KeysetPage {
+        content = content == null ? List.of() : List.copyOf(content);
+    }
+
+    /**
+     * Собирает страницу из строк, выбранных запросом с лимитом {@code size + 1}.
+     * <p>
+     * Лишняя строка лишь сигнализирует о наличии продолжения в направлении
+     * просмотра. При движении назад строки приходят в обратном порядке
+     * и разворачиваются перед отображением.
+     * </p>
+     *
+     * @param rows      выбранные строки в порядке просмотра
+     * @param size      размер страницы
+     * @param position  курсор запроса или {@code null} для первой страницы
+     * @param timestamp извлечение момента строки
+     * @param id        извлечение идентификатора строки
+     * @param <E>       тип строк
+     * @return страница с курсорами соседних страниц
+     */
+    public static <E> KeysetPage<E> fromRows(List<E> rows,
+                                             int size,
+                                             KeysetCursor position,
+                                             Function<E, ZonedDateTime> timestamp,
+                                             Function<E, Long> id) {
+        boolean hasMore = rows.size() > size;
+        List<E> page = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        boolean backward = position != null && position.backward();
+        if (backward) {
+            Collections.reverse(page);
+        }
+        if (page.isEmpty()) {
+            return new KeysetPage<>(page, null, null);
+        }
+
+        // Вперёд можно идти, если за страницей есть строки или мы пришли с последующей страницы
+        boolean hasNext = backward || hasMore;
+        // Назад можно идти, если страница не первая
+        boolean hasPrevious = backward ? hasMore : position != null;
+
+        E first = page.get(0);
+        E last = page.get(page.size() - 1);
+        String next = hasNext ? KeysetCursor.after(timestamp.apply(last), id.apply(last)).encode() : null;
+        String previous = hasPrevious ? KeysetCursor.before(timestamp.apply(first), id.apply(first)).encode() : null;
+        return new KeysetPage<>(page, next, previous);
+    }
+
+    /**
+     * Преобразует строки страницы, сохраняя курсоры.
+     */
+    public <R> KeysetPage<R> map(Function<T, R> mapper) {
+        return new KeysetPage<>(content.stream().map(mapper).toList(), nextCursor, previousCursor);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    public boolean isEmpty() {
+        return content.isEmpty();
+    }
+}
@@ -0,0 +1,88 @@
+-- Представления для set-based пересчёта статистики магазинов и почтовых служб.
+-- Даты приводятся к UTC так же, как при инкрементальном обновлении счётчиков.
+
+-- Факты по каждой посылке: дата отправки, финальный статус и длительности этапов.
+-- Удалённые посылки с финальным статусом учитываются по осиротевшей истории доставки.
+CREATE OR REPLACE VIEW v_parcel_statistics_facts AS
+SELECT f.store_id,
+       f.postal_service,
+       f.sent_date,
+       f.final_status,
+       CASE f.final_status
+           WHEN 'DELIVERED' THEN CAST(f.received_date AT TIME ZONE 'UTC' AS DATE)
+           WHEN 'RETURNED' THEN CAST(f.returned_date AT TIME ZONE 'UTC' AS DATE)
+       END AS event_date,
+       CASE
+           WHEN f.final_status IS NOT NULL AND f.send_date IS NOT NULL AND f.arrived_date IS NOT NULL
+               THEN ROUND(TRUNC(EXTRACT(EPOCH FROM (f.arrived_date - f.send_date)) / 3600) / 24.0, 2)
+           ELSE 0
+       END AS delivery_days,
+       CASE
+           WHEN f.final_status = 'DELIVERED' AND f.arrived_date IS NOT NULL AND f.received_date IS NOT NULL
+               THEN TRUNC(EXTRACT(EPOCH FROM (f.received_date - f.arrived_date)) / 86400)
+           ELSE 0
+       END AS pickup_days
+FROM (
+    SELECT p.store_id,
+           dh.postal_service,
+           CAST(COALESCE(dh.send_date, p.timestamp) AT TIME ZONE 'UTC' AS DATE) AS sent_date,
+           CASE
+               WHEN NOT p.included_in_statistics
+                   OR dh.postal_service IS NULL
+                   OR dh.postal_service = 'UNKNOWN' THEN NULL
+               WHEN p.status IN ('DELIVERED', 'RETURNED') THEN p.status
+           END AS final_status,
+           dh.send_date,
+           dh.arrived_date,
+           dh.received_date,
+           dh.returned_date
+    FROM tb_track_parcels p
+    LEFT JOIN tb_delivery_history dh ON dh.track_parcel_id = p.id
+    WHERE p.status <> 'PRE_REGISTERED'
+    UNION ALL
+    SELECT dh.store_id,
+           dh.postal_service,
+           CAST(dh.send_date AT TIME ZONE 'UTC' AS DATE),
+           CASE
+               WHEN dh.postal_service = 'UNKNOWN' THEN NULL
+               WHEN dh.received_date IS NOT NULL THEN 'DELIVERED'
+               ELSE 'RETURNED'
+           END,
+           dh.send_date,
+           dh.arrived_date,
+           dh.received_date,
+           dh.returned_date
+    FROM tb_delivery_history dh
+    WHERE dh.track_parcel_id IS NULL
+      AND (dh.received_date IS NOT NULL OR dh.returned_date IS NOT NULL)
+) f;
+
+-- Ожидаемые значения ежедневной статистики в разрезе магазина, службы и даты.
+CREATE OR REPLACE VIEW v_statistics_daily_expected AS
+SELECT e.store_id,
+       e.postal_service,
+       e.day AS date,
+       SUM(e.sent) AS sent,
+       SUM(e.delivered) AS delivered,
+       SUM(e.returned) AS returned,
+       SUM(e.delivery_days) AS sum_delivery_days,
+       SUM(e.pickup_days) AS sum_pickup_days
+FROM (
+    SELECT store_id, postal_service, sent_date AS day,
+           1 AS sent, 0 AS delivered, 0 AS returned,
+           0 AS delivery_days, 0 AS pickup_days
+    FROM v_parcel_statistics_facts
+    WHERE sent_date IS NOT NULL
+    UNION ALL
+    SELECT store_id, postal_service, event_date,
+           0,
+           CASE WHEN final_status = 'DELIVERED' THEN 1 ELSE 0 END,
+           CASE WHEN final_status = 'RETURNED' THEN 1 ELSE 0 END,
+           delivery_days, pickup_days
+    FROM v_parcel_statistics_facts
+    WHERE event_date IS NOT NULL
+) e
+GROUP BY e.store_id, e.postal_service, e.day;
+
+CREATE INDEX IF NOT EXISTS idx_parcels_customer_status
+    ON tb_track_parcels(customer_id, status);
@@ -0,0 +1,18 @@
+-- flyway:transactional=false
+-- Триграммные индексы для поиска посылок по номеру, телефону и ФИО покупателя.
+-- Каждая ветвь запроса TrackParcelRepository.searchByNumberPhoneOrName
+-- обслуживается своим индексом вместо последовательного сканирования.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_parcels_number_trgm
+    ON tb_track_parcels USING gin (LOWER(tracking_number) gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customers_phone_trgm
+    ON tb_customers USING gin (phone gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customers_full_name_trgm
+    ON tb_customers USING gin (LOWER(full_name) gin_trgm_ops);
+
+-- Найденные по телефону и ФИО покупатели соединяются с посылками по customer_id
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_parcels_customer_id
+    ON tb_track_parcels(customer_id);
@@ -0,0 +1,13 @@
+-- flyway:transactional=false
+-- Индексы для постраничного вывода посылок по ключу (timestamp, id)
+
+-- Список отправлений: фильтр по магазину и порядок по дате
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_parcels_store_timestamp_id
+    ON tb_track_parcels(store_id, timestamp, id);
+
+-- Список посылок в админ-панели: порядок по дате без фильтров
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_parcels_timestamp_id
+    ON tb_track_parcels(timestamp, id);
+
+-- Индекс только по дате полностью покрывается idx_parcels_timestamp_id
+DROP INDEX CONCURRENTLY IF EXISTS idx_parcels_timestamp;
@@ -0,0 +1,16 @@
+-- Задания рассылки административных объявлений в Telegram.
+-- last_chat_id хранит последний обработанный чат: чаты обходятся по возрастанию
+-- идентификатора, поэтому прерванная рассылка продолжается с места остановки.
+CREATE TABLE tb_announcement_broadcasts (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    notification_id BIGINT NOT NULL REFERENCES tb_admin_notifications(id) ON DELETE CASCADE,
+    status VARCHAR(32) NOT NULL,
+    total_chats BIGINT NOT NULL DEFAULT 0,
+    sent_count BIGINT NOT NULL DEFAULT 0,
+    failed_count BIGINT NOT NULL DEFAULT 0,
+    last_chat_id BIGINT,
+    started_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    finished_at TIMESTAMP WITH TIME ZONE
+);
+CREATE INDEX idx_announcement_broadcasts_status ON tb_announcement_broadcasts(status);
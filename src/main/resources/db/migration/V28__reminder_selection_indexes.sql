@@ -0,0 +1,8 @@
+-- flyway:transactional=false
+-- Индексы для отбора посылок, ожидающих напоминания.
+-- Проверка последнего напоминания выполняется подзапросом NOT EXISTS по журналу,
+-- а посылки в ожидании выдачи обходятся порциями по возрастанию идентификатора.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customer_notifications_parcel_type_sent
+    ON tb_customer_notifications(parcel_id, notification_type, sent_at);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_track_parcels_waiting_for_customer
+    ON tb_track_parcels(id) WHERE status = 'WAITING_FOR_CUSTOMER';
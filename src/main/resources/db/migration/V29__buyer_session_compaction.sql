@@ -0,0 +1,7 @@
+-- Время последней активности сессий покупательского бота для удаления давно неактивных чатов.
+-- Для существующих записей точное время неизвестно, поэтому отсчёт начинается с момента миграции.
+-- Индексы по времени активности и перевод пути навигации выполняются в V36 без общей транзакции.
+ALTER TABLE tb_buyer_bot_screen_states
+    ADD COLUMN IF NOT EXISTS last_activity_at TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE tb_buyer_announcement_states
+    ADD COLUMN IF NOT EXISTS last_activity_at TIMESTAMPTZ NOT NULL DEFAULT now();
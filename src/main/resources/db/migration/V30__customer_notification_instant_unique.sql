@@ -0,0 +1,10 @@
+-- Мгновенное уведомление о статусе отправляется по посылке не более одного раза.
+-- Перед построением уникального индекса (V34) удаляем ранее записанные повторы,
+-- оставляя самую раннюю запись по посылке и статусу.
+DELETE FROM tb_customer_notifications n
+USING tb_customer_notifications d
+WHERE n.notification_type = 'INSTANT'
+  AND d.notification_type = 'INSTANT'
+  AND n.parcel_id = d.parcel_id
+  AND n.status = d.status
+  AND n.id > d.id;
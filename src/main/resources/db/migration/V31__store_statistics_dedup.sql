@@ -0,0 +1,7 @@
+-- Накопительная статистика магазина хранится одной строкой: пересчёт записывает её
+-- через INSERT ... ON CONFLICT (store_id). Перед созданием уникального индекса
+-- удаляем повторные строки, оставляя самую раннюю.
+DELETE FROM tb_store_statistics s
+USING tb_store_statistics d
+WHERE s.store_id = d.store_id
+  AND s.id > d.id;
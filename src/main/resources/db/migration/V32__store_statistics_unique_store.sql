@@ -0,0 +1,7 @@
+-- flyway:transactional=false
+-- Уникальный индекс для пересчёта статистики через INSERT ... ON CONFLICT (store_id)
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_store_statistics_store_id
+    ON tb_store_statistics(store_id);
+
+-- Прежний неуникальный индекс полностью покрывается уникальным
+DROP INDEX CONCURRENTLY IF EXISTS idx_store_statistics_store_id;
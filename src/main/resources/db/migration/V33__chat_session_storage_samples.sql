@@ -0,0 +1,14 @@
+-- Замеры таблиц состояния сессий покупательского Telegram-бота после ночной очистки.
+-- История хранится в базе, чтобы рост таблиц был виден и после перезапуска приложения.
+CREATE TABLE tb_chat_session_storage_samples (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sampled_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    screen_states BIGINT NOT NULL,
+    screen_states_bytes BIGINT NOT NULL,
+    announcement_states BIGINT NOT NULL,
+    announcement_states_bytes BIGINT NOT NULL,
+    removed_screen_states INT NOT NULL,
+    removed_announcement_states INT NOT NULL
+);
+CREATE INDEX idx_chat_session_storage_samples_sampled_at
+    ON tb_chat_session_storage_samples(sampled_at);
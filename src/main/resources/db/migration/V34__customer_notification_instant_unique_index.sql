@@ -0,0 +1,10 @@
+-- flyway:transactional=false
+-- Уникальный индекс для записи мгновенного уведомления через INSERT ... ON CONFLICT DO NOTHING:
+-- параллельные обновления одной посылки не дублируют уведомление.
+-- Индекс строится без блокировки записи в журнал; невалидный индекс,
+-- оставшийся после прерванного построения, удаляется перед повторной попыткой.
+DROP INDEX CONCURRENTLY IF EXISTS uq_customer_notifications_instant;
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_customer_notifications_instant
+    ON tb_customer_notifications(parcel_id, status)
+    WHERE notification_type = 'INSTANT';
@@ -0,0 +1,60 @@
+-- Даты событий в пересчёте статистики совпадают с инкрементальным учётом:
+-- отправка относится к дню текущей отметки времени посылки в UTC
+-- (TrackStatisticsUpdater переносит её вместе с отметкой), вручение и возврат —
+-- к дню соответствующей даты истории доставки в UTC. Для удалённых посылок
+-- отправка относится к дню даты отправки из истории доставки.
+CREATE OR REPLACE VIEW v_parcel_statistics_facts AS
+SELECT f.store_id,
+       f.postal_service,
+       f.sent_date,
+       f.final_status,
+       CASE f.final_status
+           WHEN 'DELIVERED' THEN CAST(f.received_date AT TIME ZONE 'UTC' AS DATE)
+           WHEN 'RETURNED' THEN CAST(f.returned_date AT TIME ZONE 'UTC' AS DATE)
+       END AS event_date,
+       CASE
+           WHEN f.final_status IS NOT NULL AND f.send_date IS NOT NULL AND f.arrived_date IS NOT NULL
+               THEN ROUND(TRUNC(EXTRACT(EPOCH FROM (f.arrived_date - f.send_date)) / 3600) / 24.0, 2)
+           ELSE 0
+       END AS delivery_days,
+       CASE
+           WHEN f.final_status = 'DELIVERED' AND f.arrived_date IS NOT NULL AND f.received_date IS NOT NULL
+               THEN TRUNC(EXTRACT(EPOCH FROM (f.received_date - f.arrived_date)) / 86400)
+           ELSE 0
+       END AS pickup_days,
+       (f.final_status IS NOT NULL AND f.send_date IS NOT NULL AND f.arrived_date IS NOT NULL) AS has_delivery_days,
+       (f.final_status = 'DELIVERED' AND f.arrived_date IS NOT NULL AND f.received_date IS NOT NULL) AS has_pickup_days
+FROM (
+    SELECT p.store_id,
+           dh.postal_service,
+           CAST(p.timestamp AT TIME ZONE 'UTC' AS DATE) AS sent_date,
+           CASE
+               WHEN NOT p.included_in_statistics
+                   OR dh.postal_service IS NULL
+                   OR dh.postal_service = 'UNKNOWN' THEN NULL
+               WHEN p.status IN ('DELIVERED', 'RETURNED') THEN p.status
+           END AS final_status,
+           dh.send_date,
+           dh.arrived_date,
+           dh.received_date,
+           dh.returned_date
+    FROM tb_track_parcels p
+    LEFT JOIN tb_delivery_history dh ON dh.track_parcel_id = p.id
+    WHERE p.status <> 'PRE_REGISTERED'
+    UNION ALL
+    SELECT dh.store_id,
+           dh.postal_service,
+           CAST(dh.send_date AT TIME ZONE 'UTC' AS DATE),
+           CASE
+               WHEN dh.postal_service = 'UNKNOWN' THEN NULL
+               WHEN dh.received_date IS NOT NULL THEN 'DELIVERED'
+               ELSE 'RETURNED'
+           END,
+           dh.send_date,
+           dh.arrived_date,
+           dh.received_date,
+           dh.returned_date
+    FROM tb_delivery_history dh
+    WHERE dh.track_parcel_id IS NULL
+      AND (dh.received_date IS NOT NULL OR dh.returned_date IS NOT NULL)
+) f;
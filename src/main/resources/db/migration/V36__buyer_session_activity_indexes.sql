@@ -0,0 +1,41 @@
+-- flyway:transactional=false
+-- Индексы по времени последней активности сессий покупательского бота
+-- строятся без блокировки записи в таблицы сессий.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_buyer_bot_screen_states_last_activity
+    ON tb_buyer_bot_screen_states(last_activity_at);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_buyer_announcement_states_last_activity
+    ON tb_buyer_announcement_states(last_activity_at);
+
+-- Путь навигации хранится порядковыми номерами экранов: одна цифра base36 на экран
+-- вместо имён через запятую. Неизвестные имена отбрасываются, как и при чтении.
+-- Записи переводятся пачками с фиксацией после каждой, чтобы не держать
+-- блокировки строк всей таблицы до конца миграции.
+DO $$
+DECLARE
+    updated INTEGER;
+BEGIN
+    LOOP
+        UPDATE tb_buyer_bot_screen_states s
+        SET navigation_path = (
+            SELECT string_agg(CASE trim(p.name)
+                                  WHEN 'MENU' THEN '0'
+                                  WHEN 'STATISTICS' THEN '1'
+                                  WHEN 'PARCELS' THEN '2'
+                                  WHEN 'SETTINGS' THEN '3'
+                                  WHEN 'HELP' THEN '4'
+                                  WHEN 'NAME_CONFIRMATION' THEN '5'
+                                  WHEN 'NAME_EDIT_PROMPT' THEN '6'
+                              END, '' ORDER BY p.ord)
+            FROM regexp_split_to_table(s.navigation_path, ',') WITH ORDINALITY AS p(name, ord)
+        )
+        WHERE s.chat_id IN (
+            SELECT chat_id
+            FROM tb_buyer_bot_screen_states
+            WHERE navigation_path ~ '[A-Z]'
+            LIMIT 5000
+        );
+        GET DIAGNOSTICS updated = ROW_COUNT;
+        EXIT WHEN updated = 0;
+        COMMIT;
+    END LOOP;
+END $$;
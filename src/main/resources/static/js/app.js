@@ -237,6 +237,8 @@ function initSortDateToggle() {
         const currentOrder = url.searchParams.get('sortOrder');
         const newOrder = currentOrder === 'asc' ? 'desc' : 'asc';
         url.searchParams.set('sortOrder', newOrder);
+        // Курсор привязан к прежнему порядку сортировки
+        url.searchParams.delete('cursor');
 
         fetch(url.toString(), { method: 'GET', cache: 'no-store' })
             .then(response => {
@@ -257,6 +259,13 @@ function initSortDateToggle() {
                     }
                 }
 
+                // Ссылки пагинации содержат порядок сортировки и курсор, поэтому обновляем и их
+                const newPagination = doc.getElementById('departuresPagination');
+                const currentPagination = document.getElementById('departuresPagination');
+                if (newPagination && currentPagination) {
+                    currentPagination.innerHTML = newPagination.innerHTML;
+                }
+
                 // Обновляем иконку сортировки, чтобы отразить текущее состояние
                 const newIcon = doc.querySelector('#sortDateBtn i');
                 const currentIcon = sortBtn.querySelector('i');
@@ -2637,6 +2646,9 @@ document.addEventListener("DOMContentLoaded", function () {
             currentUrl.searchParams.delete("query");
         }
 
+        // Курсор страницы относится к прежнему набору фильтров
+        currentUrl.searchParams.delete("cursor");
+
         debugLog("✅ Фильтр применён: статус =", selectedStatus, "магазин =", selectedStore || "нет выбора", "query=", query);
 
         window.location.href = currentUrl.toString();
@@ -178,9 +178,7 @@
             .finally(() => connectSocket(userId, container));
 
         // Загружаем сохранённые результаты последней партии
-        fetch("/app/results/latest", {cache: "no-store"})
-            .then(r => r.ok ? r.json() : [])
-            .then(list => list.forEach(item => updateTrackingRow(item.trackingNumber, item.status)));
+        loadResults(null);
 
         // Загружаем сохранённые некорректные строки
         fetch("/app/invalid/latest", {cache: "no-store"})
@@ -188,6 +186,45 @@
             .then(list => list.forEach(item => updateInvalidTrackRow(item.number, item.reason)));
     }
 
+    /**
+     * Позиция в журнале результатов партии, до которой клиент уже получил строки.
+     * Позволяет при повторной загрузке запрашивать только новые результаты.
+     * @type {{batchId:number|null, offset:number}}
+     */
+    const resultsCursor = {
+        batchId: null,
+        offset: 0
+    };
+
+    /**
+     * Дочитывает сохранённые результаты партии начиная с последней известной позиции.
+     * Порции запрашиваются последовательно, пока сервер сообщает о наличии новых строк.
+     *
+     * @param {number|null} batchId идентификатор партии; null — последняя партия пользователя
+     * @returns {Promise<void>}
+     */
+    function loadResults(batchId) {
+        const sameBatch = batchId !== null && batchId === resultsCursor.batchId;
+        const params = new URLSearchParams({after: sameBatch ? resultsCursor.offset : 0});
+        if (batchId !== null) {
+            params.set("batchId", batchId);
+        }
+        return fetch(`/app/results?${params}`, {cache: "no-store"})
+            .then(r => r.ok ? r.json() : null)
+            .then(chunk => {
+                if (!chunk || chunk.batchId === null) {
+                    return;
+                }
+                resultsCursor.batchId = chunk.batchId;
+                chunk.results.forEach(item => updateTrackingRow(item.trackingNumber, item.status));
+                resultsCursor.offset = chunk.nextOffset;
+                if (chunk.hasMore) {
+                    return loadResults(chunk.batchId);
+                }
+            })
+            .catch(err => console.error("Results loading error", err));
+    }
+
     /**
      * Подключается к WebSocket и подписывается на канал прогресса.
      * В случае ошибки запускает периодический опрос REST.
@@ -220,11 +257,13 @@
 
             // Подписка на события обработки трека Белпочты
             // Глобальный прогресс обновляется через канал /topic/progress,
-            // поэтому здесь обновляем только информацию по конкретному треку
+            // поэтому здесь обновляем только информацию по конкретным трекам.
+            // Сервер объединяет события и присылает их массивом
             stompClient.subscribe(`/topic/belpost/track-processed/${userId}`, message => {
                 progressContainer = container;
                 const data = JSON.parse(message.body);
-                updateTrackingRow(data.trackingNumber, data.status);
+                const list = Array.isArray(data) ? data : [data];
+                list.forEach(item => updateTrackingRow(item.trackingNumber, item.status));
             });
 
             // Подписка на событие завершения партии треков Белпочты.
@@ -288,6 +327,8 @@
                 .then(r => r.ok ? r.json() : Promise.reject(r.status))
                 .then(data => {
                     updateDisplay(data, container);
+                    // Без WebSocket строки таблицы дочитываются из журнала результатов
+                    loadResults(data.batchId || lastBatchId);
                     if (data.processed >= data.total) {
                         stopPolling();
                     }
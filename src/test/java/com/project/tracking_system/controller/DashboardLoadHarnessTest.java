@@ -0,0 +1,97 @@
+package com.project.tracking_system.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочный стенд страниц приложения для сравнения режимов Open Session In View.
+ * <p>
+ * По умолчанию пропускается. Приложение запускается с маленьким пулом
+ * соединений и журналом состояния пула Hikari, затем стенд выполняется
+ * дважды — с {@code spring.jpa.open-in-view=true} и {@code false}:
+ * </p>
+ * <pre>
+ * java -jar app.jar --spring.datasource.hikari.maximum-pool-size=5 \
+ *     --logging.level.com.zaxxer.hikari.pool.HikariPool=DEBUG \
+ *     --spring.jpa.open-in-view=false
+ *
+ * mvn test -Dtest=DashboardLoadHarnessTest \
+ *     -Ddashboard.load.url=http://localhost:8080/app/departures \
+ *     -Ddashboard.load.cookie="JSESSIONID=..." \
+ *     -Ddashboard.load.threads=50 -Ddashboard.load.requests=2000
+ * </pre>
+ * <p>
+ * Стенд печатает перцентили времени ответа, а Hikari раз в 30 секунд пишет
+ * в журнал число потоков, ожидающих соединение ({@code waiting}).
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "dashboard.load.url", matches = "https?://.+")
+class DashboardLoadHarnessTest {
+
+    @Test
+    void measuresResponseTimesUnderConcurrentLoad() throws Exception {
+        URI uri = URI.create(System.getProperty("dashboard.load.url"));
+        String cookie = System.getProperty("dashboard.load.cookie", "");
+        int threads = Integer.getInteger("dashboard.load.threads", 50);
+        int requests = Integer.getInteger("dashboard.load.requests", 2000);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET();
+        if (!cookie.isBlank()) {
+            builder.header("Cookie", cookie);
+        }
+        HttpRequest request = builder.build();
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(requests));
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        failed.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                }
+                latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.MINUTES), "Прогон не завершился вовремя");
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("Запросов: %d, ошибок: %d, %.1f запр/с%n", sorted.size(), failed.get(), sorted.size() / seconds);
+        System.out.printf("p50=%d мс, p95=%d мс, p99=%d мс, max=%d мс%n",
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), sorted.get(sorted.size() - 1));
+
+        assertTrue(failed.get() < sorted.size(), "Все запросы завершились ошибкой");
+    }
+
+    private static long percentile(List<Long> sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+}
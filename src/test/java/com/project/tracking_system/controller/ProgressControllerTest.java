@@ -1,7 +1,10 @@
 package com.project.tracking_system.controller;
 
 import com.project.tracking_system.dto.TrackProcessingProgressDTO;
+import com.project.tracking_system.dto.TrackResultsChunkDTO;
+import com.project.tracking_system.entity.User;
 import com.project.tracking_system.service.track.ProgressAggregatorService;
+import com.project.tracking_system.service.track.TrackingResultCacheService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -10,6 +13,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -22,6 +27,9 @@ class ProgressControllerTest {
     @Mock
     private ProgressAggregatorService progressAggregatorService;
 
+    @Mock
+    private TrackingResultCacheService trackingResultCacheService;
+
     @InjectMocks
     private ProgressController controller;
 
@@ -36,4 +44,16 @@ class ProgressControllerTest {
         TrackProcessingProgressDTO body = response.getBody();
         assertEquals(dto, body);
     }
+
+    @Test
+    void getResultsChunk_CapsChunkSize() {
+        User user = new User();
+        user.setId(1L);
+        TrackResultsChunkDTO chunk = new TrackResultsChunkDTO(7L, 12, true, List.of());
+        when(trackingResultCacheService.getResultsChunk(1L, 7L, 10, 2000)).thenReturn(chunk);
+
+        ResponseEntity<TrackResultsChunkDTO> response = controller.getResultsChunk(user, 7L, 10, 1_000_000);
+
+        assertEquals(chunk, response.getBody());
+    }
 }
@@ -0,0 +1,101 @@
+package com.project.tracking_system.repository;
+
+import com.project.tracking_system.entity.*;
+import org.hibernate.Hibernate;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка плана загрузки журнала уведомлений для страницы администратора.
+ * <p>
+ * Open Session In View отключён, поэтому всё, что выводит шаблон,
+ * должно загружаться в запросе репозитория.
+ * </p>
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class CustomerNotificationLogRepositoryTest {
+
+    @Autowired
+    private CustomerNotificationLogRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail("owner@example.com");
+        user.setPassword("secret");
+        user.setTimeZone("Europe/Minsk");
+        entityManager.persist(user);
+
+        Store store = new Store();
+        store.setName("Магазин");
+        store.setOwner(user);
+        entityManager.persist(store);
+
+        Customer customer = new Customer();
+        customer.setPhone("375290000001");
+        entityManager.persist(customer);
+
+        TrackParcel parcel = new TrackParcel();
+        parcel.setNumber("RB000000001BY");
+        parcel.setStatus(GlobalStatus.WAITING_FOR_CUSTOMER);
+        parcel.setStore(store);
+        parcel.setUser(user);
+        parcel.setCustomer(customer);
+        entityManager.persist(parcel);
+
+        CustomerNotificationLog log = new CustomerNotificationLog();
+        log.setCustomer(customer);
+        log.setParcel(parcel);
+        log.setStatus(GlobalStatus.WAITING_FOR_CUSTOMER);
+        log.setNotificationType(NotificationType.INSTANT);
+        log.setSentAt(ZonedDateTime.now());
+        entityManager.persist(log);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Покупатель и посылка приходят вместе с записью журнала.
+     */
+    @Test
+    void recentLogsFetchCustomerAndParcel() {
+        List<CustomerNotificationLog> logs = repository.findTop10ByOrderBySentAtDesc();
+        entityManager.clear();
+
+        assertEquals(1, logs.size());
+        CustomerNotificationLog log = logs.get(0);
+        assertTrue(Hibernate.isInitialized(log.getCustomer()));
+        assertTrue(Hibernate.isInitialized(log.getParcel()));
+        assertEquals("375290000001", log.getCustomer().getPhone());
+        assertEquals("RB000000001BY", log.getParcel().getNumber());
+    }
+
+    /**
+     * Связь, не указанная в плане загрузки, недоступна после закрытия контекста.
+     */
+    @Test
+    void lazyAssociationOutsidePlanFailsAfterDetach() {
+        CustomerNotificationLog log = repository.findTop10ByOrderBySentAtDesc().get(0);
+        entityManager.clear();
+
+        assertThrows(LazyInitializationException.class, () -> log.getParcel().getStore().getName());
+    }
+}
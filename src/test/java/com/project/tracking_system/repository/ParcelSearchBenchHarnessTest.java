@@ -0,0 +1,181 @@
+package com.project.tracking_system.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Нагрузочный стенд поиска посылок: прежний запрос с OR против ветвей UNION на 1 млн записей.
+ * <p>
+ * По умолчанию пропускается. Запуск на отдельной БД PostgreSQL после применения миграций:
+ * </p>
+ * <pre>
+ * mvn test -Dtest=ParcelSearchBenchHarnessTest \
+ *     -Dparcel.search.bench.jdbc-url=jdbc:postgresql://localhost:5432/tracking_bench \
+ *     -Dparcel.search.bench.username=postgres -Dparcel.search.bench.password=postgres \
+ *     -Dparcel.search.bench.runs=20
+ * </pre>
+ * <p>
+ * При первом запуске база заполняется скриптом {@code db/bench/parcel_search_bench.sql}.
+ * Для трек-номера, телефона и ФИО выводятся медиана и p95 времени обоих запросов
+ * и план {@code EXPLAIN (ANALYZE, BUFFERS)}; найденные идентификаторы должны совпадать.
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "parcel.search.bench.jdbc-url", matches = "jdbc:postgresql:.+")
+class ParcelSearchBenchHarnessTest {
+
+    private static final String OLD_SEARCH = """
+            SELECT t.id FROM tb_track_parcels t
+            LEFT JOIN tb_customers c ON c.id = t.customer_id
+            WHERE t.user_id = ?
+              AND t.store_id = ?
+              AND (
+                    lower(t.tracking_number) LIKE lower('%' || ? || '%')
+                    OR (? <> '' AND c.phone LIKE '%' || ? || '%')
+                    OR (? <> '' AND lower(c.full_name) LIKE '%' || ? || '%')
+                  )
+            ORDER BY t.timestamp DESC, t.id DESC
+            LIMIT 20
+            """;
+
+    private static final String NEW_SEARCH = """
+            SELECT t.id FROM tb_track_parcels t
+            WHERE t.user_id = ?
+              AND t.store_id = ?
+              AND t.id IN (
+                    SELECT p.id FROM tb_track_parcels p
+                    WHERE p.user_id = ?
+                      AND lower(p.tracking_number) LIKE lower('%' || ? || '%')
+                    UNION
+                    SELECT p.id FROM tb_track_parcels p JOIN tb_customers c ON c.id = p.customer_id
+                    WHERE p.user_id = ? AND ? <> '' AND c.phone LIKE '%' || ? || '%'
+                    UNION
+                    SELECT p.id FROM tb_track_parcels p JOIN tb_customers c ON c.id = p.customer_id
+                    WHERE p.user_id = ? AND ? <> '' AND lower(c.full_name) LIKE '%' || ? || '%'
+                  )
+            ORDER BY t.timestamp DESC, t.id DESC
+            LIMIT 20
+            """;
+
+    private static final int WARMUP_RUNS = 3;
+
+    private record SearchCase(String label, String query, String phoneDigits, String nameToken) {
+    }
+
+    private static final List<SearchCase> CASES = List.of(
+            new SearchCase("трек-номер", "RB000791", "000791", "rb"),
+            new SearchCase("телефон", "+375 29 0012345", "375290012345", ""),
+            new SearchCase("ФИО", "сидоров анна", "", "сидоров")
+    );
+
+    @Test
+    void comparesOrAndUnionSearch() throws Exception {
+        int runs = Integer.getInteger("parcel.search.bench.runs", 20);
+
+        Properties properties = new Properties();
+        properties.setProperty("user", System.getProperty("parcel.search.bench.username", "postgres"));
+        properties.setProperty("password", System.getProperty("parcel.search.bench.password", "postgres"));
+        // Без серверных подготовленных выражений: каждый запуск планируется под свои параметры
+        properties.setProperty("prepareThreshold", "0");
+
+        try (Connection connection = DriverManager.getConnection(
+                System.getProperty("parcel.search.bench.jdbc-url"), properties)) {
+            if (queryLong(connection, "SELECT count(*) FROM tb_users WHERE email LIKE 'bench%@example.com'") == 0) {
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/bench/parcel_search_bench.sql"));
+            }
+            long userId = queryLong(connection, "SELECT min(id) FROM tb_users WHERE email LIKE 'bench%@example.com'");
+            long storeId = queryLong(connection, "SELECT min(id) FROM tb_stores WHERE user_id = " + userId);
+
+            for (SearchCase searchCase : CASES) {
+                Object[] oldParams = {userId, storeId, searchCase.query(),
+                        searchCase.phoneDigits(), searchCase.phoneDigits(),
+                        searchCase.nameToken(), searchCase.nameToken()};
+                Object[] newParams = {userId, storeId, userId, searchCase.query(),
+                        userId, searchCase.phoneDigits(), searchCase.phoneDigits(),
+                        userId, searchCase.nameToken(), searchCase.nameToken()};
+
+                assertEquals(ids(connection, OLD_SEARCH, oldParams), ids(connection, NEW_SEARCH, newParams),
+                        "Запросы вернули разные посылки: " + searchCase.label());
+
+                long[] oldTimes = measure(connection, OLD_SEARCH, oldParams, runs);
+                long[] newTimes = measure(connection, NEW_SEARCH, newParams, runs);
+                System.out.printf("Поиск по %s: OR median=%.2f ms p95=%.2f ms, UNION median=%.2f ms p95=%.2f ms%n",
+                        searchCase.label(),
+                        percentile(oldTimes, 50) / 1_000_000.0, percentile(oldTimes, 95) / 1_000_000.0,
+                        percentile(newTimes, 50) / 1_000_000.0, percentile(newTimes, 95) / 1_000_000.0);
+
+                printPlan(connection, "OR, " + searchCase.label(), OLD_SEARCH, oldParams);
+                printPlan(connection, "UNION, " + searchCase.label(), NEW_SEARCH, newParams);
+            }
+        }
+    }
+
+    private static long[] measure(Connection connection, String sql, Object[] params, int runs) throws SQLException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            ids(connection, sql, params);
+        }
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            ids(connection, sql, params);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times;
+    }
+
+    private static List<Long> ids(Connection connection, String sql, Object[] params) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement statement = prepare(connection, sql, params);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private static void printPlan(Connection connection, String title, String sql, Object[] params) throws SQLException {
+        System.out.println("-- " + title);
+        try (PreparedStatement statement = prepare(connection, "EXPLAIN (ANALYZE, BUFFERS) " + sql, params);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                System.out.println(resultSet.getString(1));
+            }
+        }
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, Object[] params) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+        return statement;
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,107 @@
+package com.project.tracking_system.repository;
+
+import com.project.tracking_system.entity.Store;
+import com.project.tracking_system.entity.StoreStatistics;
+import com.project.tracking_system.entity.User;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка плана загрузки статистики магазинов для страницы аналитики.
+ * <p>
+ * Open Session In View отключён, поэтому название магазина, которое выводит
+ * шаблон, должно загружаться в запросе репозитория.
+ * </p>
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class StoreAnalyticsRepositoryTest {
+
+    @Autowired
+    private StoreAnalyticsRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Long userId;
+    private Long firstStoreId;
+    private Long secondStoreId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail("owner@example.com");
+        user.setPassword("secret");
+        user.setTimeZone("Europe/Minsk");
+        entityManager.persist(user);
+        userId = user.getId();
+
+        firstStoreId = persistStoreWithStatistics(user, "Первый");
+        secondStoreId = persistStoreWithStatistics(user, "Второй");
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Статистика всех магазинов пользователя приходит вместе с магазинами.
+     */
+    @Test
+    void findAllByUserIdFetchesStoreOutsideSession() {
+        List<StoreStatistics> statistics = repository.findAllByUserId(userId);
+        entityManager.clear();
+
+        assertEquals(2, statistics.size());
+        statistics.forEach(stat -> assertTrue(Hibernate.isInitialized(stat.getStore())));
+        assertEquals(List.of("Второй", "Первый"),
+                statistics.stream().map(stat -> stat.getStore().getName()).sorted().toList());
+    }
+
+    /**
+     * Статистика выбранных магазинов приходит вместе с магазинами.
+     */
+    @Test
+    void findByStoreIdInFetchesStoreOutsideSession() {
+        List<StoreStatistics> statistics = repository.findByStoreIdIn(List.of(firstStoreId, secondStoreId));
+        entityManager.clear();
+
+        assertEquals(2, statistics.size());
+        statistics.forEach(stat -> assertTrue(Hibernate.isInitialized(stat.getStore())));
+    }
+
+    /**
+     * Статистика одного магазина приходит вместе с магазином.
+     */
+    @Test
+    void findByStoreIdFetchesStoreOutsideSession() {
+        StoreStatistics statistics = repository.findByStoreId(firstStoreId).orElseThrow();
+        entityManager.clear();
+
+        assertTrue(Hibernate.isInitialized(statistics.getStore()));
+        assertEquals("Первый", statistics.getStore().getName());
+    }
+
+    private Long persistStoreWithStatistics(User owner, String name) {
+        Store store = new Store();
+        store.setName(name);
+        store.setOwner(owner);
+        entityManager.persist(store);
+
+        StoreStatistics statistics = new StoreStatistics();
+        statistics.setStore(store);
+        entityManager.persist(statistics);
+        return store.getId();
+    }
+}
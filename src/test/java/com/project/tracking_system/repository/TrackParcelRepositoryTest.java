@@ -0,0 +1,151 @@
+package com.project.tracking_system.repository;
+
+import com.project.tracking_system.dto.TrackParcelRow;
+import com.project.tracking_system.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка количества SQL-запросов при загрузке списка отправлений.
+ * <p>
+ * Схема создаётся Hibernate по сущностям: тестовые H2-миграции содержат
+ * не все столбцы посылок и пользователей.
+ * </p>
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class TrackParcelRepositoryTest {
+
+    private static final int PARCELS = 20;
+
+    @Autowired
+    private TrackParcelRepository trackParcelRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long userId;
+    private Long storeId;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail("owner@example.com");
+        user.setPassword("secret");
+        user.setTimeZone("Europe/Minsk");
+        entityManager.persist(user);
+
+        Store store = new Store();
+        store.setName("Магазин");
+        store.setOwner(user);
+        entityManager.persist(store);
+
+        for (int i = 0; i < PARCELS; i++) {
+            Customer customer = new Customer();
+            customer.setPhone("37529000" + String.format("%04d", i));
+            customer.setFullName("Иванов Иван " + i);
+            entityManager.persist(customer);
+
+            TrackParcel parcel = new TrackParcel();
+            parcel.setNumber(String.format("RB%09dBY", i));
+            parcel.setStatus(i % 5 == 0 ? GlobalStatus.PRE_REGISTERED : GlobalStatus.IN_TRANSIT);
+            parcel.setStore(store);
+            parcel.setUser(user);
+            parcel.setCustomer(customer);
+            entityManager.persist(parcel);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        userId = user.getId();
+        storeId = store.getId();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * Страница основного списка вместе с покупателями загружается одним запросом.
+     */
+    @Test
+    void keysetPageLoadsRowsWithSingleStatement() {
+        List<TrackParcelRow> rows = trackParcelRepository.findByStoreIdBefore(
+                storeId, null, ZonedDateTime.now().plusDays(1), Long.MAX_VALUE, Limit.of(PARCELS + 1));
+
+        assertEquals(PARCELS, rows.size());
+        assertTrue(rows.stream().allMatch(row -> row.customerName() != null && row.storeId().equals(storeId)),
+                "Данные покупателя и магазина должны приходить в той же строке");
+        assertEquals(1, statistics.getPrepareStatementCount(), "Страница не должна дозагружать связи");
+        assertEquals(0, statistics.getEntityLoadCount(), "Сущности не должны материализоваться");
+    }
+
+    /**
+     * При равной отметке времени страница продолжается по убыванию идентификатора.
+     */
+    @Test
+    void keysetSeekBreaksTimestampTiesById() {
+        ZonedDateTime moment = ZonedDateTime.now().minusHours(1).withNano(0);
+        entityManager.getEntityManager()
+                .createQuery("UPDATE TrackParcel t SET t.timestamp = :moment")
+                .setParameter("moment", moment)
+                .executeUpdate();
+        List<Long> ids = trackParcelRepository.findByStoreIdBefore(
+                        storeId, null, moment.plusSeconds(1), Long.MAX_VALUE, Limit.of(PARCELS))
+                .stream().map(TrackParcelRow::id).toList();
+        Long middle = ids.get(PARCELS / 2);
+
+        List<Long> before = trackParcelRepository.findByStoreIdBefore(
+                        storeId, null, moment, middle, Limit.of(PARCELS))
+                .stream().map(TrackParcelRow::id).toList();
+        List<Long> after = trackParcelRepository.findByStoreIdAfter(
+                        storeId, null, moment, middle, Limit.of(PARCELS))
+                .stream().map(TrackParcelRow::id).toList();
+
+        assertEquals(ids.subList(PARCELS / 2 + 1, PARCELS), before);
+        assertEquals(ids.subList(0, PARCELS / 2).stream().sorted().toList(), after);
+    }
+
+    /**
+     * Предзарегистрированные посылки и результаты поиска также не дозагружают связи.
+     */
+    @Test
+    void preRegisteredAndSearchPagesLoadRowsWithoutExtraStatements() {
+        PageRequest pageable = PageRequest.of(0, PARCELS, Sort.by("timestamp").descending());
+
+        Page<TrackParcelRow> preRegistered = trackParcelRepository.findPreRegisteredRows(
+                List.of(storeId), GlobalStatus.PRE_REGISTERED, pageable);
+        assertEquals(PARCELS / 5, preRegistered.getNumberOfElements());
+        assertTrue(preRegistered.stream().allMatch(row -> row.status() == GlobalStatus.PRE_REGISTERED));
+
+        Page<TrackParcelRow> found = trackParcelRepository.searchByNumberPhoneOrName(
+                List.of(storeId), userId, null, "RB00000001", "", "", "", "", pageable);
+        assertEquals(10, found.getNumberOfElements());
+
+        // Оба списка короче страницы, поэтому запрос количества не выполняется
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
@@ -9,6 +9,7 @@ import com.project.tracking_system.service.SubscriptionService;
 import com.project.tracking_system.service.customer.CustomerService;
 import com.project.tracking_system.service.customer.CustomerStatsService;
 import com.project.tracking_system.service.track.StatusTrackService;
+import com.project.tracking_system.service.track.TrackEventClassification;
 import com.project.tracking_system.service.track.TypeDefinitionTrackPostService;
 import com.project.tracking_system.service.telegram.TelegramNotificationService;
 import org.junit.jupiter.api.Test;
@@ -20,7 +21,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
@@ -62,11 +62,13 @@ class DeliveryHistoryServiceTest {
     @Mock
     private TelegramNotificationService telegramNotificationService;
     @Mock
-    private CustomerNotificationLogRepository customerNotificationLogRepository;
-    @Mock
     private SubscriptionService subscriptionService;
     @Mock
     private DeliveryMetricsRollbackService deliveryMetricsRollbackService;
+    @Mock
+    private DeliveryTimeHistogramService deliveryTimeHistogramService;
+    @Mock
+    private TrackStatisticsUpdater trackStatisticsUpdater;
 
     @InjectMocks
     private DeliveryHistoryService deliveryHistoryService;
@@ -124,7 +126,8 @@ class DeliveryHistoryServiceTest {
 
         when(deliveryHistoryRepository.findByTrackParcelId(trackParcel.getId())).thenReturn(Optional.of(history));
         when(typeDefinitionTrackPostService.detectPostalService(anyString())).thenReturn(PostalServiceType.BELPOST);
-        when(statusTrackService.setStatus(anyList())).thenReturn(GlobalStatus.WAITING_FOR_CUSTOMER);
+        when(statusTrackService.classifyEvents(anyList()))
+                .thenReturn(new TrackEventClassification(List.of(GlobalStatus.WAITING_FOR_CUSTOMER), 0));
         when(trackParcelRepository.save(trackParcel)).thenReturn(trackParcel);
         when(customerStatsService.incrementSent(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
         doNothing().when(customerService).rollbackStatsOnTrackDelete(any(TrackParcel.class));
@@ -153,7 +156,8 @@ class DeliveryHistoryServiceTest {
 
         when(deliveryHistoryRepository.findByTrackParcelId(trackParcel.getId())).thenReturn(Optional.empty());
         when(typeDefinitionTrackPostService.detectPostalService(anyString())).thenReturn(PostalServiceType.UNKNOWN);
-        when(statusTrackService.setStatus(anyList())).thenReturn(GlobalStatus.DELIVERED);
+        when(statusTrackService.classifyEvents(anyList()))
+                .thenReturn(new TrackEventClassification(List.of(GlobalStatus.DELIVERED), -1));
         when(subscriptionService.isFeatureEnabled(trackParcel.getStore().getOwner().getId(), FeatureKey.TELEGRAM_NOTIFICATIONS))
                 .thenReturn(true);
         when(deliveryHistoryRepository.save(any(DeliveryHistory.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -162,31 +166,25 @@ class DeliveryHistoryServiceTest {
 
         deliveryHistoryService.updateDeliveryHistory(trackParcel, null, GlobalStatus.DELIVERED, trackInfoListDTO);
 
-        verify(telegramNotificationService, never()).sendStatusUpdate(any(TrackParcel.class), any(GlobalStatus.class));
-        verify(customerNotificationLogRepository, never())
-                .existsByParcelIdAndStatusAndNotificationType(anyLong(), any(), any());
+        verify(telegramNotificationService, never()).requestStatusUpdate(any(TrackParcel.class), any(GlobalStatus.class));
     }
 
     /**
-     * Проверяет, что при переходе из промежуточного статуса в финальный уведомление отправляется
-     * и фиксируется в журнале отправки.
+     * Проверяет, что при переходе из промежуточного статуса в финальный уведомление
+     * запрашивается для отправки после фиксации транзакции.
      */
     @Test
-    void updateDeliveryHistory_TransitionToFinalStatus_SendsNotification() {
+    void updateDeliveryHistory_TransitionToFinalStatus_RequestsNotification() {
         TrackParcel trackParcel = buildParcelWithCustomer(3L);
 
         when(deliveryHistoryRepository.findByTrackParcelId(trackParcel.getId())).thenReturn(Optional.empty());
         when(typeDefinitionTrackPostService.detectPostalService(anyString())).thenReturn(PostalServiceType.UNKNOWN);
-        when(statusTrackService.setStatus(anyList())).thenReturn(GlobalStatus.DELIVERED);
+        when(statusTrackService.classifyEvents(anyList()))
+                .thenReturn(new TrackEventClassification(List.of(GlobalStatus.DELIVERED), -1));
         when(subscriptionService.isFeatureEnabled(trackParcel.getStore().getOwner().getId(), FeatureKey.TELEGRAM_NOTIFICATIONS))
                 .thenReturn(true);
-        when(customerNotificationLogRepository.existsByParcelIdAndStatusAndNotificationType(
-                trackParcel.getId(),
-                GlobalStatus.DELIVERED,
-                NotificationType.INSTANT
-        )).thenReturn(false);
         when(deliveryHistoryRepository.save(any(DeliveryHistory.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(telegramNotificationService.sendStatusUpdate(trackParcel, GlobalStatus.DELIVERED)).thenReturn(true);
+        when(telegramNotificationService.requestStatusUpdate(trackParcel, GlobalStatus.DELIVERED)).thenReturn(true);
 
         TrackInfoListDTO trackInfoListDTO = buildDeliveredTrackInfo();
 
@@ -197,41 +195,26 @@ class DeliveryHistoryServiceTest {
                 trackInfoListDTO
         );
 
-        verify(telegramNotificationService).sendStatusUpdate(eq(trackParcel), eq(GlobalStatus.DELIVERED));
-        verify(customerNotificationLogRepository).save(any(CustomerNotificationLog.class));
+        verify(telegramNotificationService).requestStatusUpdate(eq(trackParcel), eq(GlobalStatus.DELIVERED));
     }
 
     /**
-     * Убеждаемся, что при неудачной отправке уведомления запись в журнале не создаётся.
+     * Проверяет, что при удалении учтённой посылки счётчики не меняются,
+     * а отправка переносится на дату отправки из истории доставки.
      */
     @Test
-    void updateDeliveryHistory_NotificationFailed_DoesNotPersistLog() {
-        TrackParcel trackParcel = buildParcelWithCustomer(4L);
-
-        when(deliveryHistoryRepository.findByTrackParcelId(trackParcel.getId())).thenReturn(Optional.empty());
-        when(typeDefinitionTrackPostService.detectPostalService(anyString())).thenReturn(PostalServiceType.UNKNOWN);
-        when(statusTrackService.setStatus(anyList())).thenReturn(GlobalStatus.DELIVERED);
-        when(subscriptionService.isFeatureEnabled(trackParcel.getStore().getOwner().getId(), FeatureKey.TELEGRAM_NOTIFICATIONS))
-                .thenReturn(true);
-        when(customerNotificationLogRepository.existsByParcelIdAndStatusAndNotificationType(
-                trackParcel.getId(),
-                GlobalStatus.DELIVERED,
-                NotificationType.INSTANT
-        )).thenReturn(false);
-        when(deliveryHistoryRepository.save(any(DeliveryHistory.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(telegramNotificationService.sendStatusUpdate(trackParcel, GlobalStatus.DELIVERED)).thenReturn(false);
-
-        TrackInfoListDTO trackInfoListDTO = buildDeliveredTrackInfo();
+    void handleTrackParcelBeforeDelete_IncludedParcel_MovesSentDayToHistory() {
+        TrackParcel trackParcel = buildParcelWithCustomer(6L);
+        trackParcel.setStatus(GlobalStatus.DELIVERED);
+        trackParcel.setIncludedInStatistics(true);
+        DeliveryHistory history = new DeliveryHistory();
+        history.setPostalService(PostalServiceType.BELPOST);
+        trackParcel.setDeliveryHistory(history);
 
-        deliveryHistoryService.updateDeliveryHistory(
-                trackParcel,
-                GlobalStatus.IN_TRANSIT,
-                GlobalStatus.DELIVERED,
-                trackInfoListDTO
-        );
+        deliveryHistoryService.handleTrackParcelBeforeDelete(trackParcel);
 
-        verify(telegramNotificationService).sendStatusUpdate(eq(trackParcel), eq(GlobalStatus.DELIVERED));
-        verify(customerNotificationLogRepository, never()).save(any(CustomerNotificationLog.class));
+        verify(trackStatisticsUpdater).moveSentDayToHistory(trackParcel, history);
+        verify(storeAnalyticsRepository, never()).findByStoreId(any());
     }
 
     /**
@@ -60,6 +60,8 @@ class DeliveryMetricsRollbackServiceTest {
     private CustomerService customerService;
     @Mock
     private CustomerStatsService customerStatsService;
+    @Mock
+    private DeliveryTimeHistogramService deliveryTimeHistogramService;
 
     @InjectMocks
     private DeliveryMetricsRollbackService deliveryMetricsRollbackService;
@@ -0,0 +1,112 @@
+package com.project.tracking_system.service.analytics;
+
+import com.project.tracking_system.dto.DeliveryTimePercentilesDTO;
+import com.project.tracking_system.dto.HistogramBucketRow;
+import com.project.tracking_system.dto.PeriodStatsSource;
+import com.project.tracking_system.entity.DeliveryTimeMetric;
+import com.project.tracking_system.entity.GlobalStatus;
+import com.project.tracking_system.entity.PostalServiceType;
+import com.project.tracking_system.repository.DeliveryTimeHistogramRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для {@link DeliveryTimeHistogramService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeliveryTimeHistogramServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 15);
+
+    @Mock
+    private DeliveryTimeHistogramRepository histogramRepository;
+
+    @InjectMocks
+    private DeliveryTimeHistogramService service;
+
+    @Test
+    void record_Delivered_UpdatesBothMetrics() {
+        service.record(1L, PostalServiceType.BELPOST, DAY, GlobalStatus.DELIVERED,
+                new BigDecimal("3.96"), BigDecimal.valueOf(2), 1);
+
+        verify(histogramRepository).addToDailyBucket(1L, "BELPOST", DAY, "DELIVERY", 3, 1);
+        verify(histogramRepository).addToDailyBucket(1L, "BELPOST", DAY, "PICKUP", 2, 1);
+    }
+
+    @Test
+    void record_Returned_SkipsPickupAndCapsLongDelivery() {
+        service.record(1L, PostalServiceType.EVROPOST, DAY, GlobalStatus.RETURNED,
+                BigDecimal.valueOf(95), BigDecimal.valueOf(10), -1);
+
+        verify(histogramRepository).addToDailyBucket(1L, "EVROPOST", DAY, "DELIVERY",
+                DeliveryTimeHistogramService.MAX_BUCKET, -1);
+        verify(histogramRepository, never()).addToDailyBucket(anyLong(), anyString(), any(), eq("PICKUP"), anyInt(), anyInt());
+    }
+
+    @Test
+    void record_WithoutEventDate_DoesNothing() {
+        service.record(1L, PostalServiceType.BELPOST, null, GlobalStatus.DELIVERED,
+                BigDecimal.ONE, BigDecimal.ONE, 1);
+
+        verify(histogramRepository, never()).addToDailyBucket(anyLong(), anyString(), any(), anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getPercentiles_ComputesMedianAndP90PerPeriod() {
+        LocalDate week = LocalDate.of(2024, 5, 13);
+        // 10 посылок: 5 за 1 день, 4 за 3 дня, 1 за 8 дней
+        when(histogramRepository.findBuckets(List.of(1L), null, "WEEKLY", "DELIVERY", week, week))
+                .thenReturn(List.of(row(week, 1, 5), row(week, 3, 4), row(week, 8, 1)));
+
+        List<DeliveryTimePercentilesDTO> result = service.getPercentiles(
+                List.of(1L), null, PeriodStatsSource.WEEKLY, DeliveryTimeMetric.DELIVERY, week, week);
+
+        assertEquals(1, result.size());
+        DeliveryTimePercentilesDTO dto = result.get(0);
+        assertEquals(10, dto.count());
+        assertEquals(1, dto.p50());
+        assertEquals(3, dto.p90());
+    }
+
+    @Test
+    void percentile_EmptyHistogram_ReturnsNull() {
+        assertNull(DeliveryTimeHistogramService.percentile(new long[3], 0, 0.5));
+    }
+
+    private static HistogramBucketRow row(LocalDate periodStart, int bucket, long count) {
+        return new HistogramBucketRow() {
+            @Override
+            public LocalDate getPeriodStart() {
+                return periodStart;
+            }
+
+            @Override
+            public Integer getBucket() {
+                return bucket;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+}
@@ -0,0 +1,220 @@
+package com.project.tracking_system.service.analytics;
+
+import com.project.tracking_system.dto.StatisticsDriftRow;
+import com.project.tracking_system.entity.*;
+import com.project.tracking_system.repository.PostalServiceDailyStatisticsRepository;
+import com.project.tracking_system.repository.PostalServiceStatisticsRepository;
+import com.project.tracking_system.repository.StoreAnalyticsRepository;
+import com.project.tracking_system.repository.StoreDailyStatisticsRepository;
+import com.project.tracking_system.service.SubscriptionService;
+import com.project.tracking_system.service.customer.CustomerService;
+import com.project.tracking_system.service.customer.CustomerStatsService;
+import com.project.tracking_system.service.telegram.TelegramNotificationService;
+import com.project.tracking_system.service.track.StatusTrackService;
+import com.project.tracking_system.service.track.TypeDefinitionTrackPostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Сверка инкрементального учёта статистики с её пересчётом на PostgreSQL.
+ * <p>
+ * Представления пересчёта используют синтаксис PostgreSQL, поэтому тест
+ * по умолчанию пропускается и запускается на пустой базе:
+ * </p>
+ * <pre>
+ * mvn test -Dtest=StatisticsDriftIntegrationTest \
+ *     -Dstatistics.drift.jdbc-url=jdbc:postgresql://localhost:5432/tracking_drift \
+ *     -Dstatistics.drift.username=postgres -Dstatistics.drift.password=postgres
+ * </pre>
+ * <p>
+ * Посылки проходят путь создания, смены отметки времени через границу суток в UTC,
+ * вручения и удаления, после чего запросы расхождений пересчёта должны быть пустыми.
+ * </p>
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfSystemProperty(named = "statistics.drift.jdbc-url", matches = "jdbc:postgresql:.+")
+@TestPropertySource(properties = {
+        "spring.flyway.locations=classpath:db/migration",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@Import({TrackStatisticsUpdater.class, DeliveryHistoryService.class})
+class StatisticsDriftIntegrationTest {
+
+    private static final ZoneId MINSK = ZoneId.of("Europe/Minsk");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("statistics.drift.jdbc-url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("statistics.drift.username", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("statistics.drift.password", "postgres"));
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private TrackStatisticsUpdater trackStatisticsUpdater;
+    @Autowired
+    private DeliveryHistoryService deliveryHistoryService;
+    @Autowired
+    private StoreAnalyticsRepository storeAnalyticsRepository;
+    @Autowired
+    private PostalServiceStatisticsRepository postalServiceStatisticsRepository;
+    @Autowired
+    private StoreDailyStatisticsRepository storeDailyStatisticsRepository;
+    @Autowired
+    private PostalServiceDailyStatisticsRepository postalServiceDailyStatisticsRepository;
+
+    @MockBean
+    private TypeDefinitionTrackPostService typeDefinitionTrackPostService;
+    @MockBean
+    private StatusTrackService statusTrackService;
+    @MockBean
+    private CustomerService customerService;
+    @MockBean
+    private CustomerStatsService customerStatsService;
+    @MockBean
+    private TelegramNotificationService telegramNotificationService;
+    @MockBean
+    private SubscriptionService subscriptionService;
+    @MockBean
+    private DeliveryMetricsRollbackService deliveryMetricsRollbackService;
+    @MockBean
+    private DeliveryTimeHistogramService deliveryTimeHistogramService;
+
+    private User owner;
+    private Store store;
+
+    @BeforeEach
+    void setUp() {
+        when(typeDefinitionTrackPostService.detectPostalService(any())).thenReturn(PostalServiceType.BELPOST);
+
+        owner = new User();
+        owner.setEmail("drift@example.com");
+        owner.setPassword("secret");
+        owner.setTimeZone("Europe/Minsk");
+        entityManager.persist(owner);
+
+        store = new Store();
+        store.setName("Магазин");
+        store.setOwner(owner);
+        entityManager.persist(store);
+
+        StoreStatistics statistics = new StoreStatistics();
+        statistics.setStore(store);
+        entityManager.persist(statistics);
+        nextRequest();
+    }
+
+    /**
+     * После инкрементальных обновлений пересчёт не находит расхождений.
+     */
+    @Test
+    void rebuildAfterIncrementalUpdatesReportsNoDrift() {
+        // Доставленная посылка: отметка времени переходит границу суток в UTC
+        Long delivered = createParcel("RB000000001BY", ZonedDateTime.of(2025, 3, 8, 10, 0, 0, 0, ZoneOffset.UTC));
+        ZonedDateTime lateMinskEvening = ZonedDateTime.of(2025, 3, 12, 1, 30, 0, 0, MINSK);
+        moveTimestamp(delivered, lateMinskEvening);
+        deliver(delivered,
+                ZonedDateTime.of(2025, 3, 10, 8, 0, 0, 0, ZoneOffset.UTC),
+                lateMinskEvening);
+
+        // Удалённая посылка: история остаётся, отправка уходит на дату отправки из истории
+        Long deleted = createParcel("RB000000002BY", ZonedDateTime.of(2025, 3, 5, 23, 30, 0, 0, MINSK));
+        deliver(deleted,
+                ZonedDateTime.of(2025, 3, 7, 8, 0, 0, 0, ZoneOffset.UTC),
+                ZonedDateTime.of(2025, 3, 9, 0, 30, 0, 0, MINSK));
+        delete(deleted);
+
+        // Посылка в пути без финального статуса
+        createParcel("RB000000003BY", ZonedDateTime.of(2025, 3, 6, 12, 0, 0, 0, ZoneOffset.UTC));
+
+        Long storeId = store.getId();
+        assertEquals(List.of(), describe(storeAnalyticsRepository.findDriftByStoreId(storeId)));
+        assertEquals(List.of(), describe(postalServiceStatisticsRepository.findDriftByStoreId(storeId)));
+        assertEquals(List.of(), describe(storeDailyStatisticsRepository.findDriftByStoreId(storeId)));
+        assertEquals(List.of(), describe(postalServiceDailyStatisticsRepository.findDriftByStoreId(storeId)));
+    }
+
+    private Long createParcel(String number, ZonedDateTime sendDate) {
+        TrackParcel parcel = new TrackParcel();
+        parcel.setNumber(number);
+        parcel.setStatus(GlobalStatus.IN_TRANSIT);
+        parcel.setStore(store);
+        parcel.setUser(owner);
+        entityManager.persist(parcel);
+        trackStatisticsUpdater.updateStatistics(parcel, true, null, null);
+
+        DeliveryHistory history = new DeliveryHistory();
+        history.setTrackParcel(parcel);
+        history.setStore(store);
+        history.setPostalService(PostalServiceType.BELPOST);
+        history.setSendDate(sendDate);
+        entityManager.persist(history);
+        nextRequest();
+        return parcel.getId();
+    }
+
+    private void moveTimestamp(Long parcelId, ZonedDateTime timestamp) {
+        TrackParcel parcel = entityManager.find(TrackParcel.class, parcelId);
+        ZonedDateTime previous = parcel.getTimestamp();
+        parcel.setTimestamp(timestamp);
+        trackStatisticsUpdater.updateStatistics(parcel, false, null, previous);
+        nextRequest();
+    }
+
+    private void deliver(Long parcelId, ZonedDateTime arrived, ZonedDateTime received) {
+        TrackParcel parcel = entityManager.find(TrackParcel.class, parcelId);
+        parcel.setStatus(GlobalStatus.DELIVERED);
+        DeliveryHistory history = parcel.getDeliveryHistory();
+        history.setArrivedDate(arrived);
+        history.setReceivedDate(received);
+        deliveryHistoryService.registerFinalStatus(history, GlobalStatus.DELIVERED, null);
+        nextRequest();
+    }
+
+    private void delete(Long parcelId) {
+        TrackParcel parcel = entityManager.find(TrackParcel.class, parcelId);
+        deliveryHistoryService.handleTrackParcelBeforeDelete(parcel);
+        parcel.getDeliveryHistory().setTrackParcel(null);
+        parcel.setDeliveryHistory(null);
+        entityManager.remove(parcel);
+        nextRequest();
+    }
+
+    // Каждый шаг выполняется с чистым контекстом, как отдельный запрос приложения
+    private void nextRequest() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static List<String> describe(List<StatisticsDriftRow> rows) {
+        return rows.stream()
+                .map(row -> row.getPostalService() + " " + row.getDate()
+                        + " sent " + row.getActualSent() + "/" + row.getExpectedSent()
+                        + " delivered " + row.getActualDelivered() + "/" + row.getExpectedDelivered()
+                        + " returned " + row.getActualReturned() + "/" + row.getExpectedReturned()
+                        + " deliveryDays " + row.getActualDeliveryDays() + "/" + row.getExpectedDeliveryDays()
+                        + " pickupDays " + row.getActualPickupDays() + "/" + row.getExpectedPickupDays())
+                .toList();
+    }
+}
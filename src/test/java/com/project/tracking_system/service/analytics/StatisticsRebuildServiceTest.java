@@ -0,0 +1,24 @@
+package com.project.tracking_system.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты для {@link StatisticsRebuildService}.
+ */
+class StatisticsRebuildServiceTest {
+
+    /**
+     * Поля с разделителями, кавычками и переводами строк заключаются в кавычки.
+     */
+    @Test
+    void csvField_QuotesSpecialCharacters() {
+        assertEquals("DELIVERED", StatisticsRebuildService.csvField("DELIVERED"));
+        assertEquals("\"BELPOST 2025-03-10,1\"", StatisticsRebuildService.csvField("BELPOST 2025-03-10,1"));
+        assertEquals("\"a;b\"", StatisticsRebuildService.csvField("a;b"));
+        assertEquals("\"say \"\"hi\"\"\"", StatisticsRebuildService.csvField("say \"hi\""));
+        assertEquals("\"line\nbreak\"", StatisticsRebuildService.csvField("line\nbreak"));
+        assertEquals("", StatisticsRebuildService.csvField(null));
+    }
+}
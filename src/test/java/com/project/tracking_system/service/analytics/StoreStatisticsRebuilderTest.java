@@ -0,0 +1,201 @@
+package com.project.tracking_system.service.analytics;
+
+import com.project.tracking_system.dto.StatisticsCorrectionDTO;
+import com.project.tracking_system.dto.StatisticsDriftRow;
+import com.project.tracking_system.repository.PostalServiceDailyStatisticsRepository;
+import com.project.tracking_system.repository.PostalServiceMonthlyStatisticsRepository;
+import com.project.tracking_system.repository.PostalServiceStatisticsRepository;
+import com.project.tracking_system.repository.PostalServiceWeeklyStatisticsRepository;
+import com.project.tracking_system.repository.PostalServiceYearlyStatisticsRepository;
+import com.project.tracking_system.repository.StoreAnalyticsRepository;
+import com.project.tracking_system.repository.StoreDailyStatisticsRepository;
+import com.project.tracking_system.repository.StoreMonthlyStatisticsRepository;
+import com.project.tracking_system.repository.StoreWeeklyStatisticsRepository;
+import com.project.tracking_system.repository.StoreYearlyStatisticsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для {@link StoreStatisticsRebuilder}.
+ */
+@ExtendWith(MockitoExtension.class)
+class StoreStatisticsRebuilderTest {
+
+    private static final Long STORE_ID = 7L;
+
+    @Mock
+    private StoreAnalyticsRepository storeAnalyticsRepository;
+    @Mock
+    private PostalServiceStatisticsRepository postalStatisticsRepository;
+    @Mock
+    private StoreDailyStatisticsRepository storeDailyRepo;
+    @Mock
+    private StoreWeeklyStatisticsRepository storeWeeklyRepo;
+    @Mock
+    private StoreMonthlyStatisticsRepository storeMonthlyRepo;
+    @Mock
+    private StoreYearlyStatisticsRepository storeYearlyRepo;
+    @Mock
+    private PostalServiceDailyStatisticsRepository psDailyRepo;
+    @Mock
+    private PostalServiceWeeklyStatisticsRepository psWeeklyRepo;
+    @Mock
+    private PostalServiceMonthlyStatisticsRepository psMonthlyRepo;
+    @Mock
+    private PostalServiceYearlyStatisticsRepository psYearlyRepo;
+    @Mock
+    private DeliveryTimeHistogramService deliveryTimeHistogramService;
+
+    @InjectMocks
+    private StoreStatisticsRebuilder rebuilder;
+
+    @Test
+    void rebuild_ReportsOnlyChangedFields() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        when(storeAnalyticsRepository.findDriftByStoreId(STORE_ID)).thenReturn(List.of(
+                new Row(null, null, 10L, 12L, 5L, 5L, 1L, 1L,
+                        new BigDecimal("7.50"), new BigDecimal("7.5"), BigDecimal.ZERO, BigDecimal.ZERO)));
+        when(postalStatisticsRepository.findDriftByStoreId(STORE_ID)).thenReturn(List.of());
+        when(storeDailyRepo.findDriftByStoreId(STORE_ID)).thenReturn(List.of());
+        when(psDailyRepo.findDriftByStoreId(STORE_ID)).thenReturn(List.of(
+                new Row("BELPOST", day, null, 1L, null, 0L, null, 0L,
+                        null, BigDecimal.ZERO, null, BigDecimal.ZERO)));
+
+        List<StatisticsCorrectionDTO> corrections = rebuilder.rebuild(STORE_ID);
+
+        StatisticsCorrectionDTO total = corrections.get(0);
+        assertEquals("tb_store_statistics", total.table());
+        assertEquals("total", total.key());
+        assertEquals("sent", total.field());
+        assertEquals("10", total.actual());
+        assertEquals("12", total.expected());
+        // Одинаковые суммы с разным масштабом не считаются расхождением
+        assertTrue(corrections.stream().noneMatch(c -> c.field().equals("sum_delivery_days")
+                && c.table().equals("tb_store_statistics")));
+
+        List<StatisticsCorrectionDTO> daily = corrections.stream()
+                .filter(c -> c.table().equals("tb_postal_service_statistics_daily"))
+                .toList();
+        assertEquals(5, daily.size());
+        assertEquals("BELPOST 2024-03-01", daily.get(0).key());
+        assertEquals(6, corrections.size());
+    }
+
+    @Test
+    void rebuild_RegeneratesPeriodsAfterDaily() {
+        when(storeAnalyticsRepository.findDriftByStoreId(STORE_ID)).thenReturn(List.of());
+        when(postalStatisticsRepository.findDriftByStoreId(STORE_ID)).thenReturn(List.of());
+        when(storeDailyRepo.findDriftByStoreId(STORE_ID)).thenReturn(List.of());
+        when(psDailyRepo.findDriftByStoreId(STORE_ID)).thenReturn(List.of());
+
+        assertTrue(rebuilder.rebuild(STORE_ID).isEmpty());
+
+        verify(storeAnalyticsRepository).lockByStoreId(STORE_ID);
+        verify(storeAnalyticsRepository).rebuildByStoreId(STORE_ID);
+        verify(postalStatisticsRepository).rebuildByStoreId(STORE_ID);
+
+        InOrder store = inOrder(storeDailyRepo, storeWeeklyRepo, storeMonthlyRepo, storeYearlyRepo);
+        store.verify(storeDailyRepo).deleteByStoreId(STORE_ID);
+        store.verify(storeDailyRepo).rebuildByStoreId(STORE_ID);
+        store.verify(storeWeeklyRepo).rebuildFromDailyByStoreId(STORE_ID);
+        store.verify(storeMonthlyRepo).rebuildFromDailyByStoreId(STORE_ID);
+        store.verify(storeYearlyRepo).rebuildFromDailyByStoreId(STORE_ID);
+
+        InOrder postal = inOrder(psDailyRepo, psWeeklyRepo, psMonthlyRepo, psYearlyRepo);
+        postal.verify(psDailyRepo).deleteByStoreId(STORE_ID);
+        postal.verify(psDailyRepo).rebuildByStoreId(STORE_ID);
+        postal.verify(psWeeklyRepo).rebuildFromDailyByStoreId(STORE_ID);
+        postal.verify(psMonthlyRepo).rebuildFromDailyByStoreId(STORE_ID);
+        postal.verify(psYearlyRepo).rebuildFromDailyByStoreId(STORE_ID);
+
+        verify(deliveryTimeHistogramService).rebuildForStore(STORE_ID);
+    }
+
+    private record Row(String postalService,
+                       LocalDate date,
+                       Long actualSent,
+                       Long expectedSent,
+                       Long actualDelivered,
+                       Long expectedDelivered,
+                       Long actualReturned,
+                       Long expectedReturned,
+                       BigDecimal actualDeliveryDays,
+                       BigDecimal expectedDeliveryDays,
+                       BigDecimal actualPickupDays,
+                       BigDecimal expectedPickupDays) implements StatisticsDriftRow {
+
+        @Override
+        public String getPostalService() {
+            return postalService;
+        }
+
+        @Override
+        public LocalDate getDate() {
+            return date;
+        }
+
+        @Override
+        public Long getActualSent() {
+            return actualSent;
+        }
+
+        @Override
+        public Long getExpectedSent() {
+            return expectedSent;
+        }
+
+        @Override
+        public Long getActualDelivered() {
+            return actualDelivered;
+        }
+
+        @Override
+        public Long getExpectedDelivered() {
+            return expectedDelivered;
+        }
+
+        @Override
+        public Long getActualReturned() {
+            return actualReturned;
+        }
+
+        @Override
+        public Long getExpectedReturned() {
+            return expectedReturned;
+        }
+
+        @Override
+        public BigDecimal getActualDeliveryDays() {
+            return actualDeliveryDays;
+        }
+
+        @Override
+        public BigDecimal getExpectedDeliveryDays() {
+            return expectedDeliveryDays;
+        }
+
+        @Override
+        public BigDecimal getActualPickupDays() {
+            return actualPickupDays;
+        }
+
+        @Override
+        public BigDecimal getExpectedPickupDays() {
+            return expectedPickupDays;
+        }
+    }
+}
@@ -11,8 +11,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -110,4 +113,88 @@ class TrackStatisticsUpdaterTest {
         verify(storeDailyStatisticsRepository).save(oldDaily);
         verify(postalServiceDailyStatisticsRepository).save(oldPsDaily);
     }
+
+    @Test
+    void updateStatistics_NewParcel_CountsSentOnUtcDay() {
+        StoreStatistics st = new StoreStatistics();
+        st.setStore(store);
+        parcel.setTimestamp(ZonedDateTime.of(2025, 3, 10, 1, 30, 0, 0, ZoneId.of("Europe/Minsk")));
+        when(typeDefinitionTrackPostService.detectPostalService(anyString()))
+                .thenReturn(PostalServiceType.BELPOST);
+        when(storeAnalyticsRepository.findByStoreId(2L)).thenReturn(java.util.Optional.of(st));
+        when(storeAnalyticsRepository.incrementTotalSent(2L, 1)).thenReturn(1);
+        when(postalServiceStatisticsRepository.incrementTotalSent(2L, PostalServiceType.BELPOST, 1)).thenReturn(1);
+        when(storeDailyStatisticsRepository.incrementSent(2L, LocalDate.of(2025, 3, 9), 1)).thenReturn(1);
+        when(postalServiceDailyStatisticsRepository.incrementSent(2L, PostalServiceType.BELPOST, LocalDate.of(2025, 3, 9), 1))
+                .thenReturn(1);
+
+        updater.updateStatistics(parcel, true, null, null);
+
+        verify(storeDailyStatisticsRepository).incrementSent(2L, LocalDate.of(2025, 3, 9), 1);
+        verify(postalServiceDailyStatisticsRepository)
+                .incrementSent(2L, PostalServiceType.BELPOST, LocalDate.of(2025, 3, 9), 1);
+    }
+
+    @Test
+    void updateStatistics_TimestampMovedToAnotherDay_MovesSentDay() {
+        ZonedDateTime previous = ZonedDateTime.of(2025, 3, 9, 12, 0, 0, 0, ZoneOffset.UTC);
+        parcel.setTimestamp(ZonedDateTime.of(2025, 3, 11, 9, 0, 0, 0, ZoneOffset.UTC));
+        when(typeDefinitionTrackPostService.detectPostalService(anyString()))
+                .thenReturn(PostalServiceType.BELPOST);
+        StoreDailyStatistics oldDaily = new StoreDailyStatistics();
+        oldDaily.setSent(1);
+        when(storeDailyStatisticsRepository.findByStoreIdAndDate(2L, LocalDate.of(2025, 3, 9)))
+                .thenReturn(java.util.Optional.of(oldDaily));
+        PostalServiceDailyStatistics oldPsDaily = new PostalServiceDailyStatistics();
+        oldPsDaily.setSent(1);
+        when(postalServiceDailyStatisticsRepository.findByStoreIdAndPostalServiceTypeAndDate(
+                2L, PostalServiceType.BELPOST, LocalDate.of(2025, 3, 9)))
+                .thenReturn(java.util.Optional.of(oldPsDaily));
+        when(storeDailyStatisticsRepository.incrementSent(2L, LocalDate.of(2025, 3, 11), 1)).thenReturn(1);
+        when(postalServiceDailyStatisticsRepository.incrementSent(2L, PostalServiceType.BELPOST, LocalDate.of(2025, 3, 11), 1))
+                .thenReturn(1);
+
+        updater.updateStatistics(parcel, false, null, previous);
+
+        assertEquals(0, oldDaily.getSent());
+        assertEquals(0, oldPsDaily.getSent());
+        verify(storeDailyStatisticsRepository).incrementSent(2L, LocalDate.of(2025, 3, 11), 1);
+        verify(postalServiceDailyStatisticsRepository)
+                .incrementSent(2L, PostalServiceType.BELPOST, LocalDate.of(2025, 3, 11), 1);
+        verify(storeAnalyticsRepository, never()).incrementTotalSent(anyLong(), anyInt());
+    }
+
+    @Test
+    void updateStatistics_TimestampSameUtcDay_KeepsSentDay() {
+        ZonedDateTime previous = ZonedDateTime.of(2025, 3, 9, 1, 0, 0, 0, ZoneOffset.UTC);
+        parcel.setTimestamp(ZonedDateTime.of(2025, 3, 9, 23, 0, 0, 0, ZoneOffset.UTC));
+        when(typeDefinitionTrackPostService.detectPostalService(anyString()))
+                .thenReturn(PostalServiceType.BELPOST);
+
+        updater.updateStatistics(parcel, false, null, previous);
+
+        verifyNoInteractions(storeDailyStatisticsRepository, postalServiceDailyStatisticsRepository);
+    }
+
+    @Test
+    void moveSentDayToHistory_MovesSentToHistorySendDate() {
+        parcel.setTimestamp(ZonedDateTime.of(2025, 3, 11, 9, 0, 0, 0, ZoneOffset.UTC));
+        DeliveryHistory history = new DeliveryHistory();
+        history.setPostalService(PostalServiceType.BELPOST);
+        history.setSendDate(ZonedDateTime.of(2025, 3, 5, 10, 0, 0, 0, ZoneOffset.UTC));
+        StoreDailyStatistics oldDaily = new StoreDailyStatistics();
+        oldDaily.setSent(1);
+        when(storeDailyStatisticsRepository.findByStoreIdAndDate(2L, LocalDate.of(2025, 3, 11)))
+                .thenReturn(java.util.Optional.of(oldDaily));
+        when(storeDailyStatisticsRepository.incrementSent(2L, LocalDate.of(2025, 3, 5), 1)).thenReturn(1);
+        when(postalServiceDailyStatisticsRepository.incrementSent(2L, PostalServiceType.BELPOST, LocalDate.of(2025, 3, 5), 1))
+                .thenReturn(1);
+
+        updater.moveSentDayToHistory(parcel, history);
+
+        assertEquals(0, oldDaily.getSent());
+        verify(storeDailyStatisticsRepository).incrementSent(2L, LocalDate.of(2025, 3, 5), 1);
+        verify(postalServiceDailyStatisticsRepository)
+                .incrementSent(2L, PostalServiceType.BELPOST, LocalDate.of(2025, 3, 5), 1);
+    }
 }
@@ -9,12 +9,13 @@ import com.project.tracking_system.repository.TrackParcelRepository;
 import com.project.tracking_system.service.SubscriptionService;
 import com.project.tracking_system.service.user.UserSettingsService;
 import com.project.tracking_system.service.customer.CustomerNameEventService;
+import com.project.tracking_system.service.telegram.TelegramSendGateway;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.telegram.telegrambots.meta.generics.TelegramClient;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
 
@@ -44,7 +45,9 @@ class CustomerAssignServiceTest {
     @Mock
     private CustomerNameEventService customerNameEventService;
     @Mock
-    private TelegramClient telegramClient;
+    private TelegramSendGateway sendGateway;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     private CustomerStatsService customerStatsService;
     private CustomerService service;
@@ -60,7 +63,8 @@ class CustomerAssignServiceTest {
                 subscriptionService,
                 userSettingsService,
                 customerNameEventService,
-                telegramClient
+                sendGateway,
+                eventPublisher
         );
 
         when(customerRepository.save(any(Customer.class))).thenAnswer(inv -> inv.getArgument(0));
@@ -8,13 +8,13 @@ import com.project.tracking_system.repository.TrackParcelRepository;
 import com.project.tracking_system.service.SubscriptionService;
 import com.project.tracking_system.service.user.UserSettingsService;
 import com.project.tracking_system.service.customer.CustomerNameEventService;
+import com.project.tracking_system.service.telegram.TelegramSendGateway;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.telegram.telegrambots.meta.generics.TelegramClient;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
@@ -44,7 +44,7 @@ class CustomerServiceTest {
     @Mock
     private CustomerTransactionalService transactionalService;
     @Mock
-    private TelegramClient telegramClient;
+    private TelegramSendGateway sendGateway;
 
     @InjectMocks
     private CustomerService service;
@@ -170,6 +170,6 @@ class CustomerServiceTest {
         assertFalse(updated);
         verifyNoInteractions(customerRepository);
         verifyNoInteractions(customerNameEventService);
-        verifyNoInteractions(telegramClient);
+        verifyNoInteractions(sendGateway);
     }
 }
@@ -5,7 +5,6 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 import com.project.tracking_system.entity.Customer;
-import com.project.tracking_system.repository.CustomerNotificationLogRepository;
 import com.project.tracking_system.repository.CustomerRepository;
 import com.project.tracking_system.repository.TrackParcelRepository;
 import com.project.tracking_system.service.telegram.FullNameValidator;
@@ -39,8 +38,6 @@ class CustomerTelegramServiceLoggingTest {
     @Mock
     private TrackParcelRepository trackParcelRepository;
     @Mock
-    private CustomerNotificationLogRepository notificationLogRepository;
-    @Mock
     private TelegramNotificationService telegramNotificationService;
 
     @Spy
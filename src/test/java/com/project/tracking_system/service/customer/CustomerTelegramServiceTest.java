@@ -6,7 +6,6 @@ import com.project.tracking_system.entity.GlobalStatus;
 import com.project.tracking_system.entity.NameSource;
 import com.project.tracking_system.entity.Store;
 import com.project.tracking_system.entity.TrackParcel;
-import com.project.tracking_system.repository.CustomerNotificationLogRepository;
 import com.project.tracking_system.repository.CustomerRepository;
 import com.project.tracking_system.repository.TrackParcelRepository;
 import com.project.tracking_system.service.telegram.FullNameValidator;
@@ -43,8 +42,6 @@ class CustomerTelegramServiceTest {
     @Mock
     private TrackParcelRepository trackParcelRepository;
     @Mock
-    private CustomerNotificationLogRepository notificationLogRepository;
-    @Mock
     private TelegramNotificationService telegramNotificationService;
 
     @Spy
@@ -7,12 +7,14 @@ import com.project.tracking_system.entity.StoreTelegramSettings;
 import com.project.tracking_system.model.subscription.FeatureKey;
 import com.project.tracking_system.repository.StoreTelegramSettingsRepository;
 import com.project.tracking_system.service.SubscriptionService;
+import com.project.tracking_system.service.store.event.StoreNotificationSettingsChangedEvent;
 import com.project.tracking_system.exception.InvalidTemplateException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +33,8 @@ class StoreTelegramSettingsServiceTest {
     private WebSocketController webSocketController;
     @Mock
     private StoreService storeService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private StoreTelegramSettingsService service;
@@ -65,6 +69,7 @@ class StoreTelegramSettingsServiceTest {
 
         verify(storeService).updateFromDto(any(StoreTelegramSettings.class), eq(dto));
         verify(settingsRepository).save(any(StoreTelegramSettings.class));
+        verify(eventPublisher).publishEvent(new StoreNotificationSettingsChangedEvent(2L));
     }
 
     @Test
@@ -0,0 +1,111 @@
+package com.project.tracking_system.service.telegram;
+
+import com.project.tracking_system.service.customer.event.CustomerParcelsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для {@link BuyerScreenCache}.
+ */
+class BuyerScreenCacheTest {
+
+    private BuyerScreenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BuyerScreenCache(100, Duration.ofMinutes(10));
+    }
+
+    /**
+     * Проверяет, что повторное открытие экрана отвечает из памяти.
+     */
+    @Test
+    void getStatistics_LoadsOnceUntilEvicted() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getStatistics(1L, chatId -> Optional.of("stats-" + loads.incrementAndGet()));
+        Optional<String> second = cache.getStatistics(1L, chatId -> Optional.of("stats-" + loads.incrementAndGet()));
+
+        assertEquals(Optional.of("stats-1"), second);
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * Проверяет сброс обоих экранов чата по событию изменения посылок покупателя.
+     */
+    @Test
+    void customerParcelsChanged_EvictsChatScreens() {
+        BuyerScreenCache.ParcelsScreens stale = new BuyerScreenCache.ParcelsScreens(List.of(), Map.of());
+        BuyerScreenCache.ParcelsScreens fresh = new BuyerScreenCache.ParcelsScreens(List.of(), Map.of("k", "v"));
+        cache.getParcels(2L, chatId -> Optional.of(stale));
+        cache.getStatistics(2L, chatId -> Optional.of("old"));
+
+        cache.handleCustomerParcelsChanged(new CustomerParcelsChangedEvent(20L, 2L));
+
+        assertSame(fresh, cache.getParcels(2L, chatId -> Optional.of(fresh)).orElseThrow());
+        assertEquals("new", cache.getStatistics(2L, chatId -> Optional.of("new")).orElseThrow());
+    }
+
+    /**
+     * Проверяет, что отсутствие покупателя не кэшируется.
+     */
+    @Test
+    void emptyResult_IsNotCached() {
+        cache.getStatistics(3L, chatId -> Optional.empty());
+
+        assertEquals(Optional.of("linked"), cache.getStatistics(3L, chatId -> Optional.of("linked")));
+    }
+
+    /**
+     * Проверяет, что данные, загруженные одновременно со сбросом, не остаются в кэше,
+     * а сброс другого чата загрузку не затрагивает.
+     */
+    @Test
+    void loadOverlappingEviction_IsNotKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread loader = new Thread(() -> cache.getStatistics(4L, chatId -> {
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.of("stale");
+        }));
+        loader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        Thread eviction = new Thread(() -> cache.evict(4L));
+        eviction.start();
+        eviction.join(200);
+        release.countDown();
+        loader.join(5_000);
+        eviction.join(5_000);
+
+        assertEquals(Optional.of("fresh"), cache.getStatistics(4L, chatId -> Optional.of("fresh")));
+    }
+
+    /**
+     * Проверяет, что сброс другого чата не отменяет загрузку.
+     */
+    @Test
+    void evictOtherChat_KeepsLoadedScreen() {
+        cache.getStatistics(5L, chatId -> {
+            cache.evict(6L);
+            return Optional.of("kept");
+        });
+
+        assertEquals(Optional.of("kept"), cache.getStatistics(5L, chatId -> Optional.of("reloaded")));
+    }
+}
@@ -23,6 +23,7 @@ import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -51,8 +52,9 @@ class BuyerTelegramBotLoggingTest {
     @BeforeEach
     void setUp() {
         chatSessionRepository = new InMemoryChatSessionRepository();
-        buyerTelegramBot = new BuyerTelegramBot(telegramClient, "token", customerTelegramService, adminNotificationService,
-                new FullNameValidator(), chatSessionRepository, new ObjectMapper());
+        buyerTelegramBot = new BuyerTelegramBot(new TelegramSendGateway(telegramClient, 1000, Duration.ZERO, 1, 0), "token", customerTelegramService, adminNotificationService,
+                new FullNameValidator(), chatSessionRepository, new ObjectMapper(), mock(TelegramUpdateDispatcher.class),
+                new BuyerScreenCache(100, Duration.ofMinutes(10)));
         try {
             when(telegramClient.execute(any(SendMessage.class))).thenReturn(null);
         } catch (TelegramApiException e) {
@@ -43,6 +43,7 @@ import java.util.List;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Objects;
@@ -82,8 +83,9 @@ class BuyerTelegramBotStateIntegrationTest {
         fullNameValidator = new FullNameValidator();
         chatSessionRepository = new InMemoryChatSessionRepository();
         messageIdSequence = new AtomicInteger(500);
-        bot = new BuyerTelegramBot(telegramClient, "token", telegramService, adminNotificationService,
-                fullNameValidator, chatSessionRepository, new ObjectMapper());
+        bot = new BuyerTelegramBot(new TelegramSendGateway(telegramClient, 1000, Duration.ZERO, 1, 0), "token", telegramService, adminNotificationService,
+                fullNameValidator, chatSessionRepository, new ObjectMapper(), mock(TelegramUpdateDispatcher.class),
+                new BuyerScreenCache(100, Duration.ofMinutes(10)));
         lenient().when(adminNotificationService.findActiveNotification()).thenReturn(Optional.empty());
         lenient().when(telegramService.findByChatId(anyLong())).thenReturn(Optional.empty());
         lenient().when(telegramClient.execute(any(EditMessageText.class))).thenReturn(null);
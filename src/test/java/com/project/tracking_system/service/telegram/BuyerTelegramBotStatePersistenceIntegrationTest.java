@@ -23,6 +23,7 @@ import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.message.MaybeInaccessibleMessage;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -65,8 +66,9 @@ class BuyerTelegramBotStatePersistenceIntegrationTest {
         when(telegramService.confirmTelegram(customer)).thenReturn(customer);
         doNothing().when(telegramService).notifyActualStatuses(customer);
 
-        BuyerTelegramBot bot = new BuyerTelegramBot(telegramClient, "token", telegramService, adminNotificationService,
-                fullNameValidator, chatSessionRepository, new ObjectMapper());
+        BuyerTelegramBot bot = new BuyerTelegramBot(new TelegramSendGateway(telegramClient, 1000, Duration.ZERO, 1, 0), "token", telegramService, adminNotificationService,
+                fullNameValidator, chatSessionRepository, new ObjectMapper(), mock(TelegramUpdateDispatcher.class),
+                new BuyerScreenCache(100, Duration.ofMinutes(10)));
 
         bot.consume(contactUpdate(chatId, "+375291112233"));
 
@@ -76,8 +78,9 @@ class BuyerTelegramBotStatePersistenceIntegrationTest {
         TelegramClient restartedClient = mock(TelegramClient.class);
         when(restartedClient.execute(any(SendMessage.class))).thenReturn(null);
         when(adminNotificationService.findActiveNotification()).thenReturn(Optional.empty());
-        BuyerTelegramBot restartedBot = new BuyerTelegramBot(restartedClient, "token", telegramService, adminNotificationService,
-                fullNameValidator, chatSessionRepository, new ObjectMapper());
+        BuyerTelegramBot restartedBot = new BuyerTelegramBot(new TelegramSendGateway(restartedClient, 1000, Duration.ZERO, 1, 0), "token", telegramService, adminNotificationService,
+                fullNameValidator, chatSessionRepository, new ObjectMapper(), mock(TelegramUpdateDispatcher.class),
+                new BuyerScreenCache(100, Duration.ofMinutes(10)));
 
         clearInvocations(telegramService);
         when(telegramService.updateNameFromTelegram(chatId, "Иван Иванов")).thenAnswer(invocation -> {
@@ -116,8 +119,9 @@ class BuyerTelegramBotStatePersistenceIntegrationTest {
         customer.setNameSource(NameSource.USER_CONFIRMED);
         when(telegramService.findByChatId(chatId)).thenReturn(Optional.of(customer));
 
-        BuyerTelegramBot bot = new BuyerTelegramBot(initialClient, "token", telegramService, adminNotificationService,
-                fullNameValidator, chatSessionRepository, new ObjectMapper());
+        BuyerTelegramBot bot = new BuyerTelegramBot(new TelegramSendGateway(initialClient, 1000, Duration.ZERO, 1, 0), "token", telegramService, adminNotificationService,
+                fullNameValidator, chatSessionRepository, new ObjectMapper(), mock(TelegramUpdateDispatcher.class),
+                new BuyerScreenCache(100, Duration.ofMinutes(10)));
         bot.consume(textUpdate(chatId, "/start"));
 
         ChatSession savedSession = chatSessionRepository.find(chatId).orElse(null);
@@ -132,8 +136,9 @@ class BuyerTelegramBotStatePersistenceIntegrationTest {
         when(restartedClient.execute(any(EditMessageText.class))).thenReturn(null);
 
         when(adminNotificationService.findActiveNotification()).thenReturn(Optional.empty());
-        BuyerTelegramBot restartedBot = new BuyerTelegramBot(restartedClient, "token", telegramService, adminNotificationService,
-                fullNameValidator, chatSessionRepository, new ObjectMapper());
+        BuyerTelegramBot restartedBot = new BuyerTelegramBot(new TelegramSendGateway(restartedClient, 1000, Duration.ZERO, 1, 0), "token", telegramService, adminNotificationService,
+                fullNameValidator, chatSessionRepository, new ObjectMapper(), mock(TelegramUpdateDispatcher.class),
+                new BuyerScreenCache(100, Duration.ofMinutes(10)));
 
         CallbackQuery callbackQuery = mock(CallbackQuery.class);
         MaybeInaccessibleMessage callbackMessage = mock(MaybeInaccessibleMessage.class);
@@ -45,6 +45,7 @@ import org.telegram.telegrambots.meta.api.objects.chatmember.ChatMemberUpdated;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Objects;
@@ -88,8 +89,9 @@ class BuyerTelegramBotTest {
         chatSessionRepository = new InMemoryChatSessionRepository();
         objectMapper = new ObjectMapper();
         messageIdSequence = new AtomicInteger(100);
-        bot = new BuyerTelegramBot(telegramClient, "token", telegramService, adminNotificationService,
-                fullNameValidator, chatSessionRepository, objectMapper);
+        bot = new BuyerTelegramBot(new TelegramSendGateway(telegramClient, 1000, Duration.ZERO, 1, 0), "token", telegramService, adminNotificationService,
+                fullNameValidator, chatSessionRepository, objectMapper, mock(TelegramUpdateDispatcher.class),
+                new BuyerScreenCache(100, Duration.ofMinutes(10)));
         try {
             doAnswer(invocation -> {
                 Message response = new Message();
@@ -0,0 +1,173 @@
+package com.project.tracking_system.service.telegram;
+
+import com.project.tracking_system.entity.BuyerBotScreen;
+import com.project.tracking_system.entity.BuyerChatState;
+import com.project.tracking_system.service.admin.event.AdminAnnouncementEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты для {@link CachingChatSessionRepository}.
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingChatSessionRepositoryTest {
+
+    @Mock
+    private DatabaseChatSessionRepository delegate;
+
+    private CachingChatSessionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CachingChatSessionRepository(delegate, 100, 2, Duration.ofDays(1));
+    }
+
+    /**
+     * Проверяет, что промах читает базу один раз, а изменения экрана копятся до записи пачкой.
+     */
+    @Test
+    void writeBackFields_AreCoalescedAndFlushedInBatch() {
+        when(delegate.find(1L)).thenReturn(Optional.empty());
+
+        repository.updateAnchor(1L, 10);
+        repository.markKeyboardVisible(1L);
+        repository.updateAnchorAndScreen(1L, 11, BuyerBotScreen.MENU, List.of(BuyerBotScreen.MENU));
+        repository.markContactRequestSent(1L);
+
+        assertEquals(11, repository.find(1L).orElseThrow().getAnchorMessageId());
+        assertFalse(repository.isKeyboardHidden(1L));
+        verify(delegate, times(1)).find(1L);
+        verify(delegate, never()).saveScreenStates(any());
+
+        repository.flush();
+        repository.flush();
+
+        ArgumentCaptor<Collection<ChatSession>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(delegate, times(1)).saveScreenStates(captor.capture());
+        ChatSession written = captor.getValue().iterator().next();
+        assertEquals(11, written.getAnchorMessageId());
+        assertEquals(List.of(BuyerBotScreen.MENU), written.getNavigationPath());
+        assertTrue(written.isContactRequestSent());
+    }
+
+    /**
+     * Проверяет, что повтор уже установленного значения не помечает сессию изменённой.
+     */
+    @Test
+    void unchangedValues_DoNotMarkSessionDirty() {
+        ChatSession stored = new ChatSession(2L, BuyerChatState.IDLE, 5, BuyerBotScreen.MENU, true, false);
+        when(delegate.find(2L)).thenReturn(Optional.of(stored));
+
+        repository.markKeyboardHidden(2L);
+        repository.updateAnchor(2L, 5);
+        repository.updateState(2L, BuyerChatState.IDLE);
+        repository.flush();
+
+        verify(delegate, never()).saveScreenStates(any());
+        verify(delegate, never()).updateState(any(), any());
+    }
+
+    /**
+     * Проверяет немедленную запись сценарного состояния.
+     */
+    @Test
+    void updateState_WritesThrough() {
+        when(delegate.find(3L)).thenReturn(Optional.empty());
+
+        repository.updateState(3L, BuyerChatState.AWAITING_CONTACT);
+
+        verify(delegate).updateState(3L, BuyerChatState.AWAITING_CONTACT);
+        assertEquals(BuyerChatState.AWAITING_CONTACT, repository.getState(3L));
+    }
+
+    /**
+     * Проверяет, что ошибка записи оставляет сессию в очереди.
+     */
+    @Test
+    void flush_KeepsSessionsDirtyOnFailure() {
+        when(delegate.find(4L)).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("db down")).doNothing().when(delegate).saveScreenStates(any());
+
+        repository.markContactRequestSent(4L);
+        repository.flush();
+        repository.flush();
+        repository.flush();
+
+        verify(delegate, times(2)).saveScreenStates(any());
+    }
+
+    /**
+     * Проверяет, что после сброса объявления состояние просмотра перечитывается из базы.
+     */
+    @Test
+    void adminAnnouncementEvent_ReloadsAnnouncementState() {
+        ChatSession seen = new ChatSession(5L, BuyerChatState.IDLE, null, null);
+        seen.setCurrentNotificationId(9L);
+        seen.setAnnouncementSeen(true);
+        ChatSession reset = new ChatSession(5L, BuyerChatState.IDLE, null, null);
+        reset.setCurrentNotificationId(9L);
+        when(delegate.find(5L)).thenReturn(Optional.of(seen), Optional.of(reset));
+
+        assertTrue(repository.isAnnouncementSeen(5L));
+
+        repository.handleAdminAnnouncement(new AdminAnnouncementEvent(9L,
+                AdminAnnouncementEvent.AdminAnnouncementEventType.RESET_REQUESTED));
+
+        assertFalse(repository.isAnnouncementSeen(5L));
+        verify(delegate, times(2)).find(5L);
+    }
+
+    /**
+     * Проверяет, что удалённые из базы сессии перечитываются, а незаписанные изменения сохраняются.
+     */
+    @Test
+    void evict_DropsCleanSessionsAndKeepsDirtyOnes() {
+        ChatSession stored = new ChatSession(6L, BuyerChatState.IDLE, 60, BuyerBotScreen.MENU);
+        when(delegate.find(6L)).thenReturn(Optional.of(stored), Optional.empty());
+        when(delegate.find(7L)).thenReturn(Optional.empty());
+
+        assertEquals(60, repository.find(6L).orElseThrow().getAnchorMessageId());
+        repository.updateAnchor(7L, 70);
+
+        repository.evict(List.of(6L, 7L));
+
+        assertTrue(repository.find(6L).isEmpty());
+        assertEquals(70, repository.find(7L).orElseThrow().getAnchorMessageId());
+        verify(delegate, times(2)).find(6L);
+        verify(delegate, times(1)).find(7L);
+    }
+
+    /**
+     * Проверяет, что активность существующей сессии отмечается в базе не чаще заданного интервала.
+     */
+    @Test
+    void recordActivity_WritesOncePerInterval() {
+        when(delegate.find(8L)).thenReturn(Optional.of(new ChatSession(8L, BuyerChatState.IDLE, null, null)));
+        when(delegate.find(9L)).thenReturn(Optional.empty());
+
+        repository.recordActivity(8L);
+        repository.recordActivity(8L);
+        repository.recordActivity(9L);
+
+        verify(delegate, times(1)).recordActivity(8L);
+        verify(delegate, never()).recordActivity(9L);
+
+        CachingChatSessionRepository unthrottled = new CachingChatSessionRepository(delegate, 100, 2, Duration.ZERO);
+        unthrottled.recordActivity(8L);
+        unthrottled.recordActivity(8L);
+        verify(delegate, times(3)).recordActivity(8L);
+    }
+}
@@ -0,0 +1,107 @@
+package com.project.tracking_system.service.telegram;
+
+import com.project.tracking_system.dto.ChatSessionStorageDTO;
+import com.project.tracking_system.entity.ChatSessionStorageSample;
+import com.project.tracking_system.repository.BuyerAnnouncementStateRepository;
+import com.project.tracking_system.repository.BuyerBotScreenStateRepository;
+import com.project.tracking_system.repository.ChatSessionStorageSampleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты для {@link ChatSessionCompactionJob}.
+ */
+@ExtendWith(MockitoExtension.class)
+class ChatSessionCompactionJobTest {
+
+    @Mock
+    private BuyerBotScreenStateRepository screenStateRepository;
+
+    @Mock
+    private BuyerAnnouncementStateRepository announcementStateRepository;
+
+    @Mock
+    private CachingChatSessionRepository sessionCache;
+
+    @Mock
+    private ChatSessionStorageSampleRepository sampleRepository;
+
+    /**
+     * Неактивные сессии удаляются порциями до неполной выборки и убираются из кэша,
+     * а размеры таблиц попадают в историю замеров.
+     */
+    @Test
+    void compact_RemovesIdleSessionsInBatchesAndRecordsSizes() {
+        ChatSessionCompactionJob job = new ChatSessionCompactionJob(screenStateRepository,
+                announcementStateRepository, sessionCache, sampleRepository, 30, 2, 10);
+        when(screenStateRepository.findIdleChatIds(any(), eq(2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(screenStateRepository.deleteIdle(anyList(), any())).thenReturn(2, 1);
+        when(announcementStateRepository.findIdleChatIds(any(), eq(2))).thenReturn(List.of());
+        when(screenStateRepository.count()).thenReturn(5L);
+        when(screenStateRepository.totalRelationSize()).thenReturn(8192L);
+        when(announcementStateRepository.count()).thenReturn(4L);
+        when(announcementStateRepository.totalRelationSize()).thenReturn(4096L);
+
+        job.compact();
+
+        verify(screenStateRepository, times(2)).findIdleChatIds(any(), eq(2));
+        verify(sessionCache).evict(List.of(1L, 2L));
+        verify(sessionCache).evict(List.of(3L));
+        verify(announcementStateRepository, never()).deleteIdle(anyList(), any());
+
+        ArgumentCaptor<ChatSessionStorageSample> saved = ArgumentCaptor.forClass(ChatSessionStorageSample.class);
+        verify(sampleRepository).save(saved.capture());
+        ChatSessionStorageSample sample = saved.getValue();
+        assertEquals(3, sample.getRemovedScreenStates());
+        assertEquals(0, sample.getRemovedAnnouncementStates());
+        assertEquals(5L, sample.getScreenStates());
+        assertEquals(8192L, sample.getScreenStatesBytes());
+        assertEquals(4096L, sample.getAnnouncementStatesBytes());
+        verify(sampleRepository).deleteAllExceptLatest(10);
+    }
+
+    /**
+     * Нулевой срок отключает удаление, в базе остаются только последние замеры,
+     * а история возвращается от старых к новым.
+     */
+    @Test
+    void compact_WithoutIdleDaysOnlySamplesAndKeepsBoundedHistory() {
+        ChatSessionCompactionJob job = new ChatSessionCompactionJob(screenStateRepository,
+                announcementStateRepository, sessionCache, sampleRepository, 0, 100, 2);
+
+        job.compact();
+
+        verify(screenStateRepository, never()).findIdleChatIds(any(), anyInt());
+        verifyNoInteractions(sessionCache);
+        verify(sampleRepository).deleteAllExceptLatest(2);
+
+        when(sampleRepository.findAllByOrderBySampledAtDescIdDesc(any(Limit.class)))
+                .thenReturn(List.of(sample(3L), sample(2L)));
+        assertEquals(List.of(2L, 3L), job.history().stream()
+                .map(ChatSessionStorageDTO::screenStates)
+                .toList());
+    }
+
+    private static ChatSessionStorageSample sample(long screenStates) {
+        ChatSessionStorageSample sample = new ChatSessionStorageSample();
+        sample.setSampledAt(ZonedDateTime.now(ZoneOffset.UTC));
+        sample.setScreenStates(screenStates);
+        return sample;
+    }
+}
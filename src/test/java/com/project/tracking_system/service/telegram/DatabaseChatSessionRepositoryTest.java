@@ -1,6 +1,7 @@
 package com.project.tracking_system.service.telegram;
 
 import com.project.tracking_system.entity.BuyerBotScreen;
+import com.project.tracking_system.entity.BuyerBotScreenState;
 import com.project.tracking_system.entity.BuyerChatState;
 import com.project.tracking_system.repository.BuyerAnnouncementStateRepository;
 import com.project.tracking_system.repository.BuyerBotScreenStateRepository;
@@ -10,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -119,5 +121,25 @@ class DatabaseChatSessionRepositoryTest {
         assertEquals(freshSeenAt, freshSession.getAnnouncementUpdatedAt(),
                 "Для нового чата должно сохраняться время последнего обновления объявления");
     }
-}
 
+    /**
+     * Проверяет компактное хранение пути навигации и чтение пути в прежнем формате.
+     */
+    @Test
+    void shouldStoreNavigationPathAsScreenOrdinals() {
+        Long chatId = 505L;
+        repository.updateAnchorAndScreen(chatId, 9, BuyerBotScreen.SETTINGS,
+                List.of(BuyerBotScreen.MENU, BuyerBotScreen.PARCELS, BuyerBotScreen.SETTINGS));
+
+        BuyerBotScreenState stored = screenStateRepository.findById(chatId).orElseThrow();
+        assertEquals("023", stored.getNavigationPath(), "Путь должен храниться порядковыми номерами экранов");
+        assertNotNull(stored.getLastActivityAt(), "При сохранении должна отмечаться активность чата");
+
+        stored.setNavigationPath("MENU,UNKNOWN,HELP");
+        screenStateRepository.saveAndFlush(stored);
+
+        assertEquals(List.of(BuyerBotScreen.MENU, BuyerBotScreen.HELP),
+                repository.find(chatId).orElseThrow().getNavigationPath(),
+                "Путь в прежнем формате должен читаться без неизвестных экранов");
+    }
+}
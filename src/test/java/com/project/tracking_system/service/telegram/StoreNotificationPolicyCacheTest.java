@@ -0,0 +1,109 @@
+package com.project.tracking_system.service.telegram;
+
+import com.project.tracking_system.entity.BuyerStatus;
+import com.project.tracking_system.entity.Store;
+import com.project.tracking_system.entity.StoreTelegramSettings;
+import com.project.tracking_system.entity.StoreTelegramTemplate;
+import com.project.tracking_system.entity.User;
+import com.project.tracking_system.service.customer.CustomerService;
+import com.project.tracking_system.service.store.event.StoreNotificationSettingsChangedEvent;
+import com.project.tracking_system.service.user.event.UserNotificationSettingsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для {@link StoreNotificationPolicyCache}.
+ */
+@ExtendWith(MockitoExtension.class)
+class StoreNotificationPolicyCacheTest {
+
+    @Mock
+    private CustomerService customerService;
+
+    private StoreNotificationPolicyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new StoreNotificationPolicyCache(customerService, 100, Duration.ofMinutes(10), Duration.ofMinutes(1));
+    }
+
+    /**
+     * Шаблоны магазина собираются один раз и пересобираются после изменения настроек.
+     */
+    @Test
+    void forStore_RebuildsAfterSettingsChanged() {
+        Store store = store("Магазин", "{track} в {store}");
+        assertEquals("A1 в Магазин", cache.forStore(store).render(BuyerStatus.IN_TRANSIT, "A1"));
+
+        store.setName("Новое имя");
+        assertEquals("A1 в Магазин", cache.forStore(store).render(BuyerStatus.IN_TRANSIT, "A1"));
+
+        cache.handleStoreSettingsChanged(new StoreNotificationSettingsChangedEvent(store.getId()));
+        assertEquals("A1 в Новое имя", cache.forStore(store).render(BuyerStatus.IN_TRANSIT, "A1"));
+    }
+
+    /**
+     * Статусы без пользовательского шаблона используют стандартный текст.
+     */
+    @Test
+    void forStore_FallsBackToDefaultTemplate() {
+        Store store = store("Магазин", "{track}");
+
+        assertEquals(BuyerStatus.WAITING.formatMessage("A1", "Магазин"),
+                cache.forStore(store).render(BuyerStatus.WAITING, "A1"));
+        assertEquals(7L, cache.forStore(store).ownerId());
+    }
+
+    /**
+     * Разрешение владельца запрашивается один раз до сброса по изменению настроек.
+     */
+    @Test
+    void isOwnerNotifiable_CachesUntilUserSettingsChanged() {
+        when(customerService.isOwnerNotifiable(7L)).thenReturn(true, false);
+
+        assertTrue(cache.isOwnerNotifiable(7L));
+        assertTrue(cache.isOwnerNotifiable(7L));
+        cache.handleUserSettingsChanged(new UserNotificationSettingsChangedEvent(7L));
+        assertFalse(cache.isOwnerNotifiable(7L));
+
+        verify(customerService, times(2)).isOwnerNotifiable(7L);
+        assertFalse(cache.isOwnerNotifiable(null));
+        verify(customerService, never()).isOwnerNotifiable(null);
+    }
+
+    /**
+     * Шаблон с несколькими вхождениями трек-номера и без них отрисовывается полностью.
+     */
+    @Test
+    void notificationTemplate_RendersAllPlaceholders() {
+        assertEquals("X-1 / X-1 (S)", NotificationTemplate.compile("{track} / {track} ({store})", "S").render("X-1"));
+        assertEquals("Без номера", NotificationTemplate.compile("Без номера", "S").render("X-1"));
+    }
+
+    private static Store store(String name, String inTransitTemplate) {
+        Store store = new Store();
+        store.setId(5L);
+        store.setName(name);
+        User owner = new User();
+        owner.setId(7L);
+        store.setOwner(owner);
+        StoreTelegramSettings settings = new StoreTelegramSettings();
+        StoreTelegramTemplate template = new StoreTelegramTemplate();
+        template.setStatus(BuyerStatus.IN_TRANSIT);
+        template.setTemplate(inTransitTemplate);
+        settings.getTemplates().add(template);
+        store.setTelegramSettings(settings);
+        return store;
+    }
+}
@@ -2,29 +2,44 @@ package com.project.tracking_system.service.telegram;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.project.tracking_system.entity.AdminNotification;
+import com.project.tracking_system.entity.AnnouncementBroadcast;
+import com.project.tracking_system.entity.AnnouncementBroadcastStatus;
+import com.project.tracking_system.repository.AnnouncementBroadcastRepository;
 import com.project.tracking_system.repository.CustomerRepository;
 import com.project.tracking_system.service.admin.AdminNotificationService;
 import com.project.tracking_system.service.telegram.support.InMemoryChatSessionRepository;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
 
 /**
  * Модульные тесты широковещательного сервиса рассылки административных объявлений.
  */
 class TelegramAnnouncementBroadcasterTest {
 
+    private static final PageRequest CHUNK = PageRequest.of(0, 200);
+
     private AdminNotificationService adminNotificationService;
     private CustomerRepository customerRepository;
+    private AnnouncementBroadcastRepository broadcastRepository;
     private RecordingAnnouncementSender announcementSender;
     private InMemoryChatSessionRepository chatSessionRepository;
     private TelegramAnnouncementBroadcaster broadcaster;
@@ -33,9 +48,21 @@ class TelegramAnnouncementBroadcasterTest {
     void setUp() {
         adminNotificationService = mock(AdminNotificationService.class);
         customerRepository = mock(CustomerRepository.class);
+        broadcastRepository = mock(AnnouncementBroadcastRepository.class);
         chatSessionRepository = new InMemoryChatSessionRepository();
-        announcementSender = new RecordingAnnouncementSender(chatSessionRepository);
-        broadcaster = new TelegramAnnouncementBroadcaster(adminNotificationService, customerRepository, announcementSender);
+        announcementSender = new RecordingAnnouncementSender(chatSessionRepository, chatId -> true);
+        when(broadcastRepository.save(any(AnnouncementBroadcast.class))).thenAnswer(invocation -> {
+            AnnouncementBroadcast broadcast = invocation.getArgument(0);
+            broadcast.setId(1L);
+            return broadcast;
+        });
+        when(broadcastRepository.advance(any(), anyLong(), anyLong(), any(), any())).thenReturn(1);
+        broadcaster = createBroadcaster();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
     }
 
     /**
@@ -43,20 +70,20 @@ class TelegramAnnouncementBroadcasterTest {
      */
     @Test
     void shouldBroadcastToConfirmedChatsAndResetSeenFlag() {
-        AdminNotification notification = new AdminNotification();
-        notification.setId(55L);
-        notification.setTitle("Важно");
-        notification.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
-
-        when(adminNotificationService.findActiveNotification()).thenReturn(Optional.of(notification));
-        when(customerRepository.findConfirmedTelegramChatIds()).thenReturn(List.of(101L, 202L));
+        AdminNotification notification = activeNotification(55L);
+        when(customerRepository.countConfirmedTelegramChats()).thenReturn(2L);
+        when(customerRepository.findConfirmedTelegramChatIdsAfter(Long.MIN_VALUE, CHUNK)).thenReturn(List.of(101L, 202L));
+        when(customerRepository.findConfirmedTelegramChatIdsAfter(202L, CHUNK)).thenReturn(List.of());
 
         chatSessionRepository.markAnnouncementSeen(101L);
         chatSessionRepository.markAnnouncementSeen(202L);
 
         broadcaster.broadcastActiveAnnouncement(notification.getId());
 
-        assertEquals(List.of(101L, 202L), announcementSender.getInvokedChatIds(),
+        verify(broadcastRepository, timeout(5000))
+                .finish(eq(1L), eq(AnnouncementBroadcastStatus.COMPLETED), any());
+        verify(broadcastRepository).advance(eq(1L), eq(2L), eq(0L), eq(202L), any());
+        assertEquals(Set.of(101L, 202L), Set.copyOf(announcementSender.getInvokedChatIds()),
                 "Должны обрабатываться только подтверждённые чаты");
         assertFalse(chatSessionRepository.isAnnouncementSeen(101L),
                 "После рассылки признак просмотра должен сбрасываться");
@@ -64,6 +91,55 @@ class TelegramAnnouncementBroadcasterTest {
                 "После рассылки признак просмотра должен сбрасываться");
     }
 
+    /**
+     * Проверяет, что отклонённые и завершившиеся ошибкой отправки учитываются как неудачные.
+     */
+    @Test
+    void shouldCountFailedDeliveries() {
+        announcementSender = new RecordingAnnouncementSender(chatSessionRepository, chatId -> {
+            if (chatId == 303L) {
+                throw new IllegalStateException("Too Many Requests");
+            }
+            return chatId != 202L;
+        });
+        broadcaster.shutdown();
+        broadcaster = createBroadcaster();
+        activeNotification(55L);
+        when(customerRepository.countConfirmedTelegramChats()).thenReturn(3L);
+        when(customerRepository.findConfirmedTelegramChatIdsAfter(Long.MIN_VALUE, CHUNK))
+                .thenReturn(List.of(101L, 202L, 303L));
+        when(customerRepository.findConfirmedTelegramChatIdsAfter(303L, CHUNK)).thenReturn(List.of());
+
+        broadcaster.broadcastActiveAnnouncement(55L);
+
+        verify(broadcastRepository, timeout(5000))
+                .finish(eq(1L), eq(AnnouncementBroadcastStatus.COMPLETED), any());
+        verify(broadcastRepository).advance(eq(1L), eq(1L), eq(2L), eq(303L), any());
+    }
+
+    /**
+     * Проверяет продолжение прерванной рассылки с сохранённого курсора.
+     */
+    @Test
+    void shouldResumeInterruptedBroadcastFromCursor() {
+        activeNotification(55L);
+        AnnouncementBroadcast interrupted = new AnnouncementBroadcast();
+        interrupted.setId(7L);
+        interrupted.setNotificationId(55L);
+        interrupted.setLastChatId(101L);
+        when(broadcastRepository.findAllByStatusOrderByIdDesc(AnnouncementBroadcastStatus.RUNNING))
+                .thenReturn(List.of(interrupted));
+        when(customerRepository.findConfirmedTelegramChatIdsAfter(101L, CHUNK)).thenReturn(List.of(202L));
+        when(customerRepository.findConfirmedTelegramChatIdsAfter(202L, CHUNK)).thenReturn(List.of());
+
+        broadcaster.resumeInterrupted();
+
+        verify(broadcastRepository, timeout(5000))
+                .finish(eq(7L), eq(AnnouncementBroadcastStatus.COMPLETED), any());
+        assertEquals(List.of(202L), List.copyOf(announcementSender.getInvokedChatIds()),
+                "Уже обработанные чаты не должны получать объявление повторно");
+    }
+
     /**
      * Убеждается, что при отсутствии активного объявления рассылка не запускается.
      */
@@ -74,30 +150,47 @@ class TelegramAnnouncementBroadcasterTest {
         broadcaster.broadcastActiveAnnouncement(99L);
 
         verifyNoInteractions(customerRepository);
-        assertEquals(List.of(), announcementSender.getInvokedChatIds(),
+        assertEquals(List.of(), List.copyOf(announcementSender.getInvokedChatIds()),
                 "Не должно быть вызовов рендеринга без активного уведомления");
     }
 
+    private TelegramAnnouncementBroadcaster createBroadcaster() {
+        return new TelegramAnnouncementBroadcaster(adminNotificationService, customerRepository,
+                announcementSender, broadcastRepository, 1000, 2, 200);
+    }
+
+    private AdminNotification activeNotification(Long id) {
+        AdminNotification notification = new AdminNotification();
+        notification.setId(id);
+        notification.setTitle("Важно");
+        notification.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
+        when(adminNotificationService.findActiveNotification()).thenReturn(Optional.of(notification));
+        return notification;
+    }
+
     /**
      * Записывает список обработанных чатов и обновляет состояние объявлений через репозиторий.
      */
     private static final class RecordingAnnouncementSender implements TelegramAnnouncementSender {
 
         private final InMemoryChatSessionRepository repository;
-        private final List<Long> invokedChatIds = new ArrayList<>();
+        private final Predicate<Long> outcome;
+        private final ConcurrentLinkedQueue<Long> invokedChatIds = new ConcurrentLinkedQueue<>();
 
-        private RecordingAnnouncementSender(InMemoryChatSessionRepository repository) {
+        private RecordingAnnouncementSender(InMemoryChatSessionRepository repository, Predicate<Long> outcome) {
             this.repository = repository;
+            this.outcome = outcome;
         }
 
         @Override
-        public void showActiveAnnouncement(Long chatId) {
+        public boolean showActiveAnnouncement(Long chatId) {
             invokedChatIds.add(chatId);
             repository.updateAnnouncement(chatId, 777L, null, ZonedDateTime.now(ZoneOffset.UTC));
+            return outcome.test(chatId);
         }
 
-        private List<Long> getInvokedChatIds() {
-            return List.copyOf(invokedChatIds);
+        private ConcurrentLinkedQueue<Long> getInvokedChatIds() {
+            return invokedChatIds;
         }
     }
 }
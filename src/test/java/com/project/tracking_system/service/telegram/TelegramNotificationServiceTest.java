@@ -1,24 +1,46 @@
 package com.project.tracking_system.service.telegram;
 
+import com.project.tracking_system.entity.BuyerStatus;
 import com.project.tracking_system.entity.Customer;
 import com.project.tracking_system.entity.GlobalStatus;
 import com.project.tracking_system.entity.Store;
 import com.project.tracking_system.entity.StoreTelegramSettings;
+import com.project.tracking_system.entity.StoreTelegramTemplate;
 import com.project.tracking_system.entity.TrackParcel;
+import com.project.tracking_system.entity.User;
+import com.project.tracking_system.repository.CustomerNotificationLogRepository;
 import com.project.tracking_system.service.customer.CustomerService;
+import com.project.tracking_system.service.telegram.event.StatusNotificationRequestedEvent;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
-import org.telegram.telegrambots.meta.generics.TelegramClient;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -29,47 +51,202 @@ import static org.mockito.Mockito.when;
 class TelegramNotificationServiceTest {
 
     @Mock
-    private TelegramClient telegramClient;
+    private TelegramSendGateway sendGateway;
 
     @Mock
     private CustomerService customerService;
 
-    @InjectMocks
+    @Mock
+    private CustomerNotificationLogRepository notificationLogRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private TelegramNotificationService telegramNotificationService;
 
+    @BeforeEach
+    void setUp() {
+        StoreNotificationPolicyCache policyCache = new StoreNotificationPolicyCache(customerService, 100,
+                Duration.ofMinutes(10), Duration.ofMinutes(1));
+        telegramNotificationService = new TelegramNotificationService(sendGateway, policyCache,
+                notificationLogRepository, eventPublisher);
+    }
+
     /**
-     * Проверяет, что при запрете на уведомления метод возвращает {@code false} и не отправляет сообщение.
+     * Проверяет, что при запрете на уведомления метод возвращает {@code false} и ничего не публикует.
      */
     @Test
-    void sendStatusUpdate_whenCustomerNotNotifiable_returnsFalse() throws TelegramApiException {
+    void requestStatusUpdate_whenOwnerNotNotifiable_returnsFalse() throws TelegramApiException {
         TrackParcel parcel = buildParcel();
 
-        when(customerService.isNotifiable(parcel.getCustomer(), parcel.getStore())).thenReturn(false);
+        when(customerService.isOwnerNotifiable(7L)).thenReturn(false);
 
-        boolean result = telegramNotificationService.sendStatusUpdate(parcel, GlobalStatus.DELIVERED);
+        boolean result = telegramNotificationService.requestStatusUpdate(parcel, GlobalStatus.DELIVERED);
 
         assertFalse(result, "Метод обязан вернуть false при раннем выходе");
-        verify(telegramClient, never()).execute(any(SendMessage.class));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+        verify(sendGateway, never()).execute(any(), any(SendMessage.class), any());
     }
 
     /**
-     * Проверяет, что при выполнении условий сообщение отправляется и метод возвращает {@code true}.
+     * Проверяет, что опубликованное уведомление отправляется после записи в журнал.
      */
     @Test
-    void sendStatusUpdate_whenConditionsMet_returnsTrue() throws TelegramApiException {
+    void requestStatusUpdate_whenConditionsMet_sendsClaimedNotification() throws TelegramApiException {
         TrackParcel parcel = buildParcel();
+        parcel.setId(11L);
         Store store = parcel.getStore();
         StoreTelegramSettings settings = new StoreTelegramSettings();
         settings.setEnabled(true);
         store.setTelegramSettings(settings);
 
-        when(customerService.isNotifiable(parcel.getCustomer(), store)).thenReturn(true);
-        when(telegramClient.execute(any(SendMessage.class))).thenReturn(null);
+        when(customerService.isOwnerNotifiable(7L)).thenReturn(true);
+        when(notificationLogRepository.claimInstantNotification(eq(1L), eq(11L), eq("DELIVERED"), any(ZonedDateTime.class)))
+                .thenReturn(Optional.of(10L));
+        when(sendGateway.execute(eq(123456L), any(SendMessage.class), eq(TelegramSendPriority.STATUS))).thenReturn(null);
 
-        boolean result = telegramNotificationService.sendStatusUpdate(parcel, GlobalStatus.DELIVERED);
+        telegramNotificationService.requestStatusUpdate(parcel, GlobalStatus.DELIVERED);
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        boolean result = telegramNotificationService.sendStatusUpdateOnce((StatusNotificationRequestedEvent) event.getValue());
 
         assertTrue(result, "Метод обязан сообщать об успешной отправке");
-        verify(telegramClient).execute(any(SendMessage.class));
+        ArgumentCaptor<SendMessage> message = ArgumentCaptor.forClass(SendMessage.class);
+        verify(sendGateway).execute(eq(123456L), message.capture(), eq(TelegramSendPriority.STATUS));
+        assertEquals(BuyerStatus.DELIVERED.formatMessage("RB000000001BY", "Store"), message.getValue().getText());
+        verify(notificationLogRepository, never()).releaseInstantNotification(any());
+    }
+
+    /**
+     * Проверяет, что при серии уведомлений магазина разрешение владельца запрашивается один раз,
+     * а пользовательский шаблон применяется к каждой посылке.
+     */
+    @Test
+    void requestStatusUpdate_ReusesStorePolicyAcrossParcels() {
+        TrackParcel first = buildParcel();
+        TrackParcel second = buildParcel();
+        second.setNumber("RB000000002BY");
+        second.setStore(first.getStore());
+        StoreTelegramSettings settings = new StoreTelegramSettings();
+        StoreTelegramTemplate template = new StoreTelegramTemplate();
+        template.setStatus(BuyerStatus.DELIVERED);
+        template.setTemplate("{store}: {track} получена");
+        settings.getTemplates().add(template);
+        first.getStore().setTelegramSettings(settings);
+        when(customerService.isOwnerNotifiable(7L)).thenReturn(true);
+
+        telegramNotificationService.requestStatusUpdate(first, GlobalStatus.DELIVERED);
+        telegramNotificationService.requestStatusUpdate(second, GlobalStatus.DELIVERED);
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(List.of("Store: RB000000001BY получена", "Store: RB000000002BY получена"),
+                events.getAllValues().stream()
+                        .map(event -> ((StatusNotificationRequestedEvent) event).text())
+                        .toList());
+        verify(customerService, times(1)).isOwnerNotifiable(7L);
+    }
+
+    /**
+     * Проверяет, что запрос уведомления только публикует подготовленное сообщение,
+     * а запись в журнал и отправка откладываются до фиксации транзакции.
+     */
+    @Test
+    void requestStatusUpdate_PublishesPreparedNotification() throws TelegramApiException {
+        TrackParcel parcel = buildParcel();
+        parcel.setId(11L);
+        when(customerService.isOwnerNotifiable(7L)).thenReturn(true);
+
+        boolean result = telegramNotificationService.requestStatusUpdate(parcel, GlobalStatus.DELIVERED);
+
+        assertTrue(result);
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(new StatusNotificationRequestedEvent(1L, 11L, GlobalStatus.DELIVERED, 123456L,
+                BuyerStatus.DELIVERED.formatMessage("RB000000001BY", "Store"), "RB000000001BY"), event.getValue());
+        verify(sendGateway, never()).execute(any(), any(SendMessage.class), any());
+        verify(notificationLogRepository, never()).claimInstantNotification(any(), any(), any(), any());
+    }
+
+    /**
+     * Проверяет, что уже записанное в журнал уведомление повторно не отправляется.
+     */
+    @Test
+    void sendStatusUpdateOnce_WhenAlreadyClaimed_DoesNotSend() throws TelegramApiException {
+        StatusNotificationRequestedEvent notification = buildNotification();
+        when(notificationLogRepository.claimInstantNotification(eq(1L), eq(11L), eq("DELIVERED"), any(ZonedDateTime.class)))
+                .thenReturn(Optional.empty());
+
+        boolean result = telegramNotificationService.sendStatusUpdateOnce(notification);
+
+        assertFalse(result);
+        verify(sendGateway, never()).execute(any(), any(SendMessage.class), any());
+    }
+
+    /**
+     * Проверяет, что при ошибке отправки запись в журнале освобождается.
+     */
+    @Test
+    void sendStatusUpdateOnce_WhenSendFailed_ReleasesClaim() throws TelegramApiException {
+        StatusNotificationRequestedEvent notification = buildNotification();
+        when(notificationLogRepository.claimInstantNotification(eq(1L), eq(11L), eq("DELIVERED"), any(ZonedDateTime.class)))
+                .thenReturn(Optional.of(10L));
+        when(sendGateway.execute(eq(123456L), any(SendMessage.class), eq(TelegramSendPriority.STATUS)))
+                .thenThrow(new TelegramApiException("blocked"));
+
+        boolean result = telegramNotificationService.sendStatusUpdateOnce(notification);
+
+        assertFalse(result);
+        verify(notificationLogRepository).releaseInstantNotification(10L);
+    }
+
+    /**
+     * Модульный тест логики ветвления при параллельных вызовах: журнал заменён
+     * заглушкой, которая, как уникальный индекс, выдаёт запись только первому вызову.
+     * Поведение самого индекса и ON CONFLICT в PostgreSQL этим тестом не проверяется.
+     */
+    @Test
+    void sendStatusUpdateOnce_BranchLogic_OnlyClaimingCallSends() throws Exception {
+        StatusNotificationRequestedEvent notification = buildNotification();
+        Set<String> journal = ConcurrentHashMap.newKeySet();
+        when(notificationLogRepository.claimInstantNotification(eq(1L), eq(11L), eq("DELIVERED"), any(ZonedDateTime.class)))
+                .thenAnswer(invocation -> journal.add(invocation.getArgument(1) + ":" + invocation.getArgument(2))
+                        ? Optional.of(10L)
+                        : Optional.empty());
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return telegramNotificationService.sendStatusUpdateOnce(notification);
+                }));
+            }
+            start.countDown();
+            int sent = 0;
+            for (Future<Boolean> future : futures) {
+                if (future.get(10, TimeUnit.SECONDS)) {
+                    sent++;
+                }
+            }
+            assertEquals(1, sent);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(sendGateway, times(1)).execute(eq(123456L), any(SendMessage.class), eq(TelegramSendPriority.STATUS));
+        verify(notificationLogRepository, never()).releaseInstantNotification(any());
+    }
+
+    /**
+     * Создаёт подготовленное уведомление о вручении посылки.
+     */
+    private StatusNotificationRequestedEvent buildNotification() {
+        return new StatusNotificationRequestedEvent(1L, 11L, GlobalStatus.DELIVERED, 123456L,
+                "Посылка RB000000001BY получена", "RB000000001BY");
     }
 
     /**
@@ -88,6 +265,9 @@ class TelegramNotificationServiceTest {
         Store store = new Store();
         store.setId(5L);
         store.setName("Store");
+        User owner = new User();
+        owner.setId(7L);
+        store.setOwner(owner);
         parcel.setStore(store);
 
         return parcel;
@@ -0,0 +1,145 @@
+package com.project.tracking_system.service.telegram;
+
+import com.project.tracking_system.dto.ReminderCandidateRow;
+import com.project.tracking_system.repository.CustomerNotificationLogRepository;
+import com.project.tracking_system.repository.TrackParcelRepository;
+import com.project.tracking_system.service.customer.CustomerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для {@link TelegramReminderScheduler}.
+ */
+@ExtendWith(MockitoExtension.class)
+class TelegramReminderSchedulerTest {
+
+    @Mock
+    private TrackParcelRepository trackParcelRepository;
+
+    @Mock
+    private CustomerNotificationLogRepository customerNotificationLogRepository;
+
+    @Mock
+    private TelegramNotificationService telegramNotificationService;
+
+    @Mock
+    private CustomerService customerService;
+
+    private TelegramReminderScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new TelegramReminderScheduler(trackParcelRepository, customerNotificationLogRepository,
+                telegramNotificationService, customerService, Runnable::run);
+    }
+
+    /**
+     * Проверяет, что в журнал одним запросом попадают только успешно отправленные напоминания.
+     */
+    @Test
+    void sendReminders_LogsOnlySuccessfulSendsInBatch() {
+        ReminderCandidateRow first = reminder(1L, 10L);
+        ReminderCandidateRow second = reminder(2L, 10L);
+        ReminderCandidateRow third = reminder(3L, 10L);
+        when(trackParcelRepository.findDueReminders(any(), any(), eq(0L), eq(TelegramReminderScheduler.PAGE_SIZE)))
+                .thenReturn(List.of(first, second, third));
+        when(customerService.isOwnerNotifiable(10L)).thenReturn(true);
+        when(telegramNotificationService.sendReminder(first)).thenReturn(true);
+        when(telegramNotificationService.sendReminder(second)).thenReturn(false);
+        when(telegramNotificationService.sendReminder(third)).thenThrow(new IllegalStateException("boom"));
+
+        scheduler.sendReminders();
+
+        verify(customerNotificationLogRepository).insertReminderLogs(eq(List.of(1L)), any());
+        verify(customerService, times(1)).isOwnerNotifiable(10L);
+    }
+
+    /**
+     * Проверяет, что посылки владельцев без права на уведомления не отправляются.
+     */
+    @Test
+    void sendReminders_SkipsOwnersWithoutNotifications() {
+        ReminderCandidateRow allowed = reminder(1L, 10L);
+        ReminderCandidateRow denied = reminder(2L, 20L);
+        when(trackParcelRepository.findDueReminders(any(), any(), eq(0L), eq(TelegramReminderScheduler.PAGE_SIZE)))
+                .thenReturn(List.of(allowed, denied));
+        when(customerService.isOwnerNotifiable(10L)).thenReturn(true);
+        when(customerService.isOwnerNotifiable(20L)).thenReturn(false);
+        when(telegramNotificationService.sendReminder(allowed)).thenReturn(true);
+
+        scheduler.sendReminders();
+
+        verify(telegramNotificationService, never()).sendReminder(denied);
+        verify(customerNotificationLogRepository).insertReminderLogs(eq(List.of(1L)), any());
+    }
+
+    /**
+     * Проверяет переход к следующей порции после последней посылки предыдущей.
+     */
+    @Test
+    void sendReminders_ContinuesAfterLastParcelOfFullPage() {
+        int pageSize = TelegramReminderScheduler.PAGE_SIZE;
+        List<ReminderCandidateRow> fullPage = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> reminder(id, 10L))
+                .toList();
+        ReminderCandidateRow tail = reminder(pageSize + 1L, 10L);
+        when(trackParcelRepository.findDueReminders(any(), any(), eq(0L), eq(pageSize))).thenReturn(fullPage);
+        when(trackParcelRepository.findDueReminders(any(), any(), eq((long) pageSize), eq(pageSize)))
+                .thenReturn(List.of(tail));
+        when(customerService.isOwnerNotifiable(10L)).thenReturn(true);
+        when(telegramNotificationService.sendReminder(any())).thenReturn(true);
+
+        scheduler.sendReminders();
+
+        verify(customerNotificationLogRepository, times(2)).insertReminderLogs(any(), any());
+        verify(trackParcelRepository, times(2)).findDueReminders(any(), any(), anyLong(), eq(pageSize));
+    }
+
+    private static ReminderCandidateRow reminder(Long parcelId, Long ownerId) {
+        return new ReminderCandidateRow() {
+            @Override
+            public Long getParcelId() {
+                return parcelId;
+            }
+
+            @Override
+            public String getTrackNumber() {
+                return "PC" + parcelId;
+            }
+
+            @Override
+            public String getStoreName() {
+                return "Магазин";
+            }
+
+            @Override
+            public Long getOwnerId() {
+                return ownerId;
+            }
+
+            @Override
+            public Long getChatId() {
+                return 100L + parcelId;
+            }
+
+            @Override
+            public String getReminderTemplate() {
+                return null;
+            }
+        };
+    }
+}
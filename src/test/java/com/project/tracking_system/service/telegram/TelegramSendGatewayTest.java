@@ -0,0 +1,140 @@
+package com.project.tracking_system.service.telegram;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для {@link TelegramSendGateway}.
+ */
+@ExtendWith(MockitoExtension.class)
+class TelegramSendGatewayTest {
+
+    @Mock
+    private TelegramClient telegramClient;
+
+    /**
+     * Ответ 429 выдерживает паузу retry_after и повторяет запрос.
+     */
+    @Test
+    void execute_RetriesAfterTooManyRequests() throws Exception {
+        TelegramSendGateway gateway = new TelegramSendGateway(telegramClient, 1000, Duration.ZERO, 1, 3);
+        TelegramApiRequestException tooManyRequests = tooManyRequests(1);
+        when(telegramClient.execute(any(SendMessage.class)))
+                .thenThrow(tooManyRequests)
+                .thenReturn(null);
+
+        long started = System.nanoTime();
+        gateway.execute(1L, new SendMessage("1", "text"), TelegramSendPriority.STATUS);
+
+        assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(900),
+                "Повтор должен выполняться после паузы retry_after");
+        verify(telegramClient, times(2)).execute(any(SendMessage.class));
+        assertEquals(1, gateway.snapshot().throttled());
+        assertEquals(1, gateway.snapshot().sent());
+    }
+
+    /**
+     * Прочие ошибки Telegram не повторяются и возвращаются вызывающему коду.
+     */
+    @Test
+    void execute_PropagatesOtherErrors() throws Exception {
+        TelegramSendGateway gateway = new TelegramSendGateway(telegramClient, 1000, Duration.ZERO, 1, 3);
+        when(telegramClient.execute(any(SendMessage.class)))
+                .thenThrow(new TelegramApiException("message is not modified"));
+
+        assertThrows(TelegramApiException.class,
+                () -> gateway.execute(1L, new SendMessage("1", "text")));
+        verify(telegramClient, times(1)).execute(any(SendMessage.class));
+        assertEquals(1, gateway.snapshot().failed());
+    }
+
+    /**
+     * Когда общий лимит исчерпан, ответ пользователю обгоняет ожидающую рассылку.
+     */
+    @Test
+    void execute_ServesInteractiveBeforeBroadcast() throws Exception {
+        TelegramSendGateway gateway = new TelegramSendGateway(telegramClient, 1, Duration.ZERO, 1, 0);
+        List<String> order = new CopyOnWriteArrayList<>();
+        when(telegramClient.execute(any(SendMessage.class))).thenAnswer(invocation -> {
+            order.add(invocation.<SendMessage>getArgument(0).getChatId());
+            return null;
+        });
+        gateway.execute(0L, new SendMessage("0", "first"));
+
+        CompletableFuture<Void> broadcast = sendAsync(gateway, 2L, TelegramSendPriority.BROADCAST);
+        awaitQueued(gateway, TelegramSendPriority.BROADCAST);
+        CompletableFuture<Void> interactive = sendAsync(gateway, 1L, TelegramSendPriority.INTERACTIVE);
+        awaitQueued(gateway, TelegramSendPriority.INTERACTIVE);
+        CompletableFuture.allOf(broadcast, interactive).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("0", "1", "2"), order);
+    }
+
+    /**
+     * Сообщения в один чат разносятся по времени, в другой чат уходят сразу.
+     */
+    @Test
+    void execute_PacesMessagesToSameChat() throws Exception {
+        TelegramSendGateway gateway = new TelegramSendGateway(telegramClient, 1000, Duration.ofMillis(300), 1, 0);
+
+        gateway.execute(1L, new SendMessage("1", "first"));
+        long started = System.nanoTime();
+        gateway.execute(2L, new SendMessage("2", "other chat"));
+        long otherChat = System.nanoTime() - started;
+        gateway.execute(1L, new SendMessage("1", "second"));
+        long sameChat = System.nanoTime() - started;
+
+        assertTrue(otherChat < TimeUnit.MILLISECONDS.toNanos(200), "Другой чат не должен ждать");
+        assertTrue(sameChat >= TimeUnit.MILLISECONDS.toNanos(250), "Повтор в тот же чат должен ждать интервал");
+    }
+
+    private static CompletableFuture<Void> sendAsync(TelegramSendGateway gateway,
+                                                     Long chatId,
+                                                     TelegramSendPriority priority) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                gateway.execute(chatId, new SendMessage(chatId.toString(), "text"), priority);
+            } catch (TelegramApiException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static void awaitQueued(TelegramSendGateway gateway, TelegramSendPriority priority)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gateway.snapshot().queuedByLane().get(priority.name()) == 0) {
+            assertTrue(System.nanoTime() < deadline, "Запрос не встал в очередь " + priority);
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    private static TelegramApiRequestException tooManyRequests(int retryAfter) {
+        ResponseParameters parameters = mock(ResponseParameters.class);
+        when(parameters.getRetryAfter()).thenReturn(retryAfter);
+        TelegramApiRequestException exception = mock(TelegramApiRequestException.class);
+        when(exception.getErrorCode()).thenReturn(429);
+        when(exception.getParameters()).thenReturn(parameters);
+        return exception;
+    }
+}
@@ -0,0 +1,135 @@
+package com.project.tracking_system.service.telegram;
+
+import com.project.tracking_system.dto.TelegramUpdateMetricsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для {@link TelegramUpdateDispatcher}.
+ */
+class TelegramUpdateDispatcherTest {
+
+    private final TelegramUpdateDispatcher dispatcher = new TelegramUpdateDispatcher(4, 16);
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Обновления одного чата обрабатываются по порядку, разные чаты — параллельно.
+     */
+    @Test
+    void dispatch_KeepsPerChatOrderAndRunsChatsConcurrently() throws Exception {
+        int chats = 8;
+        int perChat = 50;
+        List<Update> updates = new ArrayList<>();
+        for (int i = 0; i < perChat; i++) {
+            for (long chat = 0; chat < chats; chat++) {
+                updates.add(update((int) (i * chats + chat)));
+            }
+        }
+        Map<Long, List<Integer>> seen = new ConcurrentHashMap<>();
+        Map<String, Boolean> threads = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(updates.size());
+
+        dispatcher.dispatch(updates, update -> (long) (update.getUpdateId() % chats), update -> {
+            long chat = update.getUpdateId() % chats;
+            seen.computeIfAbsent(chat, c -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(update.getUpdateId());
+            threads.put(Thread.currentThread().getName(), true);
+            done.countDown();
+        });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        seen.forEach((chat, ids) -> {
+            List<Integer> sorted = new ArrayList<>(ids);
+            Collections.sort(sorted);
+            assertEquals(sorted, ids, "Порядок обновлений чата " + chat + " нарушен");
+        });
+        assertTrue(threads.size() > 1, "Разные чаты должны обрабатываться в разных очередях");
+    }
+
+    /**
+     * Ошибка обработчика учитывается в метриках и не останавливает очередь.
+     */
+    @Test
+    void dispatch_CountsFailuresAndLatency() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+
+        dispatcher.dispatch(List.of(update(1), update(2)), update -> 7L, update -> {
+            done.countDown();
+            if (update.getUpdateId() == 1) {
+                throw new IllegalStateException("boom");
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        awaitProcessed(2);
+        dispatcher.sample();
+        TelegramUpdateMetricsDTO metrics = dispatcher.snapshot();
+        assertEquals(4, metrics.lanes());
+        assertEquals(1, metrics.failed());
+        assertEquals(0, metrics.queued());
+        assertTrue(metrics.avgLatencyMs() >= 0);
+    }
+
+    /**
+     * Переполненная очередь отклоняет обновление вебхука вместо ожидания.
+     */
+    @Test
+    void offer_RejectsWhenLaneIsFull() throws Exception {
+        TelegramUpdateDispatcher small = new TelegramUpdateDispatcher(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            assertTrue(small.offer(update(1), update -> 1L, update -> {
+                started.countDown();
+                awaitQuietly(release);
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(small.offer(update(2), update -> 1L, update -> { }));
+
+            assertFalse(small.offer(update(3), update -> 1L, update -> { }),
+                    "При заполненной очереди обновление должно отклоняться");
+        } finally {
+            release.countDown();
+            small.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitProcessed(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        TelegramUpdateMetricsDTO metrics = dispatcher.snapshot();
+        while (metrics.processed() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            metrics = dispatcher.snapshot();
+        }
+        assertEquals(expected, metrics.processed());
+    }
+
+    private static Update update(int id) {
+        Update update = new Update();
+        update.setUpdateId(id);
+        return update;
+    }
+}
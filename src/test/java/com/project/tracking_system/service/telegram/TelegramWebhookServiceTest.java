@@ -0,0 +1,108 @@
+package com.project.tracking_system.service.telegram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.tracking_system.service.telegram.TelegramWebhookService.WebhookResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты для {@link TelegramWebhookService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class TelegramWebhookServiceTest {
+
+    private static final String SECRET = "secret";
+
+    @Mock
+    private BuyerTelegramBot buyerTelegramBot;
+
+    @Mock
+    private TelegramClient telegramClient;
+
+    private TelegramWebhookService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TelegramWebhookService(buyerTelegramBot, telegramClient, new ObjectMapper(),
+                "", SECRET, 100, Duration.ofMinutes(10), "");
+    }
+
+    /**
+     * Запрос с неверным секретом не попадает в очередь.
+     */
+    @Test
+    void accept_RejectsWrongSecret() {
+        assertEquals(WebhookResult.FORBIDDEN, service.accept("wrong", body(1)));
+        assertEquals(WebhookResult.FORBIDDEN, service.accept(null, body(1)));
+
+        verify(buyerTelegramBot, never()).acceptWebhookUpdate(any());
+    }
+
+    /**
+     * Повторная доставка того же {@code update_id} обрабатывается один раз.
+     */
+    @Test
+    void accept_DropsDuplicateUpdateId() {
+        when(buyerTelegramBot.acceptWebhookUpdate(any())).thenReturn(true);
+
+        assertEquals(WebhookResult.ACCEPTED, service.accept(SECRET, body(7)));
+        assertEquals(WebhookResult.DUPLICATE, service.accept(SECRET, body(7)));
+
+        verify(buyerTelegramBot, times(1)).acceptWebhookUpdate(any());
+    }
+
+    /**
+     * Отклонённое из-за заполненной очереди обновление принимается при повторе.
+     */
+    @Test
+    void accept_BusyUpdateIsAcceptedOnRetry() {
+        when(buyerTelegramBot.acceptWebhookUpdate(any())).thenReturn(false, true);
+
+        assertEquals(WebhookResult.BUSY, service.accept(SECRET, body(9)));
+        assertEquals(WebhookResult.ACCEPTED, service.accept(SECRET, body(9)));
+    }
+
+    /**
+     * Тело без {@code update_id} или с некорректным JSON отклоняется.
+     */
+    @Test
+    void accept_RejectsMalformedBody() {
+        assertEquals(WebhookResult.MALFORMED,
+                service.accept(SECRET, "{not json".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(WebhookResult.MALFORMED,
+                service.accept(SECRET, "{}".getBytes(StandardCharsets.UTF_8)));
+
+        verify(buyerTelegramBot, never()).acceptWebhookUpdate(any());
+    }
+
+    /**
+     * Режим вебхука не запускается без секретного токена.
+     */
+    @Test
+    void constructor_RequiresSecretToken() {
+        assertThrows(IllegalStateException.class, () -> new TelegramWebhookService(buyerTelegramBot,
+                telegramClient, new ObjectMapper(), "", " ", 100, Duration.ofMinutes(10), ""));
+    }
+
+    private static byte[] body(int updateId) {
+        String json = "{\"update_id\":" + updateId
+                + ",\"message\":{\"message_id\":1,\"date\":0,\"chat\":{\"id\":42,\"type\":\"private\"},"
+                + "\"text\":\"/start\"}}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
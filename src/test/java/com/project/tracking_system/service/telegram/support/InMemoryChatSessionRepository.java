@@ -220,6 +220,13 @@ public class InMemoryChatSessionRepository implements ChatSessionRepository {
         session.setAnnouncementUpdatedAt(updatedAt);
     }
 
+    /**
+     * Активность в памяти не отслеживается.
+     */
+    @Override
+    public void recordActivity(Long chatId) {
+    }
+
     /**
      * Создаёт копию сессии, чтобы тесты не изменяли внутреннее состояние напрямую.
      *
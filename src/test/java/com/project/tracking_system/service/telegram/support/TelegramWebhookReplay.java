@@ -0,0 +1,117 @@
+package com.project.tracking_system.service.telegram.support;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Локальная заглушка Telegram для нагрузочной проверки вебхука.
+ * <p>
+ * Читает обновления, записанные вебхуком в файл {@code telegram.webhook.capture-file}
+ * (по одному JSON в строке), и отправляет их на адрес вебхука с заданной частотой,
+ * как это делает Telegram. Каждое обновление можно отправить несколько раз со
+ * сдвигом {@code update_id}, чтобы получить нужный объём без повторов.
+ * </p>
+ * <pre>
+ * TelegramWebhookReplay &lt;файл&gt; &lt;url&gt; &lt;секрет&gt; [запросов в секунду] [повторов]
+ * </pre>
+ */
+public final class TelegramWebhookReplay {
+
+    private static final Pattern UPDATE_ID = Pattern.compile("\"update_id\"\\s*:\\s*(\\d+)");
+
+    private TelegramWebhookReplay() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Использование: TelegramWebhookReplay <файл> <url> <секрет> [rps] [повторов]");
+            System.exit(1);
+        }
+        List<String> updates = Files.readAllLines(Path.of(args[0]), StandardCharsets.UTF_8).stream()
+                .filter(line -> !line.isBlank())
+                .toList();
+        URI target = URI.create(args[1]);
+        String secret = args[2];
+        int rps = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        int repeats = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+        AtomicLong totalNanos = new AtomicLong();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(rps, 1);
+        long idShift = updates.stream().mapToLong(TelegramWebhookReplay::updateId).max().orElse(0)
+                - updates.stream().mapToLong(TelegramWebhookReplay::updateId).min().orElse(0) + 1;
+        long started = System.nanoTime();
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[updates.size() * repeats];
+
+        int sent = 0;
+        for (int round = 0; round < repeats; round++) {
+            for (String update : updates) {
+                long due = started + sent * intervalNanos;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                HttpRequest request = HttpRequest.newBuilder(target)
+                        .timeout(Duration.ofSeconds(10))
+                        .header("Content-Type", "application/json")
+                        .header("X-Telegram-Bot-Api-Secret-Token", secret)
+                        .POST(HttpRequest.BodyPublishers.ofString(shiftUpdateId(update, round * idShift)))
+                        .build();
+                long requestStarted = System.nanoTime();
+                requests[sent++] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .handle((response, error) -> {
+                            int status = error != null ? -1 : response.statusCode();
+                            statuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+                            totalNanos.addAndGet(System.nanoTime() - requestStarted);
+                            return null;
+                        });
+            }
+        }
+        CompletableFuture.allOf(requests).join();
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        System.out.printf("Отправлено %d обновлений за %d мс, среднее время ответа %.2f мс%n",
+                sent, elapsedMillis, sent == 0 ? 0.0 : totalNanos.get() / 1_000_000.0 / sent);
+        new TreeMap<>(statuses).forEach((status, count) ->
+                System.out.printf("  HTTP %s: %d%n", status < 0 ? "ошибка" : status, count.get()));
+    }
+
+    /**
+     * Сдвигает {@code update_id}, чтобы повторная отправка не отбрасывалась как дубликат.
+     */
+    private static String shiftUpdateId(String update, long shift) {
+        if (shift == 0) {
+            return update;
+        }
+        Matcher matcher = UPDATE_ID.matcher(update);
+        if (!matcher.find()) {
+            return update;
+        }
+        long shifted = Long.parseLong(matcher.group(1)) + shift;
+        return update.substring(0, matcher.start(1)) + shifted + update.substring(matcher.end(1));
+    }
+
+    private static long updateId(String update) {
+        Matcher matcher = UPDATE_ID.matcher(update);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+}
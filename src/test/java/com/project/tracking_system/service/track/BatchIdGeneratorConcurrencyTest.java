@@ -38,7 +38,7 @@ class BatchIdGeneratorConcurrencyTest {
     @Test
     void concurrentBatchesReceiveUniqueIdsAndFinishProgress() throws Exception {
         BatchIdGenerator generator = new BatchIdGenerator();
-        ProgressAggregatorService aggregator = new ProgressAggregatorService(webSocketController, Clock.systemUTC(), 0L);
+        ProgressAggregatorService aggregator = new ProgressAggregatorService(webSocketController, Clock.systemUTC());
 
         ExecutorService executor = Executors.newFixedThreadPool(2);
         try {
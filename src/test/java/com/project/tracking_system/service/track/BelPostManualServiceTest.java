@@ -42,7 +42,7 @@ class BelPostManualServiceTest {
     @BeforeEach
     void setUp() {
         Clock clock = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
-        progressAggregatorService = spy(new ProgressAggregatorService(webSocketController, clock, 0L));
+        progressAggregatorService = spy(new ProgressAggregatorService(webSocketController, clock));
         service = new BelPostManualService(
                 belPostTrackQueueService,
                 trackUpdateEligibilityService,
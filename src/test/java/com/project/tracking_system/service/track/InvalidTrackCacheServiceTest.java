@@ -27,7 +27,7 @@ class InvalidTrackCacheServiceTest {
     @BeforeEach
     void setUp() {
         // создаём сервис перед каждым тестом, передавая мок настроек
-        service = new InvalidTrackCacheService(applicationSettingsService);
+        service = new InvalidTrackCacheService(applicationSettingsService, 1 << 20, 1 << 16, 60_000);
     }
 
     /**
@@ -14,6 +14,8 @@ import java.time.ZoneId;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 /**
@@ -60,12 +62,11 @@ class ProgressAggregatorServiceTest {
 
     private ProgressAggregatorService service;
     private MutableClock clock;
-    private static final long INTERVAL = 250L;
 
     @BeforeEach
     void setUp() {
         clock = new MutableClock(Instant.EPOCH, ZoneId.systemDefault());
-        service = new ProgressAggregatorService(webSocketController, clock, INTERVAL);
+        service = new ProgressAggregatorService(webSocketController, clock);
     }
 
     @Test
@@ -103,20 +104,33 @@ class ProgressAggregatorServiceTest {
     }
 
     @Test
-    void sendProgress_ThrottlesIntermediateUpdates() {
+    void getLatestBatchId_FallsBackToOlderActiveBatch() {
+        service.registerBatch(1L, 2, 5L);
+        service.registerBatch(2L, 1, 5L);
+
+        service.trackProcessed(2L);
+
+        assertEquals(1L, service.getLatestBatchId(5L));
+    }
+
+    @Test
+    void flushDirty_SendsOnlyChangedBatches() {
         service.registerBatch(3L, 4, 5L);
+        service.registerBatch(7L, 4, 8L);
         reset(webSocketController);
 
+        // Рабочий поток только помечает партию, отправки не происходит
         service.trackProcessed(3L);
-        verify(webSocketController, never()).sendProgress(eq(5L), any());
-
-        clock.plusMillis(INTERVAL - 50);
         service.trackProcessed(3L);
-        verify(webSocketController, never()).sendProgress(eq(5L), any());
+        verify(webSocketController, never()).sendProgress(anyLong(), any());
 
-        clock.plusMillis(50 + 1);
-        service.trackProcessed(3L);
-        verify(webSocketController).sendProgress(eq(5L), any());
+        service.flushDirty();
+        verify(webSocketController).sendProgress(eq(5L), argThat(dto -> dto.processed() == 2));
+        verify(webSocketController, never()).sendProgress(eq(8L), any());
+
+        // Без новых изменений повторный запуск ничего не отправляет
+        service.flushDirty();
+        verify(webSocketController, times(1)).sendProgress(anyLong(), any());
     }
 
     @Test
@@ -124,12 +138,15 @@ class ProgressAggregatorServiceTest {
         service.registerBatch(4L, 2, 6L);
         reset(webSocketController);
 
-        service.trackProcessed(4L); // first item, should be throttled
+        service.trackProcessed(4L); // промежуточное значение ждёт планировщика
         verify(webSocketController, never()).sendProgress(eq(6L), any());
 
-        clock.plusMillis(INTERVAL / 2); // less than required interval
-        service.trackProcessed(4L); // final update should send regardless of interval
-        verify(webSocketController).sendProgress(eq(6L), any());
+        service.trackProcessed(4L); // финальное значение отправляется сразу
+        verify(webSocketController).sendProgress(eq(6L), argThat(dto -> dto.processed() == 2));
+
+        // Завершённая партия не отправляется повторно планировщиком
+        service.flushDirty();
+        verify(webSocketController, times(1)).sendProgress(eq(6L), any());
 
         TrackProcessingProgressDTO dto = service.getProgress(4L);
         assertEquals(0, dto.total());
@@ -0,0 +1,142 @@
+package com.project.tracking_system.service.track;
+
+import com.project.tracking_system.dto.TrackProcessingProgressDTO;
+import com.project.tracking_system.dto.TrackStatusUpdateDTO;
+import com.project.tracking_system.service.websocket.WebSocketMetricsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты для {@link ProgressBroadcaster}.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProgressBroadcasterTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private WebSocketMetricsService webSocketMetricsService;
+
+    private ProgressBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new ProgressBroadcaster(messagingTemplate, webSocketMetricsService, 3);
+    }
+
+    /**
+     * Финальный сброс дожидается плановой отправки того же пользователя,
+     * поэтому сообщение, отправленное после него, не обгоняет промежуточные.
+     */
+    @Test
+    void flush_WaitsForConcurrentScheduledSend() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            sending.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            delivered.add("progress");
+            return null;
+        }).when(messagingTemplate).convertAndSend(eq(ProgressBroadcaster.PROGRESS_TOPIC + 1), any(Object.class));
+        broadcaster.queueProgress(1L, new TrackProcessingProgressDTO(9L, 1, 10, "0:01"));
+
+        Thread scheduled = new Thread(broadcaster::flushAll);
+        scheduled.start();
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        Thread finalFlush = new Thread(() -> {
+            broadcaster.flush(1L);
+            delivered.add("final");
+        });
+        finalFlush.start();
+        finalFlush.join(200);
+        release.countDown();
+        scheduled.join(5_000);
+        finalFlush.join(5_000);
+
+        assertEquals(List.of("progress", "final"), delivered);
+    }
+
+    /**
+     * Треки пользователя уходят одним массивом, а прогресс — последним значением.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushAll_SendsOneFramePerTopic() {
+        broadcaster.queueTrackProcessed(1L, track("A", "В пути", 1));
+        broadcaster.queueTrackProcessed(1L, track("B", "Вручено", 2));
+        broadcaster.queueProgress(1L, new TrackProcessingProgressDTO(9L, 1, 10, "0:01"));
+        broadcaster.queueProgress(1L, new TrackProcessingProgressDTO(9L, 2, 10, "0:02"));
+
+        broadcaster.flushAll();
+
+        ArgumentCaptor<Object> tracks = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq(ProgressBroadcaster.TRACK_PROCESSED_TOPIC + 1), tracks.capture());
+        assertEquals(List.of("A", "B"),
+                ((List<TrackStatusUpdateDTO>) tracks.getValue()).stream().map(TrackStatusUpdateDTO::trackingNumber).toList());
+        verify(messagingTemplate).convertAndSend(ProgressBroadcaster.PROGRESS_TOPIC + 1,
+                (Object) new TrackProcessingProgressDTO(9L, 2, 10, "0:02"));
+
+        broadcaster.flushAll();
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    /**
+     * При переполнении буфера отбрасываются самые старые треки,
+     * а повторный номер заменяет прежний статус.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void queueTrackProcessed_MergesByNumberAndDropsOldest() {
+        broadcaster.queueTrackProcessed(1L, track("A", "Принято", 1));
+        broadcaster.queueTrackProcessed(1L, track("B", "Принято", 2));
+        broadcaster.queueTrackProcessed(1L, track("A", "В пути", 3));
+        broadcaster.queueTrackProcessed(1L, track("C", "Принято", 4));
+        broadcaster.queueTrackProcessed(1L, track("D", "Принято", 5));
+
+        broadcaster.flush(1L);
+
+        ArgumentCaptor<Object> tracks = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(anyString(), tracks.capture());
+        List<TrackStatusUpdateDTO> sent = (List<TrackStatusUpdateDTO>) tracks.getValue();
+        assertEquals(List.of("A", "C", "D"), sent.stream().map(TrackStatusUpdateDTO::trackingNumber).toList());
+        assertEquals("В пути", sent.get(0).status());
+        verify(webSocketMetricsService).recordDropped(1);
+    }
+
+    /**
+     * Более старый прогресс не перезаписывает уже накопленный.
+     */
+    @Test
+    void queueProgress_KeepsMostAdvancedValue() {
+        broadcaster.queueProgress(2L, new TrackProcessingProgressDTO(5L, 4, 10, "0:04"));
+        broadcaster.queueProgress(2L, new TrackProcessingProgressDTO(5L, 3, 10, "0:05"));
+
+        broadcaster.flush(2L);
+
+        verify(messagingTemplate).convertAndSend(ProgressBroadcaster.PROGRESS_TOPIC + 2,
+                (Object) new TrackProcessingProgressDTO(5L, 4, 10, "0:04"));
+        verify(messagingTemplate, never()).convertAndSend(eq(ProgressBroadcaster.TRACK_PROCESSED_TOPIC + 2), any(Object.class));
+    }
+
+    private static TrackStatusUpdateDTO track(String number, String status, int completed) {
+        return new TrackStatusUpdateDTO(9L, number, status, completed, 10);
+    }
+}
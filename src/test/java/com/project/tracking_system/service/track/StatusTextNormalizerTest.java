@@ -0,0 +1,66 @@
+package com.project.tracking_system.service.track;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Тесты для {@link StatusTextNormalizer}.
+ * <p>
+ * Результат сверяется с прежней реализацией на регулярных выражениях
+ * на случайных строках из пробелов, скобок, точек и многоточий.
+ * </p>
+ */
+class StatusTextNormalizerTest {
+
+    private static final char[] ALPHABET = {
+            'a', 'я', ' ', ' ', '\t', '\n', '\r', '\u000B', '\f', '\u00A0', '\u202F',
+            '(', '(', ')', ')', '.', '.', '…', '\u0001'
+    };
+
+    @Test
+    void normalize_CutsTrailingCommentsAndPunctuation() {
+        assertEquals("Вручено", StatusTextNormalizer.normalize("  Вручено (отделение 5) "));
+        assertEquals("Почтовое отправление прибыло", StatusTextNormalizer.normalize(
+                "Почтовое\u00A0 отправление\t\tприбыло…"));
+        assertEquals("", StatusTextNormalizer.normalize(null));
+    }
+
+    @Test
+    void normalize_AlreadyNormalized_ReturnsSameInstance() {
+        String status = "Отправление принято";
+        assertSame(status, StatusTextNormalizer.normalize(status));
+    }
+
+    @Test
+    void normalize_MatchesRegexImplementation() {
+        Random random = new Random(42);
+        for (int n = 0; n < 200_000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(14);
+            for (int i = 0; i < length; i++) {
+                sb.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            String raw = sb.toString();
+            assertEquals(regexNormalize(raw), StatusTextNormalizer.normalize(raw), () -> "Строка: [" + raw + "]");
+        }
+    }
+
+    /** Прежняя нормализация через {@code replaceAll}. */
+    private static String regexNormalize(String rawStatus) {
+        String normalized = rawStatus.replace('\u00A0', ' ')
+                .replace('\u202F', ' ')
+                .trim()
+                .replaceAll("\\s{2,}", " ");
+        String previous;
+        do {
+            previous = normalized;
+            normalized = normalized.replaceAll("\\s*\\([^)]*\\)$", "").trim();
+            normalized = normalized.replaceAll("[\\.\\)…]+$", "").trim();
+        } while (!normalized.equals(previous));
+        return normalized;
+    }
+}
@@ -0,0 +1,65 @@
+package com.project.tracking_system.service.track;
+
+import com.project.tracking_system.dto.TrackInfoDTO;
+import com.project.tracking_system.entity.GlobalStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сверяет классификатор {@link StatusTrackService} с синтетическим корпусом статусов.
+ * <p>
+ * Файл {@code status/synthetic-statuses.tsv} — не записанные тексты почтовых служб,
+ * а сочетания фраз из шаблонов правил с вариациями пробелов, регистра, хвостовых
+ * скобок и номеров. Ожидаемые статусы получены прогоном прежнего последовательного
+ * резолвера. В каждой строке ожидаемый статус, затем события истории от свежего
+ * к старому через табуляцию. Корпус защищает от расхождений с прежней логикой
+ * правил, но не от изменений формулировок у самих почтовых служб.
+ * </p>
+ */
+class StatusTrackServiceSyntheticCorpusTest {
+
+    private static final String CORPUS_FILE = "status/synthetic-statuses.tsv";
+
+    @Test
+    void setStatus_MatchesSyntheticCorpus() throws IOException {
+        StatusTrackService service = new StatusTrackService();
+        List<String> mismatches = new ArrayList<>();
+        int checked = 0;
+
+        try (InputStream in = Objects.requireNonNull(
+                getClass().getClassLoader().getResourceAsStream(CORPUS_FILE), CORPUS_FILE);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split("\t", -1);
+                GlobalStatus expected = GlobalStatus.valueOf(columns[0]);
+                List<TrackInfoDTO> events = new ArrayList<>();
+                for (int i = 1; i < columns.length; i++) {
+                    events.add(new TrackInfoDTO(null, columns[i]));
+                }
+
+                // Второй вызов идёт через кэш разобранных строк и обязан совпасть с первым
+                GlobalStatus first = service.setStatus(events);
+                GlobalStatus second = service.setStatus(events);
+                if (first != expected || second != expected) {
+                    mismatches.add(expected + " <> " + first + "/" + second + ": " + line);
+                }
+                checked++;
+            }
+        }
+
+        assertTrue(checked > 0, "Файл корпуса пуст");
+        assertEquals(List.of(), mismatches);
+    }
+}
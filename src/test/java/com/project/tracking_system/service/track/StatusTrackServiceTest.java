@@ -220,4 +220,43 @@ class StatusTrackServiceTest {
 
         assertEquals(GlobalStatus.RETURN_IN_PROGRESS, status);
     }
+
+    /**
+     * Поэлементная классификация должна совпадать с классификацией каждого события
+     * по отдельности и указывать на самое раннее ожидание получателя.
+     */
+    @Test
+    void classifyEvents_MatchesPerEventStatusAndFindsEarliestWaiting() {
+        List<TrackInfoDTO> list = List.of(
+                new TrackInfoDTO("23.07.2025, 12:00", "Почтовое отправление выдано"),
+                new TrackInfoDTO("22.07.2025, 10:00", "Поступило в учреждение доставки"),
+                new TrackInfoDTO("21.07.2025, 09:00", "Почтовое отправление прибыло на ОПС выдачи"),
+                new TrackInfoDTO("20.07.2025, 08:00", "Почтовое отправление принято на ОПС")
+        );
+
+        TrackEventClassification result = service.classifyEvents(list);
+        // Повторный вызов обслуживается из кэша и даёт тот же результат
+        TrackEventClassification cached = service.classifyEvents(list);
+
+        assertEquals(GlobalStatus.DELIVERED, result.latestStatus());
+        assertEquals(2, result.earliestWaitingIndex());
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(service.setStatus(List.of(list.get(i))), result.statuses().get(i));
+        }
+        assertEquals(result, cached);
+    }
+
+    /**
+     * Статусы с разными номерами отправлений разбираются одинаково:
+     * номер не влияет на классификацию и не попадает в ключ кэша.
+     */
+    @Test
+    void setStatus_IgnoresTrackNumberInStatusText() {
+        for (String track : List.of("RB123456789BY", "PC987654321CN", "LP00123")) {
+            assertEquals(GlobalStatus.CUSTOMER_NOT_PICKING_UP, service.setStatus(List.of(new TrackInfoDTO(null,
+                    "Добрый день. Отправление " + track + " не востребовано получателем"))));
+            assertEquals(GlobalStatus.RETURN_PENDING_PICKUP, service.setStatus(List.of(new TrackInfoDTO(null,
+                    "Отправление " + track + " прибыло в ОПС № 5 для возврата отправителю"))));
+        }
+    }
 }
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
 
@@ -26,12 +27,17 @@ class TrackDeletionServiceTest {
     private TrackParcelRepository trackParcelRepository;
     @Mock
     private DeliveryHistoryService deliveryHistoryService;
+    @Mock
+    private TrackViewCacheInvalidator trackViewCacheInvalidator;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     private TrackDeletionService service;
 
     @BeforeEach
     void setUp() {
-        service = new TrackDeletionService(trackParcelRepository, deliveryHistoryService);
+        service = new TrackDeletionService(trackParcelRepository, deliveryHistoryService, trackViewCacheInvalidator,
+                eventPublisher);
     }
 
     /**
@@ -75,7 +81,9 @@ class TrackDeletionServiceTest {
     void deleteByIdsAndUserId_DeletesParcels() {
         List<Long> ids = List.of(1L, 2L);
         TrackParcel first = buildParcel("T1");
+        first.setId(1L);
         TrackParcel second = buildParcel("T2");
+        second.setId(2L);
         List<TrackParcel> parcels = List.of(first, second);
         when(trackParcelRepository.findByIdInAndUserId(ids, 1L)).thenReturn(parcels);
 
@@ -85,6 +93,8 @@ class TrackDeletionServiceTest {
         verify(deliveryHistoryService).handleTrackParcelBeforeDelete(first);
         verify(deliveryHistoryService).handleTrackParcelBeforeDelete(second);
         verify(trackParcelRepository).deleteAll(parcels);
+        verify(trackViewCacheInvalidator).evict(1L, 1L);
+        verify(trackViewCacheInvalidator).evict(1L, 2L);
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.project.tracking_system.service.track;
 
 import com.project.tracking_system.dto.TrackParcelDTO;
+import com.project.tracking_system.dto.TrackParcelRow;
 import com.project.tracking_system.entity.GlobalStatus;
 import com.project.tracking_system.entity.Store;
 import com.project.tracking_system.entity.TrackParcel;
@@ -10,6 +11,7 @@ import com.project.tracking_system.repository.DeliveryHistoryRepository;
 import com.project.tracking_system.service.user.UserService;
 import com.project.tracking_system.service.track.TrackServiceClassifier;
 import com.project.tracking_system.service.track.TrackNumberAuditService;
+import com.project.tracking_system.utils.KeysetPage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,6 +24,10 @@ import java.time.ZonedDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 
 /**
@@ -99,6 +105,31 @@ class TrackParcelServiceSortingTest {
         assertEquals("P1", result.get(1).getNumber());
     }
 
+    /**
+     * Строки разных магазинов читаются отдельными запросами и сливаются в общий порядок.
+     */
+    @Test
+    void findByStoreTracksKeyset_MergesStoresInTimestampOrder() {
+        ZonedDateTime now = ZonedDateTime.now();
+        when(trackParcelRepository.findByStoreIdBefore(eq(1L), isNull(), any(), any(), any()))
+                .thenReturn(List.of(buildRow(5L, 1L, now), buildRow(3L, 1L, now.minusHours(2))));
+        when(trackParcelRepository.findByStoreIdBefore(eq(2L), isNull(), any(), any(), any()))
+                .thenReturn(List.of(buildRow(4L, 2L, now.minusHours(1)), buildRow(2L, 2L, now.minusHours(3))));
+        when(userService.getUserZone(1L)).thenReturn(ZoneId.systemDefault());
+
+        KeysetPage<TrackParcelDTO> page = service.findByStoreTracksKeyset(List.of(1L, 2L), null, null, 2, 1L, "desc");
+
+        assertEquals(List.of(5L, 4L), page.content().stream().map(TrackParcelDTO::getId).toList());
+        assertTrue(page.hasNext());
+    }
+
+    /**
+     * Создаёт строку списка отправлений.
+     */
+    private static TrackParcelRow buildRow(Long id, Long storeId, ZonedDateTime timestamp) {
+        return new TrackParcelRow(id, "P" + id, GlobalStatus.IN_TRANSIT, timestamp, storeId, null, null, null);
+    }
+
     /**
      * Создает тестовую посылку с указанным временем.
      */
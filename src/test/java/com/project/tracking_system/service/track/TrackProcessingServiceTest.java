@@ -20,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.ZoneId;
 import java.time.ZoneOffset;
@@ -61,6 +62,10 @@ class TrackProcessingServiceTest {
     private TrackStatisticsUpdater trackStatisticsUpdater;
     @Mock
     private TrackStatusEventService trackStatusEventService;
+    @Mock
+    private TrackViewCacheInvalidator trackViewCacheInvalidator;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     private TrackProcessingService trackProcessingService;
 
@@ -78,7 +83,9 @@ class TrackProcessingServiceTest {
                 userRepository,
                 trackParcelRepository,
                 trackStatisticsUpdater,
-                trackStatusEventService
+                trackStatusEventService,
+                trackViewCacheInvalidator,
+                eventPublisher
         );
     }
 
@@ -121,6 +128,7 @@ class TrackProcessingServiceTest {
     @Test
     void preRegisteredWithStatuses_updatesTrack() {
         TrackParcel parcel = new TrackParcel();
+        parcel.setId(11L);
         parcel.setNumber("AB123");
         parcel.setStatus(GlobalStatus.PRE_REGISTERED);
         Store store = new Store();
@@ -140,6 +148,7 @@ class TrackProcessingServiceTest {
         assertFalse(parcel.isPreRegistered());
         verify(trackParcelRepository).save(parcel);
         verify(trackStatusEventService).replaceEvents(eq(parcel), eq(info.getList()), eq(ZoneId.of("UTC")));
+        verify(trackViewCacheInvalidator).evict(5L, 11L);
     }
 
 }
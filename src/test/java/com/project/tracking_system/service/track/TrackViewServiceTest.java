@@ -45,8 +45,8 @@ class TrackViewServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new TrackViewService(trackParcelService, trackStatusEventService,
-                userService, applicationSettingsService);
+        TrackViewSnapshotLoader loader = new TrackViewSnapshotLoader(trackParcelService, trackStatusEventService);
+        service = new TrackViewService(loader, userService, applicationSettingsService);
     }
 
     /**
@@ -156,6 +156,32 @@ class TrackViewServiceTest {
         assertThat(details.canEditTrack()).isFalse();
     }
 
+    /**
+     * Признаки обновления и часовой пояс вычисляются при каждом запросе,
+     * даже если снимок посылки взят из кэша.
+     */
+    @Test
+    void getTrackDetails_ComputesTimeDependentFieldsPerRequest() {
+        ZonedDateTime lastUpdate = ZonedDateTime.now(ZoneOffset.UTC).minusHours(2);
+        TrackViewSnapshot snapshot = new TrackViewSnapshot(50L, "A1", null, GlobalStatus.IN_TRANSIT,
+                lastUpdate, List.of());
+        TrackViewSnapshotLoader cachedLoader = mock(TrackViewSnapshotLoader.class);
+        when(cachedLoader.load(50L, 9L)).thenReturn(snapshot);
+        when(applicationSettingsService.getTrackUpdateIntervalHours()).thenReturn(4, 4, 1);
+        when(userService.getUserZone(9L)).thenReturn(ZoneId.of("UTC"), ZoneId.of("Europe/Minsk"));
+        TrackViewService cachedService = new TrackViewService(cachedLoader, userService, applicationSettingsService);
+
+        TrackDetailsDto first = cachedService.getTrackDetails(50L, 9L);
+        TrackDetailsDto second = cachedService.getTrackDetails(50L, 9L);
+
+        assertThat(first.refreshAllowed()).isFalse();
+        assertThat(first.nextRefreshAt()).isNotNull();
+        assertThat(first.timeZone()).isEqualTo("UTC");
+        assertThat(second.refreshAllowed()).isTrue();
+        assertThat(second.nextRefreshAt()).isNull();
+        assertThat(second.timeZone()).isEqualTo("Europe/Minsk");
+    }
+
     /**
      * Создаёт тестовую посылку.
      */
@@ -1,5 +1,6 @@
 package com.project.tracking_system.service.track;
 
+import com.project.tracking_system.dto.TrackResultsChunkDTO;
 import com.project.tracking_system.dto.TrackStatusUpdateDTO;
 import com.project.tracking_system.service.admin.ApplicationSettingsService;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +9,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -24,7 +27,7 @@ class TrackingResultCacheServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new TrackingResultCacheService(applicationSettingsService);
+        service = new TrackingResultCacheService(applicationSettingsService, 1 << 20, 1 << 16, 60_000);
     }
 
     @Test
@@ -59,4 +62,67 @@ class TrackingResultCacheServiceTest {
         service.removeExpired();
         assertTrue(service.getResults(1L, 1L).isEmpty(), "Кэш должен удаляться после просмотра при истекшем TTL");
     }
+
+    @Test
+    void getResults_FromOffsetReturnsOnlyNewResults() {
+        for (int i = 1; i <= 5; i++) {
+            service.addResult(1L, new TrackStatusUpdateDTO(7L, "N" + i, i % 2 == 0 ? "Вручено" : "В пути", i, 5));
+        }
+
+        List<TrackStatusUpdateDTO> delta = service.getResults(1L, 7L, 3);
+
+        assertEquals(List.of(new TrackStatusUpdateDTO(7L, "N4", "Вручено", 4, 5),
+                new TrackStatusUpdateDTO(7L, "N5", "В пути", 5, 5)), delta);
+        assertTrue(service.getResults(1L, 7L, 10).isEmpty());
+        assertEquals(7L, service.getLatestBatchId(1L));
+    }
+
+    @Test
+    void getResultsChunk_PagesFromOffsetAndDefaultsToLatestBatch() {
+        service.addResult(1L, new TrackStatusUpdateDTO(3L, "OLD", "ok", 1, 1));
+        for (int i = 1; i <= 5; i++) {
+            service.addResult(1L, new TrackStatusUpdateDTO(7L, "N" + i, "ok", i, 5));
+        }
+
+        TrackResultsChunkDTO first = service.getResultsChunk(1L, null, 0, 2);
+        assertEquals(7L, first.batchId());
+        assertEquals(2, first.nextOffset());
+        assertTrue(first.hasMore());
+        assertEquals("N2", first.results().get(1).trackingNumber());
+
+        TrackResultsChunkDTO rest = service.getResultsChunk(1L, 7L, 2, 10);
+        assertEquals(5, rest.nextOffset());
+        assertFalse(rest.hasMore());
+        assertEquals(3, rest.results().size());
+
+        TrackResultsChunkDTO missing = service.getResultsChunk(2L, null, 4, 10);
+        assertNull(missing.batchId());
+        assertEquals(4, missing.nextOffset());
+    }
+
+    @Test
+    void addResult_EvictsOldBatchesOverUserLimitAndRejectsOverflow() {
+        // Лимит пользователя ~4 КБ: новая партия вытесняет старую
+        service = new TrackingResultCacheService(applicationSettingsService, 1 << 20, 4096, 60_000);
+        service.addResult(1L, new TrackStatusUpdateDTO(1L, "OLD", "ok", 1, 1));
+        for (int i = 0; i < 200; i++) {
+            service.addResult(1L, new TrackStatusUpdateDTO(2L, "RB" + String.format("%09d", i) + "BY", "ok", i + 1, 200));
+        }
+
+        assertTrue(service.getResults(1L, 1L).isEmpty(), "Старая партия должна быть вытеснена");
+        int kept = service.getResults(1L, 2L).size();
+        assertTrue(kept > 0 && kept < 200, "Партия не должна превышать лимит пользователя: " + kept);
+        assertEquals(2L, service.getLatestBatchId(1L));
+    }
+
+    @Test
+    void removeExpired_DropsUnviewedBatchesAfterTheirTtl() {
+        service = new TrackingResultCacheService(applicationSettingsService, 1 << 20, 1 << 16, 0);
+        when(applicationSettingsService.getResultCacheExpirationMs()).thenReturn(60_000L);
+
+        service.addResult(1L, new TrackStatusUpdateDTO(1L, "A1", "ok", 1, 1));
+        service.removeExpired();
+
+        assertNull(service.getLatestBatchId(1L), "Непросмотренная партия удаляется по своему TTL");
+    }
 }
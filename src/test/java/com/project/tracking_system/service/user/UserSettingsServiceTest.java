@@ -4,11 +4,13 @@ import com.project.tracking_system.entity.User;
 import com.project.tracking_system.entity.UserSettings;
 import com.project.tracking_system.repository.UserRepository;
 import com.project.tracking_system.repository.UserSettingsRepository;
+import com.project.tracking_system.service.user.event.UserNotificationSettingsChangedEvent;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,6 +25,8 @@ class UserSettingsServiceTest {
     private UserSettingsRepository settingsRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private UserSettingsService service;
@@ -47,6 +51,7 @@ class UserSettingsServiceTest {
 
         assertTrue(settings.isTelegramNotificationsEnabled());
         verify(settingsRepository).save(settings);
+        verify(eventPublisher).publishEvent(new UserNotificationSettingsChangedEvent(2L));
     }
 
     @Test
@@ -0,0 +1,119 @@
+package com.project.tracking_system.service.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочный стенд STOMP-брокера: тысячи клиентов против запущенного приложения.
+ * <p>
+ * По умолчанию пропускается. Запуск против локального экземпляра:
+ * </p>
+ * <pre>
+ * mvn test -Dtest=StompLoadHarnessTest \
+ *     -Dwebsocket.load.url=ws://localhost:8080/ws \
+ *     -Dwebsocket.load.clients=2000 \
+ *     -Dwebsocket.load.duration-s=60
+ * </pre>
+ * <p>
+ * Каждый клиент подписывается на каналы прогресса своего пользователя
+ * ({@code websocket.load.users} пользователей делят клиентов поровну)
+ * и держит соединение с heartbeat. Во время прогона можно загрузить файл
+ * треков одним из пользователей и наблюдать метрики на
+ * {@code /admin/websocket/metrics}.
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "websocket.load.url", matches = "wss?://.+")
+class StompLoadHarnessTest {
+
+    @Test
+    void holdsConcurrentClients() throws Exception {
+        String url = System.getProperty("websocket.load.url");
+        int clients = Integer.getInteger("websocket.load.clients", 1000);
+        int users = Integer.getInteger("websocket.load.users", 50);
+        Duration duration = Duration.ofSeconds(Integer.getInteger("websocket.load.duration-s", 60));
+
+        ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setPoolSize(4);
+        heartbeatScheduler.initialize();
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new StringMessageConverter());
+        stompClient.setTaskScheduler(heartbeatScheduler);
+        stompClient.setDefaultHeartbeat(new long[]{10_000, 10_000});
+
+        AtomicInteger failed = new AtomicInteger();
+        LongAdder frames = new LongAdder();
+        List<CompletableFuture<StompSession>> connecting = new ArrayList<>(clients);
+        long started = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            long userId = 1 + i % users;
+            connecting.add(stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+                @Override
+                public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+                    session.subscribe("/topic/progress/" + userId, countingHandler(frames));
+                    session.subscribe("/topic/belpost/track-processed/" + userId, countingHandler(frames));
+                }
+
+                @Override
+                public void handleTransportError(StompSession session, Throwable exception) {
+                    failed.incrementAndGet();
+                }
+            }));
+        }
+
+        List<StompSession> sessions = new ArrayList<>(clients);
+        for (CompletableFuture<StompSession> future : connecting) {
+            try {
+                sessions.add(future.get(30, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                failed.incrementAndGet();
+            }
+        }
+        long connectMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        System.out.printf("Подключено %d из %d клиентов за %d мс%n", sessions.size(), clients, connectMs);
+
+        Thread.sleep(duration.toMillis());
+
+        long alive = sessions.stream().filter(StompSession::isConnected).count();
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.printf("Живых сессий: %d, ошибок: %d, кадров получено: %d (%.1f/с)%n",
+                alive, failed.get(), frames.sum(), frames.sum() / seconds);
+
+        sessions.forEach(StompSession::disconnect);
+        heartbeatScheduler.shutdown();
+        assertTrue(alive > 0, "Ни одна сессия не удержала соединение");
+    }
+
+    private static StompFrameHandler countingHandler(LongAdder frames) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return String.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                frames.increment();
+            }
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.project.tracking_system.service.websocket;
+
+import com.project.tracking_system.dto.WebSocketMetricsDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты для {@link WebSocketMetricsService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class WebSocketMetricsServiceTest {
+
+    @Mock
+    private ThreadPoolTaskExecutor inboundExecutor;
+
+    @Mock
+    private ThreadPoolTaskExecutor outboundExecutor;
+
+    private WebSocketMetricsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new WebSocketMetricsService(inboundExecutor, outboundExecutor,
+                Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+    }
+
+    /**
+     * Повторное событие отключения не уменьшает счётчики дважды,
+     * а закрытие медленной сессии учитывается отдельно.
+     */
+    @Test
+    void countsSessionsSubscriptionsAndSlowClosures() {
+        service.onConnected(new SessionConnectedEvent(this, message(SimpMessageType.CONNECT_ACK, "s1")));
+        service.onConnected(new SessionConnectedEvent(this, message(SimpMessageType.CONNECT_ACK, "s2")));
+        service.onSubscribe(new SessionSubscribeEvent(this, message(SimpMessageType.SUBSCRIBE, "s1")));
+        service.onSubscribe(new SessionSubscribeEvent(this, message(SimpMessageType.SUBSCRIBE, "s1")));
+        service.onSubscribe(new SessionSubscribeEvent(this, message(SimpMessageType.SUBSCRIBE, "s2")));
+
+        Message<byte[]> disconnect = message(SimpMessageType.DISCONNECT, "s1");
+        service.onDisconnected(new SessionDisconnectEvent(this, disconnect, "s1", CloseStatus.SESSION_NOT_RELIABLE));
+        service.onDisconnected(new SessionDisconnectEvent(this, disconnect, "s1", CloseStatus.SESSION_NOT_RELIABLE));
+
+        service.postSend(message(SimpMessageType.MESSAGE, "s2"), null, true);
+        service.postSend(message(SimpMessageType.HEARTBEAT, "s2"), null, true);
+        service.recordDropped(3);
+
+        WebSocketMetricsDTO metrics = service.snapshot();
+        assertEquals(1, metrics.sessions());
+        assertEquals(1, metrics.subscriptions());
+        assertEquals(1, metrics.framesSent());
+        assertEquals(3, metrics.droppedMessages());
+        assertEquals(1, metrics.slowSessionsClosed());
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
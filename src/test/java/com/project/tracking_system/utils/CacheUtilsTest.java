@@ -0,0 +1,88 @@
+package com.project.tracking_system.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для {@link CacheUtils}.
+ */
+class CacheUtilsTest {
+
+    private Cache<Long, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = Caffeine.newBuilder().maximumSize(100).build();
+    }
+
+    /**
+     * Значение загружается один раз, {@code null} в кэш не попадает.
+     */
+    @Test
+    void getOrLoad_CachesLoadedValueAndSkipsNull() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(CacheUtils.getOrLoad(cache, 1L, key -> null));
+        CacheUtils.getOrLoad(cache, 1L, key -> "v" + loads.incrementAndGet());
+        String second = CacheUtils.getOrLoad(cache, 1L, key -> "v" + loads.incrementAndGet());
+
+        assertEquals("v1", second);
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * Сброс ключа во время загрузки дожидается её и удаляет устаревший результат.
+     */
+    @Test
+    void invalidateDuringLoad_RemovesLoadedValue() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread loader = new Thread(() -> CacheUtils.getOrLoad(cache, 1L, key -> {
+            loading.countDown();
+            await(release);
+            return "stale";
+        }));
+        loader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        Thread invalidation = new Thread(() -> cache.invalidate(1L));
+        invalidation.start();
+        invalidation.join(200);
+        release.countDown();
+        loader.join(5_000);
+        invalidation.join(5_000);
+
+        assertNull(cache.getIfPresent(1L));
+    }
+
+    /**
+     * Сброс другого ключа не отменяет загрузку.
+     */
+    @Test
+    void invalidateOtherKey_KeepsLoadedValue() {
+        String loaded = CacheUtils.getOrLoad(cache, 1L, key -> {
+            cache.invalidate(2L);
+            return "fresh";
+        });
+
+        assertEquals("fresh", loaded);
+        assertEquals("fresh", cache.getIfPresent(1L));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
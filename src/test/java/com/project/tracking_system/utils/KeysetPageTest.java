@@ -0,0 +1,108 @@
+package com.project.tracking_system.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для {@link KeysetPage} и {@link KeysetCursor}: проход по списку
+ * курсорами в обе стороны на таблице в памяти.
+ */
+class KeysetPageTest {
+
+    private static final ZonedDateTime BASE = ZonedDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    /** Строки с повторяющимися моментами времени, чтобы проверить вторичный ключ id. */
+    private static final List<Row> TABLE = buildTable();
+
+    @Test
+    void forwardAndBackwardWalk_VisitsEveryRowOnceInOrder() {
+        for (boolean ascending : new boolean[]{true, false}) {
+            List<Long> expected = sorted(ascending).stream().map(Row::id).toList();
+
+            // Вперёд до последней страницы
+            List<List<Long>> pages = new ArrayList<>();
+            KeysetPage<Row> page = load(null, 4, ascending);
+            assertFalse(page.hasPrevious(), "У первой страницы нет предыдущей");
+            pages.add(ids(page));
+            while (page.hasNext()) {
+                page = load(page.nextCursor(), 4, ascending);
+                pages.add(ids(page));
+            }
+            assertEquals(expected, pages.stream().flatMap(List::stream).toList());
+
+            // Назад должны вернуться те же страницы в обратном порядке
+            int index = pages.size() - 1;
+            while (page.hasPrevious()) {
+                page = load(page.previousCursor(), 4, ascending);
+                index--;
+                assertEquals(pages.get(index), ids(page));
+            }
+            assertEquals(0, index, "Обратный проход должен закончиться на первой странице");
+        }
+    }
+
+    @Test
+    void decode_RestoresEncodedCursorAndRejectsGarbage() {
+        KeysetCursor cursor = KeysetCursor.before(BASE.plusNanos(123_456_789), 42L);
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+        assertEquals(123_456_000, decoded.timestampUtc().getNano(), "Точность курсора — микросекунды");
+        assertNull(KeysetCursor.decode("не курсор"));
+        assertNull(KeysetCursor.decode("AAAA"));
+        assertNull(KeysetCursor.decode(""));
+    }
+
+    @Test
+    void fromRows_EmptyResult_HasNoCursors() {
+        KeysetPage<Row> page = KeysetPage.fromRows(List.of(), 10, null, Row::timestamp, Row::id);
+
+        assertTrue(page.isEmpty());
+        assertFalse(page.hasNext());
+        assertFalse(page.hasPrevious());
+    }
+
+    /** Эмулирует запрос репозитория с лимитом {@code size + 1}. */
+    private static KeysetPage<Row> load(String token, int size, boolean ascending) {
+        KeysetCursor position = KeysetCursor.decode(token);
+        KeysetCursor from = position != null ? position : KeysetCursor.start(ascending);
+        boolean seekAscending = from.seekAscending(ascending);
+
+        Comparator<Row> order = Comparator.comparing(Row::timestamp).thenComparing(Row::id);
+        Row boundary = new Row(from.id(), from.timestampUtc());
+        List<Row> rows = TABLE.stream()
+                .filter(r -> seekAscending ? order.compare(r, boundary) > 0 : order.compare(r, boundary) < 0)
+                .sorted(seekAscending ? order : order.reversed())
+                .limit(size + 1L)
+                .toList();
+        return KeysetPage.fromRows(rows, size, position, Row::timestamp, Row::id);
+    }
+
+    private static List<Row> sorted(boolean ascending) {
+        Comparator<Row> order = Comparator.comparing(Row::timestamp).thenComparing(Row::id);
+        return TABLE.stream().sorted(ascending ? order : order.reversed()).toList();
+    }
+
+    private static List<Long> ids(KeysetPage<Row> page) {
+        return page.content().stream().map(Row::id).toList();
+    }
+
+    private static List<Row> buildTable() {
+        List<Row> rows = new ArrayList<>();
+        for (long id = 1; id <= 23; id++) {
+            rows.add(new Row(id, BASE.plusMinutes(id % 5)));
+        }
+        return rows;
+    }
+
+    private record Row(Long id, ZonedDateTime timestamp) {
+    }
+}
@@ -0,0 +1,36 @@
+-- Данные для ParcelSearchBenchHarnessTest: 10 пользователей по 100 000 посылок
+-- и 200 000 покупателей. Выполняется стендом один раз на отдельной БД PostgreSQL
+-- после применения миграций.
+
+INSERT INTO tb_users (email, password)
+SELECT 'bench' || u || '@example.com', 'x'
+FROM generate_series(1, 10) AS u;
+
+INSERT INTO tb_stores (name, user_id)
+SELECT 'Магазин ' || u.id, u.id
+FROM tb_users u
+WHERE u.email LIKE 'bench%';
+
+INSERT INTO tb_customers (phone, full_name, reputation)
+SELECT '37529' || lpad(c::text, 7, '0'),
+       (ARRAY['Иванов', 'Петров', 'Сидоров', 'Кузнецов', 'Смирнов'])[1 + c % 5] || ' '
+           || (ARRAY['Иван', 'Пётр', 'Сергей', 'Анна', 'Мария'])[1 + (c / 5) % 5] || ' '
+           || (ARRAY['Иванович', 'Петрович', 'Сергеевна', 'Олегович'])[1 + (c / 25) % 4],
+       'NEW'
+FROM generate_series(1, 200000) AS c;
+
+INSERT INTO tb_track_parcels (tracking_number, status, timestamp, store_id, user_id, customer_id)
+SELECT CASE WHEN n % 2 = 0
+                THEN 'RB' || lpad((n * 7919 % 1000000000)::text, 9, '0') || 'BY'
+                ELSE 'BV' || lpad((n * 104729 % 1000000000)::text, 9, '0') || 'BY' END,
+       'IN_TRANSIT',
+       now() - (n % 365) * interval '1 day',
+       s.id,
+       s.user_id,
+       (SELECT min(id) FROM tb_customers) + n % 200000
+FROM generate_series(1, 1000000) AS n
+JOIN tb_stores s ON s.name = 'Магазин ' || (SELECT min(id) FROM tb_users WHERE email LIKE 'bench%') + n % 10;
+
+ANALYZE tb_track_parcels;
+ANALYZE tb_customers;
+